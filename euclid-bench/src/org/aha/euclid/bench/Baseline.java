@@ -0,0 +1,253 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ *   Runs the benchmarks with the GC profiler and either records the result as
+ *   a baseline or compares the result to a recorded baseline.
+ * </p>
+ * <p>
+ *   Usage:
+ * </p>
+ * <pre>
+ *   Baseline record  baseline-file [benchmark-regexp]
+ *   Baseline compare baseline-file [benchmark-regexp]
+ * </pre>
+ * <p>
+ *   A baseline file has one line per benchmark (and parameter combination):
+ *   The benchmark key, the time in ns/op and the allocation in bytes/op
+ *   separated by tab characters.
+ * </p>
+ * <p>
+ *   When comparing the process exits with status {@code 1} if any benchmark
+ *   is more than
+ *   {@link #TIME_TOLERANCE} slower than the baseline or allocates more than
+ *   {@link #ALLOC_TOLERANCE} bytes/op more than the baseline. It also exits
+ *   with status {@code 1} if a benchmark of the baseline selected by the
+ *   regular expression did not run or if the baseline has none selected, so
+ *   renamed or removed benchmarks and missing baselines are not passed
+ *   silently.
+ * </p>
+ * <p>
+ *   Recording replaces the lines of the benchmarks run and keeps the others
+ *   so a baseline can be recorded a part at a time.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Baseline
+{
+  private Baseline(){} // Utility pattern dictates private constructor.
+
+  /**
+   * <p>
+   *   Relative slow down accepted when comparing with a baseline.
+   * </p>
+   */
+  public static final double TIME_TOLERANCE=0.15;
+
+  /**
+   * <p>
+   *   Bytes/op more than baseline accepted when comparing with a baseline.
+   * </p>
+   */
+  public static final double ALLOC_TOLERANCE=8.0;
+
+  private static final String DEFAULT_INCLUDE="org\\.aha\\.euclid\\.bench\\..*";
+  
+  private static final String ALLOC_KEY="gc.alloc.rate.norm";
+
+  /**
+   * <p>
+   *   Runs benchmarks and records or compares.
+   * </p>
+   * @param args See class documentation.
+   * @throws IOException If fails to read or write baseline file.
+   * @throws RunnerException If fails to run benchmarks.
+   */
+  public static void main(String[] args) throws IOException, RunnerException
+  {
+    if (args.length<2)
+    {
+      System.err.println("usage: Baseline record|compare file [regexp]");
+      System.exit(2);
+    }
+
+    String cmd=args[0];
+    Path file=Paths.get(args[1]);
+    String regexp=(args.length>2) ? args[2] : DEFAULT_INCLUDE;
+
+    if (!cmd.equals("record") && !cmd.equals("compare"))
+    {
+      System.err.println("unknown command : "+cmd);
+      System.exit(2);
+    }
+
+    Options opt=new OptionsBuilder()
+      .include(regexp)
+      .addProfiler(GCProfiler.class)
+      .build();
+
+    Map<String, double[]> curr=toMap(new Runner(opt).run());
+
+    if (cmd.equals("record"))
+    {
+      Map<String, double[]> all=Files.exists(file) ? read(file) :
+        new TreeMap<String, double[]>();
+      all.putAll(curr);
+      write(file, all);
+      return;
+    }
+
+    Map<String, double[]> baseline=read(file);
+    Pattern p=Pattern.compile(regexp);
+    baseline.keySet().removeIf(k -> !p.matcher(benchmark(k)).find());
+    boolean ok=compare(baseline, curr, new PrintWriter(System.out, true));
+    System.exit(ok ? 0 : 1);
+  }
+
+  /**
+   * <p>
+   *   Compares result to baseline.
+   * </p>
+   * @param baseline Baseline.
+   * @param curr     Result.
+   * @param out      Report is printed to.
+   * @return {@code true} if no regression found else {@code false}. A
+   *         benchmark of {@code baseline} missing from {@code curr} or an
+   *         empty {@code baseline} is a regression.
+   */
+  public static boolean compare(Map<String, double[]> baseline,
+    Map<String, double[]> curr, PrintWriter out)
+  {
+    if (baseline.isEmpty())
+    {
+      out.println("FAIL no baseline to compare with");
+      return false;
+    }
+
+    boolean ok=true;
+    for (String key : baseline.keySet())
+    {
+      if (!curr.containsKey(key))
+      {
+        out.println("MISS "+key);
+        ok=false;
+      }
+    }
+    for (Map.Entry<String, double[]> e : curr.entrySet())
+    {
+      String key=e.getKey();
+      double[] c=e.getValue();
+      double[] b=baseline.get(key);
+      if (b==null)
+      {
+        out.println("NEW  "+key+" "+c[0]+" ns/op "+c[1]+" B/op");
+        continue;
+      }
+
+      boolean slower=c[0]>b[0]*(1.0+TIME_TOLERANCE);
+      boolean allocs=c[1]>b[1]+ALLOC_TOLERANCE;
+      ok=ok && !slower && !allocs;
+
+      out.println(((slower || allocs) ? "FAIL " : "OK   ")+key+" "+
+        b[0]+" -> "+c[0]+" ns/op, "+b[1]+" -> "+c[1]+" B/op");
+    }
+    return ok;
+  }
+
+  // Gets benchmark of key, the key without parameters.
+  private static String benchmark(String key)
+  {
+    int i=key.indexOf(':');
+    return (i<0) ? key : key.substring(0, i);
+  }
+
+  // Gets result as map from benchmark key to {ns/op, B/op}. Benchmarks are
+  // average time, scores are in the benchmark's output time unit.
+  private static Map<String, double[]> toMap(Collection<RunResult> rrs)
+  {
+    Map<String, double[]> retVal=new TreeMap<String, double[]>();
+    for (RunResult rr : rrs)
+    {
+      double ns=rr.getParams().getTimeUnit().toNanos(1L);
+      StringBuilder key=new StringBuilder(rr.getParams().getBenchmark());
+      for (String p : rr.getParams().getParamsKeys())
+      {
+        key.append(":").append(p).append("=")
+          .append(rr.getParams().getParam(p));
+      }
+
+      Result<?> alloc=rr.getSecondaryResults().get(ALLOC_KEY);
+      retVal.put(key.toString(), new double[]
+      {
+        ns*rr.getPrimaryResult().getScore(),
+        (alloc==null) ? 0.0 : alloc.getScore()
+      });
+    }
+    return retVal;
+  }
+
+  private static void write(Path file, Map<String, double[]> m)
+    throws IOException
+  {
+    try (PrintWriter pw=new PrintWriter(Files.newBufferedWriter(file,
+      StandardCharsets.UTF_8)))
+    {
+      pw.printf("# Baseline for %s: benchmark<TAB>ns/op<TAB>B/op%n",
+        Baseline.class.getName());
+      pw.printf("# Recorded with: Baseline record %s%n", file);
+      for (Map.Entry<String, double[]> e : m.entrySet())
+      {
+        double[] v=e.getValue();
+        pw.printf(Locale.ROOT, "%s\t%.3f\t%.1f%n", e.getKey(), v[0], v[1]);
+      }
+    }
+  }
+
+  private static Map<String, double[]> read(Path file) throws IOException
+  {
+    Map<String, double[]> retVal=new TreeMap<String, double[]>();
+    try (BufferedReader br=Files.newBufferedReader(file,
+      StandardCharsets.UTF_8))
+    {
+      String line;
+      while ((line=br.readLine())!=null)
+      {
+        line=line.trim();
+        if (line.isEmpty() || line.startsWith("#")) continue;
+        String[] f=line.split("\t");
+        retVal.put(f[0], new double[]
+        {
+          Double.parseDouble(f[1]),
+          Double.parseDouble(f[2])
+        });
+      }
+    }
+    return retVal;
+  }
+
+}
@@ -0,0 +1,91 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.spatial.Bsp3;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link Bsp3} built sequential and parallel over a soup of unit sized
+ *   triangles uniform in a cube and of ordering front to back.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class Bsp3Benchmark
+{
+  @Param({ "1000", "20000", "100000" })
+  public int n;
+
+  private Triangle3[] m_tris;
+
+  private Bsp3 m_bsp;
+
+  private int[] m_order;
+
+  private int[] m_stack;
+
+  /**
+   * <p>
+   *   Creates triangles and tree to order.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    double b=2.0*Math.cbrt(n);
+    m_tris=new Triangle3[n];
+    for (int i=0; i<n; i++)
+    {
+      double x=b*r.nextDouble();
+      double y=b*r.nextDouble();
+      double z=b*r.nextDouble();
+      m_tris[i]=new Triangle3();
+      m_tris[i].set(x, y, z,
+        x+r.nextDouble(), y+r.nextDouble(), z+r.nextDouble(),
+        x+r.nextDouble(), y+r.nextDouble(), z+r.nextDouble());
+    }
+    m_bsp=new Bsp3(m_tris);
+    m_order=new int[m_bsp.size()];
+    m_stack=m_bsp.newStack();
+  }
+
+  @Benchmark
+  public Bsp3 build(){ return new Bsp3(m_tris, false); }
+
+  @Benchmark
+  public Bsp3 parallelBuild(){ return new Bsp3(m_tris, true); }
+
+  @Benchmark
+  public int[] frontToBack()
+  {
+    m_bsp.frontToBack(-1.0, 0.5, 0.25, m_order, m_stack);
+    return m_order;
+  }
+
+}
@@ -0,0 +1,129 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line3;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.spatial.Bvh3;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link Bvh3} queries against the brute force search using
+ *   {@link Euclid#planeLine(org.aha.euclid.Plane3, Line3)} and
+ *   {@link Triangle3#inside(double, double, double)}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class Bvh3Benchmark
+{
+  private static final int QUERIES=256;
+
+  @Param({ "1000", "100000" })
+  public int n;
+
+  private Triangle3[] m_tris;
+
+  private Bvh3 m_bvh;
+
+  private Line3[] m_lines;
+
+  private Euclid m_euclid;
+
+  private int[] m_stack;
+
+  private double[] m_tuv;
+
+  private int m_q=0;
+
+  /**
+   * <p>
+   *   Creates the triangles, hierarchy and query segments.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+
+    m_tris=new Triangle3[n];
+    for (int i=0; i<n; i++)
+    {
+      double x=r.nextDouble()*100;
+      double y=r.nextDouble()*100;
+      double z=r.nextDouble()*100;
+      m_tris[i]=new Triangle3();
+      m_tris[i].set(x, y, z,
+        x+r.nextDouble(), y+r.nextDouble(), z+r.nextDouble()-0.5,
+        x+r.nextDouble()-0.5, y+r.nextDouble(), z+r.nextDouble()-0.5);
+    }
+
+    m_bvh=new Bvh3(m_tris);
+
+    m_lines=new Line3[QUERIES];
+    for (int i=0; i<QUERIES; i++)
+    {
+      m_lines[i]=new Line3(r.nextDouble()*100, r.nextDouble()*100, -1.0,
+        r.nextDouble()*100, r.nextDouble()*100, 101.0);
+    }
+
+    m_euclid=new Euclid();
+    m_stack=m_bvh.newStack();
+    m_tuv=new double[3];
+  }
+
+  private Line3 next(){ return m_lines[(m_q++)&(QUERIES-1)]; }
+
+  @Benchmark
+  public int bvhFirst(){ return m_bvh.first(next(), true, m_tuv, m_stack); }
+
+  @Benchmark
+  public boolean bvhAny(){ return m_bvh.any(next(), true, m_stack); }
+
+  @Benchmark
+  public int bruteForceFirst()
+  {
+    Line3 l=next();
+    Euclid e=m_euclid;
+    int retVal=-1;
+    double first=Double.POSITIVE_INFINITY;
+    for (int i=0; i<m_tris.length; i++)
+    {
+      Triangle3 t=m_tris[i];
+      if (!e.planeLine(t, l)) continue;
+      double pt=e.getPt();
+      if (pt<0.0 || pt>1.0 || pt>=first) continue;
+      if (t.inside(l.getPointX(pt), l.getPointY(pt), l.getPointZ(pt)))
+      {
+        first=pt;
+        retVal=i;
+      }
+    }
+    return retVal;
+  }
+
+}
@@ -0,0 +1,94 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.spatial.ConvexHull2;
+import org.aha.euclid.spatial.ConvexHull3;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link ConvexHull2} and
+ *   {@link ConvexHull3} of points uniform in a square and a cube,
+ *   sequential, parallel and in 3D added one by one.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConvexHullBenchmark
+{
+  @Param({ "10000", "100000", "1000000" })
+  public int n;
+
+  private double[] m_x;
+
+  private double[] m_y;
+
+  private double[] m_p;
+
+  /**
+   * <p>
+   *   Creates points.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_x=new double[n];
+    m_y=new double[n];
+    for (int i=0; i<n; i++)
+    {
+      m_x[i]=r.nextDouble();
+      m_y[i]=r.nextDouble();
+    }
+    m_p=new double[3*n];
+    for (int i=0; i<m_p.length; i++) m_p[i]=r.nextDouble();
+  }
+
+  @Benchmark
+  public int[] hull2(){ return ConvexHull2.hull(m_x, m_y); }
+
+  @Benchmark
+  public int[] parallelHull2(){ return ConvexHull2.hull(m_x, m_y, true); }
+
+  @Benchmark
+  public ConvexHull3 hull3(){ return new ConvexHull3(m_p); }
+
+  @Benchmark
+  public ConvexHull3 parallelHull3(){ return new ConvexHull3(m_p, true); }
+
+  @Benchmark
+  public ConvexHull3 incrementalHull3()
+  {
+    ConvexHull3 retVal=new ConvexHull3();
+    for (int i=0; i<n; i++)
+    {
+      retVal.add(m_p[3*i], m_p[3*i+1], m_p[3*i+2]);
+    }
+    return retVal;
+  }
+
+}
@@ -0,0 +1,87 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.spatial.Delaunay2;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link Delaunay2} for random points and for points on a grid, the
+ *   degenerate case of terrain samples.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class Delaunay2Benchmark
+{
+  @Param({ "10000", "1000000" })
+  public int n;
+
+  private double[] m_x;
+
+  private double[] m_y;
+
+  private double[] m_gx;
+
+  private double[] m_gy;
+
+  /**
+   * <p>
+   *   Creates the points benchmarked.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_x=new double[n];
+    m_y=new double[n];
+    for (int i=0; i<n; i++)
+    {
+      m_x[i]=r.nextDouble();
+      m_y[i]=r.nextDouble();
+    }
+
+    int g=(int)Math.sqrt(n);
+    m_gx=new double[g*g];
+    m_gy=new double[g*g];
+    for (int i=0; i<g*g; i++)
+    {
+      m_gx[i]=i%g;
+      m_gy[i]=i/g;
+    }
+  }
+
+  @Benchmark
+  public Delaunay2 random(){ return new Delaunay2(m_x, m_y); }
+
+  @Benchmark
+  public Delaunay2 parallelRandom(){ return new Delaunay2(m_x, m_y, true); }
+
+  @Benchmark
+  public Delaunay2 grid(){ return new Delaunay2(m_gx, m_gy); }
+
+}
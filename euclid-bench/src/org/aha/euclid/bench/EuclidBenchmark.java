@@ -0,0 +1,153 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Intersections;
+import org.aha.euclid.Line2;
+import org.aha.euclid.Line3;
+import org.aha.euclid.Plane3;
+
+/**
+ * <p>
+ *   Benchmarks of the
+ *   {@link Euclid} calculations.
+ * </p>
+ * <p>
+ *   Benchmarks named {@code *Alloc} allocates the result (a new
+ *   {@link Euclid} or a new {@link Line3}), the others reuses objects held by
+ *   the benchmark state.
+ * </p>
+ * <p>
+ *   Benchmarks named {@code *Stateless} uses
+ *   {@link Intersections}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class EuclidBenchmark
+{
+  private Euclid m_euclid;
+
+  private Line2 m_p2;
+
+  private Line2 m_q2;
+
+  private Line3 m_p3;
+
+  private Line3 m_q3;
+
+  private Plane3 m_plane;
+
+  private Plane3 m_other;
+
+  private Line3 m_line;
+
+  /**
+   * <p>
+   *   Creates the objects benchmarked.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    m_euclid=new Euclid();
+
+    m_p2=new Line2(0.1, 0.2, 1.3, 1.1);
+    m_q2=new Line2(1.2, 0.1, 0.1, 1.4);
+
+    m_p3=new Line3(0.1, 0.2, 0.3, 1.3, 1.1, 0.9);
+    m_q3=new Line3(1.2, 0.1, 0.2, 0.1, 1.4, 1.1);
+
+    m_plane=new Plane3(0.5, 0.5, 0.5, 0.2, 1.0, 0.3);
+    m_other=new Plane3(0.1, 0.2, 0.3, 1.0, 0.1, 0.4);
+
+    m_line=new Line3();
+  }
+
+  @Benchmark
+  public double lineLine2()
+  {
+    m_euclid.lineLine(m_p2, m_q2);
+    return m_euclid.getPt()+m_euclid.getQt();
+  }
+
+  @Benchmark
+  public double lineLine2Alloc()
+  {
+    Euclid e=new Euclid(m_p2, m_q2);
+    return e.getPt()+e.getQt();
+  }
+
+  @Benchmark
+  public double lineLine3()
+  {
+    m_euclid.lineLine(m_p3, m_q3);
+    return m_euclid.getPt()+m_euclid.getQt();
+  }
+
+  @Benchmark
+  public double lineLine3Alloc()
+  {
+    Euclid e=new Euclid(m_p3, m_q3);
+    return e.getPt()+e.getQt();
+  }
+
+  @Benchmark
+  public double planeLine()
+  {
+    m_euclid.planeLine(m_plane, m_p3);
+    return m_euclid.getPt();
+  }
+
+  @Benchmark
+  public double planeLineAlloc()
+  {
+    return new Euclid(m_plane, m_p3).getPt();
+  }
+
+  @Benchmark
+  public Line3 planePlane()
+  {
+    return m_euclid.planePlane(m_plane, m_other, m_line);
+  }
+
+  @Benchmark
+  public Line3 planePlaneAlloc()
+  {
+    return m_euclid.planePlane(m_plane, m_other);
+  }
+
+  @Benchmark
+  public double lineLine3Stateless()
+  {
+    return Intersections.lineLine(m_p3, m_q3).getPt();
+  }
+
+  @Benchmark
+  public double planeLineStateless()
+  {
+    return Intersections.planeLine(m_plane, m_p3).getPt();
+  }
+
+}
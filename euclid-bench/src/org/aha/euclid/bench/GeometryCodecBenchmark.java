@@ -0,0 +1,124 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.GeometryCodec;
+import org.aha.euclid.Triangle3;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link GeometryCodec} against Java serialization for arrays of
+ *   {@link Triangle3}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeometryCodecBenchmark
+{
+  @Param({ "10000", "100000" })
+  public int n;
+
+  private Triangle3[] m_t;
+
+  private Triangle3[] m_into;
+
+  private ByteBuffer m_buf;
+
+  private byte[] m_encoded;
+
+  private byte[] m_serialized;
+
+  /**
+   * <p>
+   *   Creates the triangles benchmarked.
+   * </p>
+   * @throws IOException If fails.
+   */
+  @Setup
+  public void setup() throws IOException
+  {
+    Random r=new Random(42L);
+    m_t=new Triangle3[n];
+    for (int i=0; i<n; i++)
+    {
+      m_t[i]=new Triangle3();
+      m_t[i].set(r.nextDouble(), 0, r.nextDouble(), 1+r.nextDouble(),
+        r.nextDouble(), 0, r.nextDouble(), 1+r.nextDouble(), r.nextDouble());
+    }
+    m_buf=ByteBuffer.allocate((int)GeometryCodec.size(m_t, 0));
+    m_encoded=GeometryCodec.encode(m_t, 0);
+    m_into=GeometryCodec.decode(ByteBuffer.wrap(m_encoded),
+      Triangle3.THE_EMPTY_ARRAY);
+    m_serialized=serialize();
+  }
+
+  @Benchmark
+  public int encode()
+  {
+    m_buf.clear();
+    return GeometryCodec.encode(m_buf, m_t, 0);
+  }
+
+  @Benchmark
+  public byte[] encodeDelta()
+  {
+    return GeometryCodec.encode(m_t, GeometryCodec.DELTA);
+  }
+
+  @Benchmark
+  public Triangle3[] decodeInto()
+  {
+    return GeometryCodec.decode(ByteBuffer.wrap(m_encoded), m_into);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException
+  {
+    ByteArrayOutputStream bos=new ByteArrayOutputStream();
+    try (ObjectOutputStream oos=new ObjectOutputStream(bos))
+    {
+      oos.writeObject(m_t);
+    }
+    return bos.toByteArray();
+  }
+
+  @Benchmark
+  public Object deserialize() throws IOException, ClassNotFoundException
+  {
+    try (ObjectInputStream ois=new ObjectInputStream(
+      new ByteArrayInputStream(m_serialized)))
+    {
+      return ois.readObject();
+    }
+  }
+
+}
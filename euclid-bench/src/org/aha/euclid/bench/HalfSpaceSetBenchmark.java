@@ -0,0 +1,123 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Hyperplane;
+import org.aha.euclid.halfspace.HalfSpaceSet;
+
+/**
+ * <p>
+ *   Benchmarks of classifying points against half-spaces: A double loop of
+ *   {@link Hyperplane#eva(double[])} compared to
+ *   {@link HalfSpaceSet} as given, reordered and in parallel.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class HalfSpaceSetBenchmark
+{
+  @Param({ "2", "3", "6" })
+  public int d;
+
+  @Param({ "16", "128" })
+  public int m;
+
+  private static final int N=1<<20;
+
+  private Hyperplane[] m_h;
+
+  private HalfSpaceSet m_set;
+
+  private HalfSpaceSet m_reordered;
+
+  private double[] m_p;
+
+  private int[] m_result;
+
+  /**
+   * <p>
+   *   Creates half-spaces around the origin and points in a box twice their
+   *   size.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_h=new Hyperplane[m];
+    for (int k=0; k<m; k++)
+    {
+      double[] n=new double[d];
+      double l=0.0;
+      for (int j=0; j<d; j++)
+      {
+        n[j]=r.nextGaussian();
+        l+=n[j]*n[j];
+      }
+      l=Math.sqrt(l);
+      for (int j=0; j<d; j++) n[j]/=l;
+      m_h[k]=new Hyperplane(-0.5-0.5*r.nextDouble(), n);
+    }
+    m_p=new double[N*d];
+    for (int i=0; i<m_p.length; i++) m_p[i]=4.0*r.nextDouble()-2.0;
+    m_result=new int[N];
+    m_set=new HalfSpaceSet(m_h);
+    m_reordered=new HalfSpaceSet(m_h);
+    m_reordered.reorder(Arrays.copyOf(m_p, 4096*d));
+  }
+
+  @Benchmark
+  public int evaLoop()
+  {
+    double[] q=new double[d];
+    int retVal=0;
+    for (int i=0; i<N; i++)
+    {
+      System.arraycopy(m_p, i*d, q, 0, d);
+      int first=-1;
+      for (int k=0; k<m && first<0; k++)
+      {
+        if (m_h[k].eva(q)>0.0) first=k;
+      }
+      m_result[i]=first;
+      if (first<0) retVal++;
+    }
+    return retVal;
+  }
+
+  @Benchmark
+  public int classify(){ return m_set.classify(m_p, m_result); }
+
+  @Benchmark
+  public int classifyReordered(){ return m_reordered.classify(m_p, m_result); }
+
+  @Benchmark
+  public int parallelClassify()
+  {
+    return m_reordered.parallelClassify(m_p, m_result);
+  }
+
+}
@@ -0,0 +1,139 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Line3;
+import org.aha.euclid.Plane3;
+import org.aha.euclid.spatial.KdTree;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link KdTree} built sequential and parallel over points uniform in the
+ *   unit cube and of 1000 queries for the 16 nearest a point, a line and a
+ *   plane.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class KdTreeBenchmark
+{
+  private static final int QUERIES=1000;
+
+  private static final int K=16;
+
+  @Param({ "10000", "100000", "1000000" })
+  public int n;
+
+  private double[] m_p;
+
+  private KdTree m_tree;
+
+  private double[] m_q;
+
+  private Line3[] m_lines;
+
+  private Plane3[] m_planes;
+
+  private int[] m_idx;
+
+  private double[] m_dist;
+
+  private double[] m_stack;
+
+  /**
+   * <p>
+   *   Creates points, tree and queries.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_p=new double[3*n];
+    for (int i=0; i<m_p.length; i++) m_p[i]=r.nextDouble();
+    m_tree=new KdTree(m_p, 3);
+
+    m_q=new double[3*QUERIES];
+    for (int i=0; i<m_q.length; i++) m_q[i]=r.nextDouble();
+    m_lines=new Line3[QUERIES];
+    m_planes=new Plane3[QUERIES];
+    for (int i=0; i<QUERIES; i++)
+    {
+      m_lines[i]=new Line3(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        r.nextDouble(), r.nextDouble(), r.nextDouble());
+      m_planes[i]=new Plane3(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        r.nextGaussian(), r.nextGaussian(), r.nextGaussian());
+    }
+
+    m_idx=new int[K];
+    m_dist=new double[K];
+    m_stack=m_tree.newStack();
+  }
+
+  @Benchmark
+  public KdTree build(){ return new KdTree(m_p, 3, false); }
+
+  @Benchmark
+  public KdTree parallelBuild(){ return new KdTree(m_p, 3, true); }
+
+  @Benchmark
+  public double nearestPoint()
+  {
+    double retVal=0.0;
+    for (int i=0; i<QUERIES; i++)
+    {
+      m_tree.nearest(m_q[3*i], m_q[3*i+1], m_q[3*i+2], K, m_idx, m_dist,
+        m_stack);
+      retVal+=m_dist[K-1];
+    }
+    return retVal;
+  }
+
+  @Benchmark
+  public double nearestLine()
+  {
+    double retVal=0.0;
+    for (int i=0; i<QUERIES; i++)
+    {
+      m_tree.nearest(m_lines[i], false, K, m_idx, m_dist, m_stack);
+      retVal+=m_dist[K-1];
+    }
+    return retVal;
+  }
+
+  @Benchmark
+  public double nearestPlane()
+  {
+    double retVal=0.0;
+    for (int i=0; i<QUERIES; i++)
+    {
+      m_tree.nearest(m_planes[i], K, m_idx, m_dist, m_stack);
+      retVal+=m_dist[K-1];
+    }
+    return retVal;
+  }
+
+}
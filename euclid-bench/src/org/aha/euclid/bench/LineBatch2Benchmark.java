@@ -0,0 +1,113 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line2;
+import org.aha.euclid.LineBatch2;
+
+/**
+ * <p>
+ *   Benchmarks of the
+ *   {@link LineBatch2} bulk line/line intersection against looping over
+ *   {@link Line2} pairs with
+ *   {@link Euclid}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineBatch2Benchmark
+{
+  @Param({ "1000", "100000", "1000000" })
+  public int n;
+
+  private Line2[] m_p;
+
+  private Line2[] m_q;
+
+  private LineBatch2 m_pb;
+
+  private LineBatch2 m_qb;
+
+  private final Euclid m_euclid=new Euclid();
+
+  private double[] m_pt;
+
+  private double[] m_qt;
+
+  private boolean[] m_par;
+
+  /**
+   * <p>
+   *   Creates the lines benchmarked.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_p=new Line2[n];
+    m_q=new Line2[n];
+    for (int i=0; i<n; i++)
+    {
+      m_p[i]=new Line2(r.nextDouble(), r.nextDouble(), 1+r.nextDouble(),
+        r.nextDouble());
+      m_q[i]=new Line2(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        1+r.nextDouble());
+    }
+    m_pb=new LineBatch2(m_p);
+    m_qb=new LineBatch2(m_q);
+    m_pt=new double[n];
+    m_qt=new double[n];
+    m_par=new boolean[n];
+  }
+
+  @Benchmark
+  public double[] objectsLineLine()
+  {
+    for (int i=0; i<n; i++)
+    {
+      m_par[i]=!m_euclid.lineLine(m_p[i], m_q[i]);
+      m_pt[i]=m_euclid.getPt();
+      m_qt[i]=m_euclid.getQt();
+    }
+    return m_pt;
+  }
+
+  @Benchmark
+  public double[] batchLineLine()
+  {
+    LineBatch2.lineLine(m_pb, m_qb, 0, n, m_pt, m_qt, m_par);
+    return m_pt;
+  }
+
+  @Benchmark
+  public double[] parallelBatchLineLine()
+  {
+    LineBatch2.parallelLineLine(m_pb, m_qb, 0, n, m_pt, m_qt, m_par);
+    return m_pt;
+  }
+
+}
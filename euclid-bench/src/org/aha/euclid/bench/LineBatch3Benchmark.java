@@ -0,0 +1,125 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line3;
+import org.aha.euclid.LineBatch3;
+import org.aha.euclid.Plane3;
+
+/**
+ * <p>
+ *   Benchmarks of the
+ *   {@link LineBatch3} bulk plane/line intersection, from a batch and from
+ *   a primitive buffer, against looping over
+ *   {@link Line3} objects with
+ *   {@link Euclid}: Cutting segments with one slicing plane.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineBatch3Benchmark
+{
+  @Param({ "1000", "100000", "1000000" })
+  public int n;
+
+  private Line3[] m_lines;
+
+  private LineBatch3 m_batch;
+
+  private double[] m_buffer;
+
+  private final Plane3 m_plane=new Plane3(0.5, 0.5, 0.5, 0.2, 0.3, 1.0);
+
+  private final Plane3[] m_planes={ m_plane };
+
+  private final Euclid m_euclid=new Euclid();
+
+  private double[] m_t;
+
+  private boolean[] m_hit;
+
+  /**
+   * <p>
+   *   Creates the segments benchmarked.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_lines=new Line3[n];
+    m_buffer=new double[6*n];
+    for (int i=0; i<n; i++)
+    {
+      for (int k=0; k<6; k++) m_buffer[6*i+k]=r.nextDouble();
+      m_lines[i]=new Line3(m_buffer[6*i], m_buffer[6*i+1], m_buffer[6*i+2],
+        m_buffer[6*i+3], m_buffer[6*i+4], m_buffer[6*i+5]);
+    }
+    m_batch=new LineBatch3(m_lines);
+    m_t=new double[n];
+    m_hit=new boolean[n];
+  }
+
+  @Benchmark
+  public double[] objectsPlaneLine()
+  {
+    for (int i=0; i<n; i++)
+    {
+      m_hit[i]=m_euclid.planeLine(m_plane, m_lines[i]);
+      m_t[i]=m_euclid.getPt();
+    }
+    return m_t;
+  }
+
+  @Benchmark
+  public double[] batchPlaneLine()
+  {
+    LineBatch3.planeLine(m_plane, m_batch, 0, n, m_t, m_hit);
+    return m_t;
+  }
+
+  @Benchmark
+  public double[] parallelBatchPlaneLine()
+  {
+    LineBatch3.parallelPlaneLine(m_plane, m_batch, 0, n, m_t, m_hit);
+    return m_t;
+  }
+
+  @Benchmark
+  public double[] bufferPlaneLine()
+  {
+    LineBatch3.planeLine(m_planes, m_buffer, 0, n, m_t, m_hit);
+    return m_t;
+  }
+
+  @Benchmark
+  public double[] parallelBufferPlaneLine()
+  {
+    LineBatch3.parallelPlaneLine(m_planes, m_buffer, 0, n, m_t, m_hit);
+    return m_t;
+  }
+
+}
@@ -0,0 +1,102 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Mesh3;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.quality.Histogram;
+import org.aha.euclid.quality.MeshQuality;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link MeshQuality} compared to a hand written loop asking
+ *   {@link Triangle3} for ratio, area and edge lengths.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class MeshQualityBenchmark
+{
+  @Param({ "10000", "100000", "1000000" })
+  public int n;
+
+  private Mesh3 m_mesh;
+
+  private MeshQuality m_quality;
+
+  private final Triangle3 m_triangle=new Triangle3();
+
+  /**
+   * <p>
+   *   Creates mesh of random triangles.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    double[] v=new double[9*n];
+    for (int i=0; i<v.length; i++) v[i]=r.nextDouble();
+    int[] t=new int[3*n];
+    for (int i=0; i<t.length; i++) t[i]=i;
+    m_mesh=new Mesh3(v, t);
+    m_quality=new MeshQuality(m_mesh, 64, 100.0);
+  }
+
+  @Benchmark
+  public Histogram handWritten()
+  {
+    Histogram ratio=new Histogram(64, 2.0, 100.0);
+    Histogram area=new Histogram(64, 0.0, 1.0);
+    Histogram length=new Histogram(64, 0.0, 2.0);
+    Triangle3 t=m_triangle;
+    for (int k=0; k<n; k++)
+    {
+      m_mesh.getTriangle(k, t);
+      ratio.add(t.ratio());
+      area.add(t.area());
+      length.add(t.length0());
+      length.add(t.length1());
+      length.add(t.length2());
+    }
+    return ratio;
+  }
+
+  @Benchmark
+  public Histogram analyze()
+  {
+    m_quality.analyze();
+    return m_quality.getHistogram(MeshQuality.RATIO);
+  }
+
+  @Benchmark
+  public Histogram parallelAnalyze()
+  {
+    m_quality.parallelAnalyze();
+    return m_quality.getHistogram(MeshQuality.RATIO);
+  }
+
+}
@@ -0,0 +1,94 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Mesh3;
+import org.aha.euclid.io.MeshReader;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link MeshReader} reading a binary STL file of random triangles.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class MeshReaderBenchmark
+{
+  @Param({ "100000", "1000000" })
+  public int n;
+
+  private Path m_stl;
+
+  /**
+   * <p>
+   *   Writes the file benchmarked.
+   * </p>
+   * @throws IOException If fails.
+   */
+  @Setup
+  public void setup() throws IOException
+  {
+    Random r=new Random(42L);
+    ByteBuffer b=ByteBuffer.allocate(84+50*n).order(ByteOrder.LITTLE_ENDIAN);
+    b.position(80);
+    b.putInt(n);
+    for (int k=0; k<n; k++)
+    {
+      for (int j=0; j<12; j++) b.putFloat(r.nextFloat());
+      b.putShort((short)0);
+    }
+    m_stl=Files.createTempFile("bench", ".stl");
+    Files.write(m_stl, b.array());
+  }
+
+  /**
+   * <p>
+   *   Deletes the file benchmarked.
+   * </p>
+   * @throws IOException If fails.
+   */
+  @TearDown
+  public void tearDown() throws IOException{ Files.delete(m_stl); }
+
+  @Benchmark
+  public Mesh3 stl() throws IOException
+  {
+    return MeshReader.readStl(m_stl, false);
+  }
+
+  @Benchmark
+  public Mesh3 parallelStl() throws IOException
+  {
+    return MeshReader.readStl(m_stl, true);
+  }
+
+}
@@ -0,0 +1,155 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Mesh3;
+import org.aha.euclid.slice.MeshSlicer;
+import org.aha.euclid.slice.Polyline;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link MeshSlicer} slicing a sphere mesh into layers sequentially and in
+ *   parallel, compared to only finding the cut triangles of each layer by
+ *   testing all triangles.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class MeshSlicerBenchmark
+{
+  @Param({ "64", "256", "1024" })
+  public int n;
+
+  @Param({ "100", "1000" })
+  public int layers;
+
+  private Mesh3 m_mesh;
+
+  private MeshSlicer m_slicer;
+
+  private double[] m_h;
+
+  /**
+   * <p>
+   *   Creates sphere of {@code n} rings by {@code 2*n} sectors and layer
+   *   heights.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    m_mesh=sphere(n, 2*n);
+    m_slicer=new MeshSlicer(m_mesh, 0.0, 0.0, 1.0);
+    m_h=new double[layers];
+    for (int i=0; i<layers; i++) m_h[i]=-1.0+2.0*(i+0.5)/layers;
+  }
+
+  @Benchmark
+  public int bruteForceCut()
+  {
+    double[] v=m_mesh.vertices();
+    int[] t=m_mesh.indices();
+    int nt=m_mesh.size();
+    int retVal=0;
+    for (double h : m_h)
+    {
+      for (int k=0; k<nt; k++)
+      {
+        boolean a=v[3*t[3*k]+2]<h;
+        boolean b=v[3*t[3*k+1]+2]<h;
+        boolean c=v[3*t[3*k+2]+2]<h;
+        if (a!=b || b!=c) retVal++;
+      }
+    }
+    return retVal;
+  }
+
+  @Benchmark
+  public List<List<Polyline>> slice(){ return m_slicer.slice(m_h); }
+
+  @Benchmark
+  public List<List<Polyline>> parallelSlice()
+  {
+    return m_slicer.parallelSlice(m_h);
+  }
+
+  @Benchmark
+  public MeshSlicer create()
+  {
+    return new MeshSlicer(m_mesh, 0.0, 0.0, 1.0);
+  }
+
+  private static Mesh3 sphere(int rings, int sectors)
+  {
+    int nv=2+(rings-1)*sectors;
+    double[] v=new double[3*nv];
+    v[2]=-1.0;
+    v[5]=1.0;
+    for (int r=1; r<rings; r++)
+    {
+      double th=Math.PI*r/rings;
+      for (int s=0; s<sectors; s++)
+      {
+        double ph=2.0*Math.PI*s/sectors;
+        int o=3*(2+(r-1)*sectors+s);
+        v[o]=Math.sin(th)*Math.cos(ph);
+        v[o+1]=Math.sin(th)*Math.sin(ph);
+        v[o+2]=-Math.cos(th);
+      }
+    }
+
+    int[] t=new int[6*sectors*(rings-1)];
+    int o=0;
+    int top=2+(rings-2)*sectors;
+    for (int s=0; s<sectors; s++)
+    {
+      int s1=(s+1)%sectors;
+      t[o++]=0;
+      t[o++]=2+s1;
+      t[o++]=2+s;
+      t[o++]=1;
+      t[o++]=top+s;
+      t[o++]=top+s1;
+    }
+    for (int r=1; r<rings-1; r++)
+    {
+      int b=2+(r-1)*sectors;
+      int u=b+sectors;
+      for (int s=0; s<sectors; s++)
+      {
+        int s1=(s+1)%sectors;
+        t[o++]=b+s;
+        t[o++]=b+s1;
+        t[o++]=u+s1;
+        t[o++]=b+s;
+        t[o++]=u+s1;
+        t[o++]=u+s;
+      }
+    }
+    return new Mesh3(v, t);
+  }
+
+}
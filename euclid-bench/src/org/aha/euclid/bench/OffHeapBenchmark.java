@@ -0,0 +1,142 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Line3;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.offheap.Line3Store;
+import org.aha.euclid.offheap.Line3View;
+import org.aha.euclid.offheap.OffHeapArena;
+import org.aha.euclid.offheap.Triangle3Store;
+import org.aha.euclid.offheap.Triangle3View;
+
+/**
+ * <p>
+ *   Benchmarks of queries over all elements of
+ *   {@link org.aha.euclid.offheap} stores compared to the same queries over
+ *   arrays of heap objects.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class OffHeapBenchmark
+{
+  @Param({ "1000", "100000", "1000000" })
+  public int n;
+
+  private Line3[] m_lines;
+
+  private Triangle3[] m_triangles;
+
+  private OffHeapArena m_arena;
+
+  private Line3View m_lineView;
+
+  private Triangle3View m_triangleView;
+
+  /**
+   * <p>
+   *   Creates the lines and triangles benchmarked on and off heap.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_arena=new OffHeapArena();
+    m_lines=new Line3[n];
+    m_triangles=new Triangle3[n];
+    Line3Store ls=new Line3Store(m_arena, n);
+    Triangle3Store ts=new Triangle3Store(m_arena, n);
+    for (int i=0; i<n; i++)
+    {
+      m_lines[i]=new Line3(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        1+r.nextDouble(), 1+r.nextDouble(), 1+r.nextDouble());
+      ls.set(i, m_lines[i]);
+
+      m_triangles[i]=new Triangle3();
+      m_triangles[i].set(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        1+r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        r.nextDouble(), 1+r.nextDouble(), r.nextDouble());
+      ts.set(i, m_triangles[i]);
+    }
+    m_lineView=ls.view();
+    m_triangleView=ts.view();
+  }
+
+  /**
+   * <p>
+   *   Frees the off heap memory.
+   * </p>
+   */
+  @TearDown
+  public void tearDown(){ m_arena.close(); }
+
+  @Benchmark
+  public double lineDistanceHeap()
+  {
+    double retVal=0.0;
+    for (Line3 l : m_lines) retVal+=l.distance(0.5, 0.5, 0.5);
+    return retVal;
+  }
+
+  @Benchmark
+  public double lineDistanceOffHeap()
+  {
+    double retVal=0.0;
+    Line3View v=m_lineView;
+    for (int i=0; i<n; i++) retVal+=v.moveTo(i).distance(0.5, 0.5, 0.5);
+    return retVal;
+  }
+
+  @Benchmark
+  public int triangleInsideHeap()
+  {
+    int retVal=0;
+    double[] c=new double[3];
+    for (Triangle3 t : m_triangles)
+    {
+      t.closest(0.5, 0.5, 0.5, c);
+      if (t.inside(c[0], c[1], c[2])) retVal++;
+    }
+    return retVal;
+  }
+
+  @Benchmark
+  public int triangleInsideOffHeap()
+  {
+    int retVal=0;
+    double[] c=new double[3];
+    Triangle3View v=m_triangleView;
+    for (int i=0; i<n; i++)
+    {
+      v.moveTo(i).closest(0.5, 0.5, 0.5, c);
+      if (v.inside(c[0], c[1], c[2])) retVal++;
+    }
+    return retVal;
+  }
+
+}
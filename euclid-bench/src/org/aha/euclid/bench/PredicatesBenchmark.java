@@ -0,0 +1,122 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.math.Comparisons;
+import org.aha.euclid.math.EuclidMath;
+import org.aha.euclid.math.Predicates;
+import org.aha.euclid.math.ToleranceContext;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link Predicates} and of
+ *   {@link EuclidMath#inside(double, double, double, double, double, double, double, double, double, double, double, double)}
+ *   in plain and exact mode on random, non degenerate, data.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class PredicatesBenchmark
+{
+  @Param({ "1000", "100000" })
+  public int n;
+
+  // 5 random points per test.
+  private double[] m_p;
+
+  private final ToleranceContext m_exact=
+    new ToleranceContext(Comparisons.DEFAULT_DELTA, true);
+
+  private int m_count;
+
+  private final Runnable m_inside=new Runnable()
+  {
+    @Override
+    public void run(){ m_count=inside(); }
+  };
+
+  /**
+   * <p>
+   *   Creates the points benchmarked.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_p=new double[15*n];
+    for (int i=0; i<m_p.length; i++) m_p[i]=r.nextDouble();
+  }
+
+  @Benchmark
+  public int inside(){ return inside(m_p, n); }
+
+  @Benchmark
+  public int exactInside()
+  {
+    m_exact.run(m_inside);
+    return m_count;
+  }
+
+  @Benchmark
+  public int orient3d()
+  {
+    double[] p=m_p;
+    int retVal=0;
+    for (int i=0, o=0; i<n; i++, o+=15)
+    {
+      if (Predicates.orient3d(p[o], p[o+1], p[o+2], p[o+3], p[o+4], p[o+5],
+        p[o+6], p[o+7], p[o+8], p[o+9], p[o+10], p[o+11])>0.0) retVal++;
+    }
+    return retVal;
+  }
+
+  @Benchmark
+  public int insphere()
+  {
+    double[] p=m_p;
+    int retVal=0;
+    for (int i=0, o=0; i<n; i++, o+=15)
+    {
+      if (Predicates.insphere(p[o], p[o+1], p[o+2], p[o+3], p[o+4], p[o+5],
+        p[o+6], p[o+7], p[o+8], p[o+9], p[o+10], p[o+11], p[o+12], p[o+13],
+        p[o+14])>0.0) retVal++;
+    }
+    return retVal;
+  }
+
+  private static int inside(double[] p, int n)
+  {
+    int retVal=0;
+    for (int i=0, o=0; i<n; i++, o+=15)
+    {
+      if (EuclidMath.inside(p[o], p[o+1], p[o+2], p[o+3], p[o+4], p[o+5],
+        p[o+6], p[o+7], p[o+8], p[o+9], p[o+10], p[o+11])) retVal++;
+    }
+    return retVal;
+  }
+
+}
@@ -0,0 +1,94 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line2;
+import org.aha.euclid.spatial.SegmentSweep2;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link SegmentSweep2} against testing all pairs with
+ *   {@link Euclid#lineLine(Line2, Line2)}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class SegmentSweep2Benchmark
+{
+  @Param({ "1000", "10000" })
+  public int n;
+
+  private Line2[] m_segs;
+
+  private SegmentSweep2 m_sweep;
+
+  private final Euclid m_euclid=new Euclid();
+
+  /**
+   * <p>
+   *   Creates the segments benchmarked: Short segments spread in the unit
+   *   square, as edges of a map.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    double s=1.0/Math.sqrt(n);
+    m_segs=new Line2[n];
+    for (int i=0; i<n; i++)
+    {
+      double x=r.nextDouble();
+      double y=r.nextDouble();
+      m_segs[i]=new Line2(x, y, x+s*r.nextGaussian(), y+s*r.nextGaussian());
+    }
+    m_sweep=new SegmentSweep2(m_segs);
+  }
+
+  @Benchmark
+  public int sweep(){ return m_sweep.intersect(); }
+
+  @Benchmark
+  public int allPairs()
+  {
+    int retVal=0;
+    for (int i=0; i<n; i++)
+    {
+      for (int j=i+1; j<n; j++)
+      {
+        if (m_euclid.lineLine(m_segs[i], m_segs[j]))
+        {
+          double pt=m_euclid.getPt();
+          double qt=m_euclid.getQt();
+          if (pt>=0.0 && pt<=1.0 && qt>=0.0 && qt<=1.0) retVal++;
+        }
+      }
+    }
+    return retVal;
+  }
+
+}
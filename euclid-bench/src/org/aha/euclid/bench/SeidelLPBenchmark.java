@@ -0,0 +1,119 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Hyperplane;
+import org.aha.euclid.halfspace.SeidelLP;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link SeidelLP} solving a batch of independent programs with one
+ *   workspace reused, a workspace per program and in parallel.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class SeidelLPBenchmark
+{
+  @Param({ "2", "3", "4" })
+  public int d;
+
+  @Param({ "100", "1000" })
+  public int m;
+
+  private static final int N=1000;
+
+  private Hyperplane[][] m_h;
+
+  private double[][] m_c;
+
+  private double[][] m_x;
+
+  private boolean[] m_feasible;
+
+  private SeidelLP m_lp;
+
+  /**
+   * <p>
+   *   Creates programs of {@code m} random constraints.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_h=new Hyperplane[N][m];
+    m_c=new double[N][d];
+    m_x=new double[N][d];
+    m_feasible=new boolean[N];
+    for (int k=0; k<N; k++)
+    {
+      for (int i=0; i<m; i++)
+      {
+        double[] n=new double[d];
+        double l=0.0;
+        for (int j=0; j<d; j++)
+        {
+          n[j]=r.nextGaussian();
+          l+=n[j]*n[j];
+        }
+        l=Math.sqrt(l);
+        for (int j=0; j<d; j++) n[j]/=l;
+        m_h[k][i]=new Hyperplane(-1.0-r.nextDouble(), n);
+      }
+      for (int j=0; j<d; j++) m_c[k][j]=r.nextGaussian();
+    }
+    m_lp=new SeidelLP(d, m);
+  }
+
+  @Benchmark
+  public boolean[] reusedWorkspace()
+  {
+    for (int k=0; k<N; k++)
+    {
+      m_feasible[k]=m_lp.solve(m_h[k], m_c[k], m_x[k]);
+    }
+    return m_feasible;
+  }
+
+  @Benchmark
+  public boolean[] workspacePerProgram()
+  {
+    for (int k=0; k<N; k++)
+    {
+      m_feasible[k]=new SeidelLP(d).solve(m_h[k], m_c[k], m_x[k]);
+    }
+    return m_feasible;
+  }
+
+  @Benchmark
+  public boolean[] parallelSolve()
+  {
+    SeidelLP.parallelSolve(m_h, m_c, m_x, m_feasible);
+    return m_feasible;
+  }
+
+}
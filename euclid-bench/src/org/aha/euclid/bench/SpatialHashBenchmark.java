@@ -0,0 +1,85 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Sphere3;
+import org.aha.euclid.spatial.PairBuffer;
+import org.aha.euclid.spatial.SpatialHash;
+
+/**
+ * <p>
+ *   Benchmarks of the
+ *   {@link SpatialHash} broad phase for a simulation step: Update then find
+ *   pairs.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpatialHashBenchmark
+{
+  @Param({ "10000", "100000", "500000" })
+  public int n;
+
+  private Sphere3[] m_spheres;
+
+  private SpatialHash m_hash;
+
+  private final PairBuffer m_pairs=new PairBuffer();
+
+  /**
+   * <p>
+   *   Creates the spheres benchmarked: Density so each sphere overlaps about
+   *   one other.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    double side=Math.cbrt(n);
+    m_spheres=new Sphere3[n];
+    for (int i=0; i<n; i++)
+    {
+      m_spheres[i]=new Sphere3(side*r.nextDouble(), side*r.nextDouble(),
+        side*r.nextDouble(), 0.2+0.2*r.nextDouble());
+    }
+    m_hash=new SpatialHash(m_spheres);
+  }
+
+  @Benchmark
+  public PairBuffer step()
+  {
+    m_hash.update(m_spheres);
+    return m_hash.pairs(m_pairs);
+  }
+
+  @Benchmark
+  public PairBuffer parallelStep()
+  {
+    m_hash.parallelUpdate(m_spheres);
+    return m_hash.parallelPairs(m_pairs);
+  }
+
+}
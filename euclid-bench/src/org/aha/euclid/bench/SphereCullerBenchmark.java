@@ -0,0 +1,149 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Plane3;
+import org.aha.euclid.Sphere3;
+import org.aha.euclid.halfspace.SphereCuller;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link SphereCuller} culling spheres in clusters of 16 against a box
+ *   covering about a tenth of the space they are in: One by one, in batch as
+ *   objects and arrays, with plane coherence and as a tree of clusters.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class SphereCullerBenchmark
+{
+  private static final int CLUSTER=16;
+
+  @Param({ "100000", "1000000" })
+  public int n;
+
+  private SphereCuller m_culler;
+
+  private Sphere3[] m_spheres;
+
+  private double[] m_x;
+
+  private double[] m_y;
+
+  private double[] m_z;
+
+  private double[] m_r;
+
+  private int[] m_skip;
+
+  private byte[] m_codes;
+
+  private int[] m_last;
+
+  /**
+   * <p>
+   *   Creates spheres, in preorder of a tree where each cluster has a
+   *   parent sphere enclosing it.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    m_culler=new SphereCuller(
+      new Plane3(0.75, 0, 0, 1, 0, 0), new Plane3(0.25, 0, 0, -1, 0, 0),
+      new Plane3(0, 0.75, 0, 0, 1, 0), new Plane3(0, 0.25, 0, 0, -1, 0),
+      new Plane3(0, 0, 0.75, 0, 0, 1), new Plane3(0, 0, 0.25, 0, 0, -1));
+
+    Random r=new Random(42L);
+    m_x=new double[n];
+    m_y=new double[n];
+    m_z=new double[n];
+    m_r=new double[n];
+    m_skip=new int[n];
+    m_spheres=new Sphere3[n];
+    double cx=0.0;
+    double cy=0.0;
+    double cz=0.0;
+    for (int i=0; i<n; i++)
+    {
+      if (i%(CLUSTER+1)==0)
+      {
+        cx=r.nextDouble();
+        cy=r.nextDouble();
+        cz=r.nextDouble();
+        m_x[i]=cx;
+        m_y[i]=cy;
+        m_z[i]=cz;
+        m_r[i]=0.02;
+        m_skip[i]=Math.min(n, i+CLUSTER+1);
+      }
+      else
+      {
+        m_x[i]=cx+0.005*(2.0*r.nextDouble()-1.0);
+        m_y[i]=cy+0.005*(2.0*r.nextDouble()-1.0);
+        m_z[i]=cz+0.005*(2.0*r.nextDouble()-1.0);
+        m_r[i]=0.005*r.nextDouble();
+        m_skip[i]=i+1;
+      }
+      m_spheres[i]=new Sphere3(m_x[i], m_y[i], m_z[i], m_r[i]);
+    }
+    m_codes=new byte[n];
+    m_last=new int[n];
+  }
+
+  @Benchmark
+  public int oneByOne()
+  {
+    int retVal=0;
+    for (Sphere3 s : m_spheres)
+    {
+      if (m_culler.classify(s)!=SphereCuller.OUTSIDE) retVal++;
+    }
+    return retVal;
+  }
+
+  @Benchmark
+  public int objects(){ return m_culler.classify(m_spheres, m_codes); }
+
+  @Benchmark
+  public int arrays()
+  {
+    return m_culler.classify(m_x, m_y, m_z, m_r, 0, n, m_codes);
+  }
+
+  @Benchmark
+  public int coherent()
+  {
+    return m_culler.classify(m_x, m_y, m_z, m_r, 0, n, m_codes, m_last);
+  }
+
+  @Benchmark
+  public int tree()
+  {
+    return m_culler.classifyTree(m_x, m_y, m_z, m_r, m_skip, m_codes);
+  }
+
+}
@@ -0,0 +1,110 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.TriangleBatch3;
+
+/**
+ * <p>
+ *   Benchmarks of the
+ *   {@link TriangleBatch3} bulk methods against looping over
+ *   {@link Triangle3} objects.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class TriangleBatch3Benchmark
+{
+  @Param({ "1000", "100000" })
+  public int n;
+
+  private Triangle3[] m_tris;
+
+  private TriangleBatch3 m_batch;
+
+  private double[] m_d;
+
+  private boolean[] m_in;
+
+  /**
+   * <p>
+   *   Creates the triangles benchmarked.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    Random r=new Random(42L);
+    m_tris=new Triangle3[n];
+    for (int i=0; i<n; i++)
+    {
+      m_tris[i]=new Triangle3();
+      m_tris[i].set(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+                    r.nextDouble(), r.nextDouble(), r.nextDouble(),
+                    r.nextDouble(), r.nextDouble(), r.nextDouble());
+    }
+    m_batch=new TriangleBatch3(m_tris);
+    m_d=new double[n];
+    m_in=new boolean[n];
+  }
+
+  @Benchmark
+  public double[] batchAxbyczd()
+  {
+    return m_batch.axbyczd(0, n, 0.4, 0.5, 0.6, m_d);
+  }
+
+  @Benchmark
+  public double[] objectsAxbyczd()
+  {
+    for (int i=0; i<n; i++) m_d[i]=m_tris[i].axbyczd(0.4, 0.5, 0.6);
+    return m_d;
+  }
+
+  @Benchmark
+  public double[] batchArea(){ return m_batch.area(0, n, m_d); }
+
+  @Benchmark
+  public double[] objectsArea()
+  {
+    for (int i=0; i<n; i++) m_d[i]=m_tris[i].area();
+    return m_d;
+  }
+
+  @Benchmark
+  public boolean[] batchInside()
+  {
+    return m_batch.inside(0, n, 0.4, 0.5, 0.6, m_in);
+  }
+
+  @Benchmark
+  public boolean[] objectsInside()
+  {
+    for (int i=0; i<n; i++) m_in[i]=m_tris[i].inside(0.4, 0.5, 0.6);
+    return m_in;
+  }
+
+}
@@ -0,0 +1,171 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line3;
+import org.aha.euclid.Sphere3;
+import org.aha.euclid.Triangle2;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.math.EuclidMath;
+
+/**
+ * <p>
+ *   Benchmarks of
+ *   {@link Triangle2},
+ *   {@link Triangle3} and the triangle methods of
+ *   {@link EuclidMath}.
+ * </p>
+ * <p>
+ *   Benchmarks named {@code *Alloc} allocates the result, the others writes
+ *   to an array held by the benchmark state.
+ * </p>
+ * <p>
+ *   {@code intersect3} and {@code planeLineInside3} compare the one pass
+ *   line/triangle intersection with the two step
+ *   {@link Euclid#planeLine(org.aha.euclid.Plane3, Line3)} followed by
+ *   {@link Triangle3#inside(double, double, double)}.
+ * </p>
+ * <p>
+ *   {@code quality3} and {@code quality3Cached} set a triangle and ask for
+ *   all its quality measures without and with
+ *   {@link Triangle3#setCached(boolean) caching}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class TriangleBenchmark
+{
+  private Triangle2 m_t2;
+
+  private Triangle3 m_t3;
+
+  private double m_x;
+
+  private double m_y;
+
+  private double m_z;
+
+  private double[] m_bc;
+
+  private Line3 m_line;
+
+  private Euclid m_euclid;
+
+  private Triangle3 m_qt3;
+
+  private Triangle3 m_ct3;
+
+  private final Sphere3 m_sphere=new Sphere3();
+
+  /**
+   * <p>
+   *   Creates the objects benchmarked.
+   * </p>
+   */
+  @Setup
+  public void setup()
+  {
+    m_t2=new Triangle2();
+    m_t2.set(0.0, 0.0,
+             1.0, 0.1,
+             0.2, 1.0);
+
+    m_t3=new Triangle3();
+    m_t3.set(0.0, 0.0, 0.1,
+             1.0, 0.1, 0.2,
+             0.2, 1.0, 0.3);
+
+    m_x=0.3;
+    m_y=0.3;
+    m_z=0.2;
+
+    m_bc=new double[3];
+
+    m_line=new Line3(0.3, 0.3, -1.0, 0.35, 0.3, 1.0);
+    m_euclid=new Euclid();
+
+    m_qt3=new Triangle3(m_t3);
+    m_ct3=new Triangle3(m_t3);
+    m_ct3.setCached(true);
+  }
+
+  @Benchmark
+  public double[] barycentric3()
+  {
+    return m_t3.barycentric(m_x, m_y, m_z, m_bc);
+  }
+
+  @Benchmark
+  public double[] barycentric3Alloc(){ return m_t3.barycentric(m_x, m_y, m_z); }
+
+  @Benchmark
+  public double[] barycentric2(){ return m_t2.barycentric(m_x, m_y, m_bc); }
+
+  @Benchmark
+  public double[] barycentric2Alloc(){ return m_t2.barycentric(m_x, m_y); }
+
+  @Benchmark
+  public boolean inside3(){ return m_t3.inside(m_x, m_y, m_z); }
+
+  @Benchmark
+  public boolean inside2(){ return m_t2.inside(m_x, m_y); }
+
+  @Benchmark
+  public boolean euclidMathInside()
+  {
+    Triangle3 t=m_t3;
+    return EuclidMath.inside(t.x0(), t.y0(), t.z0(), t.x1(), t.y1(), t.z1(),
+      t.x2(), t.y2(), t.z2(), m_x, m_y, m_z);
+  }
+
+  @Benchmark
+  public boolean intersect3(){ return m_t3.intersect(m_line, false, m_bc); }
+
+  @Benchmark
+  public boolean planeLineInside3()
+  {
+    Line3 l=m_line;
+    if (!m_euclid.planeLine(m_t3, l)) return false;
+    double t=m_euclid.getPt();
+    return m_t3.inside(l.getPointX(t), l.getPointY(t), l.getPointZ(t));
+  }
+
+  @Benchmark
+  public double quality3(){ return quality(m_qt3); }
+
+  @Benchmark
+  public double quality3Cached(){ return quality(m_ct3); }
+
+  private double quality(Triangle3 t)
+  {
+    t.set(m_t3.x0(), m_t3.y0(), m_t3.z0(), m_t3.x1(), m_t3.y1(), m_t3.z1(),
+      m_t3.x2(), m_t3.y2(), m_t3.z2());
+    double retVal=t.area()+t.perimeter()+t.inscribedRadius()+
+      t.circumscribedRadius()+t.ratio();
+    retVal+=t.inscribed(m_sphere).getRadius();
+    retVal+=t.circumscribed(m_sphere).getRadius();
+    return retVal;
+  }
+
+}
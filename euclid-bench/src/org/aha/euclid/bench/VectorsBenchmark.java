@@ -0,0 +1,139 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.aha.euclid.Hyperplane;
+import org.aha.euclid.math.Vectors;
+
+/**
+ * <p>
+ *   Benchmarks of the n-dimensional methods of
+ *   {@link Vectors} and
+ *   {@link Hyperplane#eva(double[])}.
+ * </p>
+ * <p>
+ *   Benchmarks named {@code *Alloc} allocates the result, the others writes
+ *   to an array held by the benchmark state.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class VectorsBenchmark
+{
+  /**
+   * <p>
+   *   State for the n-dimensional benchmarks.
+   * </p>
+   */
+  @State(Scope.Thread)
+  public static class Nd
+  {
+    @Param({ "2", "3", "16", "1024" })
+    public int n;
+
+    double[] u;
+
+    double[] v;
+
+    double[] w;
+
+    double[] r=new double[3];
+
+    Hyperplane h;
+
+    /**
+     * <p>
+     *   Creates the vectors benchmarked.
+     * </p>
+     */
+    @Setup
+    public void setup()
+    {
+      Random r=new Random(42L);
+
+      u=new double[n];
+      v=new double[n];
+      w=new double[n];
+      double[] hn=new double[n];
+      for (int i=0; i<n; i++)
+      {
+        u[i]=r.nextDouble();
+        v[i]=r.nextDouble();
+        hn[i]=r.nextDouble();
+      }
+
+      h=new Hyperplane(r.nextDouble(), hn);
+    }
+  }
+
+  /**
+   * <p>
+   *   State for the 3D only benchmarks.
+   * </p>
+   */
+  @State(Scope.Thread)
+  public static class Three
+  {
+    double[] u={ 0.3, 0.7, 0.1 };
+
+    double[] v={ 0.9, 0.2, 0.5 };
+
+    double[] w=new double[3];
+  }
+
+  @Benchmark
+  public double dot(Nd s){ return Vectors.dot(s.u, s.v); }
+
+  @Benchmark
+  public double len(Nd s){ return Vectors.len(s.u); }
+
+  @Benchmark
+  public double[] norm(Nd s)
+  {
+    Vectors.norm(s.u);
+    return s.u;
+  }
+
+  @Benchmark
+  public double[] sub(Nd s){ return Vectors.sub(s.u, s.v, s.w); }
+
+  @Benchmark
+  public double[] subAlloc(Nd s){ return Vectors.sub(s.u, s.v, null); }
+
+  @Benchmark
+  public double[] dotLen(Nd s){ return Vectors.dotLen(s.u, s.v, s.r); }
+
+  @Benchmark
+  public double[] axpy(Nd s){ return Vectors.axpy(0.5, s.u, s.v, s.w); }
+
+  @Benchmark
+  public double eva(Nd s){ return s.h.eva(s.u); }
+
+  @Benchmark
+  public double[] cross(Three s){ return Vectors.cross(s.u, s.v, s.w); }
+
+  @Benchmark
+  public double[] crossAlloc(Three s){ return Vectors.cross(s.u, s.v); }
+
+}
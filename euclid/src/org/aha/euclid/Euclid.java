@@ -9,7 +9,9 @@ import static org.aha.euclid.math.EuclidMath.cross0;
 import static org.aha.euclid.math.EuclidMath.cross1;
 import static org.aha.euclid.math.EuclidMath.cross2;
 import static org.aha.euclid.math.EuclidMath.dot;
-import static org.aha.euclid.math.Comparisons.zero;
+
+import org.aha.euclid.math.Comparisons;
+import org.aha.euclid.math.ToleranceContext;
 
 /**
  * <p>
@@ -20,6 +22,8 @@ import static org.aha.euclid.math.Comparisons.zero;
  */
 public final class Euclid 
 {
+  private ToleranceContext m_tol=null;
+  
   private double m_pt;
   
   private double m_qt;
@@ -37,9 +41,35 @@ public final class Euclid
    *   {@link #planePlane(Plane3, Plane3)} or
    *   {@link #planePlane(Plane3, Plane3, Line3)} to perform a calculation.
    * </p>
+   * <p>
+   *   Uses
+   *   {@link Comparisons#getDelta()} of the thread performing a calculation 
+   *   when deciding if objects are parallel.
+   * </p>
    */
   public Euclid(){}
   
+  /**
+   * <p>
+   *   Creates not initialized relation that uses given tolerance when
+   *   deciding if objects are parallel.
+   * </p>
+   * <p>
+   *   As with the other constructors the created object is not thread safe,
+   *   use one per thread.
+   * </p>
+   * @param tol Tolerance.
+   */
+  public Euclid(ToleranceContext tol)
+  {
+    if (tol==null)
+    {
+      throw new NullPointerException("tol");
+    }
+    
+    m_tol=tol;
+  }
+  
   /**
    * <p>
    *   Creates by performing 
@@ -186,6 +216,15 @@ public final class Euclid
    */
   public boolean disjoint(){ return m_disjoint; }
   
+  /**
+   * <p>
+   *   Gets the tolerance used when deciding if objects are parallel.
+   * </p>
+   * @return Tolerance or {@code null} if uses
+   *         {@link Comparisons#getDelta()}.
+   */
+  public ToleranceContext getTolerance(){ return m_tol; }
+  
   /**
    * <p>
    *   Computes the parameter
@@ -519,4 +558,10 @@ public final class Euclid
     return l;
   }
   
+  // Zero test using m_tol if set.
+  private boolean zero(double a)
+  {
+    return (m_tol==null) ? Comparisons.zero(a) : m_tol.zero(a);
+  }
+  
 }
@@ -0,0 +1,768 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * <p>
+ *   Compact binary encoding of
+ *   {@link Line2},
+ *   {@link Line3},
+ *   {@link Plane3},
+ *   {@link Triangle2},
+ *   {@link Triangle3},
+ *   {@link Circle2},
+ *   {@link Sphere3} and
+ *   {@link Hyperplane} objects, an alternative to Java serialization.
+ * </p>
+ * <p>
+ *   Objects are encoded as their defining values, little endian, in the
+ *   order of their setters. Planes and triangles in 3D include their normal
+ *   so decoding assigns fields directly, nothing is recomputed. Hyperplanes
+ *   are prefixed by their dimension.
+ * </p>
+ * <p>
+ *   Single objects are encoded without header for use in the caller's own
+ *   records. Arrays are encoded with a versioned header giving type, options
+ *   and count, and decode into the instances of a given array where
+ *   possible.
+ * </p>
+ * <p>
+ *   Options:
+ * </p>
+ * <ul>
+ *   <li>{@link #FLOAT32}: Values are rounded to {@code float}, half the
+ *       size.</li>
+ *   <li>{@link #DELTA}: Arrays only, each value is encoded as the
+ *       difference of its bit pattern from the same value of the previous
+ *       object as a variable length integer. Lossless, and small when
+ *       consecutive objects are close, like triangles of a mesh.</li>
+ * </ul>
+ * @author Arne Halvorsen (AH)
+ */
+public final class GeometryCodec
+{
+  private GeometryCodec(){} // Utility pattern dictates private constructor.
+
+  /**
+   * <p>
+   *   Version of the array format written.
+   * </p>
+   */
+  public static final int VERSION=1;
+
+  /**
+   * <p>
+   *   Option to encode values as {@code float}.
+   * </p>
+   */
+  public static final int FLOAT32=1;
+
+  /**
+   * <p>
+   *   Option to delta encode arrays.
+   * </p>
+   */
+  public static final int DELTA=2;
+
+  /**
+   * <p>
+   *   Size in bytes of array header.
+   * </p>
+   */
+  public static final int HEADER_SIZE=13;
+
+  private static final byte MAGIC0='E';
+
+  private static final byte MAGIC1='G';
+
+  // Initial payload buffer when reading a stream, grown as bytes arrive.
+  private static final int CHUNK=1<<16;
+
+  //
+  // Type codes, index in c_types.
+  //
+
+  private static final int LINE2=1;
+
+  private static final int LINE3=2;
+
+  private static final int PLANE3=3;
+
+  private static final int TRIANGLE2=4;
+
+  private static final int TRIANGLE3=5;
+
+  private static final int CIRCLE2=6;
+
+  private static final int SPHERE3=7;
+
+  private static final int HYPERPLANE=8;
+
+  private static final Class<?>[] c_types=
+  {
+    null, Line2.class, Line3.class, Plane3.class, Triangle2.class,
+    Triangle3.class, Circle2.class, Sphere3.class, Hyperplane.class
+  };
+
+  /**
+   * <p>
+   *   Computes number of bytes
+   *   {@link #put(ByteBuffer, Object, int)} writes.
+   * </p>
+   * @param o       Object.
+   * @param options Options.
+   * @return Size in bytes.
+   * @throws IllegalArgumentException If {@code o} is not of supported type.
+   */
+  public static int size(Object o, int options)
+  {
+    return size(type(o.getClass()), o, options&FLOAT32);
+  }
+
+  /**
+   * <p>
+   *   Encodes single object, no header.
+   * </p>
+   * <p>
+   *   Option
+   *   {@link #DELTA} is ignored.
+   * </p>
+   * @param b       Buffer to write to.
+   * @param o       Object.
+   * @param options Options.
+   * @throws IllegalArgumentException If {@code o} is not of supported type.
+   * @throws java.nio.BufferOverflowException If not room in {@code b}.
+   */
+  public static void put(ByteBuffer b, Object o, int options)
+  {
+    int t=type(o.getClass());
+    ByteOrder order=b.order();
+    b.order(ByteOrder.LITTLE_ENDIAN);
+    try
+    {
+      put(new Coder(options&FLOAT32), b, t, o);
+    }
+    finally
+    {
+      b.order(order);
+    }
+  }
+
+  /**
+   * <p>
+   *   Decodes single object written by
+   *   {@link #put(ByteBuffer, Object, int)}.
+   * </p>
+   * @param b       Buffer to read from.
+   * @param c       Type of object.
+   * @param o       Assigned to object. If {@code null} allocates.
+   * @param options Options used when encoded.
+   * @return Object.
+   * @throws IllegalArgumentException If {@code c} is not of supported type or
+   *         data is malformed.
+   * @throws BufferUnderflowException If {@code b} ends before the object.
+   */
+  public static <T> T get(ByteBuffer b, Class<T> c, T o, int options)
+  {
+    int t=type(c);
+    ByteOrder order=b.order();
+    b.order(ByteOrder.LITTLE_ENDIAN);
+    try
+    {
+      return c.cast(get(new Coder(options&FLOAT32), b, t, o));
+    }
+    finally
+    {
+      b.order(order);
+    }
+  }
+
+  /**
+   * <p>
+   *   Computes upper bound of the number of bytes
+   *   {@link #encode(ByteBuffer, Object[], int)} writes, exact if not
+   *   {@link #DELTA}.
+   * </p>
+   * @param a       Objects.
+   * @param options Options.
+   * @return Size in bytes.
+   * @throws IllegalArgumentException If {@code a} is not of supported type.
+   */
+  public static long size(Object[] a, int options)
+  {
+    int t=type(a.getClass().getComponentType());
+    long retVal=HEADER_SIZE;
+    for (int i=0; i<a.length; i++) retVal+=size(t, element(a, i), options);
+    return retVal;
+  }
+
+  /**
+   * <p>
+   *   Encodes array with header. Type is that of the array's component
+   *   type.
+   * </p>
+   * @param b       Buffer to write to.
+   * @param a       Objects.
+   * @param options Options.
+   * @return Number of bytes written.
+   * @throws IllegalArgumentException If {@code a} is not of supported type.
+   * @throws NullPointerException If an element is {@code null}.
+   * @throws java.nio.BufferOverflowException If not room in {@code b}.
+   */
+  public static int encode(ByteBuffer b, Object[] a, int options)
+  {
+    int t=type(a.getClass().getComponentType());
+    options&=(FLOAT32|DELTA);
+    ByteOrder order=b.order();
+    b.order(ByteOrder.LITTLE_ENDIAN);
+    try
+    {
+      int start=b.position();
+      b.put(MAGIC0).put(MAGIC1).put((byte)VERSION).put((byte)t)
+        .put((byte)options).putInt(a.length).putInt(0);
+      Coder c=new Coder(options);
+      for (int i=0; i<a.length; i++) put(c, b, t, element(a, i));
+      int retVal=b.position()-start;
+      b.putInt(start+HEADER_SIZE-4, retVal-HEADER_SIZE);
+      return retVal;
+    }
+    finally
+    {
+      b.order(order);
+    }
+  }
+
+  /**
+   * <p>
+   *   Encodes array with header.
+   * </p>
+   * @param a       Objects.
+   * @param options Options.
+   * @return Encoded.
+   * @throws IllegalArgumentException If {@code a} is not of supported type
+   *         or too large.
+   * @throws NullPointerException If an element is {@code null}.
+   * @see #encode(ByteBuffer, Object[], int)
+   */
+  public static byte[] encode(Object[] a, int options)
+  {
+    long size=size(a, options);
+    if (size>Integer.MAX_VALUE-8)
+    {
+      throw new IllegalArgumentException("too large : "+size);
+    }
+
+    ByteBuffer b=ByteBuffer.allocate((int)size);
+    int n=encode(b, a, options);
+    return (n==b.capacity()) ? b.array() : Arrays.copyOf(b.array(), n);
+  }
+
+  /**
+   * <p>
+   *   Decodes array written by
+   *   {@link #encode(ByteBuffer, Object[], int)}.
+   * </p>
+   * <p>
+   *   Decodes into the instances of {@code a}: If {@code a} is of the length
+   *   encoded it is returned, else a copy of the right length is. Missing
+   *   instances are allocated.
+   * </p>
+   * @param b Buffer to read from.
+   * @param a Array of type to decode. Its elements are assigned.
+   * @return Objects.
+   * @throws IllegalArgumentException If header does not match or data is
+   *         malformed.
+   * @throws BufferUnderflowException If {@code b} ends before the array.
+   */
+  public static <T> T[] decode(ByteBuffer b, T[] a)
+  {
+    int t=type(a.getClass().getComponentType());
+    ByteOrder order=b.order();
+    b.order(ByteOrder.LITTLE_ENDIAN);
+    try
+    {
+      if (b.get()!=MAGIC0 || b.get()!=MAGIC1)
+      {
+        throw new IllegalArgumentException("not encoded geometry");
+      }
+      int version=b.get()&0xff;
+      if (version>VERSION)
+      {
+        throw new IllegalArgumentException("unsupported version : "+version);
+      }
+      int et=b.get()&0xff;
+      if (et!=t)
+      {
+        throw new IllegalArgumentException("type "+typeName(et)+
+          " encoded, not "+c_types[t].getName());
+      }
+      int options=b.get()&0xff;
+      int n=b.getInt();
+      int len=b.getInt();
+      if (n<0 || len<0 || len>b.remaining() || n>len/minSize(t, options))
+      {
+        throw new IllegalArgumentException("bad header, count : "+n+
+          " length : "+len+" remaining : "+b.remaining());
+      }
+
+      int end=b.position()+len;
+      a=(a.length==n) ? a : Arrays.copyOf(a, n);
+      Coder c=new Coder(options);
+      Class<?> ct=a.getClass().getComponentType();
+      for (int i=0; i<n; i++)
+      {
+        @SuppressWarnings("unchecked")
+        T o=(T)ct.cast(get(c, b, t, a[i]));
+        a[i]=o;
+      }
+      if (b.position()!=end)
+      {
+        throw new IllegalArgumentException("length mismatch : "+
+          (b.position()-end));
+      }
+      return a;
+    }
+    finally
+    {
+      b.order(order);
+    }
+  }
+
+  /**
+   * <p>
+   *   Writes array encoded with header to stream.
+   * </p>
+   * @param out     Stream to write to.
+   * @param a       Objects.
+   * @param options Options.
+   * @throws IOException If fails.
+   * @see #encode(ByteBuffer, Object[], int)
+   */
+  public static void write(OutputStream out, Object[] a, int options)
+    throws IOException
+  {
+    out.write(encode(a, options));
+  }
+
+  /**
+   * <p>
+   *   Reads array written by
+   *   {@link #write(OutputStream, Object[], int)}, reads no more than the
+   *   array.
+   * </p>
+   * @param in Stream to read from.
+   * @param a  Array of type to decode, see
+   *           {@link #decode(ByteBuffer, Object[])}.
+   * @return Objects.
+   * @throws IOException If fails or data is malformed.
+   */
+  public static <T> T[] read(InputStream in, T[] a) throws IOException
+  {
+    byte[] h=new byte[HEADER_SIZE];
+    readFully(in, h, 0, HEADER_SIZE);
+    int len=ByteBuffer.wrap(h).order(ByteOrder.LITTLE_ENDIAN)
+      .getInt(HEADER_SIZE-4);
+    if (len<0 || len>Integer.MAX_VALUE-8-HEADER_SIZE)
+    {
+      throw new IOException("bad length : "+len);
+    }
+
+    // Grows buffer as bytes arrive, so a bad length ends the stream early
+    // rather than allocates up front.
+    int end=HEADER_SIZE+len;
+    byte[] all=Arrays.copyOf(h, HEADER_SIZE+Math.min(len, CHUNK));
+    int off=HEADER_SIZE;
+    while (off<end)
+    {
+      if (off==all.length)
+      {
+        all=Arrays.copyOf(all, (int)Math.min(end, 2L*all.length));
+      }
+      int n=in.read(all, off, all.length-off);
+      if (n<0) throw new EOFException();
+      off+=n;
+    }
+    try
+    {
+      return decode(ByteBuffer.wrap(all), a);
+    }
+    catch (IllegalArgumentException | BufferUnderflowException x)
+    {
+      throw new IOException(x.getMessage(), x);
+    }
+  }
+
+  private static void readFully(InputStream in, byte[] b, int off, int len)
+    throws IOException
+  {
+    while (len>0)
+    {
+      int n=in.read(b, off, len);
+      if (n<0) throw new EOFException();
+      off+=n;
+      len-=n;
+    }
+  }
+
+  private static Object element(Object[] a, int i)
+  {
+    Object retVal=a[i];
+    if (retVal==null)
+    {
+      throw new NullPointerException("a["+i+"]");
+    }
+    return retVal;
+  }
+
+  private static int type(Class<?> c)
+  {
+    for (int i=1; i<c_types.length; i++) if (c_types[i]==c) return i;
+    throw new IllegalArgumentException("unsupported type : "+c.getName());
+  }
+
+  private static String typeName(int t)
+  {
+    return (t>0 && t<c_types.length) ? c_types[t].getName() : "code "+t;
+  }
+
+  // Number of values encoded, for a hyperplane of dimension 1 if o is
+  // null.
+  private static int values(int t, Object o)
+  {
+    switch (t)
+    {
+      case CIRCLE2    : return 3;
+      case LINE2      :
+      case SPHERE3    : return 4;
+      case TRIANGLE3  : return 12;
+      case HYPERPLANE :
+        return (o==null) ? 2 : ((Hyperplane)o).getDimension()+1;
+      default         : return 6;
+    }
+  }
+
+  // Smallest size of an object of type, a delta encoded value takes at
+  // least a byte.
+  private static int minSize(int t, int options)
+  {
+    boolean delta=(options&DELTA)!=0;
+    int retVal=values(t, null)*
+      (delta ? 1 : ((options&FLOAT32)!=0) ? 4 : 8);
+    if (t==HYPERPLANE) retVal+=delta ? 1 : 4;
+    return retVal;
+  }
+
+  // Size upper bound, exact if not delta.
+  private static int size(int t, Object o, int options)
+  {
+    int n=values(t, o);
+
+    int retVal;
+    if ((options&DELTA)!=0) retVal=n*10;
+    else                    retVal=n*(((options&FLOAT32)!=0) ? 4 : 8);
+    if (t==HYPERPLANE) retVal+=((options&DELTA)!=0) ? 5 : 4;
+    return retVal;
+  }
+
+  private static void put(Coder c, ByteBuffer b, int t, Object o)
+  {
+    switch (t)
+    {
+      case LINE2 :
+      {
+        Line2 l=(Line2)o;
+        c.put(b, 0, l.m_x0);
+        c.put(b, 1, l.m_y0);
+        c.put(b, 2, l.m_x1);
+        c.put(b, 3, l.m_y1);
+      }
+      break;
+
+      case LINE3 :
+      {
+        Line3 l=(Line3)o;
+        c.put(b, 0, l.m_x0);
+        c.put(b, 1, l.m_y0);
+        c.put(b, 2, l.m_z0);
+        c.put(b, 3, l.m_x1);
+        c.put(b, 4, l.m_y1);
+        c.put(b, 5, l.m_z1);
+      }
+      break;
+
+      case PLANE3 :
+      case TRIANGLE3 :
+      {
+        Plane3 p=(Plane3)o;
+        c.put(b, 0, p.m_x0);
+        c.put(b, 1, p.m_y0);
+        c.put(b, 2, p.m_z0);
+        int j=3;
+        if (t==TRIANGLE3)
+        {
+          Triangle3 tr=(Triangle3)o;
+          c.put(b, 3, tr.m_x1);
+          c.put(b, 4, tr.m_y1);
+          c.put(b, 5, tr.m_z1);
+          c.put(b, 6, tr.m_x2);
+          c.put(b, 7, tr.m_y2);
+          c.put(b, 8, tr.m_z2);
+          j=9;
+        }
+        c.put(b, j, p.m_a);
+        c.put(b, j+1, p.m_b);
+        c.put(b, j+2, p.m_c);
+      }
+      break;
+
+      case TRIANGLE2 :
+      {
+        Triangle2 tr=(Triangle2)o;
+        c.put(b, 0, tr.m_x0);
+        c.put(b, 1, tr.m_y0);
+        c.put(b, 2, tr.m_x1);
+        c.put(b, 3, tr.m_y1);
+        c.put(b, 4, tr.m_x2);
+        c.put(b, 5, tr.m_y2);
+      }
+      break;
+
+      case CIRCLE2 :
+      {
+        Circle2 ci=(Circle2)o;
+        c.put(b, 0, ci.m_x);
+        c.put(b, 1, ci.m_y);
+        c.put(b, 2, ci.m_r);
+      }
+      break;
+
+      case SPHERE3 :
+      {
+        Sphere3 s=(Sphere3)o;
+        c.put(b, 0, s.m_x);
+        c.put(b, 1, s.m_y);
+        c.put(b, 2, s.m_z);
+        c.put(b, 3, s.m_r);
+      }
+      break;
+
+      default :
+      {
+        Hyperplane h=(Hyperplane)o;
+        int d=h.getDimension();
+        c.putDimension(b, d);
+        double[] n=h.n(c.scratch(d));
+        for (int j=0; j<d; j++) c.put(b, j, n[j]);
+        c.put(b, d, h.c());
+      }
+    }
+  }
+
+  private static Object get(Coder c, ByteBuffer b, int t, Object o)
+  {
+    switch (t)
+    {
+      case LINE2 :
+      {
+        Line2 l=(o==null) ? new Line2() : (Line2)o;
+        l.m_x0=c.get(b, 0);
+        l.m_y0=c.get(b, 1);
+        l.m_x1=c.get(b, 2);
+        l.m_y1=c.get(b, 3);
+        return l;
+      }
+
+      case LINE3 :
+      {
+        Line3 l=(o==null) ? new Line3() : (Line3)o;
+        l.m_x0=c.get(b, 0);
+        l.m_y0=c.get(b, 1);
+        l.m_z0=c.get(b, 2);
+        l.m_x1=c.get(b, 3);
+        l.m_y1=c.get(b, 4);
+        l.m_z1=c.get(b, 5);
+        return l;
+      }
+
+      case PLANE3 :
+      case TRIANGLE3 :
+      {
+        Plane3 p=(o!=null) ? (Plane3)o :
+          (t==TRIANGLE3) ? new Triangle3() : new Plane3();
+        p.m_x0=c.get(b, 0);
+        p.m_y0=c.get(b, 1);
+        p.m_z0=c.get(b, 2);
+        int j=3;
+        if (t==TRIANGLE3)
+        {
+          Triangle3 tr=(Triangle3)p;
+          tr.m_x1=c.get(b, 3);
+          tr.m_y1=c.get(b, 4);
+          tr.m_z1=c.get(b, 5);
+          tr.m_x2=c.get(b, 6);
+          tr.m_y2=c.get(b, 7);
+          tr.m_z2=c.get(b, 8);
+          j=9;
+        }
+        p.m_a=c.get(b, j);
+        p.m_b=c.get(b, j+1);
+        p.m_c=c.get(b, j+2);
+        p.changed();
+        return p;
+      }
+
+      case TRIANGLE2 :
+      {
+        Triangle2 tr=(o==null) ? new Triangle2() : (Triangle2)o;
+        tr.m_x0=c.get(b, 0);
+        tr.m_y0=c.get(b, 1);
+        tr.m_x1=c.get(b, 2);
+        tr.m_y1=c.get(b, 3);
+        tr.m_x2=c.get(b, 4);
+        tr.m_y2=c.get(b, 5);
+        tr.changed();
+        return tr;
+      }
+
+      case CIRCLE2 :
+      {
+        Circle2 ci=(o==null) ? new Circle2() : (Circle2)o;
+        ci.m_x=c.get(b, 0);
+        ci.m_y=c.get(b, 1);
+        ci.m_r=c.get(b, 2);
+        return ci;
+      }
+
+      case SPHERE3 :
+      {
+        Sphere3 s=(o==null) ? new Sphere3() : (Sphere3)o;
+        s.m_x=c.get(b, 0);
+        s.m_y=c.get(b, 1);
+        s.m_z=c.get(b, 2);
+        s.m_r=c.get(b, 3);
+        return s;
+      }
+
+      default :
+      {
+        int d=c.getDimension(b);
+        Hyperplane h=(Hyperplane)o;
+        if (h==null || h.getDimension()!=d) h=new Hyperplane(d);
+        double[] n=c.scratch(d);
+        for (int j=0; j<d; j++) n[j]=c.get(b, j);
+        h.set(c.get(b, d), n);
+        return h;
+      }
+    }
+  }
+
+  // Encodes and decodes values according to options, keeps the previous
+  // values for delta encoding.
+  private static final class Coder
+  {
+    private final boolean m_float32;
+
+    private final boolean m_delta;
+
+    private long[] m_prev=new long[12];
+
+    private double[] m_scratch=new double[4];
+
+    Coder(int options)
+    {
+      m_float32=(options&FLOAT32)!=0;
+      m_delta=(options&DELTA)!=0;
+    }
+
+    void put(ByteBuffer b, int j, double v)
+    {
+      if (!m_delta)
+      {
+        if (m_float32) b.putFloat((float)v);
+        else           b.putDouble(v);
+        return;
+      }
+
+      long bits=m_float32 ? Float.floatToRawIntBits((float)v) :
+        Double.doubleToRawLongBits(v);
+      long[] prev=prev(j);
+      long d=bits-prev[j];
+      prev[j]=bits;
+      putVarLong(b, (d<<1)^(d>>63));
+    }
+
+    double get(ByteBuffer b, int j)
+    {
+      if (!m_delta) return m_float32 ? b.getFloat() : b.getDouble();
+
+      long z=getVarLong(b);
+      long[] prev=prev(j);
+      long bits=prev[j]+((z>>>1)^-(z&1));
+      prev[j]=bits;
+      return m_float32 ? Float.intBitsToFloat((int)bits) :
+        Double.longBitsToDouble(bits);
+    }
+
+    void putDimension(ByteBuffer b, int d)
+    {
+      if (m_delta) putVarLong(b, d);
+      else         b.putInt(d);
+    }
+
+    int getDimension(ByteBuffer b)
+    {
+      long retVal=m_delta ? getVarLong(b) : b.getInt();
+      if (retVal<1 || retVal>b.remaining())
+      {
+        throw new IllegalArgumentException("bad dimension : "+retVal);
+      }
+      return (int)retVal;
+    }
+
+    double[] scratch(int d)
+    {
+      if (m_scratch.length<d) m_scratch=new double[d];
+      return m_scratch;
+    }
+
+    private long[] prev(int j)
+    {
+      if (j>=m_prev.length) m_prev=Arrays.copyOf(m_prev, 2*j+2);
+      return m_prev;
+    }
+  }
+
+  private static void putVarLong(ByteBuffer b, long v)
+  {
+    while ((v&~0x7fL)!=0L)
+    {
+      b.put((byte)((v&0x7f)|0x80));
+      v>>>=7;
+    }
+    b.put((byte)v);
+  }
+
+  private static long getVarLong(ByteBuffer b)
+  {
+    long retVal=0L;
+    for (int s=0; s<64; s+=7)
+    {
+      byte x=b.get();
+      retVal|=(long)(x&0x7f)<<s;
+      if (x>=0) return retVal;
+    }
+    throw new IllegalArgumentException("malformed variable length integer");
+  }
+
+}
@@ -348,6 +348,25 @@ public final class Hyperplane implements Cloneable, Serializable
     m_c=p.d();
   }
   
+  /**
+   * <p>
+   *   Assigns vector and constant.
+   * </p>
+   * <p>
+   *   If hyperplane need to be in normalized form it is up to client to make
+   *   sure parameters defines plane normalized, this does not normalize.
+   * </p>
+   * @param c Constant.
+   * @param n Vector, the first
+   *          {@link #getDimension()} components are used.
+   * @throws IndexOutOfBoundsException If {@code n.length<getDimension()}.
+   */
+  public void set(double c, double[] n)
+  {
+    arraycopy(n, 0, m_n, 0, m_n.length);
+    m_c=c;
+  }
+  
   /**
    * <p>
    *   Gets the dimension of {@code this} hyperplane.
@@ -398,10 +417,13 @@ public final class Hyperplane implements Cloneable, Serializable
    *   point).
    * </p>
    * @param x Coordinate for the point in 1D to evaluate at.
-   * @return {@code x+c} where {@code c} is the constant that can be fetched by
+   * @return {@code n[0]*x+c} where {@code n} is the vector that can be
+   *         fetched by
+   *         {@link Hyperplane#n()} and {@code c} is the constant that can be 
+   *         fetched by
    *         {@link Hyperplane#c()}.
    */
-  public double eva(double x){ return x+m_c; }
+  public double eva(double x){ return m_n[0]*x+m_c; }
   
   /**
    * <p>
@@ -454,7 +476,7 @@ public final class Hyperplane implements Cloneable, Serializable
     switch (n)
     {
       case 0 : throw new IllegalArgumentException("p.length==0");
-      case 1 : return p[0]+m_c;
+      case 1 : return m_n[0]*p[0]+m_c;
       case 2 : return m_n[0]*p[0]+m_n[1]*p[1]+m_c;
       case 3 : return m_n[0]*p[0]+m_n[1]*p[1]+m_n[2]*p[2]+m_c;
     }
@@ -0,0 +1,176 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid;
+
+/**
+ * <p>
+ *   Immutable result of an intersection calculation performed by
+ *   {@link Intersections}.
+ * </p>
+ * <p>
+ *   The values have the same meaning as the same named values of
+ *   {@link Euclid} after the same calculation.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Intersection
+{
+  private final double m_pt;
+
+  private final double m_qt;
+
+  private final boolean m_parallel;
+
+  private final boolean m_disjoint;
+
+  // Line of plane/plane intersection, m_line false if none.
+  private final boolean m_line;
+
+  private final double m_x0;
+
+  private final double m_y0;
+
+  private final double m_z0;
+
+  private final double m_x1;
+
+  private final double m_y1;
+
+  private final double m_z1;
+
+  /**
+   * <p>
+   *   Creates result of a calculation involving one or two lines.
+   * </p>
+   * @param pt       See {@link Euclid#getPt()}.
+   * @param qt       See {@link Euclid#getQt()}.
+   * @param parallel See {@link Euclid#parallel()}.
+   * @param disjoint See {@link Euclid#disjoint()}.
+   */
+  Intersection(double pt, double qt, boolean parallel, boolean disjoint)
+  {
+    m_pt=pt;
+    m_qt=qt;
+    m_parallel=parallel;
+    m_disjoint=disjoint;
+    m_line=false;
+    m_x0=m_y0=m_z0=m_x1=m_y1=m_z1=0.0;
+  }
+
+  /**
+   * <p>
+   *   Creates result of a plane/plane calculation.
+   * </p>
+   * @param l        Line of intersection, {@code null} if parallel.
+   * @param parallel See {@link Euclid#parallel()}.
+   * @param disjoint See {@link Euclid#disjoint()}.
+   */
+  Intersection(Line3 l, boolean parallel, boolean disjoint)
+  {
+    m_pt=0.0;
+    m_qt=0.0;
+    m_parallel=parallel;
+    m_disjoint=disjoint;
+    m_line=(l!=null);
+    if (m_line)
+    {
+      m_x0=l.x0();
+      m_y0=l.y0();
+      m_z0=l.z0();
+      m_x1=l.x1();
+      m_y1=l.y1();
+      m_z1=l.z1();
+    }
+    else
+    {
+      m_x0=m_y0=m_z0=m_x1=m_y1=m_z1=0.0;
+    }
+  }
+
+  /**
+   * <p>
+   *   Gets the parameter of intersection on the first line.
+   * </p>
+   * <p>
+   *   Not defined for plane/plane results or in the parallel plane/line
+   *   case.
+   * </p>
+   * @return Parameter.
+   * @see Euclid#getPt()
+   */
+  public double getPt(){ return m_pt; }
+
+  /**
+   * <p>
+   *   Gets the parameter of intersection on the second line of a line/line
+   *   result.
+   * </p>
+   * @return Parameter.
+   * @see Euclid#getQt()
+   */
+  public double getQt(){ return m_qt; }
+
+  /**
+   * <p>
+   *   Tells if the objects were found to be parallel.
+   * </p>
+   * @return {@code true} if parallel, {@code false} if not.
+   * @see Euclid#parallel()
+   */
+  public boolean parallel(){ return m_parallel; }
+
+  /**
+   * <p>
+   *   Tells if parallel plane and line or parallel planes are disjoint.
+   * </p>
+   * <p>
+   *   Not defined for line/line results.
+   * </p>
+   * @return {@code true} if disjoint, {@code false} if not.
+   * @see Euclid#disjoint()
+   */
+  public boolean disjoint(){ return m_disjoint; }
+
+  /**
+   * <p>
+   *   Gets the line where planes intersect.
+   * </p>
+   * @return Line or {@code null} if not a plane/plane result or the planes
+   *         are parallel.
+   */
+  public Line3 getLine(){ return getLine(null); }
+
+  /**
+   * <p>
+   *   Gets the line where planes intersect.
+   * </p>
+   * @param l Assigned to line. If {@code null} allocates.
+   * @return Line or {@code null} if not a plane/plane result or the planes
+   *         are parallel, {@code l} is then not assigned.
+   */
+  public Line3 getLine(Line3 l)
+  {
+    if (!m_line) return null;
+
+    l=(l==null) ? new Line3() : l;
+    l.set(m_x0, m_y0, m_z0, m_x1, m_y1, m_z1);
+    return l;
+  }
+
+  @Override
+  public String toString()
+  {
+    StringBuilder sb=new StringBuilder();
+    sb.append("pt=").append(m_pt).append(",qt=").append(m_qt)
+      .append(",parallel=").append(m_parallel)
+      .append(",disjoint=").append(m_disjoint);
+    if (m_line)
+    {
+      sb.append(",line=").append(getLine());
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,175 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid;
+
+import org.aha.euclid.math.Comparisons;
+import org.aha.euclid.math.ToleranceContext;
+
+/**
+ * <p>
+ *   Stateless alternative to
+ *   {@link Euclid}: The calculations return
+ *   {@link Intersection} values and may be called from any number of threads
+ *   at the same time.
+ * </p>
+ * <p>
+ *   Methods not accepting a
+ *   {@link ToleranceContext} use
+ *   {@link Comparisons#getDelta()} of the calling thread.
+ * </p>
+ * <p>
+ *   The calculations are performed by a
+ *   {@link Euclid} local to the call that does not escape, so the JIT's
+ *   escape analysis can remove its allocation.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Intersections
+{
+  private Intersections(){} // Utility pattern dictates private constructor.
+
+  /**
+   * <p>
+   *   Computes where two lines in 2D intersect.
+   * </p>
+   * @param p First line.
+   * @param q Second line.
+   * @return Result.
+   * @see Euclid#lineLine(Line2, Line2)
+   */
+  public static Intersection lineLine(Line2 p, Line2 q)
+  {
+    return lineLine(new Euclid(), p, q);
+  }
+
+  /**
+   * <p>
+   *   Computes where two lines in 2D intersect.
+   * </p>
+   * @param p   First line.
+   * @param q   Second line.
+   * @param tol Tolerance.
+   * @return Result.
+   * @see Euclid#lineLine(Line2, Line2)
+   */
+  public static Intersection lineLine(Line2 p, Line2 q, ToleranceContext tol)
+  {
+    return lineLine(new Euclid(tol), p, q);
+  }
+
+  /**
+   * <p>
+   *   Computes the closest points between two lines in 3D.
+   * </p>
+   * @param p First line.
+   * @param q Second line.
+   * @return Result.
+   * @see Euclid#lineLine(Line3, Line3)
+   */
+  public static Intersection lineLine(Line3 p, Line3 q)
+  {
+    return lineLine(new Euclid(), p, q);
+  }
+
+  /**
+   * <p>
+   *   Computes the closest points between two lines in 3D.
+   * </p>
+   * @param p   First line.
+   * @param q   Second line.
+   * @param tol Tolerance.
+   * @return Result.
+   * @see Euclid#lineLine(Line3, Line3)
+   */
+  public static Intersection lineLine(Line3 p, Line3 q, ToleranceContext tol)
+  {
+    return lineLine(new Euclid(tol), p, q);
+  }
+
+  /**
+   * <p>
+   *   Computes where a line intersects a plane.
+   * </p>
+   * @param p Plane.
+   * @param l Line.
+   * @return Result.
+   * @see Euclid#planeLine(Plane3, Line3)
+   */
+  public static Intersection planeLine(Plane3 p, Line3 l)
+  {
+    return planeLine(new Euclid(), p, l);
+  }
+
+  /**
+   * <p>
+   *   Computes where a line intersects a plane.
+   * </p>
+   * @param p   Plane.
+   * @param l   Line.
+   * @param tol Tolerance.
+   * @return Result.
+   * @see Euclid#planeLine(Plane3, Line3)
+   */
+  public static Intersection planeLine(Plane3 p, Line3 l,
+    ToleranceContext tol)
+  {
+    return planeLine(new Euclid(tol), p, l);
+  }
+
+  /**
+   * <p>
+   *   Computes the line where two planes intersect.
+   * </p>
+   * @param p One plane.
+   * @param q Other plane.
+   * @return Result.
+   * @see Euclid#planePlane(Plane3, Plane3)
+   */
+  public static Intersection planePlane(Plane3 p, Plane3 q)
+  {
+    return planePlane(new Euclid(), p, q);
+  }
+
+  /**
+   * <p>
+   *   Computes the line where two planes intersect.
+   * </p>
+   * @param p   One plane.
+   * @param q   Other plane.
+   * @param tol Tolerance.
+   * @return Result.
+   * @see Euclid#planePlane(Plane3, Plane3)
+   */
+  public static Intersection planePlane(Plane3 p, Plane3 q,
+    ToleranceContext tol)
+  {
+    return planePlane(new Euclid(tol), p, q);
+  }
+
+  private static Intersection lineLine(Euclid e, Line2 p, Line2 q)
+  {
+    e.lineLine(p, q);
+    return new Intersection(e.getPt(), e.getQt(), e.parallel(), false);
+  }
+
+  private static Intersection lineLine(Euclid e, Line3 p, Line3 q)
+  {
+    e.lineLine(p, q);
+    return new Intersection(e.getPt(), e.getQt(), e.parallel(), false);
+  }
+
+  private static Intersection planeLine(Euclid e, Plane3 p, Line3 l)
+  {
+    e.planeLine(p, l);
+    return new Intersection(e.getPt(), 0.0, e.parallel(), e.disjoint());
+  }
+
+  private static Intersection planePlane(Euclid e, Plane3 p, Plane3 q)
+  {
+    Line3 l=e.planePlane(p, q);
+    return new Intersection(l, e.parallel(), e.disjoint());
+  }
+
+}
@@ -30,17 +30,17 @@ public class Line3 implements Cloneable, Serializable
 {
   private static final long serialVersionUID=1345352512846466139L;
 
-  private double m_x0=0.0;
+  protected double m_x0=0.0;
   
-  private double m_y0=0.0;
+  protected double m_y0=0.0;
   
-  private double m_z0=0.0;
+  protected double m_z0=0.0;
   
-  private double m_x1=0.0;
+  protected double m_x1=0.0;
   
-  private double m_y1=0.0;
+  protected double m_y1=0.0;
   
-  private double m_z1=0.0;
+  protected double m_z1=0.0;
   
   /**
    * <p>
@@ -495,7 +495,7 @@ public class Line3 implements Cloneable, Serializable
   {
     double t=closest(x, y, z);
     if (t<0.0) return len(x, y, z, m_x0, m_y0, m_z0);
-    if (t>1.0) return len(x, y, z, m_x1, m_y1, m_z0);
+    if (t>1.0) return len(x, y, z, m_x1, m_y1, m_z1);
     return len(x, y, z, getPointX(t), getPointY(t), getPointZ(t));
   }
   
@@ -0,0 +1,416 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid;
+
+import static java.lang.Math.abs;
+import static org.aha.euclid.math.Vectors.pointToString;
+
+import java.util.concurrent.RecursiveAction;
+
+import org.aha.euclid.math.Comparisons;
+
+/**
+ * <p>
+ *   Fixed size batch of lines in 2D stored as parallel {@code double[]}
+ *   columns rather than as
+ *   {@link Line2} objects.
+ * </p>
+ * <p>
+ *   The static
+ *   {@code lineLine} methods compute the same as
+ *   {@link Euclid#lineLine(Line2, Line2)} for many pairs of lines and write
+ *   the parameters and parallel flag for pair {@code k} at offset
+ *   {@code k-from} in the result arrays. The inner loops are branch free so
+ *   the JIT compiler can vectorize them. The
+ *   {@code parallelLineLine} methods split the range into tasks run in the
+ *   common fork-join pool.
+ * </p>
+ * <p>
+ *   All use
+ *   {@link Comparisons#getDelta()} of the calling thread to decide if lines
+ *   are parallel.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class LineBatch2
+{
+  /**
+   * <p>
+   *   Number of pairs a fork-join task computes without splitting.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=8192;
+
+  private final int m_size;
+
+  private final double[] m_x0;
+
+  private final double[] m_y0;
+
+  private final double[] m_x1;
+
+  private final double[] m_y1;
+
+  /**
+   * <p>
+   *   Creates batch of {@code n} lines, all defined by {@code (0, 0)} and
+   *   {@code (0, 1)} as created by
+   *   {@link Line2#Line2()}.
+   * </p>
+   * @param n Number of lines.
+   * @throws IllegalArgumentException If {@code n<0}.
+   */
+  public LineBatch2(int n)
+  {
+    if (n<0)
+    {
+      throw new IllegalArgumentException("n<0 : "+n);
+    }
+
+    m_size=n;
+    m_x0=new double[n];
+    m_y0=new double[n];
+    m_x1=new double[n];
+    m_y1=new double[n];
+
+    for (int i=0; i<n; i++) m_y1[i]=1.0;
+  }
+
+  /**
+   * <p>
+   *   Creates batch with copies of given lines.
+   * </p>
+   * @param lines Lines.
+   */
+  public LineBatch2(Line2[] lines)
+  {
+    this(lines.length);
+    for (int i=0; i<m_size; i++) set(i, lines[i]);
+  }
+
+  /**
+   * <p>
+   *   Gets number of lines in {@code this} batch.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_size; }
+
+  /**
+   * <p>
+   *   Sets line.
+   * </p>
+   * @param i  Index of line to set.
+   * @param x0 X coordinate of first point.
+   * @param y0 Y coordinate of first point.
+   * @param x1 X coordinate of second point.
+   * @param y1 Y coordinate of second point.
+   * @throws IllegalArgumentException If {@code (x0, y0)} same point as
+   *         {@code (x1, y1}}.
+   */
+  public void set(int i, double x0, double y0, double x1, double y1)
+  {
+    if (Comparisons.same(x0, y0, x1, y1))
+    {
+      throw new IllegalArgumentException(pointToString(x0, y0)+
+        " same point as "+pointToString(x1, y1));
+    }
+
+    m_x0[i]=x0;
+    m_y0[i]=y0;
+    m_x1[i]=x1;
+    m_y1[i]=y1;
+  }
+
+  /**
+   * <p>
+   *   Sets line.
+   * </p>
+   * @param i Index of line to set.
+   * @param l Line to copy.
+   */
+  public void set(int i, Line2 l)
+  {
+    m_x0[i]=l.x0();
+    m_y0[i]=l.y0();
+    m_x1[i]=l.x1();
+    m_y1[i]=l.y1();
+  }
+
+  /**
+   * <p>
+   *   Gets line.
+   * </p>
+   * @param i Index of line to get.
+   * @param l Assigned to line. If {@code null} allocates.
+   * @return Line.
+   */
+  public Line2 get(int i, Line2 l)
+  {
+    l=(l==null) ? new Line2() : l;
+    l.set(m_x0[i], m_y0[i], m_x1[i], m_y1[i]);
+    return l;
+  }
+
+  /**
+   * <p>
+   *   Computes
+   *   {@link Euclid#lineLine(Line2, Line2)} for line {@code k} in {@code p}
+   *   and line {@code k} in {@code q} for {@code k} in {@code [from, to)}.
+   * </p>
+   * @param p        First lines.
+   * @param q        Second lines.
+   * @param from     First pair.
+   * @param to       Last pair + 1.
+   * @param pt       Assigned to parameters on first lines.
+   * @param qt       Assigned to parameters on second lines.
+   * @param parallel Assigned {@code true} for parallel pairs, {@code false}
+   *                 for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for both batches.
+   */
+  public static void lineLine(LineBatch2 p, LineBatch2 q, int from, int to,
+    double[] pt, double[] qt, boolean[] parallel)
+  {
+    checkRange(from, to, Math.min(p.m_size, q.m_size));
+    lineLine(p, q, from, to, from, Comparisons.getDelta(), pt, qt, parallel);
+  }
+
+  /**
+   * <p>
+   *   Computes
+   *   {@link Euclid#lineLine(Line2, Line2)} for line {@code pi[k]} in
+   *   {@code p} and line {@code qi[k]} in {@code q} for {@code k} in
+   *   {@code [from, to)}.
+   * </p>
+   * @param p        First lines.
+   * @param q        Second lines.
+   * @param pi       Indices in {@code p}.
+   * @param qi       Indices in {@code q}.
+   * @param from     First pair.
+   * @param to       Last pair + 1.
+   * @param pt       Assigned to parameters on first lines.
+   * @param qt       Assigned to parameters on second lines.
+   * @param parallel Assigned {@code true} for parallel pairs, {@code false}
+   *                 for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for both index
+   *         arrays.
+   */
+  public static void lineLine(LineBatch2 p, LineBatch2 q, int[] pi, int[] qi,
+    int from, int to, double[] pt, double[] qt, boolean[] parallel)
+  {
+    checkRange(from, to, Math.min(pi.length, qi.length));
+    lineLine(p, q, pi, qi, from, to, from, Comparisons.getDelta(), pt, qt,
+      parallel);
+  }
+
+  /**
+   * <p>
+   *   Computes as
+   *   {@link #lineLine(LineBatch2, LineBatch2, int, int, double[], double[], boolean[])}
+   *   using the common fork-join pool.
+   * </p>
+   * @param p        First lines.
+   * @param q        Second lines.
+   * @param from     First pair.
+   * @param to       Last pair + 1.
+   * @param pt       Assigned to parameters on first lines.
+   * @param qt       Assigned to parameters on second lines.
+   * @param parallel Assigned {@code true} for parallel pairs, {@code false}
+   *                 for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for both batches.
+   */
+  public static void parallelLineLine(LineBatch2 p, LineBatch2 q, int from,
+    int to, double[] pt, double[] qt, boolean[] parallel)
+  {
+    checkRange(from, to, Math.min(p.m_size, q.m_size));
+    new LineLineTask(p, q, null, null, from, to, from, Comparisons.getDelta(),
+      pt, qt, parallel).invoke();
+  }
+
+  /**
+   * <p>
+   *   Computes as
+   *   {@link #lineLine(LineBatch2, LineBatch2, int[], int[], int, int, double[], double[], boolean[])}
+   *   using the common fork-join pool.
+   * </p>
+   * @param p        First lines.
+   * @param q        Second lines.
+   * @param pi       Indices in {@code p}.
+   * @param qi       Indices in {@code q}.
+   * @param from     First pair.
+   * @param to       Last pair + 1.
+   * @param pt       Assigned to parameters on first lines.
+   * @param qt       Assigned to parameters on second lines.
+   * @param parallel Assigned {@code true} for parallel pairs, {@code false}
+   *                 for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for both index
+   *         arrays.
+   */
+  public static void parallelLineLine(LineBatch2 p, LineBatch2 q, int[] pi,
+    int[] qi, int from, int to, double[] pt, double[] qt, boolean[] parallel)
+  {
+    checkRange(from, to, Math.min(pi.length, qi.length));
+    new LineLineTask(p, q, pi, qi, from, to, from, Comparisons.getDelta(), pt,
+      qt, parallel).invoke();
+  }
+
+  // Kernel for pairs k, k: Writes at k-base.
+  private static void lineLine(LineBatch2 p, LineBatch2 q, int from, int to,
+    int base, double delta, double[] pt, double[] qt, boolean[] parallel)
+  {
+    double[] px0=p.m_x0;
+    double[] py0=p.m_y0;
+    double[] px1=p.m_x1;
+    double[] py1=p.m_y1;
+    double[] qx0=q.m_x0;
+    double[] qy0=q.m_y0;
+    double[] qx1=q.m_x1;
+    double[] qy1=q.m_y1;
+
+    for (int k=from; k<to; k++)
+    {
+      double ux=px1[k]-px0[k];
+      double uy=py1[k]-py0[k];
+      double vx=qx1[k]-qx0[k];
+      double vy=qy1[k]-qy0[k];
+      double wx=px0[k]-qx0[k];
+      double wy=py0[k]-qy0[k];
+
+      int o=k-base;
+      boolean par=solve(ux, uy, vx, vy, wx, wy, delta, pt, qt, o);
+      if (parallel!=null) parallel[o]=par;
+    }
+  }
+
+  // Kernel for pairs pi[k], qi[k]: Writes at k-base.
+  private static void lineLine(LineBatch2 p, LineBatch2 q, int[] pi,
+    int[] qi, int from, int to, int base, double delta, double[] pt,
+    double[] qt, boolean[] parallel)
+  {
+    for (int k=from; k<to; k++)
+    {
+      int i=pi[k];
+      int j=qi[k];
+
+      double ux=p.m_x1[i]-p.m_x0[i];
+      double uy=p.m_y1[i]-p.m_y0[i];
+      double vx=q.m_x1[j]-q.m_x0[j];
+      double vy=q.m_y1[j]-q.m_y0[j];
+      double wx=p.m_x0[i]-q.m_x0[j];
+      double wy=p.m_y0[i]-q.m_y0[j];
+
+      int o=k-base;
+      boolean par=solve(ux, uy, vx, vy, wx, wy, delta, pt, qt, o);
+      if (parallel!=null) parallel[o]=par;
+    }
+  }
+
+  // Same calculation as Euclid.lineLine(Line2, Line2) with selects in place
+  // of branches, returns if parallel.
+  private static boolean solve(double ux, double uy, double vx, double vy,
+    double wx, double wy, double delta, double[] pt, double[] qt, int o)
+  {
+    double a=ux*ux+uy*uy;
+    double b=ux*vx+uy*vy;
+    double c=vx*vx+vy*vy;
+    double d=ux*wx+uy*wy;
+    double e=vx*wx+vy*wy;
+
+    double acmbs=a*c-b*b;
+    boolean par=abs(acmbs)<=delta;
+
+    pt[o]=par ? 0.0 : (b*e-c*d)/acmbs;
+    qt[o]=par ? d/b : (a*e-b*d)/acmbs;
+    return par;
+  }
+
+  private static void checkRange(int from, int to, int size)
+  {
+    if (from<0)
+    {
+      throw new IllegalArgumentException("from<0 : "+from);
+    }
+    if (to>size)
+    {
+      throw new IllegalArgumentException("to>size : "+to+">"+size);
+    }
+    if (from>to)
+    {
+      throw new IllegalArgumentException("from>to : "+from+">"+to);
+    }
+  }
+
+  // Fork-join task for the parallelLineLine methods.
+  private static final class LineLineTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final LineBatch2 m_p;
+
+    private final LineBatch2 m_q;
+
+    private final int[] m_pi;
+
+    private final int[] m_qi;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    private final int m_base;
+
+    private final double m_delta;
+
+    private final double[] m_pt;
+
+    private final double[] m_qt;
+
+    private final boolean[] m_parallel;
+
+    LineLineTask(LineBatch2 p, LineBatch2 q, int[] pi, int[] qi, int from,
+      int to, int base, double delta, double[] pt, double[] qt,
+      boolean[] parallel)
+    {
+      m_p=p;
+      m_q=q;
+      m_pi=pi;
+      m_qi=qi;
+      m_from=from;
+      m_to=to;
+      m_base=base;
+      m_delta=delta;
+      m_pt=pt;
+      m_qt=qt;
+      m_parallel=parallel;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        if (m_pi==null)
+        {
+          lineLine(m_p, m_q, m_from, m_to, m_base, m_delta, m_pt, m_qt,
+            m_parallel);
+        }
+        else
+        {
+          lineLine(m_p, m_q, m_pi, m_qi, m_from, m_to, m_base, m_delta, m_pt,
+            m_qt, m_parallel);
+        }
+        return;
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      invokeAll(
+        new LineLineTask(m_p, m_q, m_pi, m_qi, m_from, mid, m_base, m_delta,
+          m_pt, m_qt, m_parallel),
+        new LineLineTask(m_p, m_q, m_pi, m_qi, mid, m_to, m_base, m_delta,
+          m_pt, m_qt, m_parallel));
+    }
+  }
+
+}
@@ -0,0 +1,461 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid;
+
+import static java.lang.Math.abs;
+import static org.aha.euclid.math.Vectors.pointToString;
+
+import java.util.concurrent.RecursiveAction;
+
+import org.aha.euclid.math.Comparisons;
+
+/**
+ * <p>
+ *   Fixed size batch of lines in 3D stored as parallel {@code double[]}
+ *   columns rather than as
+ *   {@link Line3} objects.
+ * </p>
+ * <p>
+ *   The static
+ *   {@code planeLine} methods compute the same as
+ *   {@link Euclid#planeLine(Plane3, Line3)} for many lines and one or many
+ *   planes, from a batch or from a primitive buffer of segments, without a
+ *   {@link Euclid} object holding the result. The parameter and hit flag of
+ *   plane {@code j} and line {@code k} are written at offset
+ *   {@code j*(to-from)+k-from} in the result arrays. A hit is a line not
+ *   parallel to the plane: Its parameter is in {@code [0, 1]} if the
+ *   segment crosses the plane. Parameters of lines parallel to the plane are
+ *   {@code NaN} so tests on them fail. The inner loops are branch free so
+ *   the JIT compiler can vectorize them. The
+ *   {@code parallelPlaneLine} methods split the lines into tasks run in the
+ *   common fork-join pool.
+ * </p>
+ * <p>
+ *   All use
+ *   {@link Comparisons#getDelta()} of the calling thread to decide if line
+ *   and plane are parallel.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class LineBatch3
+{
+  /**
+   * <p>
+   *   Number of lines a fork-join task computes without splitting.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=8192;
+
+  private final int m_size;
+
+  private final double[] m_x0;
+
+  private final double[] m_y0;
+
+  private final double[] m_z0;
+
+  private final double[] m_x1;
+
+  private final double[] m_y1;
+
+  private final double[] m_z1;
+
+  /**
+   * <p>
+   *   Creates batch of {@code n} lines, all defined by {@code (0, 0, 0)} and
+   *   {@code (1, 0, 0)}.
+   * </p>
+   * @param n Number of lines.
+   * @throws IllegalArgumentException If {@code n<0}.
+   */
+  public LineBatch3(int n)
+  {
+    if (n<0)
+    {
+      throw new IllegalArgumentException("n<0 : "+n);
+    }
+
+    m_size=n;
+    m_x0=new double[n];
+    m_y0=new double[n];
+    m_z0=new double[n];
+    m_x1=new double[n];
+    m_y1=new double[n];
+    m_z1=new double[n];
+
+    for (int i=0; i<n; i++) m_x1[i]=1.0;
+  }
+
+  /**
+   * <p>
+   *   Creates batch with copies of given lines.
+   * </p>
+   * @param lines Lines.
+   */
+  public LineBatch3(Line3[] lines)
+  {
+    this(lines.length);
+    for (int i=0; i<m_size; i++) set(i, lines[i]);
+  }
+
+  /**
+   * <p>
+   *   Gets number of lines in {@code this} batch.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_size; }
+
+  /**
+   * <p>
+   *   Sets line.
+   * </p>
+   * @param i  Index of line to set.
+   * @param x0 X coordinate of first point.
+   * @param y0 Y coordinate of first point.
+   * @param z0 Z coordinate of first point.
+   * @param x1 X coordinate of second point.
+   * @param y1 Y coordinate of second point.
+   * @param z1 Z coordinate of second point.
+   * @throws IllegalArgumentException If {@code (x0, y0, z0)} same point as
+   *         {@code (x1, y1, z1}}.
+   */
+  public void set(int i, double x0, double y0, double z0, double x1,
+    double y1, double z1)
+  {
+    if (Comparisons.same(x0, y0, z0, x1, y1, z1))
+    {
+      throw new IllegalArgumentException(pointToString(x0, y0, z0)+
+        " same point as "+pointToString(x1, y1, z1));
+    }
+
+    m_x0[i]=x0;
+    m_y0[i]=y0;
+    m_z0[i]=z0;
+    m_x1[i]=x1;
+    m_y1[i]=y1;
+    m_z1[i]=z1;
+  }
+
+  /**
+   * <p>
+   *   Sets line.
+   * </p>
+   * @param i Index of line to set.
+   * @param l Line to copy.
+   */
+  public void set(int i, Line3 l)
+  {
+    m_x0[i]=l.x0();
+    m_y0[i]=l.y0();
+    m_z0[i]=l.z0();
+    m_x1[i]=l.x1();
+    m_y1[i]=l.y1();
+    m_z1[i]=l.z1();
+  }
+
+  /**
+   * <p>
+   *   Gets line.
+   * </p>
+   * @param i Index of line to get.
+   * @param l Assigned to line. If {@code null} allocates.
+   * @return Line.
+   */
+  public Line3 get(int i, Line3 l)
+  {
+    l=(l==null) ? new Line3() : l;
+    l.set(m_x0[i], m_y0[i], m_z0[i], m_x1[i], m_y1[i], m_z1[i]);
+    return l;
+  }
+
+  /**
+   * <p>
+   *   Computes
+   *   {@link Euclid#planeLine(Plane3, Line3)} for a plane and line {@code k}
+   *   in {@code l} for {@code k} in {@code [from, to)}.
+   * </p>
+   * @param p    Plane.
+   * @param l    Lines.
+   * @param from First line.
+   * @param to   Last line + 1.
+   * @param t    Assigned to parameters on lines.
+   * @param hit  Assigned {@code true} for lines not parallel to the plane,
+   *             {@code false} for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for the batch.
+   */
+  public static void planeLine(Plane3 p, LineBatch3 l, int from, int to,
+    double[] t, boolean[] hit)
+  {
+    planeLine(new Plane3[]{ p }, l, from, to, t, hit);
+  }
+
+  /**
+   * <p>
+   *   Computes
+   *   {@link Euclid#planeLine(Plane3, Line3)} for each plane and line
+   *   {@code k} in {@code l} for {@code k} in {@code [from, to)}.
+   * </p>
+   * @param p    Planes.
+   * @param l    Lines.
+   * @param from First line.
+   * @param to   Last line + 1.
+   * @param t    Assigned to parameters on lines.
+   * @param hit  Assigned {@code true} for lines not parallel to the plane,
+   *             {@code false} for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for the batch.
+   */
+  public static void planeLine(Plane3[] p, LineBatch3 l, int from, int to,
+    double[] t, boolean[] hit)
+  {
+    checkRange(from, to, l.m_size);
+    planeLine(p, l, null, from, to, from, to-from, Comparisons.getDelta(), t,
+      hit);
+  }
+
+  /**
+   * <p>
+   *   Computes
+   *   {@link Euclid#planeLine(Plane3, Line3)} for each plane and line
+   *   {@code k} in a primitive buffer for {@code k} in {@code [from, to)}.
+   * </p>
+   * @param p    Planes.
+   * @param s    Lines, the first point of line {@code k} at {@code 6*k},
+   *             {@code 6*k+1} and {@code 6*k+2} and the second at
+   *             {@code 6*k+3}, {@code 6*k+4} and {@code 6*k+5}.
+   * @param from First line.
+   * @param to   Last line + 1.
+   * @param t    Assigned to parameters on lines.
+   * @param hit  Assigned {@code true} for lines not parallel to the plane,
+   *             {@code false} for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for the buffer.
+   */
+  public static void planeLine(Plane3[] p, double[] s, int from, int to,
+    double[] t, boolean[] hit)
+  {
+    checkRange(from, to, s.length/6);
+    planeLine(p, null, s, from, to, from, to-from, Comparisons.getDelta(), t,
+      hit);
+  }
+
+  /**
+   * <p>
+   *   Computes as
+   *   {@link #planeLine(Plane3, LineBatch3, int, int, double[], boolean[])}
+   *   using the common fork-join pool.
+   * </p>
+   * @param p    Plane.
+   * @param l    Lines.
+   * @param from First line.
+   * @param to   Last line + 1.
+   * @param t    Assigned to parameters on lines.
+   * @param hit  Assigned {@code true} for lines not parallel to the plane,
+   *             {@code false} for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for the batch.
+   */
+  public static void parallelPlaneLine(Plane3 p, LineBatch3 l, int from,
+    int to, double[] t, boolean[] hit)
+  {
+    parallelPlaneLine(new Plane3[]{ p }, l, from, to, t, hit);
+  }
+
+  /**
+   * <p>
+   *   Computes as
+   *   {@link #planeLine(Plane3[], LineBatch3, int, int, double[], boolean[])}
+   *   using the common fork-join pool.
+   * </p>
+   * @param p    Planes.
+   * @param l    Lines.
+   * @param from First line.
+   * @param to   Last line + 1.
+   * @param t    Assigned to parameters on lines.
+   * @param hit  Assigned {@code true} for lines not parallel to the plane,
+   *             {@code false} for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for the batch.
+   */
+  public static void parallelPlaneLine(Plane3[] p, LineBatch3 l, int from,
+    int to, double[] t, boolean[] hit)
+  {
+    checkRange(from, to, l.m_size);
+    new PlaneLineTask(p, l, null, from, to, from, to-from,
+      Comparisons.getDelta(), t, hit).invoke();
+  }
+
+  /**
+   * <p>
+   *   Computes as
+   *   {@link #planeLine(Plane3[], double[], int, int, double[], boolean[])}
+   *   using the common fork-join pool.
+   * </p>
+   * @param p    Planes.
+   * @param s    Lines, the first point of line {@code k} at {@code 6*k},
+   *             {@code 6*k+1} and {@code 6*k+2} and the second at
+   *             {@code 6*k+3}, {@code 6*k+4} and {@code 6*k+5}.
+   * @param from First line.
+   * @param to   Last line + 1.
+   * @param t    Assigned to parameters on lines.
+   * @param hit  Assigned {@code true} for lines not parallel to the plane,
+   *             {@code false} for the others. May be {@code null}.
+   * @throws IllegalArgumentException If not a valid range for the buffer.
+   */
+  public static void parallelPlaneLine(Plane3[] p, double[] s, int from,
+    int to, double[] t, boolean[] hit)
+  {
+    checkRange(from, to, s.length/6);
+    new PlaneLineTask(p, null, s, from, to, from, to-from,
+      Comparisons.getDelta(), t, hit).invoke();
+  }
+
+  // Kernel for lines [from, to) of batch l or buffer s: Writes plane j, line
+  // k at j*stride+k-base. Planes inner so a range of lines is read once.
+  private static void planeLine(Plane3[] p, LineBatch3 l, double[] s,
+    int from, int to, int base, int stride, double delta, double[] t,
+    boolean[] hit)
+  {
+    for (int j=0; j<p.length; j++)
+    {
+      Plane3 pl=p[j];
+      int o=j*stride-base;
+      if (l!=null)
+      {
+        planeLine(pl, l, from, to, o, delta, t, hit);
+      }
+      else
+      {
+        planeLine(pl, s, from, to, o, delta, t, hit);
+      }
+    }
+  }
+
+  // Kernel for one plane and batch: Writes line k at o+k.
+  private static void planeLine(Plane3 p, LineBatch3 l, int from, int to,
+    int o, double delta, double[] t, boolean[] hit)
+  {
+    double nx=p.a();
+    double ny=p.b();
+    double nz=p.c();
+    double px=p.x0();
+    double py=p.y0();
+    double pz=p.z0();
+
+    double[] x0=l.m_x0;
+    double[] y0=l.m_y0;
+    double[] z0=l.m_z0;
+    double[] x1=l.m_x1;
+    double[] y1=l.m_y1;
+    double[] z1=l.m_z1;
+
+    for (int k=from; k<to; k++)
+    {
+      double d=nx*(x1[k]-x0[k])+ny*(y1[k]-y0[k])+nz*(z1[k]-z0[k]);
+      double n=-(nx*(x0[k]-px)+ny*(y0[k]-py)+nz*(z0[k]-pz));
+      boolean par=abs(d)<=delta;
+      t[o+k]=par ? Double.NaN : n/d;
+      if (hit!=null) hit[o+k]=!par;
+    }
+  }
+
+  // Kernel for one plane and buffer: Writes line k at o+k.
+  private static void planeLine(Plane3 p, double[] s, int from, int to,
+    int o, double delta, double[] t, boolean[] hit)
+  {
+    double nx=p.a();
+    double ny=p.b();
+    double nz=p.c();
+    double px=p.x0();
+    double py=p.y0();
+    double pz=p.z0();
+
+    for (int k=from; k<to; k++)
+    {
+      int i=6*k;
+      double x0=s[i];
+      double y0=s[i+1];
+      double z0=s[i+2];
+      double d=nx*(s[i+3]-x0)+ny*(s[i+4]-y0)+nz*(s[i+5]-z0);
+      double n=-(nx*(x0-px)+ny*(y0-py)+nz*(z0-pz));
+      boolean par=abs(d)<=delta;
+      t[o+k]=par ? Double.NaN : n/d;
+      if (hit!=null) hit[o+k]=!par;
+    }
+  }
+
+  private static void checkRange(int from, int to, int size)
+  {
+    if (from<0)
+    {
+      throw new IllegalArgumentException("from<0 : "+from);
+    }
+    if (to>size)
+    {
+      throw new IllegalArgumentException("to>size : "+to+">"+size);
+    }
+    if (from>to)
+    {
+      throw new IllegalArgumentException("from>to : "+from+">"+to);
+    }
+  }
+
+  // Fork-join task for the parallelPlaneLine methods.
+  private static final class PlaneLineTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final Plane3[] m_p;
+
+    private final LineBatch3 m_l;
+
+    private final double[] m_s;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    private final int m_base;
+
+    private final int m_stride;
+
+    private final double m_delta;
+
+    private final double[] m_t;
+
+    private final boolean[] m_hit;
+
+    PlaneLineTask(Plane3[] p, LineBatch3 l, double[] s, int from, int to,
+      int base, int stride, double delta, double[] t, boolean[] hit)
+    {
+      m_p=p;
+      m_l=l;
+      m_s=s;
+      m_from=from;
+      m_to=to;
+      m_base=base;
+      m_stride=stride;
+      m_delta=delta;
+      m_t=t;
+      m_hit=hit;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        planeLine(m_p, m_l, m_s, m_from, m_to, m_base, m_stride, m_delta, m_t,
+          m_hit);
+        return;
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      invokeAll(
+        new PlaneLineTask(m_p, m_l, m_s, m_from, mid, m_base, m_stride,
+          m_delta, m_t, m_hit),
+        new PlaneLineTask(m_p, m_l, m_s, mid, m_to, m_base, m_stride,
+          m_delta, m_t, m_hit));
+    }
+  }
+
+}
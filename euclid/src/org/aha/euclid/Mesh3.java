@@ -0,0 +1,213 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid;
+
+/**
+ * <p>
+ *   Indexed triangle mesh in 3D stored as primitive arrays: A vertex array
+ *   with the coordinates of each vertex and an index array with the three
+ *   vertex indices of each triangle.
+ * </p>
+ * <p>
+ *   Triangles are not stored as objects,
+ *   {@link #getTriangle(int, Triangle3)} fills a
+ *   {@link Triangle3} on demand and
+ *   {@link #toBatch(int, int)} creates a
+ *   {@link TriangleBatch3} for a range of triangles.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Mesh3
+{
+  private final double[] m_v;
+
+  private final int[] m_t;
+
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   * <p>
+   *   The arrays are not copied.
+   * </p>
+   * @param v Vertices, vertex {@code i} is at {@code 3*i}, {@code 3*i+1} and
+   *          {@code 3*i+2}.
+   * @param t Triangles, the vertex indices of triangle {@code k} are at
+   *          {@code 3*k}, {@code 3*k+1} and {@code 3*k+2}.
+   * @throws IllegalArgumentException If an array's length is not a multiple
+   *         of {@code 3} or an index is not a vertex.
+   */
+  public Mesh3(double[] v, int[] t)
+  {
+    if (v==null)
+    {
+      throw new NullPointerException("v");
+    }
+    if (t==null)
+    {
+      throw new NullPointerException("t");
+    }
+    if (v.length%3!=0)
+    {
+      throw new IllegalArgumentException("v.length%3!=0 : "+v.length);
+    }
+    if (t.length%3!=0)
+    {
+      throw new IllegalArgumentException("t.length%3!=0 : "+t.length);
+    }
+
+    int nv=v.length/3;
+    for (int i=0; i<t.length; i++)
+    {
+      if (t[i]<0 || t[i]>=nv)
+      {
+        throw new IllegalArgumentException("not a vertex : "+t[i]+
+          " vertex count : "+nv);
+      }
+    }
+
+    m_v=v;
+    m_t=t;
+  }
+
+  /**
+   * <p>
+   *   Gets number of vertices.
+   * </p>
+   * @return Count.
+   */
+  public int getVertexCount(){ return m_v.length/3; }
+
+  /**
+   * <p>
+   *   Gets number of triangles.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_t.length/3; }
+
+  /**
+   * <p>
+   *   Gets vertex.
+   * </p>
+   * @param i Index of vertex.
+   * @param p Assigned to point. If {@code null} allocates.
+   * @return Point.
+   */
+  public double[] getVertex(int i, double[] p)
+  {
+    p=(p==null) ? new double[3] : p;
+    p[0]=m_v[3*i];
+    p[1]=m_v[3*i+1];
+    p[2]=m_v[3*i+2];
+    return p;
+  }
+
+  /**
+   * <p>
+   *   Gets index of a triangle's vertex.
+   * </p>
+   * @param k Index of triangle.
+   * @param j Triangle's vertex, {@code 0}, {@code 1} or {@code 2}.
+   * @return Index of vertex.
+   */
+  public int getIndex(int k, int j)
+  {
+    if (j<0 || j>2)
+    {
+      throw new IndexOutOfBoundsException("j : "+j);
+    }
+
+    return m_t[3*k+j];
+  }
+
+  /**
+   * <p>
+   *   Gets the backing vertex array, see
+   *   {@link #Mesh3(double[], int[])}.
+   * </p>
+   * <p>
+   *   Coordinates may be changed in place to move vertices, the change is
+   *   seen by all using this mesh. The length must not be changed, that is
+   *   the array must not be replaced.
+   * </p>
+   * @return Vertices.
+   */
+  public double[] vertices(){ return m_v; }
+
+  /**
+   * <p>
+   *   Gets the backing index array, see
+   *   {@link #Mesh3(double[], int[])}. Must not be modified.
+   * </p>
+   * @return Indices.
+   */
+  public int[] indices(){ return m_t; }
+
+  /**
+   * <p>
+   *   Gets triangle.
+   * </p>
+   * @param k Index of triangle.
+   * @param t Assigned to triangle. If {@code null} allocates.
+   * @return Triangle.
+   * @throws ZeroLengthVectorException If the triangle's points are on a line.
+   */
+  public Triangle3 getTriangle(int k, Triangle3 t)
+  {
+    t=(t==null) ? new Triangle3() : t;
+    int a=3*m_t[3*k];
+    int b=3*m_t[3*k+1];
+    int c=3*m_t[3*k+2];
+    double[] v=m_v;
+    t.set(v[a], v[a+1], v[a+2], v[b], v[b+1], v[b+2], v[c], v[c+1], v[c+2]);
+    return t;
+  }
+
+  /**
+   * <p>
+   *   Creates batch of a range of triangles.
+   * </p>
+   * @param from Index of first triangle.
+   * @param to   Index of last triangle + 1.
+   * @return Batch, triangle {@code k} at {@code k-from}.
+   * @throws IllegalArgumentException If not a valid range.
+   * @throws ZeroLengthVectorException If a triangle's points are on a line.
+   */
+  public TriangleBatch3 toBatch(int from, int to)
+  {
+    if (from<0)
+    {
+      throw new IllegalArgumentException("from<0 : "+from);
+    }
+    if (to>size())
+    {
+      throw new IllegalArgumentException("to>size() : "+to+">"+size());
+    }
+    if (from>to)
+    {
+      throw new IllegalArgumentException("from>to : "+from+">"+to);
+    }
+
+    TriangleBatch3 retVal=new TriangleBatch3(to-from);
+    double[] v=m_v;
+    for (int k=from; k<to; k++)
+    {
+      int a=3*m_t[3*k];
+      int b=3*m_t[3*k+1];
+      int c=3*m_t[3*k+2];
+      retVal.set(k-from, v[a], v[a+1], v[a+2], v[b], v[b+1], v[b+2], v[c],
+        v[c+1], v[c+2]);
+    }
+    return retVal;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "Mesh3[vertices="+getVertexCount()+", triangles="+size()+"]";
+  }
+
+}
@@ -101,6 +101,8 @@ public class Plane3 implements Cloneable, Serializable
     m_a=o.m_a;
     m_b=o.m_b;
     m_c=o.m_c;
+    
+    changed();
   }
   
   /**
@@ -433,7 +435,29 @@ public class Plane3 implements Cloneable, Serializable
    *   Tells if {@code o} defines the same plane as {@code this}.
    * <p>
    * @param o Other.
+   * @param d Delta used when comparing normals and deciding if distance
+   *          between planes is {@code 0.0}.
    * @return {@code true} if does else {@code false}.
+   * @throws IllegalArgumentException If {@code d<0.0}.
+   */
+  public boolean same(Plane3 o, double d)
+  {
+    if (o==this) return true;
+    return Comparisons.same(m_a, m_b, m_c, o.m_a, o.m_b, o.m_c, d) &&
+           Comparisons.zero(o.axbyczd(m_x0, m_y0, m_z0), d);
+  }
+  
+  /**
+   * <p>
+   *   Tells if {@code o} defines the same plane as {@code this}.
+   * <p>
+   * <p>
+   *   Uses
+   *   {@link Comparisons#getDelta()} when comparing.
+   * </p>
+   * @param o Other.
+   * @return {@code true} if does else {@code false}.
+   * @see #same(Plane3, double)
    */
   public boolean same(Plane3 o)
   {
@@ -442,6 +466,10 @@ public class Plane3 implements Cloneable, Serializable
            Comparisons.zero(o.axbyczd(m_x0, m_y0, m_z0));
   }
   
+  // Called when fields are assigned other than by overridable setters, for
+  // subclasses keeping derived state.
+  void changed(){}
+  
   // Cloneable and Object overrides.
   
   @Override
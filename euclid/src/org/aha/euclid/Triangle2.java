@@ -35,6 +35,26 @@ public class Triangle2 implements Cloneable, Serializable
   
   protected double m_y2;
   
+  private boolean m_cached=false;
+  
+  // Derived quantities, valid if m_derived.
+  
+  private transient boolean m_derived=false;
+  
+  private transient double m_l0;
+  
+  private transient double m_l1;
+  
+  private transient double m_l2;
+  
+  private transient double m_area;
+  
+  private transient double m_cr;
+  
+  private transient double m_ccx;
+  
+  private transient double m_ccy;
+  
   /**
    * <p>
    *   Creates triangle {@code (0,0, (1,0), (1,1)}.
@@ -61,6 +81,7 @@ public class Triangle2 implements Cloneable, Serializable
     m_y0=o.m_y0;
     m_y1=o.m_y1;
     m_y2=o.m_y2;
+    m_cached=o.m_cached;
   }
   
   public final void set(double x0, double y0, double x1, double y1, double x2, 
@@ -74,6 +95,8 @@ public class Triangle2 implements Cloneable, Serializable
     
     m_x2=x2;
     m_y2=y2;
+    
+    m_derived=false;
   }
   
   /**
@@ -214,6 +237,7 @@ public class Triangle2 implements Cloneable, Serializable
    */
   public final double area()
   { 
+    if (cache()) return m_area;
     return EuclidMath.area(m_x0, m_y0, m_x1, m_y1, m_x2, m_y2); 
   }
   
@@ -223,7 +247,10 @@ public class Triangle2 implements Cloneable, Serializable
    * </p>
    * @return Length.
    */
-  public final double length0(){ return len(m_x0, m_y0, m_x1, m_y1); }
+  public final double length0()
+  {
+    return cache() ? m_l0 : len(m_x0, m_y0, m_x1, m_y1);
+  }
   
   /**
    * <p>
@@ -231,7 +258,10 @@ public class Triangle2 implements Cloneable, Serializable
    * </p>
    * @return Length.
    */
-  public final double length1(){ return len(m_x1, m_y1, m_x2, m_y2); }
+  public final double length1()
+  {
+    return cache() ? m_l1 : len(m_x1, m_y1, m_x2, m_y2);
+  }
   
   /**
    * <p>
@@ -239,7 +269,10 @@ public class Triangle2 implements Cloneable, Serializable
    * </p>
    * @return Length.
    */
-  public final double length2(){ return len(m_x2, m_y2, m_x0, m_y0); }
+  public final double length2()
+  {
+    return cache() ? m_l2 : len(m_x2, m_y2, m_x0, m_y0);
+  }
   
   /**
    * <p>
@@ -287,35 +320,21 @@ public class Triangle2 implements Cloneable, Serializable
    * @return Radius.
    */
   public final double circumscribedRadius()
-  {   
-    // TODO
-    /*
-    double e0x=m_x2-m_x1;
-    double e0y=m_y2-m_y1;
-    double e0z=m_z2-m_z1;
-    
-    double e1x=m_x0-m_x2;
-    double e1y=m_y0-m_y2;
-    double e1z=m_z0-m_z2;
-    
-    double e2x=m_x1-m_x0;
-    double e2y=m_y1-m_y0;
-    double e2z=m_z1-m_z0;
-    
-    double d0=dot(-e1x, -e1y, -e1z, e2x, e2y, e2z);
-    double d1=dot(-e2x, -e2y, -e2z, e0x, e0y, e0z);
-    double d2=dot(-e0x, -e0y, -e0z, e1x, e1y, e1z);
-    
-    double c0=d1*d2;
-    double c1=d2*d0;
-    double c2=d0*d1;
+  {
+    if (cache()) return m_cr;
     
-    double c=c0+c1+c2;
+    double bx=m_x1-m_x0;
+    double by=m_y1-m_y0;
+    double cx=m_x2-m_x0;
+    double cy=m_y2-m_y0;
     
-    return sqrt((((d0+d1)*(d1+d2)*(d2+d0))/c))/2.0;
-    */
+    double d=2.0*(bx*cy-by*cx);
+    double b2=bx*bx+by*by;
+    double c2=cx*cx+cy*cy;
     
-    return 1.0; // PROTO TODO
+    double ux=(cy*b2-by*c2)/d;
+    double uy=(bx*c2-cx*b2)/d;
+    return Math.sqrt(ux*ux+uy*uy);
   }
   
   /**   
@@ -347,29 +366,16 @@ public class Triangle2 implements Cloneable, Serializable
   {
     s=(s==null) ? new Circle2() : s;
 
-    // TODO!!!
-    /*
     double l12=length0();
     double l23=length1();
     double l31=length2();
     double p=l12+l23+l31;
-    double x1=m_x0*l23;
-    double y1=m_y0*l23;
-    double z1=m_z0*l23;
-    double x2=m_x1*l31;
-    double y2=m_y1*l31;
-    double z2=m_z1*l31;
-    double x3=m_x2*l12;
-    double y3=m_y2*l12;
-    double z3=m_z2*l12;
     
-    double cx=(x1+x2+x3)/p;
-    double cy=(y1+y2+y3)/p;
-    double cz=(z1+z2+z3)/p;
+    double cx=(m_x0*l23+m_x1*l31+m_x2*l12)/p;
+    double cy=(m_y0*l23+m_y1*l31+m_y2*l12)/p;
     double r=(area()/p)*2.0;
     
-    s.set(cx, cy, cz, r);
-    */
+    s.set(cx, cy, r);
     
     return s;
   }
@@ -394,47 +400,26 @@ public class Triangle2 implements Cloneable, Serializable
   {
     c=(c==null) ? new Circle2() : c;
     
-    // TODO!!!
-    /*
-    double e0x=m_x2-m_x1;
-    double e0y=m_y2-m_y1;
-    double e0z=m_z2-m_z1;
-    
-    double e1x=m_x0-m_x2;
-    double e1y=m_y0-m_y2;
-    double e1z=m_z0-m_z2;
-    
-    double e2x=m_x1-m_x0;
-    double e2y=m_y1-m_y0;
-    double e2z=m_z1-m_z0;
-    
-    double d0=dot(-e1x, -e1y, -e1z, e2x, e2y, e2z);
-    double d1=dot(-e2x, -e2y, -e2z, e0x, e0y, e0z);
-    double d2=dot(-e0x, -e0y, -e0z, e1x, e1y, e1z);
-    
-    double c0=d1*d2;
-    double c1=d2*d0;
-    double c2=d0*d1;
-    
-    double c=c0+c1+c2;
-                        
-    double r=sqrt((((d0+d1)*(d1+d2)*(d2+d0))/c))/2.0;
-    
-    double ct2=2.0*c;
+    if (cache())
+    {
+      c.set(m_ccx, m_ccy, m_cr);
+      return c;
+    }
     
-    double c1pc2=c1+c2;
-    double c2pc0=c2+c0;
-    double c0pc1=c0+c1;
+    // Relative to first point for accuracy.
+    double bx=m_x1-m_x0;
+    double by=m_y1-m_y0;
+    double cx=m_x2-m_x0;
+    double cy=m_y2-m_y0;
     
-    double cx=(c1pc2*m_x0+c2pc0*m_x1+c0pc1*m_x2)/ct2;
-    double cy=(c1pc2*m_y0+c2pc0*m_y1+c0pc1*m_y2)/ct2;
-    double cz=(c1pc2*m_z0+c2pc0*m_z1+c0pc1*m_z2)/ct2;
+    double d=2.0*(bx*cy-by*cx);
+    double b2=bx*bx+by*by;
+    double c2=cx*cx+cy*cy;
     
-    retVal.set(cx, cy, cz, r);
-        
-    return retVal;
-    */
+    double ux=(cy*b2-by*c2)/d;
+    double uy=(bx*c2-cx*b2)/d;
     
+    c.set(m_x0+ux, m_y0+uy, Math.sqrt(ux*ux+uy*uy));
     return c;
   }
   
@@ -503,54 +488,105 @@ public class Triangle2 implements Cloneable, Serializable
   
   /**
    * <p>
-   *   Tells if point in {@code this} triangle's plane is inside triangle or 
-   *   not.
+   *   Tells if point is inside {@code this} triangle. Points on the sides
+   *   are not inside.
    * </p>
    * <p>
-   *   If point is not in plane then this returns {@code true} if the closest
-   *   point in plane to given point is inside.
-   * </p>
-   * <p>
-   *   Use this in combination with
-   *   {@link #axbyczd(double, double, double)} to learn if points are in plane
-   *   and inside triangle.
+   *   Decides with exact predicates if
+   *   {@link org.aha.euclid.math.Comparisons#isExact()}.
    * </p>
    * @param x Point's x coordinate.
    * @param y Point's y coordinate.
-   * @return {@code true} if {@code (x,y,y)} inside else {@code false}.
+   * @return {@code true} if {@code (x,y)} inside else {@code false}.
+   * @see EuclidMath#inside(double, double, double, double, double, double, double, double)
    */
   public boolean inside(double x, double y)
   {
-    //return EuclidMath.inside(m_x0, m_y0, m_x1, m_y1, m_x2, m_y2, 
-    //  x, y, z);
-    
-    return false; // TODO PROTO
+    return EuclidMath.inside(m_x0, m_y0, m_x1, m_y1, m_x2, m_y2, x, y);
   }
   
   /**
    * <p>
-   *   Tells if point in {@code this} triangle's plane is inside triangle or 
-   *   not.
+   *   Tells if point is inside {@code this} triangle. Points on the sides
+   *   are not inside.
    * </p>
    * <p>
-   *   If point is not in plane then this returns {@code true} if the closest
-   *   point in plane to given point is inside.
+   *   Decides with exact predicates if
+   *   {@link org.aha.euclid.math.Comparisons#isExact()}.
    * </p>
+   * @param p Point.
+   * @return {@code true} if {@code p} inside else {@code false}.
+   * @see EuclidMath#inside(double, double, double, double, double, double, double, double)
+   */
+  public boolean inside(double[] p)
+  {
+    return EuclidMath.inside(m_x0, m_y0, m_x1, m_y1, m_x2, m_y2, p[0], p[1]);
+  }
+  
+  /**
    * <p>
-   *   Use this in combination with
-   *   {@link #axbyczd(double[])} to learn if points are in plane and inside 
-   *   triangle.
+   *   Sets if {@code this} triangle caches the derived quantities
+   *   {@link #area()},
+   *   {@link #length0()},
+   *   {@link #length1()},
+   *   {@link #length2()} and the circumscribed circle. 
    * </p>
-   * @param x Point's x coordinate.
-   * @param y Point's y coordinate.
-   * @return {@code true} if {@code (x,y,y)} inside else {@code false}.
+   * <p>
+   *   When caching the derived quantities are computed together in one pass
+   *   the first time one is asked for and kept until {@code this} is set.
+   *   Default is not to cache.
+   * </p>
+   * @param cached {@code true} if to cache, {@code false} if not.
+   * @see Triangle3#setCached(boolean)
    */
-  public boolean inside(double[] p)
+  public final void setCached(boolean cached)
   {
-    //return EuclidMath.inside(m_x0, m_y0, m_x1, m_y1, m_x2, m_y2, 
-    //  p[0], p[1], p[2]);
+    m_cached=cached;
+    m_derived=false;
+  }
+  
+  /**
+   * <p>
+   *   Tells if {@code this} triangle caches derived quantities.
+   * </p>
+   * @return {@code true} if caches, {@code false} if not.
+   * @see #setCached(boolean)
+   */
+  public final boolean isCached(){ return m_cached; }
+  
+  // Called when fields are assigned other than by set(...).
+  void changed(){ m_derived=false; }
+  
+  // Computes derived quantities if caching and not computed, returns true if
+  // caching.
+  private boolean cache()
+  {
+    if (!m_cached) return false;
+    if (m_derived) return true;
+    
+    double bx=m_x1-m_x0;
+    double by=m_y1-m_y0;
+    double cx=m_x2-m_x0;
+    double cy=m_y2-m_y0;
+    
+    double b2=bx*bx+by*by;
+    double c2=cx*cx+cy*cy;
+    
+    m_l0=Math.sqrt(b2);
+    m_l1=len(m_x1, m_y1, m_x2, m_y2);
+    m_l2=Math.sqrt(c2);
+    
+    double d=2.0*(bx*cy-by*cx);
+    m_area=Math.abs(0.25*d);
+    
+    double ux=(cy*b2-by*c2)/d;
+    double uy=(bx*c2-cx*b2)/d;
+    m_cr=Math.sqrt(ux*ux+uy*uy);
+    m_ccx=m_x0+ux;
+    m_ccy=m_y0+uy;
     
-    return false; // TODO PROTO
+    m_derived=true;
+    return true;
   }
   
   // Object overrides.
@@ -6,7 +6,6 @@
 package org.aha.euclid;
 
 import static java.lang.Double.doubleToLongBits;
-import static java.lang.Math.abs;
 import static java.lang.Math.sqrt;
 
 import static org.aha.euclid.math.EuclidMath.cross0;
@@ -16,6 +15,7 @@ import static org.aha.euclid.math.EuclidMath.dot;
 import static org.aha.euclid.math.EuclidMath.len;
 import static org.aha.euclid.math.Vectors.pointToString;
 
+import org.aha.euclid.math.Comparisons;
 import org.aha.euclid.math.EuclidMath;
 
 /**
@@ -40,6 +40,28 @@ public class Triangle3 extends Plane3
   
   protected double m_z2;
   
+  private boolean m_cached=false;
+  
+  // Derived quantities, valid if m_derived.
+  
+  private transient boolean m_derived=false;
+  
+  private transient double m_l0;
+  
+  private transient double m_l1;
+  
+  private transient double m_l2;
+  
+  private transient double m_area;
+  
+  private transient double m_cr;
+  
+  private transient double m_ccx;
+  
+  private transient double m_ccy;
+  
+  private transient double m_ccz;
+  
   /**
    * <p>
    *   Creates triangle {@code (0,0,0), (1,0,0), (1,1,0)}.
@@ -72,6 +94,7 @@ public class Triangle3 extends Plane3
     m_z0=o.m_z0;
     m_z1=o.m_z1;
     m_z2=o.m_z2;
+    m_cached=o.m_cached;
   }
   
   public final void set(double x0, double y0, double z0, double x1, double y1, 
@@ -89,7 +112,20 @@ public class Triangle3 extends Plane3
     double ny=cross1(vx, vy, vz, ux, uy, uz);
     double nz=cross2(vx, vy, vz, ux, uy, uz);
     
-    set(x0, y0, z0, nx, ny, nz);
+    // Can not use Plane3.set(...) since overridden below to throw.
+    if (Comparisons.zero3dVector(nx, ny, nz))
+    {
+      throw new ZeroLengthVectorException();
+    }
+    
+    double l=len(nx, ny, nz);
+    m_a=nx/l;
+    m_b=ny/l;
+    m_c=nz/l;
+    
+    m_x0=x0;
+    m_y0=y0;
+    m_z0=z0;
     
     m_x1=x1;
     m_y1=y1;
@@ -98,6 +134,8 @@ public class Triangle3 extends Plane3
     m_x2=x2;
     m_y2=y2;
     m_z2=z2;
+    
+    m_derived=false;
   }
   
   /**
@@ -237,6 +275,7 @@ public class Triangle3 extends Plane3
    */
   public final double area()
   { 
+    if (cache()) return m_area;
     return EuclidMath.area(m_x0, m_y0, m_z0, m_x1, m_y1, m_z1, m_x2, m_y2, 
       m_z2); 
   }
@@ -249,7 +288,7 @@ public class Triangle3 extends Plane3
    */
   public final double length0()
   { 
-    return len(m_x0, m_y0, m_z0, m_x1, m_y1, m_z1); 
+    return cache() ? m_l0 : len(m_x0, m_y0, m_z0, m_x1, m_y1, m_z1); 
   }
   
   /**
@@ -260,7 +299,7 @@ public class Triangle3 extends Plane3
    */
   public final double length1()
   { 
-    return len(m_x1, m_y1, m_z1, m_x2, m_y2, m_z2); 
+    return cache() ? m_l1 : len(m_x1, m_y1, m_z1, m_x2, m_y2, m_z2); 
   }
   
   /**
@@ -271,7 +310,7 @@ public class Triangle3 extends Plane3
    */
   public final double length2()
   { 
-    return len(m_x2, m_y2, m_z2, m_x0, m_y0, m_z0); 
+    return cache() ? m_l2 : len(m_x2, m_y2, m_z2, m_x0, m_y0, m_z0); 
   }
   
   /**
@@ -322,6 +361,8 @@ public class Triangle3 extends Plane3
    */
   public final double circumscribedRadius()
   {    
+    if (cache()) return m_cr;
+    
     double e0x=m_x2-m_x1;
     double e0y=m_y2-m_y1;
     double e0z=m_z2-m_z1;
@@ -420,6 +461,12 @@ public class Triangle3 extends Plane3
   {
     s=(s==null) ? new Sphere3() : s;
     
+    if (cache())
+    {
+      s.set(m_ccx, m_ccy, m_ccz, m_cr);
+      return s;
+    }
+    
     double e0x=m_x2-m_x1;
     double e0y=m_y2-m_y1;
     double e0z=m_z2-m_z1;
@@ -488,78 +535,8 @@ public class Triangle3 extends Plane3
    */
   public final double[] barycentric(double x, double y, double z, double[] bc)
   {
-    double nx=abs(m_a);
-    double ny=abs(m_b);
-    double nz=abs(m_c);
-    
-    double u1;
-    double u2;
-    double u3;
-    double u4;
-    
-    double v1;
-    double v2;
-    double v3;
-    double v4;
-    
-    if (nx>=ny && nx>=nz)
-    {
-      // Discard x, project onto yz plane.
-      
-      u1=m_y0-m_y2;
-      u2=m_y1-m_y2;
-      u3=y-m_y0;
-      u4=y-m_y2;
-      
-      v1=m_z0-m_z2;
-      v2=m_z1-m_z2;
-      v3=z-m_z0;
-      v4=z-m_z2;
-    }
-    else if (ny>=nz)
-    {
-      // Discard y, project onto xz plane.
-      
-      u1=m_z0-m_z2;
-      u2=m_z1-m_z2;
-      u3=z-m_z0;
-      u4=z-m_z2;
-      
-      v1=m_x0-m_x2;
-      v2=m_x1-m_x2;
-      v3=x-m_x0;
-      v4=x-m_x2;
-    }
-    else
-    {
-      // Discard z, project onto xy plane.
-      
-      u1=m_x0-m_x2;
-      u2=m_x1-m_x2;
-      u3=x-m_x0;
-      u4=x-m_x2;
-      
-      v1=m_y0-m_y2;
-      v2=m_y1-m_y2;
-      v3=y-m_y0;
-      v4=y-m_y2;
-    }
-    
-    double denom=v1*u2-v2*u1;
-    if (denom==0.0)
-    {
-      throw new IllegalStateException("denom==0.0");
-    }
-    
-    double oneOverDenom=1.0/denom;
-    
-    bc=(bc==null) ? new double[3] : bc;
-    
-    bc[0]=(v4*u2-v2*u4)*oneOverDenom;
-    bc[1]=(v1*u3-v3*u1)*oneOverDenom;
-    bc[2]=1.0-bc[0]-bc[1];    
-    
-    return bc;
+    return EuclidMath.barycentric(m_x0, m_y0, m_z0, m_x1, m_y1, m_z1, m_x2, 
+      m_y2, m_z2, m_a, m_b, m_c, x, y, z, bc);
   }
   
   /**
@@ -612,6 +589,189 @@ public class Triangle3 extends Plane3
       m_z2, p[0], p[1], p[2]);
   }
   
+  /**
+   * <p>
+   *   Computes where a line intersects {@code this} triangle in one pass
+   *   (Moller-Trumbore) without allocating.
+   * </p>
+   * <p>
+   *   Gives the same result as
+   *   {@link Euclid#planeLine(Plane3, Line3)} followed by
+   *   {@link #inside(double, double, double)} for the intersection point but
+   *   computes the edge vectors once. Except for lines close to parallel:
+   *   This takes lines as parallel only if exactly so, {@code planeLine}
+   *   if within
+   *   {@link Comparisons#getDelta()}, so this may find
+   *   intersections far along lines {@code planeLine} takes as parallel.
+   * </p>
+   * <p>
+   *   The parameter {@code t} is as in
+   *   {@link Line3#getPoint(double)} and is not bounded: Check
+   *   {@code 0<=t<=1} to intersect the line segment or {@code t>=0} to
+   *   intersect the ray. {@code u} and {@code v} are the barycentric
+   *   coordinates related to the second and third point: The barycentric
+   *   coordinates as computed by
+   *   {@link #barycentric(double, double, double)} are {@code {1-u-v, u, v}}.
+   * </p>
+   * <p>
+   *   If culling lines hitting the back face, the side the normal points
+   *   away from, are not intersections.
+   * </p>
+   * @param l    Line.
+   * @param cull {@code true} if to cull back face intersections,
+   *             {@code false} if not.
+   * @param tuv  If not {@code null} and intersects assigned
+   *             {@code {t, u, v}}.
+   * @return {@code true} if line intersects inside {@code this} triangle,
+   *         {@code false} if not or if line is parallel to {@code this}.
+   */
+  public final boolean intersect(Line3 l, boolean cull, double[] tuv)
+  {
+    double ox=l.x0();
+    double oy=l.y0();
+    double oz=l.z0();
+    
+    double dx=l.x1()-ox;
+    double dy=l.y1()-oy;
+    double dz=l.z1()-oz;
+    
+    double e1x=m_x1-m_x0;
+    double e1y=m_y1-m_y0;
+    double e1z=m_z1-m_z0;
+    
+    double e2x=m_x2-m_x0;
+    double e2y=m_y2-m_y0;
+    double e2z=m_z2-m_z0;
+    
+    double px=cross0(dx, dy, dz, e2x, e2y, e2z);
+    double py=cross1(dx, dy, dz, e2x, e2y, e2z);
+    double pz=cross2(dx, dy, dz, e2x, e2y, e2z);
+    
+    // det is -dot(normal, direction): Positive when hitting the front face.
+    double det=dot(e1x, e1y, e1z, px, py, pz);
+    if (cull ? det<=0.0 : det==0.0) return false;
+    
+    double inv=1.0/det;
+    
+    double sx=ox-m_x0;
+    double sy=oy-m_y0;
+    double sz=oz-m_z0;
+    
+    double u=dot(sx, sy, sz, px, py, pz)*inv;
+    if (u<0.0 || u>1.0) return false;
+    
+    double qx=cross0(sx, sy, sz, e1x, e1y, e1z);
+    double qy=cross1(sx, sy, sz, e1x, e1y, e1z);
+    double qz=cross2(sx, sy, sz, e1x, e1y, e1z);
+    
+    double v=dot(dx, dy, dz, qx, qy, qz)*inv;
+    if (v<0.0 || u+v>1.0) return false;
+    
+    if (tuv!=null)
+    {
+      tuv[0]=dot(e2x, e2y, e2z, qx, qy, qz)*inv;
+      tuv[1]=u;
+      tuv[2]=v;
+    }
+    
+    return true;
+  }
+  
+  /**
+   * <p>
+   *   Sets if {@code this} triangle caches the derived quantities
+   *   {@link #area()},
+   *   {@link #length0()},
+   *   {@link #length1()},
+   *   {@link #length2()} and the circumscribed circle. 
+   * </p>
+   * <p>
+   *   When caching the derived quantities are computed together in one pass
+   *   the first time one is asked for and kept until {@code this} is set.
+   *   This pays off when several of
+   *   {@link #perimeter()},
+   *   {@link #inscribedRadius()},
+   *   {@link #circumscribedRadius()},
+   *   {@link #ratio()},
+   *   {@link #inscribed(Sphere3)} and
+   *   {@link #circumscribed(Sphere3)} are called for the same triangle, as in
+   *   mesh quality analysis, else it costs. Default is not to cache.
+   * </p>
+   * @param cached {@code true} if to cache, {@code false} if not.
+   */
+  public final void setCached(boolean cached)
+  {
+    m_cached=cached;
+    m_derived=false;
+  }
+  
+  /**
+   * <p>
+   *   Tells if {@code this} triangle caches derived quantities.
+   * </p>
+   * @return {@code true} if caches, {@code false} if not.
+   * @see #setCached(boolean)
+   */
+  public final boolean isCached(){ return m_cached; }
+  
+  @Override
+  void changed(){ m_derived=false; }
+  
+  // Computes derived quantities if caching and not computed, returns true if
+  // caching.
+  private boolean cache()
+  {
+    if (!m_cached) return false;
+    if (m_derived) return true;
+    
+    double e0x=m_x2-m_x1;
+    double e0y=m_y2-m_y1;
+    double e0z=m_z2-m_z1;
+    
+    double e1x=m_x0-m_x2;
+    double e1y=m_y0-m_y2;
+    double e1z=m_z0-m_z2;
+    
+    double e2x=m_x1-m_x0;
+    double e2y=m_y1-m_y0;
+    double e2z=m_z1-m_z0;
+    
+    m_l0=len(e2x, e2y, e2z);
+    m_l1=len(e0x, e0y, e0z);
+    m_l2=len(e1x, e1y, e1z);
+    
+    // Same as EuclidMath.area(...): (p1-p0)x(p2-p0).
+    double wx=cross0(e2x, e2y, e2z, -e1x, -e1y, -e1z);
+    double wy=cross1(e2x, e2y, e2z, -e1x, -e1y, -e1z);
+    double wz=cross2(e2x, e2y, e2z, -e1x, -e1y, -e1z);
+    m_area=0.5*len(wx, wy, wz);
+    
+    double d0=dot(-e1x, -e1y, -e1z, e2x, e2y, e2z);
+    double d1=dot(-e2x, -e2y, -e2z, e0x, e0y, e0z);
+    double d2=dot(-e0x, -e0y, -e0z, e1x, e1y, e1z);
+    
+    double c0=d1*d2;
+    double c1=d2*d0;
+    double c2=d0*d1;
+    
+    double c=c0+c1+c2;
+    
+    m_cr=sqrt((((d0+d1)*(d1+d2)*(d2+d0))/c))/2.0;
+    
+    double ct2=2.0*c;
+    
+    double c1pc2=c1+c2;
+    double c2pc0=c2+c0;
+    double c0pc1=c0+c1;
+    
+    m_ccx=(c1pc2*m_x0+c2pc0*m_x1+c0pc1*m_x2)/ct2;
+    m_ccy=(c1pc2*m_y0+c2pc0*m_y1+c0pc1*m_y2)/ct2;
+    m_ccz=(c1pc2*m_z0+c2pc0*m_z1+c0pc1*m_z2)/ct2;
+    
+    m_derived=true;
+    return true;
+  }
+  
   // Object overrides.
   
   @Override
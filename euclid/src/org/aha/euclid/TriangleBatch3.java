@@ -0,0 +1,494 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid;
+
+import static java.lang.Math.sqrt;
+
+import org.aha.euclid.math.Comparisons;
+
+/**
+ * <p>
+ *   Fixed size batch of triangles in 3D stored as parallel {@code double[]}
+ *   columns rather than as
+ *   {@link Triangle3} objects.
+ * </p>
+ * <p>
+ *   The columns are the three points of each triangle, the normalized normal
+ *   and the plane constant <i>d</i> as defined by
+ *   {@link Plane3#d()}. Normals are computed as by
+ *   {@link Triangle3#set(double, double, double, double, double, double, double, double, double)}.
+ * </p>
+ * <p>
+ *   The bulk methods evaluate a range {@code [from, to)} of triangles and
+ *   write the result for triangle {@code i} at offset {@code i-from} (times
+ *   the number of values per triangle) in the result array. The loops are
+ *   branch free over the columns so the JIT compiler can vectorize them.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class TriangleBatch3
+{
+  private final int m_size;
+
+  private final double[] m_x0;
+
+  private final double[] m_y0;
+
+  private final double[] m_z0;
+
+  private final double[] m_x1;
+
+  private final double[] m_y1;
+
+  private final double[] m_z1;
+
+  private final double[] m_x2;
+
+  private final double[] m_y2;
+
+  private final double[] m_z2;
+
+  private final double[] m_a;
+
+  private final double[] m_b;
+
+  private final double[] m_c;
+
+  private final double[] m_d;
+
+  /**
+   * <p>
+   *   Creates batch of {@code n} triangles, all
+   *   {@code (0,0,0), (1,0,0), (1,1,0)} as created by
+   *   {@link Triangle3#Triangle3()}.
+   * </p>
+   * @param n Number of triangles.
+   * @throws IllegalArgumentException If {@code n<0}.
+   */
+  public TriangleBatch3(int n)
+  {
+    if (n<0)
+    {
+      throw new IllegalArgumentException("n<0 : "+n);
+    }
+
+    m_size=n;
+    m_x0=new double[n];
+    m_y0=new double[n];
+    m_z0=new double[n];
+    m_x1=new double[n];
+    m_y1=new double[n];
+    m_z1=new double[n];
+    m_x2=new double[n];
+    m_y2=new double[n];
+    m_z2=new double[n];
+    m_a=new double[n];
+    m_b=new double[n];
+    m_c=new double[n];
+    m_d=new double[n];
+
+    for (int i=0; i<n; i++)
+    {
+      m_x1[i]=1.0;
+      m_x2[i]=1.0;
+      m_y2[i]=1.0;
+      m_c[i]=1.0;
+    }
+  }
+
+  /**
+   * <p>
+   *   Creates batch with copies of given triangles.
+   * </p>
+   * @param tris Triangles.
+   */
+  public TriangleBatch3(Triangle3[] tris)
+  {
+    this(tris.length);
+    for (int i=0; i<m_size; i++) set(i, tris[i]);
+  }
+
+  /**
+   * <p>
+   *   Gets number of triangles in {@code this} batch.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_size; }
+
+  /**
+   * <p>
+   *   Sets triangle.
+   * </p>
+   * @param i  Index of triangle to set.
+   * @param x0 X coordinate of first point.
+   * @param y0 Y coordinate of first point.
+   * @param z0 Z coordinate of first point.
+   * @param x1 X coordinate of second point.
+   * @param y1 Y coordinate of second point.
+   * @param z1 Z coordinate of second point.
+   * @param x2 X coordinate of third point.
+   * @param y2 Y coordinate of third point.
+   * @param z2 Z coordinate of third point.
+   * @throws ZeroLengthVectorException If the points are on a line.
+   */
+  public void set(int i, double x0, double y0, double z0, double x1,
+    double y1, double z1, double x2, double y2, double z2)
+  {
+    double ux=x2-x0;
+    double uy=y2-y0;
+    double uz=z2-z0;
+
+    double vx=x1-x0;
+    double vy=y1-y0;
+    double vz=z1-z0;
+
+    double nx=vy*uz-vz*uy;
+    double ny=vz*ux-vx*uz;
+    double nz=vx*uy-vy*ux;
+
+    if (Comparisons.zero3dVector(nx, ny, nz))
+    {
+      throw new ZeroLengthVectorException();
+    }
+
+    double l=sqrt(nx*nx+ny*ny+nz*nz);
+    nx/=l;
+    ny/=l;
+    nz/=l;
+
+    m_x0[i]=x0;
+    m_y0[i]=y0;
+    m_z0[i]=z0;
+    m_x1[i]=x1;
+    m_y1[i]=y1;
+    m_z1[i]=z1;
+    m_x2[i]=x2;
+    m_y2[i]=y2;
+    m_z2[i]=z2;
+    m_a[i]=nx;
+    m_b[i]=ny;
+    m_c[i]=nz;
+    m_d[i]=-(nx*x0+ny*y0+nz*z0);
+  }
+
+  /**
+   * <p>
+   *   Sets triangle.
+   * </p>
+   * @param i Index of triangle to set.
+   * @param t Triangle to copy.
+   */
+  public void set(int i, Triangle3 t)
+  {
+    m_x0[i]=t.x0();
+    m_y0[i]=t.y0();
+    m_z0[i]=t.z0();
+    m_x1[i]=t.x1();
+    m_y1[i]=t.y1();
+    m_z1[i]=t.z1();
+    m_x2[i]=t.x2();
+    m_y2[i]=t.y2();
+    m_z2[i]=t.z2();
+    m_a[i]=t.a();
+    m_b[i]=t.b();
+    m_c[i]=t.c();
+    m_d[i]=t.d();
+  }
+
+  /**
+   * <p>
+   *   Gets triangle.
+   * </p>
+   * @param i Index of triangle to get.
+   * @param t Assigned to triangle. If {@code null} allocates.
+   * @return Triangle.
+   */
+  public Triangle3 get(int i, Triangle3 t)
+  {
+    t=(t==null) ? new Triangle3() : t;
+    t.set(m_x0[i], m_y0[i], m_z0[i], m_x1[i], m_y1[i], m_z1[i], m_x2[i],
+      m_y2[i], m_z2[i]);
+    return t;
+  }
+
+  /**
+   * <p>
+   *   Gets first point of triangle.
+   * </p>
+   * @param i Index of triangle.
+   * @param p Assigned to point. If {@code null} allocates.
+   * @return Point.
+   */
+  public double[] getP0(int i, double[] p)
+  {
+    p=(p==null) ? new double[3] : p;
+    p[0]=m_x0[i];
+    p[1]=m_y0[i];
+    p[2]=m_z0[i];
+    return p;
+  }
+
+  /**
+   * <p>
+   *   Gets second point of triangle.
+   * </p>
+   * @param i Index of triangle.
+   * @param p Assigned to point. If {@code null} allocates.
+   * @return Point.
+   */
+  public double[] getP1(int i, double[] p)
+  {
+    p=(p==null) ? new double[3] : p;
+    p[0]=m_x1[i];
+    p[1]=m_y1[i];
+    p[2]=m_z1[i];
+    return p;
+  }
+
+  /**
+   * <p>
+   *   Gets third point of triangle.
+   * </p>
+   * @param i Index of triangle.
+   * @param p Assigned to point. If {@code null} allocates.
+   * @return Point.
+   */
+  public double[] getP2(int i, double[] p)
+  {
+    p=(p==null) ? new double[3] : p;
+    p[0]=m_x2[i];
+    p[1]=m_y2[i];
+    p[2]=m_z2[i];
+    return p;
+  }
+
+  /**
+   * <p>
+   *   Gets normal of triangle.
+   * </p>
+   * @param i Index of triangle.
+   * @param n Assigned to normal. If {@code null} allocates.
+   * @return Normal.
+   */
+  public double[] getNormal(int i, double[] n)
+  {
+    n=(n==null) ? new double[3] : n;
+    n[0]=m_a[i];
+    n[1]=m_b[i];
+    n[2]=m_c[i];
+    return n;
+  }
+
+  /**
+   * <p>
+   *   Computes area of triangles.
+   * </p>
+   * @param from Index of first triangle.
+   * @param to   Index of last triangle + 1.
+   * @param a    Assigned to areas. If {@code null} allocates.
+   * @return Areas.
+   * @throws IllegalArgumentException If not a valid range.
+   * @see Triangle3#area()
+   */
+  public double[] area(int from, int to, double[] a)
+  {
+    checkRange(from, to);
+    a=(a==null) ? new double[to-from] : a;
+    for (int i=from; i<to; i++)
+    {
+      double ux=m_x1[i]-m_x0[i];
+      double uy=m_y1[i]-m_y0[i];
+      double uz=m_z1[i]-m_z0[i];
+      double vx=m_x2[i]-m_x0[i];
+      double vy=m_y2[i]-m_y0[i];
+      double vz=m_z2[i]-m_z0[i];
+      double wx=uy*vz-uz*vy;
+      double wy=uz*vx-ux*vz;
+      double wz=ux*vy-uy*vx;
+      a[i-from]=0.5*sqrt(wx*wx+wy*wy+wz*wz);
+    }
+    return a;
+  }
+
+  /**
+   * <p>
+   *   Computes average points of triangles.
+   * </p>
+   * @param from Index of first triangle.
+   * @param to   Index of last triangle + 1.
+   * @param c    Assigned to average points, {@code 3} values per triangle. If
+   *             {@code null} allocates.
+   * @return Average points.
+   * @throws IllegalArgumentException If not a valid range.
+   * @see Triangle3#centroid(double[])
+   */
+  public double[] centroid(int from, int to, double[] c)
+  {
+    checkRange(from, to);
+    c=(c==null) ? new double[3*(to-from)] : c;
+    for (int i=from; i<to; i++)
+    {
+      int o=3*(i-from);
+      c[o]=(m_x0[i]+m_x1[i]+m_x2[i])/3.0;
+      c[o+1]=(m_y0[i]+m_y1[i]+m_y2[i])/3.0;
+      c[o+2]=(m_z0[i]+m_z1[i]+m_z2[i])/3.0;
+    }
+    return c;
+  }
+
+  /**
+   * <p>
+   *   Evaluates left side of the triangles' planes' implicit equation
+   *   <i>ax+by+cy+d</i> at a given point: The signed distance from the point
+   *   to the planes.
+   * </p>
+   * @param from Index of first triangle.
+   * @param to   Index of last triangle + 1.
+   * @param x    Point's x coordinate.
+   * @param y    Point's y coordinate.
+   * @param z    Point's z coordinate.
+   * @param d    Assigned to signed distances. If {@code null} allocates.
+   * @return Signed distances.
+   * @throws IllegalArgumentException If not a valid range.
+   * @see Plane3#axbyczd(double, double, double)
+   */
+  public double[] axbyczd(int from, int to, double x, double y, double z,
+    double[] d)
+  {
+    checkRange(from, to);
+    d=(d==null) ? new double[to-from] : d;
+    for (int i=from; i<to; i++)
+    {
+      d[i-from]=m_a[i]*x+m_b[i]*y+m_c[i]*z+m_d[i];
+    }
+    return d;
+  }
+
+  /**
+   * <p>
+   *   Computes point's barycentric coordinates related to triangles.
+   * </p>
+   * <p>
+   *   If the point is not in a triangle's plane the coordinates are those of
+   *   the closest point in plane. For points in plane this is the same as
+   *   {@link Triangle3#barycentric(double, double, double, double[])}.
+   * </p>
+   * @param from Index of first triangle.
+   * @param to   Index of last triangle + 1.
+   * @param x    Point's x coordinate.
+   * @param y    Point's y coordinate.
+   * @param z    Point's z coordinate.
+   * @param bc   Assigned to barycentric coordinates, {@code 3} values per
+   *             triangle. If {@code null} allocates.
+   * @return Barycentric coordinates.
+   * @throws IllegalArgumentException If not a valid range.
+   */
+  public double[] barycentric(int from, int to, double x, double y, double z,
+    double[] bc)
+  {
+    checkRange(from, to);
+    bc=(bc==null) ? new double[3*(to-from)] : bc;
+    for (int i=from; i<to; i++)
+    {
+      double ux=m_x1[i]-m_x0[i];
+      double uy=m_y1[i]-m_y0[i];
+      double uz=m_z1[i]-m_z0[i];
+      double vx=m_x2[i]-m_x0[i];
+      double vy=m_y2[i]-m_y0[i];
+      double vz=m_z2[i]-m_z0[i];
+      double wx=x-m_x0[i];
+      double wy=y-m_y0[i];
+      double wz=z-m_z0[i];
+
+      double uu=ux*ux+uy*uy+uz*uz;
+      double uv=ux*vx+uy*vy+uz*vz;
+      double vv=vx*vx+vy*vy+vz*vz;
+      double wu=wx*ux+wy*uy+wz*uz;
+      double wv=wx*vx+wy*vy+wz*vz;
+
+      double oneOverDenom=1.0/(uu*vv-uv*uv);
+      double b1=(vv*wu-uv*wv)*oneOverDenom;
+      double b2=(uu*wv-uv*wu)*oneOverDenom;
+
+      int o=3*(i-from);
+      bc[o]=1.0-b1-b2;
+      bc[o+1]=b1;
+      bc[o+2]=b2;
+    }
+    return bc;
+  }
+
+  /**
+   * <p>
+   *   Tells if point is inside triangles.
+   * </p>
+   * <p>
+   *   If point is not in a triangle's plane then this tells if the closest
+   *   point in plane is inside, as does
+   *   {@link Triangle3#inside(double, double, double)}. Points on the
+   *   triangles' sides are not inside.
+   * </p>
+   * @param from   Index of first triangle.
+   * @param to     Index of last triangle + 1.
+   * @param x      Point's x coordinate.
+   * @param y      Point's y coordinate.
+   * @param z      Point's z coordinate.
+   * @param inside Assigned {@code true} for triangles point is inside,
+   *               {@code false} for the others. If {@code null} allocates.
+   * @return {@code inside}.
+   * @throws IllegalArgumentException If not a valid range.
+   */
+  public boolean[] inside(int from, int to, double x, double y, double z,
+    boolean[] inside)
+  {
+    checkRange(from, to);
+    inside=(inside==null) ? new boolean[to-from] : inside;
+    for (int i=from; i<to; i++)
+    {
+      double ux=m_x1[i]-m_x0[i];
+      double uy=m_y1[i]-m_y0[i];
+      double uz=m_z1[i]-m_z0[i];
+      double vx=m_x2[i]-m_x0[i];
+      double vy=m_y2[i]-m_y0[i];
+      double vz=m_z2[i]-m_z0[i];
+      double wx=x-m_x0[i];
+      double wy=y-m_y0[i];
+      double wz=z-m_z0[i];
+
+      double uu=ux*ux+uy*uy+uz*uz;
+      double uv=ux*vx+uy*vy+uz*vz;
+      double vv=vx*vx+vy*vy+vz*vz;
+      double wu=wx*ux+wy*uy+wz*uz;
+      double wv=wx*vx+wy*vy+wz*vz;
+
+      // Compare barycentric coordinates scaled by the positive denominator.
+      double denom=uu*vv-uv*uv;
+      double b1=vv*wu-uv*wv;
+      double b2=uu*wv-uv*wu;
+
+      inside[i-from]=b1>0.0 & b2>0.0 & b1+b2<denom;
+    }
+    return inside;
+  }
+
+  // Validates range argument.
+  private void checkRange(int from, int to)
+  {
+    if (from<0)
+    {
+      throw new IllegalArgumentException("from<0 : "+from);
+    }
+    if (to>m_size)
+    {
+      throw new IllegalArgumentException("to>size() : "+to+">"+m_size);
+    }
+    if (from>to)
+    {
+      throw new IllegalArgumentException("from>to : "+from+">"+to);
+    }
+  }
+
+}
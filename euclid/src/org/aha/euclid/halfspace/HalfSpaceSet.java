@@ -0,0 +1,488 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.halfspace;
+
+import static java.lang.Math.sqrt;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+import org.aha.euclid.Hyperplane;
+
+/**
+ * <p>
+ *   The intersection of half-spaces {@code h.eva(p)<=0} of a set of
+ *   {@link Hyperplane}s of the same dimension, compiled for classifying
+ *   many points.
+ * </p>
+ * <p>
+ *   The hyperplanes' vectors are packed in one array and each point's
+ *   coordinates are held while it is evaluated against the hyperplanes in
+ *   turn, stopping at the first it is outside of. Dimensions {@code 2}
+ *   and {@code 3} have kernels of their own. Classification reports for each
+ *   point outside the hyperplane found violated: The first in evaluation
+ *   order.
+ * </p>
+ * <p>
+ *   The evaluation order is the order the hyperplanes were given in until
+ *   {@link #reorder(double[])} sorts them by how many points of a sample
+ *   they reject: Points outside are then found after fewer evaluations.
+ *   Indices reported are always those of the hyperplanes given.
+ * </p>
+ * <p>
+ *   A point is inside if {@code h.eva(p)} is at most
+ *   {@link #getTolerance()} for all hyperplanes.
+ * </p>
+ * <p>
+ *   Classification may be done by several threads at the time, but not
+ *   while reordering or setting the tolerance.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class HalfSpaceSet
+{
+  /**
+   * <p>
+   *   Number of points a fork-join task classifies without splitting.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=1<<14;
+
+  private final int m_d;
+
+  private final int m_m;
+
+  // Vectors, d per hyperplane, and constants in evaluation order.
+
+  private final double[] m_n;
+
+  private final double[] m_c;
+
+  // Index given of hyperplane in evaluation order.
+  private final int[] m_index;
+
+  private double m_tol=0.0;
+
+  /**
+   * <p>
+   *   Creates set.
+   * </p>
+   * @param h Hyperplanes, of the same dimension.
+   * @throws IllegalArgumentException If {@code h} is empty or hyperplanes
+   *         not of the same dimension.
+   */
+  public HalfSpaceSet(Hyperplane... h)
+  {
+    if (h.length==0)
+    {
+      throw new IllegalArgumentException("h.length==0");
+    }
+
+    int d=h[0].getDimension();
+    int m=h.length;
+    m_d=d;
+    m_m=m;
+    m_n=new double[m*d];
+    m_c=new double[m];
+    m_index=new int[m];
+    double[] n=new double[d];
+    for (int k=0; k<m; k++)
+    {
+      if (h[k].getDimension()!=d)
+      {
+        throw new IllegalArgumentException("h["+k+"] of dimension : "+
+          h[k].getDimension()+" d : "+d);
+      }
+
+      h[k].n(n);
+      System.arraycopy(n, 0, m_n, k*d, d);
+      m_c[k]=h[k].c();
+      m_index[k]=k;
+    }
+  }
+
+  /**
+   * <p>
+   *   Gets dimension.
+   * </p>
+   * @return Dimension.
+   */
+  public int getDimension(){ return m_d; }
+
+  /**
+   * <p>
+   *   Gets number of hyperplanes.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_m; }
+
+  /**
+   * <p>
+   *   Gets the tolerance.
+   * </p>
+   * @return Tolerance.
+   */
+  public double getTolerance(){ return m_tol; }
+
+  /**
+   * <p>
+   *   Sets the tolerance: Points with {@code h.eva(p)<=tol} for all
+   *   hyperplanes are inside.
+   * </p>
+   * @param tol Tolerance.
+   * @throws IllegalArgumentException If {@code tol<0}.
+   */
+  public void setTolerance(double tol)
+  {
+    if (!(tol>=0.0))
+    {
+      throw new IllegalArgumentException("tol<0 : "+tol);
+    }
+
+    m_tol=tol;
+  }
+
+  /**
+   * <p>
+   *   Gets the hyperplanes in evaluation order.
+   * </p>
+   * @return Indices of hyperplanes given.
+   */
+  public int[] getOrder(){ return m_index.clone(); }
+
+  /**
+   * <p>
+   *   Classifies point.
+   * </p>
+   * @param p Point.
+   * @return {@code -1} if inside, else index of violated hyperplane.
+   * @throws IllegalArgumentException If {@code p.length} not the dimension.
+   */
+  public int classify(double[] p)
+  {
+    if (p.length!=m_d)
+    {
+      throw new IllegalArgumentException("p.length!=d : "+p.length+"!="+m_d);
+    }
+
+    int d=m_d;
+    for (int k=0; k<m_m; k++)
+    {
+      double v=m_c[k]-m_tol;
+      for (int j=0; j<d; j++) v+=m_n[k*d+j]*p[j];
+      if (v>0.0) return m_index[k];
+    }
+    return -1;
+  }
+
+  /**
+   * <p>
+   *   Tells if point is inside.
+   * </p>
+   * @param p Point.
+   * @return {@code true} if inside, {@code false} if outside.
+   * @throws IllegalArgumentException If {@code p.length} not the dimension.
+   */
+  public boolean contains(double[] p){ return classify(p)<0; }
+
+  /**
+   * <p>
+   *   Classifies points.
+   * </p>
+   * @param p      Points, coordinates of point {@code i} from
+   *               {@code i*}{@link #getDimension()}.
+   * @param result Assigned at {@code i} to {@code -1} if point {@code i}
+   *               inside, else index of violated hyperplane.
+   * @return Number of points inside.
+   * @throws IllegalArgumentException If {@code p.length} not a multiple of
+   *         the dimension or {@code result} too short.
+   */
+  public int classify(double[] p, int[] result)
+  {
+    return classify(p, 0, check(p, result), result);
+  }
+
+  /**
+   * <p>
+   *   Classifies points using the common fork-join pool.
+   * </p>
+   * @param p      Points, coordinates of point {@code i} from
+   *               {@code i*}{@link #getDimension()}.
+   * @param result Assigned at {@code i} to {@code -1} if point {@code i}
+   *               inside, else index of violated hyperplane.
+   * @return Number of points inside.
+   * @throws IllegalArgumentException If {@code p.length} not a multiple of
+   *         the dimension or {@code result} too short.
+   */
+  public int parallelClassify(double[] p, int[] result)
+  {
+    return new ClassifyTask(this, p, 0, check(p, result), result).invoke();
+  }
+
+  /**
+   * <p>
+   *   Sorts the hyperplanes for evaluation by how many points of a sample
+   *   they reject, most first.
+   * </p>
+   * @param p Sample points, coordinates of point {@code i} from
+   *          {@code i*}{@link #getDimension()}.
+   * @throws IllegalArgumentException If {@code p.length} not a multiple of
+   *         the dimension.
+   */
+  public void reorder(double[] p)
+  {
+    int d=m_d;
+    if (p.length%d!=0)
+    {
+      throw new IllegalArgumentException("p.length%d!=0 : "+p.length+"%"+d);
+    }
+
+    int n=p.length/d;
+    int m=m_m;
+
+    // Keys: Count descending, position ascending so the sort is stable.
+    long[] keys=new long[m];
+    for (int k=0; k<m; k++)
+    {
+      long count=0;
+      for (int i=0; i<n; i++)
+      {
+        double v=m_c[k]-m_tol;
+        for (int j=0; j<d; j++) v+=m_n[k*d+j]*p[i*d+j];
+        if (v>0.0) count++;
+      }
+      keys[k]=((n-count)<<32)|k;
+    }
+    Arrays.sort(keys);
+
+    double[] nv=m_n.clone();
+    double[] nc=m_c.clone();
+    int[] ni=m_index.clone();
+    for (int k=0; k<m; k++)
+    {
+      int o=(int)keys[k];
+      System.arraycopy(nv, o*d, m_n, k*d, d);
+      m_c[k]=nc[o];
+      m_index[k]=ni[o];
+    }
+  }
+
+  /**
+   * <p>
+   *   Computes the center of the largest ball in the intersection, its
+   *   Chebyshev center, solving a linear program with
+   *   {@link SeidelLP}.
+   * </p>
+   * @param x Assigned to center. If {@code null} allocates.
+   * @return Radius of ball: Negative if the intersection is empty,
+   *         {@code 0.0} if it has no interior and
+   *         {@link SeidelLP#DEFAULT_BOUND} if unbounded.
+   *         {@code -Infinity} if a hyperplane has zero vector and positive
+   *         constant.
+   */
+  public double chebyshevCenter(double[] x)
+  {
+    int d=m_d;
+    x=(x==null) ? new double[d] : x;
+
+    // Maximize r with n*x+|n|r+c<=0.
+    Hyperplane[] h=new Hyperplane[m_m];
+    for (int k=0; k<m_m; k++)
+    {
+      double[] v=new double[d+1];
+      double l=0.0;
+      for (int j=0; j<d; j++)
+      {
+        v[j]=m_n[k*d+j];
+        l+=v[j]*v[j];
+      }
+      v[d]=sqrt(l);
+      h[k]=new Hyperplane(m_c[k], v);
+    }
+    double[] c=new double[d+1];
+    c[d]=1.0;
+    double[] y=new double[d+1];
+    if (!new SeidelLP(d+1, m_m).solve(h, c, y))
+    {
+      return Double.NEGATIVE_INFINITY;
+    }
+
+    System.arraycopy(y, 0, x, 0, d);
+    return y[d];
+  }
+
+  /**
+   * <p>
+   *   Tells if the intersection is empty.
+   * </p>
+   * @return {@code true} if empty, {@code false} if not.
+   * @see #chebyshevCenter(double[])
+   */
+  public boolean isEmpty(){ return chebyshevCenter(null)<-m_tol; }
+
+  private int check(double[] p, int[] result)
+  {
+    int d=m_d;
+    if (p.length%d!=0)
+    {
+      throw new IllegalArgumentException("p.length%d!=0 : "+p.length+"%"+d);
+    }
+
+    int n=p.length/d;
+    if (result.length<n)
+    {
+      throw new IllegalArgumentException("result.length<n : "+
+        result.length+"<"+n);
+    }
+    return n;
+  }
+
+  // Classifies points [from, to).
+  private int classify(double[] p, int from, int to, int[] result)
+  {
+    switch (m_d)
+    {
+      case 2 : return classify2(p, from, to, result);
+      case 3 : return classify3(p, from, to, result);
+      default : return classifyd(p, from, to, result);
+    }
+  }
+
+  private int classify2(double[] p, int from, int to, int[] result)
+  {
+    double[] n=m_n;
+    double[] c=m_c;
+    double tol=m_tol;
+    int m=m_m;
+    int retVal=0;
+    for (int i=from; i<to; i++)
+    {
+      double x=p[2*i];
+      double y=p[2*i+1];
+      int k=0;
+      while (k<m && (c[k]-tol)+n[2*k]*x+n[2*k+1]*y<=0.0) k++;
+      if (k==m)
+      {
+        result[i]=-1;
+        retVal++;
+      }
+      else
+      {
+        result[i]=m_index[k];
+      }
+    }
+    return retVal;
+  }
+
+  private int classify3(double[] p, int from, int to, int[] result)
+  {
+    double[] n=m_n;
+    double[] c=m_c;
+    double tol=m_tol;
+    int m=m_m;
+    int retVal=0;
+    for (int i=from; i<to; i++)
+    {
+      int o=3*i;
+      double x=p[o];
+      double y=p[o+1];
+      double z=p[o+2];
+      int k=0;
+      while (k<m &&
+             (c[k]-tol)+n[3*k]*x+n[3*k+1]*y+n[3*k+2]*z<=0.0) k++;
+      if (k==m)
+      {
+        result[i]=-1;
+        retVal++;
+      }
+      else
+      {
+        result[i]=m_index[k];
+      }
+    }
+    return retVal;
+  }
+
+  private int classifyd(double[] p, int from, int to, int[] result)
+  {
+    int d=m_d;
+    double[] n=m_n;
+    double[] c=m_c;
+    double tol=m_tol;
+    int m=m_m;
+    int retVal=0;
+    for (int i=from; i<to; i++)
+    {
+      int o=i*d;
+      int k=0;
+      for (; k<m; k++)
+      {
+        int ko=k*d;
+        double v=c[k]-tol;
+        for (int q=0; q<d; q++) v+=n[ko+q]*p[o+q];
+        if (v>0.0) break;
+      }
+      if (k==m)
+      {
+        result[i]=-1;
+        retVal++;
+      }
+      else
+      {
+        result[i]=m_index[k];
+      }
+    }
+    return retVal;
+  }
+
+  // Fork-join task for parallelClassify: Counts inside summed.
+  private static final class ClassifyTask extends RecursiveTask<Integer>
+  {
+    private static final long serialVersionUID=1L;
+
+    private final HalfSpaceSet m_set;
+
+    private final double[] m_p;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    private final int[] m_result;
+
+    ClassifyTask(HalfSpaceSet set, double[] p, int from, int to,
+      int[] result)
+    {
+      m_set=set;
+      m_p=p;
+      m_from=from;
+      m_to=to;
+      m_result=result;
+    }
+
+    @Override
+    protected Integer compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        return m_set.classify(m_p, m_from, m_to, m_result);
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      ClassifyTask a=new ClassifyTask(m_set, m_p, m_from, mid, m_result);
+      ClassifyTask b=new ClassifyTask(m_set, m_p, mid, m_to, m_result);
+      invokeAll(a, b);
+      return a.join()+b.join();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "HalfSpaceSet[d="+m_d+", size="+m_m+", tolerance="+m_tol+"]";
+  }
+
+}
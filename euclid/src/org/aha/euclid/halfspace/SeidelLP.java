@@ -0,0 +1,497 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.halfspace;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import org.aha.euclid.Hyperplane;
+
+/**
+ * <p>
+ *   Solves linear programs of low dimension with Seidel's randomized
+ *   incremental algorithm: Maximizes {@code c*x} subject to
+ *   {@code h.eva(x)<=0} for a set of
+ *   {@link Hyperplane}s {@code h}, the half-spaces on the negative side of
+ *   the hyperplanes.
+ * </p>
+ * <p>
+ *   The constraints are added in random order keeping the optimum of those
+ *   added. If a constraint is violated by the optimum the new optimum is on
+ *   its hyperplane: A variable is eliminated using the hyperplane's
+ *   equation and the optimum found solving the program of one dimension
+ *   less with the constraints added before it. The expected time is linear
+ *   in the number of constraints for fixed dimension, with a constant
+ *   growing as the factorial of the dimension: For dimensions up to about
+ *   four.
+ * </p>
+ * <p>
+ *   The solution is bounded by a box {@code |x[j]|<=}{@link #getBound()}:
+ *   If the program is unbounded the solution is on the box. A constraint is
+ *   violated if {@code h.eva(x)} is greater than
+ *   {@link #getTolerance()}.
+ * </p>
+ * <p>
+ *   Objects of this class are workspaces: Solving does not allocate once
+ *   the workspace has grown to the number of constraints. They are not
+ *   thread safe, use one per thread. Many independent programs are solved
+ *   in the common fork-join pool with
+ *   {@link #parallelSolve(Hyperplane[][], double[][], double[][], boolean[])}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class SeidelLP
+{
+  /**
+   * <p>
+   *   Number of programs a fork-join task solves without splitting.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=64;
+
+  /**
+   * <p>
+   *   Default bound on the absolute value of the solution's components.
+   * </p>
+   */
+  public static final double DEFAULT_BOUND=1e9;
+
+  /**
+   * <p>
+   *   Default tolerance.
+   * </p>
+   */
+  public static final double DEFAULT_TOLERANCE=1e-9;
+
+  private final int m_d;
+
+  private double m_bound=DEFAULT_BOUND;
+
+  private double m_tol=DEFAULT_TOLERANCE;
+
+  private long m_seed=0x2545F4914F6CDD1DL;
+
+  private int m_capacity=0;
+
+  // Per level l, d-l variables: Constraints as coefficients then constant,
+  // the objective and the solution.
+
+  private final double[][] m_rows;
+
+  private final double[][] m_c;
+
+  private final double[][] m_x;
+
+  private int[] m_perm=new int[0];
+
+  private final double[] m_n;
+
+  /**
+   * <p>
+   *   Creates workspace.
+   * </p>
+   * @param d Dimension.
+   * @throws IllegalArgumentException If {@code d<1}.
+   */
+  public SeidelLP(int d){ this(d, 16); }
+
+  /**
+   * <p>
+   *   Creates workspace.
+   * </p>
+   * @param d        Dimension.
+   * @param capacity Number of constraints to make room for.
+   * @throws IllegalArgumentException If {@code d<1} or {@code capacity<0}.
+   */
+  public SeidelLP(int d, int capacity)
+  {
+    if (d<1)
+    {
+      throw new IllegalArgumentException("d<1 : "+d);
+    }
+    if (capacity<0)
+    {
+      throw new IllegalArgumentException("capacity<0 : "+capacity);
+    }
+
+    m_d=d;
+    m_rows=new double[d][];
+    m_c=new double[d][];
+    m_x=new double[d][];
+    for (int l=0; l<d; l++)
+    {
+      m_c[l]=new double[d-l];
+      m_x[l]=new double[d-l];
+    }
+    m_n=new double[d];
+    ensure(capacity);
+  }
+
+  /**
+   * <p>
+   *   Gets dimension.
+   * </p>
+   * @return Dimension.
+   */
+  public int getDimension(){ return m_d; }
+
+  /**
+   * <p>
+   *   Gets bound on the absolute value of the solution's components.
+   * </p>
+   * @return Bound.
+   */
+  public double getBound(){ return m_bound; }
+
+  /**
+   * <p>
+   *   Sets bound on the absolute value of the solution's components.
+   * </p>
+   * @param bound Bound.
+   * @throws IllegalArgumentException If {@code bound<=0}.
+   */
+  public void setBound(double bound)
+  {
+    if (!(bound>0.0))
+    {
+      throw new IllegalArgumentException("bound<=0 : "+bound);
+    }
+
+    m_bound=bound;
+  }
+
+  /**
+   * <p>
+   *   Gets the tolerance of constraints.
+   * </p>
+   * @return Tolerance.
+   */
+  public double getTolerance(){ return m_tol; }
+
+  /**
+   * <p>
+   *   Sets the tolerance of constraints.
+   * </p>
+   * @param tol Tolerance.
+   * @throws IllegalArgumentException If {@code tol<0}.
+   */
+  public void setTolerance(double tol)
+  {
+    if (!(tol>=0.0))
+    {
+      throw new IllegalArgumentException("tol<0 : "+tol);
+    }
+
+    m_tol=tol;
+  }
+
+  /**
+   * <p>
+   *   Sets the seed of the random order constraints are added in, the same
+   *   for each program solved.
+   * </p>
+   * @param seed Seed.
+   */
+  public void setSeed(long seed){ m_seed=(seed==0L) ? 1L : seed; }
+
+  /**
+   * <p>
+   *   Solves.
+   * </p>
+   * @param h Constraints, {@code h.eva(x)<=0}.
+   * @param c Objective, maximizes {@code c*x}.
+   * @param x Assigned to solution if feasible.
+   * @return {@code true} if feasible, {@code false} if not.
+   * @throws IllegalArgumentException If dimension of {@code h}, length of
+   *         {@code c} or {@code x} not the dimension.
+   */
+  public boolean solve(Hyperplane[] h, double[] c, double[] x)
+  {
+    return solve(h, 0, h.length, c, x);
+  }
+
+  /**
+   * <p>
+   *   Solves.
+   * </p>
+   * @param h    Constraints, {@code h.eva(x)<=0}.
+   * @param from Index of first constraint in {@code h}.
+   * @param to   Index one past last constraint in {@code h}.
+   * @param c    Objective, maximizes {@code c*x}.
+   * @param x    Assigned to solution if feasible.
+   * @return {@code true} if feasible, {@code false} if not.
+   * @throws IllegalArgumentException If dimension of {@code h}, length of
+   *         {@code c} or {@code x} not the dimension.
+   */
+  public boolean solve(Hyperplane[] h, int from, int to, double[] c,
+    double[] x)
+  {
+    int d=m_d;
+    if (c.length!=d || x.length!=d)
+    {
+      throw new IllegalArgumentException("c.length : "+c.length+
+        " x.length : "+x.length+" d : "+d);
+    }
+    for (int i=from; i<to; i++)
+    {
+      if (h[i].getDimension()!=d)
+      {
+        throw new IllegalArgumentException("h["+i+"] of dimension : "+
+          h[i].getDimension()+" d : "+d);
+      }
+    }
+
+    int m=to-from;
+    ensure(m);
+    // Shuffled by xorshift from the seed: The same program gets the same
+    // solution.
+    int[] perm=m_perm;
+    long seed=m_seed;
+    for (int i=0; i<m; i++) perm[i]=from+i;
+    for (int i=m-1; i>0; i--)
+    {
+      seed^=seed<<13;
+      seed^=seed>>>7;
+      seed^=seed<<17;
+      int j=(int)((seed>>>33)%(i+1));
+      int t=perm[i];
+      perm[i]=perm[j];
+      perm[j]=t;
+    }
+
+    double[] r=m_rows[0];
+    int s=d+1;
+    for (int i=0; i<m; i++)
+    {
+      Hyperplane e=h[perm[i]];
+      e.n(m_n);
+      System.arraycopy(m_n, 0, r, i*s, d);
+      r[i*s+d]=e.c();
+    }
+    System.arraycopy(c, 0, m_c[0], 0, d);
+
+    if (!solve(0, m)) return false;
+
+    System.arraycopy(m_x[0], 0, x, 0, d);
+    return true;
+  }
+
+  /**
+   * <p>
+   *   Solves independent programs using the common fork-join pool, each
+   *   with default bound and tolerance.
+   * </p>
+   * @param h        Constraints of programs.
+   * @param c        Objectives of programs, the length the dimension.
+   * @param x        Assigned to solutions of feasible programs.
+   * @param feasible Assigned to if programs feasible.
+   * @throws IllegalArgumentException If arrays not of same length or a
+   *         program's arrays not of its dimension.
+   */
+  public static void parallelSolve(Hyperplane[][] h, double[][] c,
+    double[][] x, boolean[] feasible)
+  {
+    int n=h.length;
+    if (c.length!=n || x.length!=n || feasible.length!=n)
+    {
+      throw new IllegalArgumentException("h.length : "+n+" c.length : "+
+        c.length+" x.length : "+x.length+" feasible.length : "+
+        feasible.length);
+    }
+
+    new SolveTask(h, c, x, feasible, 0, n).invoke();
+  }
+
+  private void ensure(int m)
+  {
+    if (m<=m_capacity) return;
+
+    int cap=max(m, 2*m_capacity);
+    for (int l=0; l<m_d; l++)
+    {
+      m_rows[l]=new double[(cap+2*l)*(m_d-l+1)];
+    }
+    m_perm=new int[cap];
+    m_capacity=cap;
+  }
+
+  // Solves level l with its first m constraints.
+  private boolean solve(int l, int m)
+  {
+    int k=m_d-l;
+    double[] r=m_rows[l];
+    double[] c=m_c[l];
+    double[] x=m_x[l];
+    double bound=m_bound;
+    if (k==1) return solve1(r, m, c[0], x);
+
+    for (int j=0; j<k; j++)
+    {
+      x[j]=(c[j]>0.0) ? bound : (c[j]<0.0) ? -bound : 0.0;
+    }
+
+    int s=k+1;
+    double[] nr=m_rows[l+1];
+    double[] nc=m_c[l+1];
+    double[] y=m_x[l+1];
+    for (int i=0; i<m; i++)
+    {
+      int o=i*s;
+      double v=r[o+k];
+      int p=0;
+      for (int j=0; j<k; j++)
+      {
+        v+=r[o+j]*x[j];
+        if (abs(r[o+j])>abs(r[o+p])) p=j;
+      }
+      if (v<=m_tol) continue;
+
+      double ap=r[o+p];
+      if (ap==0.0) return false;
+
+      // On the hyperplane x[p]=e0+sum e[j]*x[j], e[j]=-a[j]/ap, the bounds
+      // of x[p] and the constraints before with x[p] eliminated.
+      double e0=-r[o+k]/ap;
+      int ns=k;
+      for (int j=0, q=0; j<k; j++)
+      {
+        if (j==p) continue;
+        double e=-r[o+j]/ap;
+        nr[q]=e;
+        nr[ns+q]=-e;
+        nc[q]=c[j]+c[p]*e;
+        q++;
+      }
+      nr[k-1]=e0-bound;
+      nr[ns+k-1]=-e0-bound;
+      for (int t=0; t<i; t++)
+      {
+        int to=t*s;
+        int no=(t+2)*ns;
+        double ar=r[to+p];
+        for (int j=0, q=0; j<k; j++)
+        {
+          if (j==p) continue;
+          nr[no+q]=r[to+j]-ar*r[o+j]/ap;
+          q++;
+        }
+        nr[no+k-1]=r[to+k]+ar*e0;
+      }
+
+      if (!solve(l+1, i+2)) return false;
+
+      double xp=e0;
+      for (int j=0, q=0; j<k; j++)
+      {
+        if (j==p) continue;
+        x[j]=y[q];
+        xp-=r[o+j]/ap*y[q];
+        q++;
+      }
+      x[p]=xp;
+    }
+    return true;
+  }
+
+  // One variable: Interval of the constraints and the bound.
+  private boolean solve1(double[] r, int m, double c, double[] x)
+  {
+    double bound=m_bound;
+    double tol=m_tol;
+    double lo=-bound;
+    double hi=bound;
+    double loT=-bound;
+    double hiT=bound;
+    for (int i=0; i<m; i++)
+    {
+      double a=r[2*i];
+      double b=r[2*i+1];
+      if (a==0.0)
+      {
+        if (b>tol) return false;
+        continue;
+      }
+
+      if (a>0.0)
+      {
+        hi=min(hi, -b/a);
+        hiT=min(hiT, (tol-b)/a);
+      }
+      else
+      {
+        lo=max(lo, -b/a);
+        loT=max(loT, (tol-b)/a);
+      }
+    }
+    if (loT>hiT) return false;
+
+    if (lo>hi) x[0]=0.5*(max(lo, loT)+min(hi, hiT));
+    else if (c>0.0) x[0]=hi;
+    else if (c<0.0) x[0]=lo;
+    else x[0]=min(max(0.0, lo), hi);
+    return true;
+  }
+
+  // Fork-join task for parallelSolve: Leaves use workspaces of their own.
+  private static final class SolveTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final Hyperplane[][] m_h;
+
+    private final double[][] m_c;
+
+    private final double[][] m_x;
+
+    private final boolean[] m_feasible;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    SolveTask(Hyperplane[][] h, double[][] c, double[][] x,
+      boolean[] feasible, int from, int to)
+    {
+      m_h=h;
+      m_c=c;
+      m_x=x;
+      m_feasible=feasible;
+      m_from=from;
+      m_to=to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        SeidelLP[] lp=new SeidelLP[8];
+        for (int i=m_from; i<m_to; i++)
+        {
+          int d=m_c[i].length;
+          if (d>=lp.length) lp=Arrays.copyOf(lp, 2*d);
+          if (lp[d]==null) lp[d]=new SeidelLP(d);
+          m_feasible[i]=lp[d].solve(m_h[i], m_c[i], m_x[i]);
+        }
+        return;
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      invokeAll(new SolveTask(m_h, m_c, m_x, m_feasible, m_from, mid),
+        new SolveTask(m_h, m_c, m_x, m_feasible, mid, m_to));
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "SeidelLP[d="+m_d+", bound="+m_bound+", tolerance="+m_tol+"]";
+  }
+
+}
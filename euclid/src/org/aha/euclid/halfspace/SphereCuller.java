@@ -0,0 +1,442 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.halfspace;
+
+import java.util.Arrays;
+
+import org.aha.euclid.Plane3;
+import org.aha.euclid.Sphere3;
+
+/**
+ * <p>
+ *   Culls
+ *   {@link Sphere3}s against a convex volume given by
+ *   {@link Plane3}s, for example a view frustum: The volume is the points
+ *   where
+ *   {@link Plane3#axbyczd(double, double, double)} is at most {@code 0} for
+ *   all planes, the normals point out of the volume.
+ * </p>
+ * <p>
+ *   A sphere is
+ *   {@link #OUTSIDE} if entirely in front of one of the planes,
+ *   {@link #INSIDE} if entirely behind all of them and else
+ *   {@link #INTERSECTING}. The test is conservative: A sphere outside the
+ *   volume near an edge or corner of it may be found intersecting.
+ * </p>
+ * <p>
+ *   Spheres are given as objects or as coordinate and radius arrays, in
+ *   which case codes and plane indices are per index in the arrays. The
+ *   planes are packed in one array and each sphere is tested against them in
+ *   turn, stopping at the first plane it is outside of.
+ * </p>
+ * <p>
+ *   Two ways to test fewer planes:
+ * </p>
+ * <ul>
+ *   <li>
+ *     Plane coherence: Batch classification given an array of plane indices
+ *     tests the plane that last found a sphere outside first. When spheres
+ *     move little between frames this plane likely rejects it again.
+ *   </li>
+ *   <li>
+ *     Hierarchical: Spheres arranged in a tree where each sphere encloses the
+ *     spheres of its subtree are classified top down: A subtree whose root
+ *     is outside or inside has the root's code, and planes a sphere is
+ *     entirely behind are not tested for its subtree, see
+ *     {@link #classifyTree(double[], double[], double[], double[], int[], byte[])}.
+ *   </li>
+ * </ul>
+ * <p>
+ *   Objects of this class are immutable and so thread safe.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class SphereCuller
+{
+  /**
+   * <p>
+   *   Code for sphere entirely outside the volume.
+   * </p>
+   */
+  public static final byte OUTSIDE=0;
+
+  /**
+   * <p>
+   *   Code for sphere that may intersect the volume's boundary.
+   * </p>
+   */
+  public static final byte INTERSECTING=1;
+
+  /**
+   * <p>
+   *   Code for sphere entirely inside the volume.
+   * </p>
+   */
+  public static final byte INSIDE=2;
+
+  private final int m_m;
+
+  // Per plane: a, b, c and d.
+  private final double[] m_p;
+
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   * @param planes Planes bounding the volume, normals pointing out. This
+   *               does not keep references to the planes, later changes to
+   *               them are not seen.
+   */
+  public SphereCuller(Plane3... planes)
+  {
+    m_m=planes.length;
+    m_p=new double[4*m_m];
+    for (int k=0; k<m_m; k++)
+    {
+      Plane3 p=planes[k];
+      m_p[4*k]=p.a();
+      m_p[4*k+1]=p.b();
+      m_p[4*k+2]=p.c();
+      m_p[4*k+3]=p.d();
+    }
+  }
+
+  /**
+   * <p>
+   *   Gets number of planes.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_m; }
+
+  /**
+   * <p>
+   *   Classifies sphere.
+   * </p>
+   * @param x Center's x coordinate.
+   * @param y Center's y coordinate.
+   * @param z Center's z coordinate.
+   * @param r Radius.
+   * @return {@link #OUTSIDE}, {@link #INTERSECTING} or {@link #INSIDE}.
+   */
+  public byte classify(double x, double y, double z, double r)
+  {
+    double[] p=m_p;
+    byte retVal=INSIDE;
+    for (int o=0; o<p.length; o+=4)
+    {
+      double d=p[o]*x+p[o+1]*y+p[o+2]*z+p[o+3];
+      if (d>r) return OUTSIDE;
+      if (d>-r) retVal=INTERSECTING;
+    }
+    return retVal;
+  }
+
+  /**
+   * <p>
+   *   Classifies sphere.
+   * </p>
+   * @param s Sphere.
+   * @return {@link #OUTSIDE}, {@link #INTERSECTING} or {@link #INSIDE}.
+   */
+  public byte classify(Sphere3 s)
+  {
+    return classify(s.x(), s.y(), s.z(), s.getRadius());
+  }
+
+  /**
+   * <p>
+   *   Classifies spheres.
+   * </p>
+   * @param s     Spheres.
+   * @param codes Array to assign code of sphere {@code i} at {@code i} to.
+   * @return Number of spheres not outside.
+   * @throws IllegalArgumentException If {@code codes.length<s.length}.
+   */
+  public int classify(Sphere3[] s, byte[] codes)
+  {
+    return classify(s, codes, null);
+  }
+
+  /**
+   * <p>
+   *   Classifies spheres using plane coherence.
+   * </p>
+   * @param s     Spheres.
+   * @param codes Array to assign code of sphere {@code i} at {@code i} to.
+   * @param last  Plane indices: For sphere {@code i} the plane at
+   *              {@code last[i]} is tested first and if the sphere is found
+   *              outside the index of the plane found it outside assigned.
+   *              Indices must be in {@code [0, size())}, a new array of
+   *              zeros will do. If {@code null} planes are tested in order.
+   * @return Number of spheres not outside.
+   * @throws IllegalArgumentException If {@code codes.length<s.length} or
+   *         {@code last.length<s.length}.
+   */
+  public int classify(Sphere3[] s, byte[] codes, int[] last)
+  {
+    int n=s.length;
+    check(n, codes, last);
+
+    double[] p=m_p;
+    int retVal=0;
+    for (int i=0; i<n; i++)
+    {
+      Sphere3 si=s[i];
+      byte code=(last==null) ?
+        classify(si.x(), si.y(), si.z(), si.getRadius()) :
+        classify(p, si.x(), si.y(), si.z(), si.getRadius(), last, i);
+      codes[i]=code;
+      if (code!=OUTSIDE) retVal++;
+    }
+    return retVal;
+  }
+
+  /**
+   * <p>
+   *   Classifies spheres given as arrays.
+   * </p>
+   * @param x     Centers' x coordinates.
+   * @param y     Centers' y coordinates.
+   * @param z     Centers' z coordinates.
+   * @param r     Radii.
+   * @param from  Index of first sphere to classify.
+   * @param to    Index after last sphere to classify.
+   * @param codes Array to assign code of sphere {@code i} at {@code i} to.
+   * @return Number of spheres not outside.
+   * @throws IndexOutOfBoundsException If {@code from<0 || from>to} or an
+   *         array is shorter than {@code to}.
+   */
+  public int classify(double[] x, double[] y, double[] z, double[] r,
+    int from, int to, byte[] codes)
+  {
+    return classify(x, y, z, r, from, to, codes, null);
+  }
+
+  /**
+   * <p>
+   *   Classifies spheres given as arrays using plane coherence.
+   * </p>
+   * @param x     Centers' x coordinates.
+   * @param y     Centers' y coordinates.
+   * @param z     Centers' z coordinates.
+   * @param r     Radii.
+   * @param from  Index of first sphere to classify.
+   * @param to    Index after last sphere to classify.
+   * @param codes Array to assign code of sphere {@code i} at {@code i} to.
+   * @param last  Plane indices: For sphere {@code i} the plane at
+   *              {@code last[i]} is tested first and if the sphere is found
+   *              outside the index of the plane found it outside assigned.
+   *              Indices must be in {@code [0, size())}, a new array of
+   *              zeros will do. If {@code null} planes are tested in order.
+   * @return Number of spheres not outside.
+   * @throws IndexOutOfBoundsException If {@code from<0 || from>to} or an
+   *         array is shorter than {@code to}.
+   */
+  public int classify(double[] x, double[] y, double[] z, double[] r,
+    int from, int to, byte[] codes, int[] last)
+  {
+    if (from<0 || from>to)
+    {
+      throw new IndexOutOfBoundsException("from : "+from+" to : "+to);
+    }
+    checkRange(to, x.length, y.length, z.length, r.length, codes.length);
+    if (last!=null) checkRange(to, last.length);
+
+    double[] p=m_p;
+    int retVal=0;
+    if (last==null)
+    {
+      for (int i=from; i<to; i++)
+      {
+        double xi=x[i];
+        double yi=y[i];
+        double zi=z[i];
+        double ri=r[i];
+        byte code=INSIDE;
+        for (int o=0; o<p.length; o+=4)
+        {
+          double d=p[o]*xi+p[o+1]*yi+p[o+2]*zi+p[o+3];
+          if (d>ri)
+          {
+            code=OUTSIDE;
+            break;
+          }
+          if (d>-ri) code=INTERSECTING;
+        }
+        codes[i]=code;
+        if (code!=OUTSIDE) retVal++;
+      }
+    }
+    else
+    {
+      for (int i=from; i<to; i++)
+      {
+        byte code=classify(p, x[i], y[i], z[i], r[i], last, i);
+        codes[i]=code;
+        if (code!=OUTSIDE) retVal++;
+      }
+    }
+    return retVal;
+  }
+
+  /**
+   * <p>
+   *   Classifies spheres arranged in a tree.
+   * </p>
+   * <p>
+   *   The spheres are in preorder: Sphere {@code i}'s subtree is the spheres
+   *   {@code [i, skip[i])}, the first being {@code i}, and the trees of the
+   *   roots are consecutive, the first root being sphere {@code 0}. A sphere
+   *   is assumed to enclose the spheres of its subtree: If it is outside or
+   *   inside so are they and are given its code without being tested, and
+   *   planes it is entirely behind are not tested for them.
+   * </p>
+   * @param x     Centers' x coordinates.
+   * @param y     Centers' y coordinates.
+   * @param z     Centers' z coordinates.
+   * @param r     Radii.
+   * @param skip  Per sphere: Index after its subtree. Length is number of
+   *              spheres.
+   * @param codes Array to assign code of sphere {@code i} at {@code i} to.
+   * @return Number of spheres not outside.
+   * @throws IllegalArgumentException If {@code skip} does not describe a
+   *         tree: {@code skip[i]<=i} or a subtree not within its parent's.
+   * @throws IndexOutOfBoundsException If an array is shorter than
+   *         {@code skip}.
+   */
+  public int classifyTree(double[] x, double[] y, double[] z, double[] r,
+    int[] skip, byte[] codes)
+  {
+    int n=skip.length;
+    checkRange(n, x.length, y.length, z.length, r.length, codes.length);
+
+    double[] p=m_p;
+    int m=m_m;
+
+    // Bit k set if plane k to be tested, planes from 64 are always tested.
+    long mask=(m>=Long.SIZE) ? -1L : (1L<<m)-1;
+
+    // Per subtree entered: Index after it and the mask of its parent.
+    int[] ends=new int[16];
+    long[] masks=new long[16];
+    int sp=0;
+
+    int retVal=0;
+    int i=0;
+    while (i<n)
+    {
+      while (sp>0 && i==ends[sp-1]) mask=masks[--sp];
+
+      int end=skip[i];
+      int parentEnd=(sp>0) ? ends[sp-1] : n;
+      if (end<=i || end>parentEnd)
+      {
+        throw new IllegalArgumentException("skip["+i+"] : "+end);
+      }
+
+      double xi=x[i];
+      double yi=y[i];
+      double zi=z[i];
+      double ri=r[i];
+      byte code=INSIDE;
+      long childMask=mask;
+      for (int k=0; k<m; k++)
+      {
+        if (k<Long.SIZE && (mask&(1L<<k))==0) continue;
+
+        int o=4*k;
+        double d=p[o]*xi+p[o+1]*yi+p[o+2]*zi+p[o+3];
+        if (d>ri)
+        {
+          code=OUTSIDE;
+          break;
+        }
+        if (d>-ri) code=INTERSECTING;
+        else if (k<Long.SIZE) childMask&=~(1L<<k);
+      }
+
+      if (code!=INTERSECTING)
+      {
+        Arrays.fill(codes, i, end, code);
+        if (code==INSIDE) retVal+=end-i;
+        i=end;
+        continue;
+      }
+
+      codes[i]=INTERSECTING;
+      retVal++;
+      if (end>i+1)
+      {
+        if (sp==ends.length)
+        {
+          ends=Arrays.copyOf(ends, 2*sp);
+          masks=Arrays.copyOf(masks, 2*sp);
+        }
+        ends[sp]=end;
+        masks[sp++]=mask;
+        mask=childMask;
+      }
+      i++;
+    }
+    return retVal;
+  }
+
+  // Classifies sphere testing plane last[i] first and assigning to it the
+  // plane found sphere outside.
+  private static byte classify(double[] p, double x, double y, double z,
+    double r, int[] last, int i)
+  {
+    if (p.length==0) return INSIDE;
+
+    int l=4*last[i];
+    double d=p[l]*x+p[l+1]*y+p[l+2]*z+p[l+3];
+    if (d>r) return OUTSIDE;
+
+    byte retVal=(d>-r) ? INTERSECTING : INSIDE;
+    for (int o=0; o<p.length; o+=4)
+    {
+      if (o==l) continue;
+
+      d=p[o]*x+p[o+1]*y+p[o+2]*z+p[o+3];
+      if (d>r)
+      {
+        last[i]=o/4;
+        return OUTSIDE;
+      }
+      if (d>-r) retVal=INTERSECTING;
+    }
+    return retVal;
+  }
+
+  private static void check(int n, byte[] codes, int[] last)
+  {
+    if (codes.length<n)
+    {
+      throw new IllegalArgumentException("codes.length<n : "+
+        codes.length+"<"+n);
+    }
+    if (last!=null && last.length<n)
+    {
+      throw new IllegalArgumentException("last.length<n : "+
+        last.length+"<"+n);
+    }
+  }
+
+  private static void checkRange(int to, int... lengths)
+  {
+    for (int length : lengths)
+    {
+      if (length<to)
+      {
+        throw new IndexOutOfBoundsException("to : "+to+" length : "+length);
+      }
+    }
+  }
+
+  @Override
+  public String toString(){ return "SphereCuller[size="+m_m+"]"; }
+
+}
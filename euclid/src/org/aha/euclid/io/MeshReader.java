@@ -0,0 +1,888 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.io;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.aha.euclid.Mesh3;
+
+/**
+ * <p>
+ *   Reads binary mesh files into
+ *   {@link Mesh3} objects.
+ * </p>
+ * <p>
+ *   Supported are binary STL and binary (little or big endian) PLY. Fixed
+ *   size records, that is STL triangles, PLY vertices and PLY faces that all
+ *   are triangles, are decoded from memory mapped regions of the file
+ *   straight into the mesh's primitive arrays, optionally in parallel. PLY
+ *   faces with other than three vertices are read sequentially and
+ *   triangulated as fans.
+ * </p>
+ * <p>
+ *   STL stores the points of each triangle, the mesh read has three
+ *   vertices per triangle: Vertices are not merged.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class MeshReader
+{
+  private MeshReader(){} // Utility pattern dictates private constructor.
+
+  /**
+   * <p>
+   *   Parallel reads do not split ranges of records smaller than this.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=65536;
+
+  // Largest region mapped at once.
+  private static final int WINDOW=1<<30;
+
+  // Largest array length allowed.
+  private static final long MAX_ARRAY=Integer.MAX_VALUE-8;
+
+  /**
+   * <p>
+   *   Reads mesh, format decided by file name extension: {@code .stl} or
+   *   {@code .ply}.
+   * </p>
+   * @param p        Path to file.
+   * @param parallel {@code true} if to decode in parallel in the common
+   *                 fork join pool.
+   * @return Mesh read.
+   * @throws IOException If fails to read or not a supported format.
+   */
+  public static Mesh3 read(Path p, boolean parallel) throws IOException
+  {
+    String name=p.getFileName().toString().toLowerCase();
+    if (name.endsWith(".stl")) return readStl(p, parallel);
+    if (name.endsWith(".ply")) return readPly(p, parallel);
+    throw new IOException("unsupported file type : "+p);
+  }
+
+  /**
+   * <p>
+   *   Reads mesh sequentially, format decided by file name extension:
+   *   {@code .stl} or {@code .ply}.
+   * </p>
+   * @param p Path to file.
+   * @return Mesh read.
+   * @throws IOException If fails to read or not a supported format.
+   */
+  public static Mesh3 read(Path p) throws IOException{ return read(p, false); }
+
+  /**
+   * <p>
+   *   Reads binary STL.
+   * </p>
+   * @param p        Path to file.
+   * @param parallel {@code true} if to decode in parallel in the common
+   *                 fork join pool.
+   * @return Mesh read.
+   * @throws IOException If fails to read or not binary STL.
+   */
+  public static Mesh3 readStl(Path p, boolean parallel) throws IOException
+  {
+    try (FileChannel ch=FileChannel.open(p, StandardOpenOption.READ))
+    {
+      long size=ch.size();
+      if (size<84)
+      {
+        throw new IOException("not binary STL, too short : "+p);
+      }
+
+      ByteBuffer b=ByteBuffer.allocate(4).order(LITTLE_ENDIAN);
+      while (b.hasRemaining())
+      {
+        if (ch.read(b, 80+b.position())<0) throw new EOFException(p.toString());
+      }
+      long n=b.getInt(0)&0xffffffffL;
+      if (84+50*n!=size)
+      {
+        throw new IOException("not binary STL, size "+size+
+          " does not match triangle count "+n+" : "+p);
+      }
+      checkLength(9*n, p);
+
+      int nt=(int)n;
+      double[] v=new double[9*nt];
+      int[] t=new int[3*nt];
+      decode(new StlDecoder(new Records(ch, 84, 50, nt, LITTLE_ENDIAN), v, t),
+        nt, parallel);
+      return new Mesh3(v, t);
+    }
+  }
+
+  /**
+   * <p>
+   *   Reads binary PLY. Vertices are taken from element {@code vertex}'s
+   *   properties {@code x}, {@code y} and {@code z}, triangles from element
+   *   {@code face}'s list property {@code vertex_indices} or
+   *   {@code vertex_index}. Other elements and properties are skipped.
+   * </p>
+   * @param p        Path to file.
+   * @param parallel {@code true} if to decode in parallel in the common
+   *                 fork join pool.
+   * @return Mesh read.
+   * @throws IOException If fails to read, not binary PLY or a face index is
+   *         not a vertex.
+   */
+  public static Mesh3 readPly(Path p, boolean parallel) throws IOException
+  {
+    try (FileChannel ch=FileChannel.open(p, StandardOpenOption.READ))
+    {
+      long size=ch.size();
+      Cursor c=new Cursor(ch, 0L, size, LITTLE_ENDIAN);
+      List<Element> elements=new ArrayList<Element>();
+      ByteOrder order=header(c, elements, p);
+      c.order(order);
+
+      int vi=-1;
+      int fi=-1;
+      for (int i=0; i<elements.size(); i++)
+      {
+        String name=elements.get(i).m_name;
+        if (name.equals("vertex") && vi<0) vi=i;
+        else if (name.equals("face") && fi<0) fi=i;
+      }
+      if (vi<0)
+      {
+        throw new IOException("no vertex element : "+p);
+      }
+      int last=Math.max(vi, fi);
+
+      double[] v=null;
+      int[] t=new int[0];
+      long off=c.position();
+      for (int i=0; i<=last; i++)
+      {
+        Element e=elements.get(i);
+        if (i==vi)
+        {
+          if (e.m_stride<0)
+          {
+            throw new IOException("list property in vertex element : "+p);
+          }
+          checkSize(off, e.m_count, e.m_stride, size, p);
+          checkLength(3L*e.m_count, p);
+
+          v=new double[3*e.m_count];
+          Records r=new Records(ch, off, e.m_stride, e.m_count, order);
+          decode(new VertexDecoder(r, e.property("x", p), e.property("y", p),
+            e.property("z", p), v), e.m_count, parallel);
+          off+=(long)e.m_count*e.m_stride;
+        }
+        else if (i==fi)
+        {
+          Property ip=e.indices(p);
+          checkSize(off, e.m_count, e.minStride(), size, p);
+          checkLength(3L*e.m_count, p);
+
+          // Try fixed stride as if all faces are triangles.
+          int stride=e.triangleStride(ip);
+          if (stride>0 && off+(long)e.m_count*stride<=size)
+          {
+            Records r=new Records(ch, off, stride, e.m_count, order);
+            int[] tt=new int[3*e.m_count];
+            FaceDecoder fd=new FaceDecoder(r, ip, tt);
+            decode(fd, e.m_count, parallel);
+            if (!fd.m_fail.get())
+            {
+              t=tt;
+              off+=(long)e.m_count*stride;
+              continue;
+            }
+          }
+
+          c.seek(off);
+          t=faces(c, e, ip);
+          off=c.position();
+        }
+        else if (e.m_stride>=0)
+        {
+          off+=(long)e.m_count*e.m_stride;
+        }
+        else
+        {
+          c.seek(off);
+          skip(c, e);
+          off=c.position();
+        }
+      }
+
+      checkIndices(t, v.length/3, p);
+      return new Mesh3(v, t);
+    }
+  }
+
+  // Parses header, adds elements and returns byte order. Leaves cursor after
+  // header.
+  private static ByteOrder header(Cursor c, List<Element> elements, Path p)
+    throws IOException
+  {
+    if (!"ply".equals(line(c)))
+    {
+      throw new IOException("not PLY : "+p);
+    }
+
+    ByteOrder retVal=null;
+    Element e=null;
+    while (true)
+    {
+      String l=line(c);
+      String[] t=l.trim().split("\\s+");
+      switch (t[0])
+      {
+        case "format" :
+          if (t.length<2)
+          {
+            throw new IOException("bad format line '"+l+"' : "+p);
+          }
+          if (t[1].equals("binary_little_endian")) retVal=LITTLE_ENDIAN;
+          else if (t[1].equals("binary_big_endian")) retVal=BIG_ENDIAN;
+          else throw new IOException("not binary PLY, format "+t[1]+" : "+p);
+        break;
+
+        case "element" :
+          if (t.length!=3)
+          {
+            throw new IOException("bad element line '"+l+"' : "+p);
+          }
+          e=new Element(t[1], integer(t[2], p));
+          elements.add(e);
+        break;
+
+        case "property" :
+          if (e==null)
+          {
+            throw new IOException("property before element : "+p);
+          }
+          if (t.length==5 && t[1].equals("list"))
+          {
+            e.add(new Property(t[4], type(t[3], p), type(t[2], p)));
+          }
+          else if (t.length==3)
+          {
+            e.add(new Property(t[2], type(t[1], p), -1));
+          }
+          else
+          {
+            throw new IOException("bad property line '"+l+"' : "+p);
+          }
+        break;
+
+        case "end_header" :
+          if (retVal==null)
+          {
+            throw new IOException("no format : "+p);
+          }
+        return retVal;
+
+        default : // comment, obj_info and unknown: Ignored.
+      }
+    }
+  }
+
+  // Reads header line.
+  private static String line(Cursor c) throws IOException
+  {
+    StringBuilder sb=new StringBuilder();
+    while (true)
+    {
+      c.require(1);
+      byte b=c.buffer().get();
+      if (b=='\n') break;
+      if (b!='\r') sb.append((char)(b&0xff));
+      if (sb.length()>4096)
+      {
+        throw new IOException("header line too long");
+      }
+    }
+    return sb.toString();
+  }
+
+  // Reads faces sequentially, fan triangulates.
+  private static int[] faces(Cursor c, Element e, Property ip)
+    throws IOException
+  {
+    ByteBuffer b=c.buffer();
+    int[] retVal=new int[3*e.m_count];
+    int n=0;
+    for (int k=0; k<e.m_count; k++)
+    {
+      for (Property pr : e.m_props)
+      {
+        if (pr.m_countType<0)
+        {
+          c.require(size(pr.m_type));
+          b.position(b.position()+size(pr.m_type));
+          continue;
+        }
+
+        c.require(size(pr.m_countType));
+        int cnt=getInt(b, b.position(), pr.m_countType);
+        b.position(b.position()+size(pr.m_countType));
+        int is=size(pr.m_type);
+        int bytes=listBytes(c, cnt, is);
+        c.require(bytes);
+        if (pr==ip && cnt>=3)
+        {
+          int pos=b.position();
+          int i0=getInt(b, pos, pr.m_type);
+          for (int j=1; j<cnt-1; j++)
+          {
+            if (n+3>retVal.length)
+            {
+              long l=Math.max(16L, 2L*retVal.length);
+              retVal=Arrays.copyOf(retVal, (int)Math.min(l, MAX_ARRAY));
+            }
+            retVal[n++]=i0;
+            retVal[n++]=getInt(b, pos+j*is, pr.m_type);
+            retVal[n++]=getInt(b, pos+(j+1)*is, pr.m_type);
+          }
+        }
+        b.position(b.position()+bytes);
+      }
+    }
+    return (n==retVal.length) ? retVal : Arrays.copyOf(retVal, n);
+  }
+
+  // Skips element with list properties.
+  private static void skip(Cursor c, Element e) throws IOException
+  {
+    ByteBuffer b=c.buffer();
+    for (int k=0; k<e.m_count; k++)
+    {
+      for (Property pr : e.m_props)
+      {
+        int s=size(pr.m_type);
+        if (pr.m_countType>=0)
+        {
+          c.require(size(pr.m_countType));
+          int cnt=getInt(b, b.position(), pr.m_countType);
+          b.position(b.position()+size(pr.m_countType));
+          s=listBytes(c, cnt, s);
+        }
+        c.require(s);
+        b.position(b.position()+s);
+      }
+    }
+  }
+
+  // Gets size in bytes of list of cnt items of is bytes each at cursor,
+  // computed in long so a bad count can not overflow past the checks.
+  private static int listBytes(Cursor c, int cnt, int is) throws IOException
+  {
+    if (cnt<0)
+    {
+      throw new IOException("negative list count : "+cnt);
+    }
+    long retVal=(long)cnt*is;
+    if (retVal>c.left())
+    {
+      throw new EOFException("list count "+cnt+" past end of file at "+
+        c.position());
+    }
+    return (int)Math.min(retVal, Integer.MAX_VALUE);
+  }
+
+  private static void decode(Decoder d, int n, boolean parallel)
+  {
+    if (parallel && n>PARALLEL_THRESHOLD)
+    {
+      ForkJoinPool.commonPool().invoke(new DecodeTask(d, 0, n));
+    }
+    else
+    {
+      d.decode(0, n);
+    }
+  }
+
+  private static void checkLength(long n, Path p) throws IOException
+  {
+    if (n>MAX_ARRAY)
+    {
+      throw new IOException("mesh too large, "+n+" array elements : "+p);
+    }
+  }
+
+  private static void checkIndices(int[] t, int nv, Path p)
+    throws IOException
+  {
+    for (int i=0; i<t.length; i++)
+    {
+      if (t[i]<0 || t[i]>=nv)
+      {
+        throw new IOException("face index "+t[i]+" not a vertex, vertex "+
+          "count "+nv+" : "+p);
+      }
+    }
+  }
+
+  private static void checkSize(long off, int count, int stride, long size,
+    Path p) throws IOException
+  {
+    if (off+(long)count*stride>size)
+    {
+      throw new EOFException("truncated : "+p);
+    }
+  }
+
+  private static int integer(String s, Path p) throws IOException
+  {
+    try
+    {
+      int retVal=Integer.parseInt(s);
+      if (retVal<0) throw new NumberFormatException(s);
+      return retVal;
+    }
+    catch (NumberFormatException nfx)
+    {
+      throw new IOException("bad count '"+s+"' : "+p);
+    }
+  }
+
+  //
+  // Property types.
+  //
+
+  private static final int INT8=0;
+
+  private static final int UINT8=1;
+
+  private static final int INT16=2;
+
+  private static final int UINT16=3;
+
+  private static final int INT32=4;
+
+  private static final int UINT32=5;
+
+  private static final int FLOAT32=6;
+
+  private static final int FLOAT64=7;
+
+  private static int type(String s, Path p) throws IOException
+  {
+    switch (s)
+    {
+      case "char"    :
+      case "int8"    : return INT8;
+      case "uchar"   :
+      case "uint8"   : return UINT8;
+      case "short"   :
+      case "int16"   : return INT16;
+      case "ushort"  :
+      case "uint16"  : return UINT16;
+      case "int"     :
+      case "int32"   : return INT32;
+      case "uint"    :
+      case "uint32"  : return UINT32;
+      case "float"   :
+      case "float32" : return FLOAT32;
+      case "double"  :
+      case "float64" : return FLOAT64;
+    }
+    throw new IOException("unknown property type '"+s+"' : "+p);
+  }
+
+  private static int size(int type)
+  {
+    switch (type)
+    {
+      case INT8    :
+      case UINT8   : return 1;
+      case INT16   :
+      case UINT16  : return 2;
+      case FLOAT64 : return 8;
+      default      : return 4;
+    }
+  }
+
+  private static int getInt(ByteBuffer b, int pos, int type)
+  {
+    switch (type)
+    {
+      case INT8    : return b.get(pos);
+      case UINT8   : return b.get(pos)&0xff;
+      case INT16   : return b.getShort(pos);
+      case UINT16  : return b.getShort(pos)&0xffff;
+      case INT32   :
+      case UINT32  : return b.getInt(pos);
+      case FLOAT32 : return (int)b.getFloat(pos);
+      default      : return (int)b.getDouble(pos);
+    }
+  }
+
+  private static double getDouble(ByteBuffer b, int pos, int type)
+  {
+    switch (type)
+    {
+      case FLOAT32 : return b.getFloat(pos);
+      case FLOAT64 : return b.getDouble(pos);
+      case UINT32  : return b.getInt(pos)&0xffffffffL;
+      default      : return getInt(b, pos, type);
+    }
+  }
+
+  private static final class Property
+  {
+    private final String m_name;
+
+    private final int m_type;
+
+    // Type of list count, -1 if not list.
+    private final int m_countType;
+
+    // Offset in fixed size record.
+    private int m_offset;
+
+    Property(String name, int type, int countType)
+    {
+      m_name=name;
+      m_type=type;
+      m_countType=countType;
+    }
+  }
+
+  private static final class Element
+  {
+    private final String m_name;
+
+    private final int m_count;
+
+    private final List<Property> m_props=new ArrayList<Property>();
+
+    // Record size, -1 if has list properties.
+    private int m_stride=0;
+
+    Element(String name, int count)
+    {
+      m_name=name;
+      m_count=count;
+    }
+
+    void add(Property p)
+    {
+      m_props.add(p);
+      if (p.m_countType>=0)
+      {
+        m_stride=-1;
+      }
+      else if (m_stride>=0)
+      {
+        p.m_offset=m_stride;
+        m_stride+=size(p.m_type);
+      }
+    }
+
+    // Gets fixed size property.
+    Property property(String name, Path p) throws IOException
+    {
+      for (Property pr : m_props)
+      {
+        if (pr.m_name.equals(name) && pr.m_countType<0) return pr;
+      }
+      throw new IOException("no property "+name+" in "+m_name+" : "+p);
+    }
+
+    // Gets the vertex index list property.
+    Property indices(Path p) throws IOException
+    {
+      for (Property pr : m_props)
+      {
+        if (pr.m_countType>=0 && (pr.m_name.equals("vertex_indices") ||
+          pr.m_name.equals("vertex_index"))) return pr;
+      }
+      throw new IOException("no vertex index list in "+m_name+" : "+p);
+    }
+
+    // Smallest record size, that with all lists empty.
+    int minStride()
+    {
+      int retVal=0;
+      for (Property pr : m_props)
+      {
+        retVal+=size((pr.m_countType>=0) ? pr.m_countType : pr.m_type);
+      }
+      return retVal;
+    }
+
+    // Record size if all faces are triangles, -1 if there are other lists
+    // than the index list. Sets offsets of properties as if all are.
+    int triangleStride(Property ip)
+    {
+      int retVal=0;
+      for (Property pr : m_props)
+      {
+        if (pr.m_countType>=0 && pr!=ip) return -1;
+        pr.m_offset=retVal;
+        retVal+=(pr==ip) ? size(pr.m_countType)+3*size(pr.m_type) :
+          size(pr.m_type);
+      }
+      return retVal;
+    }
+  }
+
+  // Fixed size records of a region of a file, mapped in windows.
+  private static final class Records
+  {
+    private final ByteBuffer[] m_windows;
+
+    private final int m_stride;
+
+    private final int m_perWindow;
+
+    Records(FileChannel ch, long offset, int stride, int count,
+      ByteOrder order) throws IOException
+    {
+      m_stride=stride;
+      m_perWindow=Math.max(1, WINDOW/Math.max(1, stride));
+      int nw=(int)(((long)count+m_perWindow-1)/m_perWindow);
+      m_windows=new ByteBuffer[nw];
+      for (int w=0; w<nw; w++)
+      {
+        long first=(long)w*m_perWindow;
+        long n=Math.min(m_perWindow, count-first);
+        m_windows[w]=ch.map(FileChannel.MapMode.READ_ONLY,
+          offset+first*stride, n*stride).order(order);
+      }
+    }
+
+    ByteBuffer window(int i){ return m_windows[i/m_perWindow]; }
+
+    int position(int i){ return (i%m_perWindow)*m_stride; }
+  }
+
+  // Sequential reader through a buffer refilled from channel.
+  private static final class Cursor
+  {
+    private final FileChannel m_ch;
+
+    private final ByteBuffer m_buf=ByteBuffer.allocateDirect(1<<20);
+
+    // File position of the byte after the buffer's limit.
+    private long m_pos;
+
+    private final long m_size;
+
+    Cursor(FileChannel ch, long pos, long size, ByteOrder order)
+    {
+      m_ch=ch;
+      m_pos=pos;
+      m_size=size;
+      m_buf.order(order).limit(0);
+    }
+
+    ByteBuffer buffer(){ return m_buf; }
+
+    void order(ByteOrder order){ m_buf.order(order); }
+
+    long position(){ return m_pos-m_buf.remaining(); }
+
+    // Bytes in file after position.
+    long left(){ return m_size-position(); }
+
+    void seek(long pos)
+    {
+      m_pos=pos;
+      m_buf.clear().limit(0);
+    }
+
+    // Makes sure at least n bytes remain in buffer.
+    void require(int n) throws IOException
+    {
+      if (m_buf.remaining()>=n) return;
+
+      if (n>m_buf.capacity())
+      {
+        throw new IOException("record too large : "+n);
+      }
+
+      m_buf.compact();
+      while (m_buf.position()<n)
+      {
+        int r=m_ch.read(m_buf, m_pos);
+        if (r<0)
+        {
+          throw new EOFException("truncated at "+m_pos);
+        }
+        m_pos+=r;
+      }
+      m_buf.flip();
+    }
+  }
+
+  private static abstract class Decoder
+  {
+    abstract void decode(int from, int to);
+  }
+
+  private static final class StlDecoder extends Decoder
+  {
+    private final Records m_r;
+
+    private final double[] m_v;
+
+    private final int[] m_t;
+
+    StlDecoder(Records r, double[] v, int[] t)
+    {
+      m_r=r;
+      m_v=v;
+      m_t=t;
+    }
+
+    @Override
+    void decode(int from, int to)
+    {
+      double[] v=m_v;
+      int[] t=m_t;
+      for (int i=from; i<to; i++)
+      {
+        ByteBuffer b=m_r.window(i);
+        int o=m_r.position(i)+12; // Skips normal.
+        int vo=9*i;
+        for (int j=0; j<9; j++) v[vo+j]=b.getFloat(o+4*j);
+        t[3*i]=3*i;
+        t[3*i+1]=3*i+1;
+        t[3*i+2]=3*i+2;
+      }
+    }
+  }
+
+  private static final class VertexDecoder extends Decoder
+  {
+    private final Records m_r;
+
+    private final Property m_x;
+
+    private final Property m_y;
+
+    private final Property m_z;
+
+    private final double[] m_v;
+
+    VertexDecoder(Records r, Property x, Property y, Property z, double[] v)
+    {
+      m_r=r;
+      m_x=x;
+      m_y=y;
+      m_z=z;
+      m_v=v;
+    }
+
+    @Override
+    void decode(int from, int to)
+    {
+      double[] v=m_v;
+      int xo=m_x.m_offset;
+      int yo=m_y.m_offset;
+      int zo=m_z.m_offset;
+      int xt=m_x.m_type;
+      int yt=m_y.m_type;
+      int zt=m_z.m_type;
+      for (int i=from; i<to; i++)
+      {
+        ByteBuffer b=m_r.window(i);
+        int o=m_r.position(i);
+        v[3*i]=getDouble(b, o+xo, xt);
+        v[3*i+1]=getDouble(b, o+yo, yt);
+        v[3*i+2]=getDouble(b, o+zo, zt);
+      }
+    }
+  }
+
+  private static final class FaceDecoder extends Decoder
+  {
+    private final Records m_r;
+
+    private final Property m_ip;
+
+    private final int[] m_t;
+
+    private final AtomicBoolean m_fail=new AtomicBoolean();
+
+    FaceDecoder(Records r, Property ip, int[] t)
+    {
+      m_r=r;
+      m_ip=ip;
+      m_t=t;
+    }
+
+    @Override
+    void decode(int from, int to)
+    {
+      int[] t=m_t;
+      int co=m_ip.m_offset;
+      int ct=m_ip.m_countType;
+      int it=m_ip.m_type;
+      int io=co+size(ct);
+      int is=size(it);
+      for (int i=from; i<to; i++)
+      {
+        ByteBuffer b=m_r.window(i);
+        int o=m_r.position(i);
+        if (getInt(b, o+co, ct)!=3)
+        {
+          m_fail.set(true);
+          return;
+        }
+        t[3*i]=getInt(b, o+io, it);
+        t[3*i+1]=getInt(b, o+io+is, it);
+        t[3*i+2]=getInt(b, o+io+2*is, it);
+      }
+    }
+  }
+
+  private static final class DecodeTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final Decoder m_d;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    DecodeTask(Decoder d, int from, int to)
+    {
+      m_d=d;
+      m_from=from;
+      m_to=to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        m_d.decode(m_from, m_to);
+        return;
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      invokeAll(new DecodeTask(m_d, m_from, mid),
+        new DecodeTask(m_d, mid, m_to));
+    }
+  }
+
+}
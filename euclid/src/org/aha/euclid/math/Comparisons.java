@@ -27,32 +27,58 @@ public final class Comparisons
    */
   public static final double DEFAULT_DELTA=1e-6;
   
-  private static double c_d=DEFAULT_DELTA;
+  private static volatile ToleranceContext c_global=ToleranceContext.DEFAULT;
+  
+  // The global context while no context is bound in any thread, else null:
+  // Then getDelta() and isExact() need not look up the bound context, a
+  // thread local lookup on every tolerance test. Written with class lock
+  // held, read without: A thread binding a context writes null itself and
+  // it stays null until that thread unbinds, other threads may see the
+  // global delta late as they could before contexts were added.
+  private static ToleranceContext c_unbound=c_global;
+  
+  // Number of contexts bound in all threads, guarded by class lock.
+  private static int c_bindings=0;
+  
+  // If the global context or a context bound in any thread is exact, else
+  // orientation tests need not look up the setting. Written and read as
+  // c_unbound.
+  private static boolean c_anyExact=false;
+  
+  // Number of exact contexts bound in all threads, guarded by class lock.
+  private static int c_exactBindings=0;
   
   /**
    * <p>
-   *   Sets delta used by methods not accepting a delta parameter.
+   *   Sets the global delta used by methods not accepting a delta parameter
+   *   in threads that have no
+   *   {@link ToleranceContext} bound.
    * </p>
    * <p>
    *   Default value is 
    *   {@link #DEFAULT_DELTA}.
    * </p>
+   * <p>
+   *   Prefer passing or binding a
+   *   {@link ToleranceContext} to changing the global delta: This affects
+   *   all threads.
+   * </p>
    * @param d Delta.
    * @throws IllegalArgumentException If {@code d<0.0}. 
    */
   public static synchronized void setDelta(double d)
   {
-    if (d<0.0)
-    {
-      throw new IllegalArgumentException("d<0.0 : "+d);
-    }
-    
-    c_d=d;
+    c_global=new ToleranceContext(d, c_global.isExact());
+    if (c_bindings==0) c_unbound=c_global;
   }
   
   /**
    * <p>
-   *   Gets delta used by methods not accepting a delta parameter.
+   *   Gets delta used by methods not accepting a delta parameter: The delta
+   *   of the 
+   *   {@link ToleranceContext} bound to the current thread or if none is
+   *   bound the global delta set by
+   *   {@link #setDelta(double)}.
    * </p>
    * <p>
    *   Default value is 
@@ -60,7 +86,67 @@ public final class Comparisons
    * </p> 
    * @return Delta. 
    */
-  public static synchronized double getDelta(){ return c_d; }
+  public static double getDelta(){ return context().getDelta(); }
+  
+  /**
+   * <p>
+   *   Sets if orientation tests are to use exact predicates in threads that
+   *   have no
+   *   {@link ToleranceContext} bound.
+   * </p>
+   * <p>
+   *   Default value is {@code false}.
+   * </p>
+   * @param exact {@code true} if exact, {@code false} if plain double
+   *              arithmetic.
+   * @see ToleranceContext#isExact()
+   */
+  public static synchronized void setExact(boolean exact)
+  {
+    c_global=new ToleranceContext(c_global.getDelta(), exact);
+    if (c_bindings==0) c_unbound=c_global;
+    c_anyExact=exact || c_exactBindings>0;
+  }
+  
+  /**
+   * <p>
+   *   Tells if orientation tests are to use exact predicates: The setting of
+   *   the
+   *   {@link ToleranceContext} bound to the current thread or if none is
+   *   bound the global setting set by
+   *   {@link #setExact(boolean)}.
+   * </p>
+   * @return {@code true} if exact, {@code false} if plain double arithmetic.
+   */
+  public static boolean isExact(){ return context().isExact(); }
+  
+  // As isExact() but first tells false without a context lookup if exact is
+  // not in effect anywhere, for orientation tests called per point.
+  static boolean exact(){ return c_anyExact && isExact(); }
+  
+  // Gets context in effect for the current thread. Kept small to inline,
+  // the thread local lookup is in bound().
+  static ToleranceContext context()
+  {
+    ToleranceContext retVal=c_unbound;
+    return (retVal!=null) ? retVal : bound();
+  }
+  
+  private static ToleranceContext bound()
+  {
+    ToleranceContext retVal=ToleranceContext.bound();
+    return (retVal==null) ? c_global : retVal;
+  }
+  
+  // Counts contexts bound, called by ToleranceContext with 1 before a
+  // context is bound and -1 after it is unbound.
+  static synchronized void bindings(int change, boolean exact)
+  {
+    c_bindings+=change;
+    c_unbound=(c_bindings==0) ? c_global : null;
+    if (exact) c_exactBindings+=change;
+    c_anyExact=c_global.isExact() || c_exactBindings>0;
+  }
   
   /**
    * <p>
@@ -90,7 +176,10 @@ public final class Comparisons
    * @param b Other number.
    * @return {@code abs(a-b)<=d} where {@code d=}{@link Comparisons#getDelta()}.
    */
-  public static boolean same(double a, double b){ return abs(a-b)<=c_d; }
+  public static boolean same(double a, double b)
+  {
+    return abs(a-b)<=getDelta();
+  }
   
   /**
    * <p>
@@ -125,7 +214,8 @@ public final class Comparisons
    */
   public static boolean same(double u0, double u1, double v0, double v1)
   {
-    return same(u0, v0) && same(u1, v1);
+    double d=getDelta();
+    return abs(u0-v0)<=d && abs(u1-v1)<=d;
   }
   
   /**
@@ -166,7 +256,8 @@ public final class Comparisons
   public static boolean same(double u0, double u1, double u2, double v0, 
     double v1, double v2)
   {
-    return same(u0, v0) && same(u1, v1) && same(u2, v2);
+    double d=getDelta();
+    return abs(u0-v0)<=d && abs(u1-v1)<=d && abs(u2-v2)<=d;
   }
   
   /**
@@ -269,7 +360,7 @@ public final class Comparisons
         v.length);
     }
     
-    double d=c_d;
+    double d=getDelta();
     
     switch (n)
     {
@@ -312,7 +403,7 @@ public final class Comparisons
    * @param a Number.
    * @return {@code abs(a)<=d} where {@code d=}{@link Comparisons#getDelta()}.
    */
-  public static boolean zero(double a){ return a==0 || abs(a)<=c_d; }
+  public static boolean zero(double a){ return a==0 || abs(a)<=getDelta(); }
   
   /**
    * <p>
@@ -345,7 +436,8 @@ public final class Comparisons
    */
   public static boolean zero2dVector(double u0, double u1)
   {
-    return (u0==0 || abs(u0)<=c_d) && (u1==0 || abs(u1)<=c_d); 
+    double d=getDelta();
+    return (u0==0 || abs(u0)<=d) && (u1==0 || abs(u1)<=d); 
   }
   
   //
@@ -383,8 +475,9 @@ public final class Comparisons
    */
   public static boolean zero3dVector(double u0, double u1, double u2)
   {
-    return (u0==0 || abs(u0)<=c_d) && (u1==0 || abs(u1)<=c_d) && 
-           (u2==0 || abs(u2)<=c_d); 
+    double d=getDelta();
+    return (u0==0 || abs(u0)<=d) && (u1==0 || abs(u1)<=d) && 
+           (u2==0 || abs(u2)<=d); 
   }
   
   /**
@@ -450,7 +543,7 @@ public final class Comparisons
     
     int n=u.length;
     
-    double d=c_d;
+    double d=getDelta();
     
     switch (n)
     {
@@ -494,7 +587,7 @@ public final class Comparisons
    * @param d Delta.
    * @return {@code abs(1.0-a)<=d} where {@code d=}{@link Comparisons#getDelta()}. 
    */
-  public static boolean one(double a){ return abs(1.0-a)<=c_d; }
+  public static boolean one(double a){ return abs(1.0-a)<=getDelta(); }
   
   /**
    * <p>
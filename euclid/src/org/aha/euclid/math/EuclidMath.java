@@ -335,7 +335,126 @@ public final class EuclidMath
   
   /**
    * <p>
-   *   Tells if a point is inside a triangle.
+   *   Computes point's barycentric coordinates related to a 3D triangle.
+   * </p>
+   * <p>
+   *   The triangle is projected on the plane the normal is most
+   *   perpendicular to. If the point is not in the triangle's plane the
+   *   coordinates are those of its projection.
+   * </p>
+   * @param x0 X coordinate of first point of triangle.
+   * @param y0 Y coordinate of first point of triangle.
+   * @param z0 Z coordinate of first point of triangle.
+   * @param x1 X coordinate of second point of triangle.
+   * @param y1 Y coordinate of second point of triangle.
+   * @param z1 Z coordinate of second point of triangle.
+   * @param x2 X coordinate of third point of triangle.
+   * @param y2 Y coordinate of third point of triangle.
+   * @param z2 Z coordinate of third point of triangle.
+   * @param a  X component of triangle's normal.
+   * @param b  Y component of triangle's normal.
+   * @param c  Z component of triangle's normal.
+   * @param x  Point's x coordinate.
+   * @param y  Point's y coordinate.
+   * @param z  Point's z coordinate.
+   * @param bc Assigned to the barycentric coordinates of {@code (x,y,z)}. If 
+   *           {@code null} allocates.
+   * @return Point's barycentric coordinates.
+   * @throws IllegalStateException If the triangle is degenerate.
+   */
+  public static double[] barycentric(double x0, double y0, double z0, 
+    double x1, double y1, double z1, double x2, double y2, double z2, 
+    double a, double b, double c, double x, double y, double z, double[] bc)
+  {
+    double nx=abs(a);
+    double ny=abs(b);
+    double nz=abs(c);
+    
+    double u1;
+    double u2;
+    double u3;
+    double u4;
+    
+    double v1;
+    double v2;
+    double v3;
+    double v4;
+    
+    if (nx>=ny && nx>=nz)
+    {
+      // Discard x, project onto yz plane.
+      
+      u1=y0-y2;
+      u2=y1-y2;
+      u3=y-y0;
+      u4=y-y2;
+      
+      v1=z0-z2;
+      v2=z1-z2;
+      v3=z-z0;
+      v4=z-z2;
+    }
+    else if (ny>=nz)
+    {
+      // Discard y, project onto xz plane.
+      
+      u1=z0-z2;
+      u2=z1-z2;
+      u3=z-z0;
+      u4=z-z2;
+      
+      v1=x0-x2;
+      v2=x1-x2;
+      v3=x-x0;
+      v4=x-x2;
+    }
+    else
+    {
+      // Discard z, project onto xy plane.
+      
+      u1=x0-x2;
+      u2=x1-x2;
+      u3=x-x0;
+      u4=x-x2;
+      
+      v1=y0-y2;
+      v2=y1-y2;
+      v3=y-y0;
+      v4=y-y2;
+    }
+    
+    double denom=v1*u2-v2*u1;
+    if (denom==0.0)
+    {
+      throw new IllegalStateException("denom==0.0");
+    }
+    
+    double oneOverDenom=1.0/denom;
+    
+    bc=(bc==null) ? new double[3] : bc;
+    
+    bc[0]=(v4*u2-v2*u4)*oneOverDenom;
+    bc[1]=(v1*u3-v3*u1)*oneOverDenom;
+    bc[2]=1.0-bc[0]-bc[1];    
+    
+    return bc;
+  }
+  
+  /**
+   * <p>
+   *   Tells if a point is inside a triangle. If the point is not in the
+   *   triangle's plane this tells if the closest point in the plane is
+   *   inside.
+   * </p>
+   * <p>
+   *   If
+   *   {@link Comparisons#isExact()} the point is projected along the axis
+   *   closest to the triangle's normal and decided with
+   *   {@link Predicates#orient2d(double, double, double, double, double, double)}.
+   *   This is exact for points in the triangle's plane, as decided by
+   *   {@link Predicates#orient3d(double, double, double, double, double, double, double, double, double, double, double, double)},
+   *   other points are first moved to the closest point in the plane in
+   *   double arithmetic.
    * </p>
    * @param ax X coordinate of first point of triangle.
    * @param ay Y coordinate of first point of triangle.
@@ -355,11 +474,116 @@ public final class EuclidMath
     double by, double bz, double cx, double cy, double cz, double px, double py, 
     double pz)
   {    
+    if (Comparisons.exact())
+    {
+      return exactInside(ax, ay, az, bx, by, bz, cx, cy, cz, px, py, pz);
+    }
+    
     return sameSide(px, py, pz, ax, ay, az, bx, by, bz, cx, cy, cz) && 
            sameSide(px, py, pz, bx, by, bz, ax, ay, az, cx, cy, cz) && 
            sameSide(px, py, pz, cx, cy, cz, ax, ay, az, bx, by, bz);
   }
   
+  /**
+   * <p>
+   *   Tells if a point is inside a 2D triangle. Points on the triangle's
+   *   sides are not inside.
+   * </p>
+   * <p>
+   *   If
+   *   {@link Comparisons#isExact()} decides with
+   *   {@link Predicates#orient2d(double, double, double, double, double, double)}
+   *   rather than
+   *   {@link #area2(double, double, double, double, double, double)}.
+   * </p>
+   * @param ax X coordinate of first point of triangle.
+   * @param ay Y coordinate of first point of triangle.
+   * @param bx X coordinate of second point of triangle.
+   * @param by Y coordinate of second point of triangle.
+   * @param cx X coordinate of third point of triangle.
+   * @param cy Y coordinate of third point of triangle.
+   * @param px X coordinate of point. 
+   * @param py Y coordinate of point.
+   * @return True if {@code (px, py)} inside.
+   */
+  public static boolean inside(double ax, double ay, double bx, double by, 
+    double cx, double cy, double px, double py)
+  {
+    if (Comparisons.exact())
+    {
+      return exactInside(ax, ay, bx, by, cx, cy, px, py);
+    }
+    
+    double ab=area2(ax, ay, bx, by, px, py);
+    double bc=area2(bx, by, cx, cy, px, py);
+    double ca=area2(cx, cy, ax, ay, px, py);
+    return (ab>0.0 && bc>0.0 && ca>0.0) || (ab<0.0 && bc<0.0 && ca<0.0);
+  }
+  
+  // Exact 2D inside test.
+  private static boolean exactInside(double ax, double ay, double bx, 
+    double by, double cx, double cy, double px, double py)
+  {
+    double ab=Predicates.orient2d(ax, ay, bx, by, px, py);
+    if (ab==0.0) return false;
+    double bc=Predicates.orient2d(bx, by, cx, cy, px, py);
+    if (ab>0.0 ? bc<=0.0 : bc>=0.0) return false;
+    double ca=Predicates.orient2d(cx, cy, ax, ay, px, py);
+    return ab>0.0 ? ca>0.0 : ca<0.0;
+  }
+  
+  // Exact 3D inside test, projects on the plane the normal is most 
+  // perpendicular to. The choice of plane needs not be exact: Any plane the
+  // triangle does not degenerate in gives the same answer for points in the 
+  // triangle's plane. Points off the plane are first moved to the closest
+  // point in it so the answer is as of the plain test.
+  private static boolean exactInside(double ax, double ay, double az, 
+    double bx, double by, double bz, double cx, double cy, double cz, 
+    double px, double py, double pz)
+  {
+    double ux=bx-ax;
+    double uy=by-ay;
+    double uz=bz-az;
+    
+    double vx=cx-ax;
+    double vy=cy-ay;
+    double vz=cz-az;
+    
+    double cx0=cross0(ux, uy, uz, vx, vy, vz);
+    double cx1=cross1(ux, uy, uz, vx, vy, vz);
+    double cx2=cross2(ux, uy, uz, vx, vy, vz);
+    
+    if (Predicates.orient3d(ax, ay, az, bx, by, bz, cx, cy, cz, px, py, 
+          pz)!=0.0)
+    {
+      double nn=dot(cx0, cx1, cx2);
+      if (nn>0.0)
+      {
+        double t=dot(cx0, cx1, cx2, px-ax, py-ay, pz-az)/nn;
+        px-=t*cx0;
+        py-=t*cx1;
+        pz-=t*cx2;
+      }
+    }
+    
+    double nx=abs(cx0);
+    double ny=abs(cx1);
+    double nz=abs(cx2);
+    
+    if (nz>=nx && nz>=ny)
+    {
+      return exactInside(ax, ay, bx, by, cx, cy, px, py);
+    }
+    else if (ny>=nx)
+    {
+      return exactInside(az, ax, bz, bx, cz, cx, pz, px);
+    }
+    else
+    {
+      return exactInside(ay, az, by, bz, cy, cz, py, pz);
+    }
+  }
+  
   // Side test inside is implemented in terms of.
   private static boolean sameSide(double p1x, double p1y, double p1z, 
     double p2x, double p2y, double p2z, double ax, double ay, double az, 
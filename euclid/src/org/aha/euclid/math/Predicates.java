@@ -0,0 +1,519 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.math;
+
+import static java.lang.Math.abs;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ *   Geometric predicates whose sign is exact, after J. R. Shewchuk's
+ *   <i>Adaptive Precision Floating-Point Arithmetic and Fast Robust
+ *   Geometric Predicates</i>.
+ * </p>
+ * <p>
+ *   The value is first computed in plain floating point and returned if
+ *   larger than a bound on its round off error, which is the case for all
+ *   but near degenerate input. Otherwise it is computed exactly using
+ *   floating point expansions: Sums of non overlapping doubles.
+ * </p>
+ * <p>
+ *   Only the sign of the returned value is exact, the magnitude is an
+ *   approximation.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Predicates
+{
+  private Predicates(){} // Utility pattern dictates private constructor.
+
+  private static final double EPSILON=Math.ulp(1.0)/2.0;
+
+  private static final double SPLITTER=134217729.0; // 2^27+1.
+
+  private static final double CCW_ERRBOUND_A=(3.0+16.0*EPSILON)*EPSILON;
+
+  private static final double O3D_ERRBOUND_A=(7.0+56.0*EPSILON)*EPSILON;
+
+  private static final double ICC_ERRBOUND_A=(10.0+96.0*EPSILON)*EPSILON;
+
+  private static final double ISP_ERRBOUND_A=(16.0+224.0*EPSILON)*EPSILON;
+
+  /**
+   * <p>
+   *   Tells on which side of the line through {@code a} and {@code b} point
+   *   {@code c} is.
+   * </p>
+   * @param ax X coordinate of {@code a}.
+   * @param ay Y coordinate of {@code a}.
+   * @param bx X coordinate of {@code b}.
+   * @param by Y coordinate of {@code b}.
+   * @param cx X coordinate of {@code c}.
+   * @param cy Y coordinate of {@code c}.
+   * @return Positive if {@code a}, {@code b} and {@code c} are in counter
+   *         clockwise order, negative if in clockwise order and {@code 0.0}
+   *         if collinear. Approximates twice the signed area of the
+   *         triangle.
+   */
+  public static double orient2d(double ax, double ay, double bx, double by,
+    double cx, double cy)
+  {
+    double detleft=(ax-cx)*(by-cy);
+    double detright=(ay-cy)*(bx-cx);
+    double det=detleft-detright;
+
+    double detsum;
+    if (detleft>0.0)
+    {
+      if (detright<=0.0) return det;
+      detsum=detleft+detright;
+    }
+    else if (detleft<0.0)
+    {
+      if (detright>=0.0) return det;
+      detsum=-detleft-detright;
+    }
+    else
+    {
+      return det;
+    }
+
+    double errbound=CCW_ERRBOUND_A*detsum;
+    if (det>=errbound || -det>=errbound) return det;
+
+    return orient2dExact(ax, ay, bx, by, cx, cy);
+  }
+
+  /**
+   * <p>
+   *   Tells if point {@code d} is inside the circle through {@code a},
+   *   {@code b} and {@code c}.
+   * </p>
+   * @param ax X coordinate of {@code a}.
+   * @param ay Y coordinate of {@code a}.
+   * @param bx X coordinate of {@code b}.
+   * @param by Y coordinate of {@code b}.
+   * @param cx X coordinate of {@code c}.
+   * @param cy Y coordinate of {@code c}.
+   * @param dx X coordinate of {@code d}.
+   * @param dy Y coordinate of {@code d}.
+   * @return Positive if {@code d} is inside, negative if outside and
+   *         {@code 0.0} if on the circle, given that {@code a}, {@code b}
+   *         and {@code c} are in counter clockwise order. The sign is
+   *         reversed if they are in clockwise order.
+   */
+  public static double incircle(double ax, double ay, double bx, double by,
+    double cx, double cy, double dx, double dy)
+  {
+    double adx=ax-dx;
+    double bdx=bx-dx;
+    double cdx=cx-dx;
+    double ady=ay-dy;
+    double bdy=by-dy;
+    double cdy=cy-dy;
+
+    double bdxcdy=bdx*cdy;
+    double cdxbdy=cdx*bdy;
+    double alift=adx*adx+ady*ady;
+
+    double cdxady=cdx*ady;
+    double adxcdy=adx*cdy;
+    double blift=bdx*bdx+bdy*bdy;
+
+    double adxbdy=adx*bdy;
+    double bdxady=bdx*ady;
+    double clift=cdx*cdx+cdy*cdy;
+
+    double det=alift*(bdxcdy-cdxbdy)+blift*(cdxady-adxcdy)+
+      clift*(adxbdy-bdxady);
+
+    double permanent=(abs(bdxcdy)+abs(cdxbdy))*alift+
+      (abs(cdxady)+abs(adxcdy))*blift+(abs(adxbdy)+abs(bdxady))*clift;
+    double errbound=ICC_ERRBOUND_A*permanent;
+    if (det>errbound || -det>errbound) return det;
+
+    return incircleExact(ax, ay, bx, by, cx, cy, dx, dy);
+  }
+
+  /**
+   * <p>
+   *   Tells on which side of the plane through {@code a}, {@code b} and
+   *   {@code c} point {@code d} is.
+   * </p>
+   * @param ax X coordinate of {@code a}.
+   * @param ay Y coordinate of {@code a}.
+   * @param az Z coordinate of {@code a}.
+   * @param bx X coordinate of {@code b}.
+   * @param by Y coordinate of {@code b}.
+   * @param bz Z coordinate of {@code b}.
+   * @param cx X coordinate of {@code c}.
+   * @param cy Y coordinate of {@code c}.
+   * @param cz Z coordinate of {@code c}.
+   * @param dx X coordinate of {@code d}.
+   * @param dy Y coordinate of {@code d}.
+   * @param dz Z coordinate of {@code d}.
+   * @return Positive if {@code d} is below the plane, negative if above and
+   *         {@code 0.0} if in the plane, where above is where {@code a},
+   *         {@code b} and {@code c} are seen in counter clockwise order.
+   *         Approximates six times the signed volume of the tetrahedron.
+   */
+  public static double orient3d(double ax, double ay, double az, double bx,
+    double by, double bz, double cx, double cy, double cz, double dx,
+    double dy, double dz)
+  {
+    double adx=ax-dx;
+    double bdx=bx-dx;
+    double cdx=cx-dx;
+    double ady=ay-dy;
+    double bdy=by-dy;
+    double cdy=cy-dy;
+    double adz=az-dz;
+    double bdz=bz-dz;
+    double cdz=cz-dz;
+
+    double bdxcdy=bdx*cdy;
+    double cdxbdy=cdx*bdy;
+
+    double cdxady=cdx*ady;
+    double adxcdy=adx*cdy;
+
+    double adxbdy=adx*bdy;
+    double bdxady=bdx*ady;
+
+    double det=adz*(bdxcdy-cdxbdy)+bdz*(cdxady-adxcdy)+cdz*(adxbdy-bdxady);
+
+    double permanent=(abs(bdxcdy)+abs(cdxbdy))*abs(adz)+
+      (abs(cdxady)+abs(adxcdy))*abs(bdz)+(abs(adxbdy)+abs(bdxady))*abs(cdz);
+    double errbound=O3D_ERRBOUND_A*permanent;
+    if (det>errbound || -det>errbound) return det;
+
+    return orient3dExact(ax, ay, az, bx, by, bz, cx, cy, cz, dx, dy, dz);
+  }
+
+  /**
+   * <p>
+   *   Tells if point {@code e} is inside the sphere through {@code a},
+   *   {@code b}, {@code c} and {@code d}.
+   * </p>
+   * @param ax X coordinate of {@code a}.
+   * @param ay Y coordinate of {@code a}.
+   * @param az Z coordinate of {@code a}.
+   * @param bx X coordinate of {@code b}.
+   * @param by Y coordinate of {@code b}.
+   * @param bz Z coordinate of {@code b}.
+   * @param cx X coordinate of {@code c}.
+   * @param cy Y coordinate of {@code c}.
+   * @param cz Z coordinate of {@code c}.
+   * @param dx X coordinate of {@code d}.
+   * @param dy Y coordinate of {@code d}.
+   * @param dz Z coordinate of {@code d}.
+   * @param ex X coordinate of {@code e}.
+   * @param ey Y coordinate of {@code e}.
+   * @param ez Z coordinate of {@code e}.
+   * @return Positive if {@code e} is inside, negative if outside and
+   *         {@code 0.0} if on the sphere, given that
+   *         {@link #orient3d(double, double, double, double, double, double, double, double, double, double, double, double)}
+   *         of {@code a}, {@code b}, {@code c} and {@code d} is positive. The
+   *         sign is reversed if it is negative.
+   */
+  public static double insphere(double ax, double ay, double az, double bx,
+    double by, double bz, double cx, double cy, double cz, double dx,
+    double dy, double dz, double ex, double ey, double ez)
+  {
+    double aex=ax-ex;
+    double bex=bx-ex;
+    double cex=cx-ex;
+    double dex=dx-ex;
+    double aey=ay-ey;
+    double bey=by-ey;
+    double cey=cy-ey;
+    double dey=dy-ey;
+    double aez=az-ez;
+    double bez=bz-ez;
+    double cez=cz-ez;
+    double dez=dz-ez;
+
+    double aexbey=aex*bey;
+    double bexaey=bex*aey;
+    double bexcey=bex*cey;
+    double cexbey=cex*bey;
+    double cexdey=cex*dey;
+    double dexcey=dex*cey;
+    double dexaey=dex*aey;
+    double aexdey=aex*dey;
+    double aexcey=aex*cey;
+    double cexaey=cex*aey;
+    double bexdey=bex*dey;
+    double dexbey=dex*bey;
+
+    double ab=aexbey-bexaey;
+    double bc=bexcey-cexbey;
+    double cd=cexdey-dexcey;
+    double da=dexaey-aexdey;
+    double ac=aexcey-cexaey;
+    double bd=bexdey-dexbey;
+
+    double abc=aez*bc-bez*ac+cez*ab;
+    double bcd=bez*cd-cez*bd+dez*bc;
+    double cda=cez*da+dez*ac+aez*cd;
+    double dab=dez*ab+aez*bd+bez*da;
+
+    double alift=aex*aex+aey*aey+aez*aez;
+    double blift=bex*bex+bey*bey+bez*bez;
+    double clift=cex*cex+cey*cey+cez*cez;
+    double dlift=dex*dex+dey*dey+dez*dez;
+
+    double det=(dlift*abc-clift*dab)+(blift*cda-alift*bcd);
+
+    double aezp=abs(aez);
+    double bezp=abs(bez);
+    double cezp=abs(cez);
+    double dezp=abs(dez);
+    double abp=abs(aexbey)+abs(bexaey);
+    double bcp=abs(bexcey)+abs(cexbey);
+    double cdp=abs(cexdey)+abs(dexcey);
+    double dap=abs(dexaey)+abs(aexdey);
+    double acp=abs(aexcey)+abs(cexaey);
+    double bdp=abs(bexdey)+abs(dexbey);
+
+    double permanent=(cdp*bezp+bdp*cezp+bcp*dezp)*alift+
+      (dap*cezp+acp*dezp+cdp*aezp)*blift+
+      (abp*dezp+bdp*aezp+dap*bezp)*clift+
+      (bcp*aezp+acp*bezp+abp*cezp)*dlift;
+    double errbound=ISP_ERRBOUND_A*permanent;
+    if (det>errbound || -det>errbound) return det;
+
+    return insphereExact(ax, ay, az, bx, by, bz, cx, cy, cz, dx, dy, dz, ex,
+      ey, ez);
+  }
+
+  private static double orient2dExact(double ax, double ay, double bx,
+    double by, double cx, double cy)
+  {
+    double[] e=product(ax, by);
+    e=sum(e, product(-ay, bx));
+    e=sum(e, product(bx, cy));
+    e=sum(e, product(-by, cx));
+    e=sum(e, product(cx, ay));
+    e=sum(e, product(-cy, ax));
+    return e[e.length-1];
+  }
+
+  private static double incircleExact(double ax, double ay, double bx,
+    double by, double cx, double cy, double dx, double dy)
+  {
+    double[] adx=difference(ax, dx);
+    double[] bdx=difference(bx, dx);
+    double[] cdx=difference(cx, dx);
+    double[] ady=difference(ay, dy);
+    double[] bdy=difference(by, dy);
+    double[] cdy=difference(cy, dy);
+
+    double[] alift=sum(product(adx, adx), product(ady, ady));
+    double[] blift=sum(product(bdx, bdx), product(bdy, bdy));
+    double[] clift=sum(product(cdx, cdx), product(cdy, cdy));
+
+    double[] bc=sum(product(bdx, cdy), negate(product(cdx, bdy)));
+    double[] ca=sum(product(cdx, ady), negate(product(adx, cdy)));
+    double[] ab=sum(product(adx, bdy), negate(product(bdx, ady)));
+
+    double[] e=sum(product(alift, bc), product(blift, ca));
+    e=sum(e, product(clift, ab));
+    return e[e.length-1];
+  }
+
+  private static double orient3dExact(double ax, double ay, double az,
+    double bx, double by, double bz, double cx, double cy, double cz,
+    double dx, double dy, double dz)
+  {
+    double[] adx=difference(ax, dx);
+    double[] bdx=difference(bx, dx);
+    double[] cdx=difference(cx, dx);
+    double[] ady=difference(ay, dy);
+    double[] bdy=difference(by, dy);
+    double[] cdy=difference(cy, dy);
+    double[] adz=difference(az, dz);
+    double[] bdz=difference(bz, dz);
+    double[] cdz=difference(cz, dz);
+
+    double[] bc=det2(bdx, bdy, cdx, cdy);
+    double[] ca=det2(cdx, cdy, adx, ady);
+    double[] ab=det2(adx, ady, bdx, bdy);
+
+    double[] e=sum(product(adz, bc), product(bdz, ca));
+    e=sum(e, product(cdz, ab));
+    return e[e.length-1];
+  }
+
+  private static double insphereExact(double ax, double ay, double az,
+    double bx, double by, double bz, double cx, double cy, double cz,
+    double dx, double dy, double dz, double ex, double ey, double ez)
+  {
+    double[] aex=difference(ax, ex);
+    double[] bex=difference(bx, ex);
+    double[] cex=difference(cx, ex);
+    double[] dex=difference(dx, ex);
+    double[] aey=difference(ay, ey);
+    double[] bey=difference(by, ey);
+    double[] cey=difference(cy, ey);
+    double[] dey=difference(dy, ey);
+    double[] aez=difference(az, ez);
+    double[] bez=difference(bz, ez);
+    double[] cez=difference(cz, ez);
+    double[] dez=difference(dz, ez);
+
+    double[] ab=det2(aex, aey, bex, bey);
+    double[] bc=det2(bex, bey, cex, cey);
+    double[] cd=det2(cex, cey, dex, dey);
+    double[] da=det2(dex, dey, aex, aey);
+    double[] ac=det2(aex, aey, cex, cey);
+    double[] bd=det2(bex, bey, dex, dey);
+
+    double[] abc=sum(sum(product(aez, bc), negate(product(bez, ac))),
+      product(cez, ab));
+    double[] bcd=sum(sum(product(bez, cd), negate(product(cez, bd))),
+      product(dez, bc));
+    double[] cda=sum(sum(product(cez, da), product(dez, ac)),
+      product(aez, cd));
+    double[] dab=sum(sum(product(dez, ab), product(aez, bd)),
+      product(bez, da));
+
+    double[] e=sum(product(lift(dex, dey, dez), abc),
+      negate(product(lift(cex, cey, cez), dab)));
+    e=sum(e, product(lift(bex, bey, bez), cda));
+    e=sum(e, negate(product(lift(aex, aey, aez), bcd)));
+    return e[e.length-1];
+  }
+
+  // ux*vy-vx*uy.
+  private static double[] det2(double[] ux, double[] uy, double[] vx,
+    double[] vy)
+  {
+    return sum(product(ux, vy), negate(product(vx, uy)));
+  }
+
+  // x*x+y*y+z*z.
+  private static double[] lift(double[] x, double[] y, double[] z)
+  {
+    return sum(sum(product(x, x), product(y, y)), product(z, z));
+  }
+
+  //
+  // Expansion arithmetic: An expansion is an array of non overlapping
+  // non zero components in increasing magnitude order summing to its value,
+  // zero is the one component {0.0}. The largest component has the sign of
+  // the expansion.
+  //
+
+  private static double[] difference(double a, double b)
+  {
+    double x=a-b;
+    double bv=a-x;
+    double av=x+bv;
+    double y=(a-av)+(bv-b);
+    return (y==0.0) ? new double[]{ x } : new double[]{ y, x };
+  }
+
+  private static double[] product(double a, double b)
+  {
+    double x=a*b;
+
+    double c=SPLITTER*a;
+    double ahi=c-(c-a);
+    double alo=a-ahi;
+    c=SPLITTER*b;
+    double bhi=c-(c-b);
+    double blo=b-bhi;
+
+    double err=((x-ahi*bhi)-alo*bhi)-ahi*blo;
+    double y=alo*blo-err;
+    return (y==0.0) ? new double[]{ x } : new double[]{ y, x };
+  }
+
+  private static double[] product(double[] e, double[] f)
+  {
+    double[] h=scale(e, f[0]);
+    for (int i=1; i<f.length; i++) h=sum(h, scale(e, f[i]));
+    return h;
+  }
+
+  private static double[] negate(double[] e)
+  {
+    double[] h=new double[e.length];
+    for (int i=0; i<e.length; i++) h[i]=-e[i];
+    return h;
+  }
+
+  private static double[] sum(double[] e, double[] f)
+  {
+    double[] h=e;
+    for (double b : f) h=grow(h, b);
+    return h;
+  }
+
+  // Adds b to e.
+  private static double[] grow(double[] e, double b)
+  {
+    double[] h=new double[e.length+1];
+    int n=0;
+    double q=b;
+    for (double enow : e)
+    {
+      double qnew=q+enow;
+      double bv=qnew-q;
+      double av=qnew-bv;
+      double hh=(q-av)+(enow-bv);
+      q=qnew;
+      if (hh!=0.0) h[n++]=hh;
+    }
+    if (q!=0.0 || n==0) h[n++]=q;
+    return (n==h.length) ? h : Arrays.copyOf(h, n);
+  }
+
+  // Multiplies e by b.
+  private static double[] scale(double[] e, double b)
+  {
+    double[] h=new double[2*e.length];
+    int n=0;
+
+    double c=SPLITTER*b;
+    double bhi=c-(c-b);
+    double blo=b-bhi;
+
+    double q=0.0;
+    for (int i=0; i<e.length; i++)
+    {
+      double a=e[i];
+      double hi=a*b;
+      c=SPLITTER*a;
+      double ahi=c-(c-a);
+      double alo=a-ahi;
+      double lo=alo*blo-(((hi-ahi*bhi)-alo*bhi)-ahi*blo);
+
+      if (i==0)
+      {
+        q=hi;
+        if (lo!=0.0) h[n++]=lo;
+        continue;
+      }
+
+      // Two sum of q and lo.
+      double sum=q+lo;
+      double bv=sum-q;
+      double av=sum-bv;
+      double hh=(q-av)+(lo-bv);
+      if (hh!=0.0) h[n++]=hh;
+
+      // Fast two sum of hi and sum.
+      q=hi+sum;
+      hh=sum-(q-hi);
+      if (hh!=0.0) h[n++]=hh;
+    }
+    if (q!=0.0 || n==0) h[n++]=q;
+    return (n==h.length) ? h : Arrays.copyOf(h, n);
+  }
+
+}
@@ -0,0 +1,203 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.math;
+
+import static java.lang.Math.abs;
+
+import java.util.concurrent.Callable;
+
+/**
+ * <p>
+ *   Immutable delta to use when comparing double precision scalars.
+ * </p>
+ * <p>
+ *   A context can be passed explicitly, for example to
+ *   {@link org.aha.euclid.Euclid#Euclid(ToleranceContext)}, or be bound to
+ *   the current thread for the duration of
+ *   {@link #run(Runnable)} or
+ *   {@link #call(Callable)}. While bound the methods of
+ *   {@link Comparisons} not accepting a delta parameter use the bound
+ *   context's delta in that thread, other threads are not affected.
+ * </p>
+ * <p>
+ *   Binding is meant for tasks, not single comparisons: It takes a lock.
+ *   While no context is bound in any thread the methods of
+ *   {@link Comparisons} do not look up the bound context at all.
+ * </p>
+ * <p>
+ *   A context may also be <i>exact</i>: Orientation tests that support it,
+ *   like
+ *   {@link EuclidMath#inside(double, double, double, double, double, double, double, double, double, double, double, double)},
+ *   then decide with the exact
+ *   {@link Predicates} rather than plain double arithmetic. This is opt-in
+ *   since it costs a little even when inputs are not near degenerate.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class ToleranceContext
+{
+  private static final ThreadLocal<ToleranceContext> c_bound=
+    new ThreadLocal<ToleranceContext>();
+
+  private final double m_d;
+
+  private final boolean m_exact;
+
+  /**
+   * <p>
+   *   Context with delta
+   *   {@link Comparisons#DEFAULT_DELTA}.
+   * </p>
+   */
+  public static final ToleranceContext DEFAULT=
+    new ToleranceContext(Comparisons.DEFAULT_DELTA);
+
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   * @param d Delta.
+   * @throws IllegalArgumentException If {@code d<0.0}.
+   */
+  public ToleranceContext(double d){ this(d, false); }
+
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   * @param d     Delta.
+   * @param exact {@code true} if orientation tests are to use exact
+   *              predicates, {@code false} if plain double arithmetic.
+   * @throws IllegalArgumentException If {@code d<0.0}.
+   */
+  public ToleranceContext(double d, boolean exact)
+  {
+    if (d<0.0)
+    {
+      throw new IllegalArgumentException("d<0.0 : "+d);
+    }
+
+    m_d=d;
+    m_exact=exact;
+  }
+
+  /**
+   * <p>
+   *   Gets delta.
+   * </p>
+   * @return Delta.
+   */
+  public double getDelta(){ return m_d; }
+
+  /**
+   * <p>
+   *   Tells if orientation tests are to use exact predicates.
+   * </p>
+   * @return {@code true} if exact, {@code false} if plain double arithmetic.
+   */
+  public boolean isExact(){ return m_exact; }
+
+  /**
+   * <p>
+   *   Tells if a number is to be considered the {@code 0.0}.
+   * </p>
+   * @param a Number.
+   * @return {@code abs(a)<=}{@link #getDelta()}.
+   */
+  public boolean zero(double a){ return a==0 || abs(a)<=m_d; }
+
+  /**
+   * <p>
+   *   Tells if two numbers are to be considered same.
+   * </p>
+   * @param a One number.
+   * @param b Other number.
+   * @return {@code abs(a-b)<=}{@link #getDelta()}.
+   */
+  public boolean same(double a, double b){ return a==b || abs(a-b)<=m_d; }
+
+  /**
+   * <p>
+   *   Runs task with {@code this} bound to the current thread.
+   * </p>
+   * <p>
+   *   Context bound when called is restored when done.
+   * </p>
+   * @param r Task.
+   */
+  public void run(Runnable r)
+  {
+    ToleranceContext prev=bind();
+    try
+    {
+      r.run();
+    }
+    finally
+    {
+      restore(prev);
+    }
+  }
+
+  /**
+   * <p>
+   *   Calls task with {@code this} bound to the current thread.
+   * </p>
+   * <p>
+   *   Context bound when called is restored when done.
+   * </p>
+   * @param c Task.
+   * @return Task's result.
+   * @throws Exception If task throws.
+   */
+  public <V> V call(Callable<V> c) throws Exception
+  {
+    ToleranceContext prev=bind();
+    try
+    {
+      return c.call();
+    }
+    finally
+    {
+      restore(prev);
+    }
+  }
+
+  /**
+   * <p>
+   *   Gets the context in effect for the current thread: The bound context or
+   *   if none is bound a context with the global delta set by
+   *   {@link Comparisons#setDelta(double)}.
+   * </p>
+   * @return Context.
+   */
+  public static ToleranceContext current(){ return Comparisons.context(); }
+
+  // Gets context bound to current thread, null if none.
+  static ToleranceContext bound(){ return c_bound.get(); }
+
+  // Binds this to current thread, returns context bound before.
+  private ToleranceContext bind()
+  {
+    ToleranceContext retVal=c_bound.get();
+    Comparisons.bindings(1, m_exact);
+    c_bound.set(this);
+    return retVal;
+  }
+
+  // Unbinds this from current thread, binds context bound before.
+  private void restore(ToleranceContext prev)
+  {
+    if (prev==null) c_bound.remove();
+    else            c_bound.set(prev);
+    Comparisons.bindings(-1, m_exact);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "ToleranceContext[d="+m_d+", exact="+m_exact+"]";
+  }
+
+}
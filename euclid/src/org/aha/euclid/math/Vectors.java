@@ -259,11 +259,11 @@ public final class Vectors
     {
       case 0 : return w;
       case 1 : w[0]=-u[0]; return w;
-      case 2 : w[0]=-u[0]; w[1]=-w[1]; return w;
-      case 3 : w[0]=-u[0]; w[1]=-w[1]; w[2]=-w[2]; return w;
+      case 2 : w[0]=-u[0]; w[1]=-u[1]; return w;
+      case 3 : w[0]=-u[0]; w[1]=-u[1]; w[2]=-u[2]; return w;
     }
     
-    for (int i=0; i<n; i++) u[i]=-u[i];    
+    for (int i=0; i<n; i++) w[i]=-u[i];    
     return w;
   }
   
@@ -664,9 +664,124 @@ public final class Vectors
       case 3 : return u[0]*v[0]+u[1]*v[1]+u[2]*v[2];
     }
     
-    float rv=0;
-    for (int i=0; i<n; i++) rv+=u[i]*v[i];
-    return rv;
+    // Independent partial sums so the adds of the loop do not wait on each
+    // other.
+    double s0=0.0;
+    double s1=0.0;
+    double s2=0.0;
+    double s3=0.0;
+    int i=0;
+    for (int e=n-3; i<e; i+=4)
+    {
+      s0+=u[i]*v[i];
+      s1+=u[i+1]*v[i+1];
+      s2+=u[i+2]*v[i+2];
+      s3+=u[i+3]*v[i+3];
+    }
+    for (; i<n; i++) s0+=u[i]*v[i];
+    return (s0+s1)+(s2+s3);
+  }
+  
+  /**
+   * <p>
+   *   Computes the dot product of two vectors and their lengths in one pass.
+   * </p>
+   * <p>
+   *   The cosine of the angle between the vectors is
+   *   {@code r[0]/(r[1]*r[2])}.
+   * </p>
+   * @param u First vector.
+   * @param v Second vector.
+   * @param r Assigned to {@code {dot(u, v), len(u), len(v)}}. If {@code null}
+   *          allocates.
+   * @return {@code r}.
+   * @throws IllegalArgumentException If {@code u.length!=v.length}.
+   */
+  public static double[] dotLen(double[] u, double[] v, double[] r)
+  {
+    int n=u.length;
+    
+    if (v.length!=n)
+    {
+      throw new IllegalArgumentException("u.length!=v.length : "+n+"!="+
+        v.length);
+    }
+    
+    double uv=0.0;
+    double uu=0.0;
+    double vv=0.0;
+    for (int i=0; i<n; i++)
+    {
+      double ui=u[i];
+      double vi=v[i];
+      uv+=ui*vi;
+      uu+=ui*ui;
+      vv+=vi*vi;
+    }
+    
+    r=(r==null) ? new double[3] : r;
+    r[0]=uv;
+    r[1]=sqrt(uu);
+    r[2]=sqrt(vv);
+    return r;
+  }
+  
+  /**
+   * <p>
+   *   Adds vector {@code x} scaled by {@code a} to {@code y}: 
+   *   {@code y=a*x+y}.
+   * </p>
+   * @param a Scalar.
+   * @param x Vector to scale and add.
+   * @param y Vector changed.
+   * @throws IllegalArgumentException If {@code x.length!=y.length}.
+   */
+  public static void axpy(double a, double[] x, double[] y)
+  {
+    int n=x.length;
+    
+    if (y.length!=n)
+    {
+      throw new IllegalArgumentException("x.length!=y.length : "+n+"!="+
+        y.length);
+    }
+    
+    for (int i=0; i<n; i++) y[i]+=a*x[i];
+  }
+  
+  /**
+   * <p>
+   *   Adds vector {@code x} scaled by {@code a} to {@code y}:
+   *   {@code w=a*x+y}.
+   * </p>
+   * @param a Scalar.
+   * @param x Vector to scale and add.
+   * @param y Vector to add to.
+   * @param w Assigned to result, if {@code null} allocates.
+   * @return Result: {@code w} or allocated if last parameter {@code null}.
+   * @throws IllegalArgumentException If {@code x.length!=y.length}.
+   * @throws IllegalArgumentException If {@code w!=null && w.length!=x.length}.
+   */
+  public static double[] axpy(double a, double[] x, double[] y, double[] w)
+  {
+    int n=x.length;
+    
+    if (y.length!=n)
+    {
+      throw new IllegalArgumentException("x.length!=y.length : "+n+"!="+
+        y.length);
+    }
+    
+    w=(w==null) ? (n==0 ? ZERO_DIMENSION_VECTOR : new double[n]) : w;
+    
+    if (w.length!=n)
+    {
+      throw new IllegalArgumentException("x.length!=w.length : "+n+"!="+
+        w.length);
+    }
+    
+    for (int i=0; i<n; i++) w[i]=a*x[i]+y[i];
+    return w;
   }
   
   /**
@@ -699,14 +814,23 @@ public final class Vectors
       case 3 : return sqrt(EuclidMath.dot(u[0]-v[0], u[1]-v[1], u[2]-v[2]));
     }
     
-    double rv=0.0;
-    for (int i=0; i<n; i++) 
+    double s0=0.0;
+    double s1=0.0;
+    int i=0;
+    for (int e=n-1; i<e; i+=2)
+    {
+      double d0=u[i]-v[i];
+      double d1=u[i+1]-v[i+1];
+      s0+=d0*d0;
+      s1+=d1*d1;
+    }
+    if (i<n)
     {
       double d=u[i]-v[i];
-      rv+=d*d;
+      s0+=d*d;
     }
     
-    return sqrt(rv);
+    return sqrt(s0+s1);
   }
   
   /**
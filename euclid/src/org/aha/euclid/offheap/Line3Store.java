@@ -0,0 +1,105 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.offheap;
+
+import static org.aha.euclid.math.Comparisons.same;
+import static org.aha.euclid.math.Vectors.pointToString;
+
+import java.nio.DoubleBuffer;
+
+import org.aha.euclid.Line3;
+
+/**
+ * <p>
+ *   Off heap store of
+ *   {@link Line3} values, the two points defining each line.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Line3Store extends OffHeapStore
+{
+  /**
+   * <p>
+   *   Creates store of {@code n} lines.
+   * </p>
+   * @param arena Arena to allocate in.
+   * @param n     Number of lines.
+   * @throws IllegalArgumentException If {@code n<0}.
+   * @throws IllegalStateException If {@code arena} is closed.
+   */
+  public Line3Store(OffHeapArena arena, int n){ super(arena, n, 6); }
+
+  /**
+   * <p>
+   *   Sets line.
+   * </p>
+   * @param i  Index of line.
+   * @param x0 X coordinate of first point.
+   * @param y0 Y coordinate of first point.
+   * @param z0 Z coordinate of first point.
+   * @param x1 X coordinate of second point.
+   * @param y1 Y coordinate of second point.
+   * @param z1 Z coordinate of second point.
+   * @throws IllegalArgumentException If {@code (x0, y0, z0)} same point as
+   *         {@code (x1, y1, z1)}.
+   */
+  public void set(int i, double x0, double y0, double z0, double x1,
+    double y1, double z1)
+  {
+    if (same(x0, y0, z0, x1, y1, z1))
+    {
+      throw new IllegalArgumentException(pointToString(x0, y0, z0)+
+        " same point as "+pointToString(x1, y1, z1));
+    }
+
+    DoubleBuffer b=page(i);
+    int o=offset(i);
+    b.put(o, x0);
+    b.put(o+1, y0);
+    b.put(o+2, z0);
+    b.put(o+3, x1);
+    b.put(o+4, y1);
+    b.put(o+5, z1);
+  }
+
+  /**
+   * <p>
+   *   Sets line.
+   * </p>
+   * @param i Index of line.
+   * @param l Line to copy.
+   */
+  public void set(int i, Line3 l)
+  {
+    set(i, l.x0(), l.y0(), l.z0(), l.x1(), l.y1(), l.z1());
+  }
+
+  /**
+   * <p>
+   *   Gets line.
+   * </p>
+   * @param i Index of line.
+   * @param l Assigned to line. If {@code null} allocates.
+   * @return Line.
+   */
+  public Line3 get(int i, Line3 l)
+  {
+    l=(l==null) ? new Line3() : l;
+    DoubleBuffer b=page(i);
+    int o=offset(i);
+    l.set(b.get(o), b.get(o+1), b.get(o+2), b.get(o+3), b.get(o+4),
+      b.get(o+5));
+    return l;
+  }
+
+  /**
+   * <p>
+   *   Creates view positioned at the first line.
+   * </p>
+   * @return View.
+   */
+  public Line3View view(){ return new Line3View(this); }
+
+}
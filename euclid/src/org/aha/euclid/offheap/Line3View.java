@@ -0,0 +1,225 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.offheap;
+
+import static java.lang.Math.sqrt;
+
+import java.nio.DoubleBuffer;
+
+import org.aha.euclid.Line3;
+
+/**
+ * <p>
+ *   Flyweight over the lines of a
+ *   {@link Line3Store}: Moved from line to line and answers the queries of
+ *   {@link Line3} reading the store's memory, no objects are allocated.
+ * </p>
+ * <p>
+ *   Once the arena is closed all queries throw
+ *   {@link IllegalStateException}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Line3View
+{
+  private final Line3Store m_store;
+
+  private int m_o;
+
+  private int m_i=-1;
+
+  // Creates view, positioned at first line if any.
+  Line3View(Line3Store store)
+  {
+    m_store=store;
+    if (store.size()>0) moveTo(0);
+  }
+
+  /**
+   * <p>
+   *   Moves to line.
+   * </p>
+   * @param i Index of line.
+   * @return {@code this}.
+   * @throws IndexOutOfBoundsException If no such line.
+   * @throws IllegalStateException If arena closed.
+   */
+  public Line3View moveTo(int i)
+  {
+    m_store.page(i); // Checks i and that arena is open.
+    m_o=m_store.offset(i);
+    m_i=i;
+    return this;
+  }
+
+  /**
+   * <p>
+   *   Gets index of the line {@code this} is at.
+   * </p>
+   * @return Index, {@code -1} if store is empty.
+   */
+  public int index(){ return m_i; }
+
+  /**
+   * <p>
+   *   Gets x coordinate of first point.
+   * </p>
+   * @return Coordinate.
+   */
+  public double x0(){ return page().get(m_o); }
+
+  /**
+   * <p>
+   *   Gets y coordinate of first point.
+   * </p>
+   * @return Coordinate.
+   */
+  public double y0(){ return page().get(m_o+1); }
+
+  /**
+   * <p>
+   *   Gets z coordinate of first point.
+   * </p>
+   * @return Coordinate.
+   */
+  public double z0(){ return page().get(m_o+2); }
+
+  /**
+   * <p>
+   *   Gets x coordinate of second point.
+   * </p>
+   * @return Coordinate.
+   */
+  public double x1(){ return page().get(m_o+3); }
+
+  /**
+   * <p>
+   *   Gets y coordinate of second point.
+   * </p>
+   * @return Coordinate.
+   */
+  public double y1(){ return page().get(m_o+4); }
+
+  /**
+   * <p>
+   *   Gets z coordinate of second point.
+   * </p>
+   * @return Coordinate.
+   */
+  public double z1(){ return page().get(m_o+5); }
+
+  /**
+   * <p>
+   *   Gets the distance to line from given point.
+   * </p>
+   * @param x Point's x coordinate.
+   * @param y Point's y coordinate.
+   * @param z Point's z coordinate.
+   * @return Distance.
+   * @see Line3#distance(double, double, double)
+   */
+  public double distance(double x, double y, double z)
+  {
+    DoubleBuffer b=page();
+    int o=m_o;
+    double x0=b.get(o);
+    double y0=b.get(o+1);
+    double z0=b.get(o+2);
+
+    double wx=x-x0;
+    double wy=y-y0;
+    double wz=z-z0;
+
+    double vx=b.get(o+3)-x0;
+    double vy=b.get(o+4)-y0;
+    double vz=b.get(o+5)-z0;
+
+    double xx=vy*wz-vz*wy;
+    double xy=vz*wx-vx*wz;
+    double xz=vx*wy-vy*wx;
+    return sqrt(xx*xx+xy*xy+xz*xz)/sqrt(vx*vx+vy*vy+vz*vz);
+  }
+
+  /**
+   * <p>
+   *   Computes the parameter the closest point on line to the given point.
+   * </p>
+   * @param x Point's x coordinate.
+   * @param y Point's y coordinate.
+   * @param z Point's z coordinate.
+   * @return Parameter.
+   * @see Line3#closest(double, double, double)
+   */
+  public double closest(double x, double y, double z)
+  {
+    DoubleBuffer b=page();
+    int o=m_o;
+    double x0=b.get(o);
+    double y0=b.get(o+1);
+    double z0=b.get(o+2);
+
+    double vx=b.get(o+3)-x0;
+    double vy=b.get(o+4)-y0;
+    double vz=b.get(o+5)-z0;
+
+    return ((x-x0)*vx+(y-y0)*vy+(z-z0)*vz)/(vx*vx+vy*vy+vz*vz);
+  }
+
+  /**
+   * <p>
+   *   Computes the the closest point on line to the given point.
+   * </p>
+   * @param x Point's x coordinate.
+   * @param y Point's y coordinate.
+   * @param z Point's z coordinate.
+   * @param c Assigned to computed point. If {@code null} allocates.
+   * @return Point on line closest to {@code (x,y,z)}.
+   * @see Line3#closest(double, double, double, double[])
+   */
+  public double[] closest(double x, double y, double z, double[] c)
+  {
+    c=(c==null) ? new double[3] : c;
+    double t=closest(x, y, z);
+    DoubleBuffer b=page();
+    int o=m_o;
+    c[0]=b.get(o)+t*(b.get(o+3)-b.get(o));
+    c[1]=b.get(o+1)+t*(b.get(o+4)-b.get(o+1));
+    c[2]=b.get(o+2)+t*(b.get(o+5)-b.get(o+2));
+    return c;
+  }
+
+  /**
+   * <p>
+   *   Gets the distance to the line segment defining the line.
+   * </p>
+   * @param x Point's x coordinate.
+   * @param y Point's y coordinate.
+   * @param z Point's z coordinate.
+   * @return Distance.
+   * @see Line3#segmentDistance(double[])
+   */
+  public double segmentDistance(double x, double y, double z)
+  {
+    double t=closest(x, y, z);
+    t=(t<0.0) ? 0.0 : (t>1.0) ? 1.0 : t;
+    DoubleBuffer b=page();
+    int o=m_o;
+    double dx=x-(b.get(o)+t*(b.get(o+3)-b.get(o)));
+    double dy=y-(b.get(o+1)+t*(b.get(o+4)-b.get(o+1)));
+    double dz=z-(b.get(o+2)+t*(b.get(o+5)-b.get(o+2)));
+    return sqrt(dx*dx+dy*dy+dz*dz);
+  }
+
+  // Gets page of the line this is at: Fetched on each access so use
+  // after the arena is closed fails and the view does not keep memory.
+  private DoubleBuffer page(){ return m_store.page(m_i); }
+
+  @Override
+  public String toString()
+  {
+    return "Line3View[index="+m_i+"]";
+  }
+
+}
@@ -0,0 +1,105 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ *   Owner of the off heap memory of
+ *   {@link OffHeapStore} objects: Stores are created in an arena and live
+ *   until it is closed.
+ * </p>
+ * <p>
+ *   Memory is allocated as direct buffers. Closing the arena makes its
+ *   stores and their views unusable and drops all references to the
+ *   buffers, the memory is returned when they are collected. An arena must
+ *   not be closed while other threads use its stores.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class OffHeapArena implements AutoCloseable
+{
+  private final List<OffHeapStore> m_stores=new ArrayList<OffHeapStore>();
+
+  private long m_allocated=0L;
+
+  private boolean m_open=true;
+
+  /**
+   * <p>
+   *   Creates open arena.
+   * </p>
+   */
+  public OffHeapArena(){}
+
+  /**
+   * <p>
+   *   Tells if {@code this} is open.
+   * </p>
+   * @return {@code true} if open, {@code false} if closed.
+   */
+  public synchronized boolean isOpen(){ return m_open; }
+
+  /**
+   * <p>
+   *   Gets number of bytes allocated by the stores of {@code this}.
+   * </p>
+   * @return Count, {@code 0} when closed.
+   */
+  public synchronized long getAllocated(){ return m_allocated; }
+
+  /**
+   * <p>
+   *   Closes {@code this} and its stores. Does nothing if already closed.
+   * </p>
+   */
+  @Override
+  public synchronized void close()
+  {
+    if (!m_open) return;
+
+    m_open=false;
+    for (OffHeapStore s : m_stores) s.release();
+    m_stores.clear();
+    m_allocated=0L;
+  }
+
+  // Registers store allocated in this.
+  synchronized void register(OffHeapStore s)
+  {
+    checkOpen();
+    m_stores.add(s);
+  }
+
+  // Allocates n zeroed doubles in native order.
+  synchronized DoubleBuffer allocate(int n)
+  {
+    checkOpen();
+    DoubleBuffer retVal=ByteBuffer.allocateDirect(8*n)
+      .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    m_allocated+=8L*n;
+    return retVal;
+  }
+
+  private void checkOpen()
+  {
+    if (!m_open)
+    {
+      throw new IllegalStateException("arena closed");
+    }
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return "OffHeapArena[open="+m_open+", allocated="+m_allocated+"]";
+  }
+
+}
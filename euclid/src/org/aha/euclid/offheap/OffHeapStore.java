@@ -0,0 +1,105 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.offheap;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * <p>
+ *   Fixed size array of records of {@code double} values stored off heap in
+ *   memory owned by an
+ *   {@link OffHeapArena}.
+ * </p>
+ * <p>
+ *   Records are kept in pages of at most 1 GB so stores may exceed the 2 GB
+ *   limit of a single buffer. All values are {@code 0.0} until set.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public abstract class OffHeapStore
+{
+  // Largest page in doubles.
+  private static final int MAX_PAGE=1<<27;
+
+  private final OffHeapArena m_arena;
+
+  private final int m_size;
+
+  private final int m_record;
+
+  private final int m_shift;
+
+  private final int m_mask;
+
+  private DoubleBuffer[] m_pages;
+
+  // Creates store of n records of given number of doubles.
+  OffHeapStore(OffHeapArena arena, int n, int record)
+  {
+    if (arena==null)
+    {
+      throw new NullPointerException("arena");
+    }
+    if (n<0)
+    {
+      throw new IllegalArgumentException("n<0 : "+n);
+    }
+
+    m_arena=arena;
+    m_size=n;
+    m_record=record;
+
+    int perPage=Integer.highestOneBit(MAX_PAGE/record);
+    m_shift=Integer.numberOfTrailingZeros(perPage);
+    m_mask=perPage-1;
+
+    arena.register(this);
+    int np=(int)(((long)n+perPage-1)/perPage);
+    m_pages=new DoubleBuffer[np];
+    for (int p=0; p<np; p++)
+    {
+      int records=Math.min(perPage, n-p*perPage);
+      m_pages[p]=arena.allocate(records*record);
+    }
+  }
+
+  /**
+   * <p>
+   *   Gets number of records.
+   * </p>
+   * @return Count.
+   */
+  public final int size(){ return m_size; }
+
+  /**
+   * <p>
+   *   Gets the arena owning {@code this}.
+   * </p>
+   * @return Arena.
+   */
+  public final OffHeapArena getArena(){ return m_arena; }
+
+  // Gets page of record i.
+  final DoubleBuffer page(int i)
+  {
+    DoubleBuffer[] pages=m_pages;
+    if (pages==null)
+    {
+      throw new IllegalStateException("arena closed");
+    }
+    if (i<0 || i>=m_size)
+    {
+      throw new IndexOutOfBoundsException("i : "+i+" size : "+m_size);
+    }
+    return pages[i>>>m_shift];
+  }
+
+  // Gets offset in its page of record i.
+  final int offset(int i){ return (i&m_mask)*m_record; }
+
+  // Called by arena when closed.
+  final void release(){ m_pages=null; }
+
+}
@@ -0,0 +1,85 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.offheap;
+
+import java.nio.DoubleBuffer;
+
+import org.aha.euclid.Sphere3;
+
+/**
+ * <p>
+ *   Off heap store of
+ *   {@link Sphere3} values, center and radius of each sphere.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Sphere3Store extends OffHeapStore
+{
+  /**
+   * <p>
+   *   Creates store of {@code n} spheres.
+   * </p>
+   * @param arena Arena to allocate in.
+   * @param n     Number of spheres.
+   * @throws IllegalArgumentException If {@code n<0}.
+   * @throws IllegalStateException If {@code arena} is closed.
+   */
+  public Sphere3Store(OffHeapArena arena, int n){ super(arena, n, 4); }
+
+  /**
+   * <p>
+   *   Sets sphere.
+   * </p>
+   * @param i Index of sphere.
+   * @param x X coordinate of center.
+   * @param y Y coordinate of center.
+   * @param z Z coordinate of center.
+   * @param r Radius.
+   */
+  public void set(int i, double x, double y, double z, double r)
+  {
+    DoubleBuffer b=page(i);
+    int o=offset(i);
+    b.put(o, x);
+    b.put(o+1, y);
+    b.put(o+2, z);
+    b.put(o+3, r);
+  }
+
+  /**
+   * <p>
+   *   Sets sphere.
+   * </p>
+   * @param i Index of sphere.
+   * @param s Sphere to copy.
+   */
+  public void set(int i, Sphere3 s){ set(i, s.x(), s.y(), s.z(), s.getRadius()); }
+
+  /**
+   * <p>
+   *   Gets sphere.
+   * </p>
+   * @param i Index of sphere.
+   * @param s Assigned to sphere. If {@code null} allocates.
+   * @return Sphere.
+   */
+  public Sphere3 get(int i, Sphere3 s)
+  {
+    s=(s==null) ? new Sphere3() : s;
+    DoubleBuffer b=page(i);
+    int o=offset(i);
+    s.set(b.get(o), b.get(o+1), b.get(o+2), b.get(o+3));
+    return s;
+  }
+
+  /**
+   * <p>
+   *   Creates view positioned at the first sphere.
+   * </p>
+   * @return View.
+   */
+  public Sphere3View view(){ return new Sphere3View(this); }
+
+}
@@ -0,0 +1,140 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.offheap;
+
+import java.nio.DoubleBuffer;
+
+import org.aha.euclid.Sphere3;
+
+/**
+ * <p>
+ *   Flyweight over the spheres of a
+ *   {@link Sphere3Store}: Moved from sphere to sphere and answers the
+ *   queries of
+ *   {@link Sphere3} reading the store's memory, no objects are allocated.
+ * </p>
+ * <p>
+ *   Once the arena is closed all queries throw
+ *   {@link IllegalStateException}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Sphere3View
+{
+  private final Sphere3Store m_store;
+
+  private int m_o;
+
+  private int m_i=-1;
+
+  // Creates view, positioned at first sphere if any.
+  Sphere3View(Sphere3Store store)
+  {
+    m_store=store;
+    if (store.size()>0) moveTo(0);
+  }
+
+  /**
+   * <p>
+   *   Moves to sphere.
+   * </p>
+   * @param i Index of sphere.
+   * @return {@code this}.
+   * @throws IndexOutOfBoundsException If no such sphere.
+   * @throws IllegalStateException If arena closed.
+   */
+  public Sphere3View moveTo(int i)
+  {
+    m_store.page(i); // Checks i and that arena is open.
+    m_o=m_store.offset(i);
+    m_i=i;
+    return this;
+  }
+
+  /**
+   * <p>
+   *   Gets index of the sphere {@code this} is at.
+   * </p>
+   * @return Index, {@code -1} if store is empty.
+   */
+  public int index(){ return m_i; }
+
+  /**
+   * <p>
+   *   Gets x coordinate of center.
+   * </p>
+   * @return Coordinate.
+   */
+  public double x(){ return page().get(m_o); }
+
+  /**
+   * <p>
+   *   Gets y coordinate of center.
+   * </p>
+   * @return Coordinate.
+   */
+  public double y(){ return page().get(m_o+1); }
+
+  /**
+   * <p>
+   *   Gets z coordinate of center.
+   * </p>
+   * @return Coordinate.
+   */
+  public double z(){ return page().get(m_o+2); }
+
+  /**
+   * <p>
+   *   Gets radius.
+   * </p>
+   * @return Radius.
+   */
+  public double getRadius(){ return page().get(m_o+3); }
+
+  /**
+   * <p>
+   *   Gets center.
+   * </p>
+   * @param c Assigned to center. If {@code null} allocates.
+   * @return Center.
+   */
+  public double[] getCenter(double[] c)
+  {
+    c=(c==null) ? new double[3] : c;
+    c[0]=x();
+    c[1]=y();
+    c[2]=z();
+    return c;
+  }
+
+  /**
+   * <p>
+   *   Computes area.
+   * </p>
+   * @return Area.
+   * @see Sphere3#area()
+   */
+  public double area(){ return Sphere3.area(getRadius()); }
+
+  /**
+   * <p>
+   *   Computes volume.
+   * </p>
+   * @return Volume.
+   * @see Sphere3#volume()
+   */
+  public double volume(){ return Sphere3.volume(getRadius()); }
+
+  // Gets page of the sphere this is at: Fetched on each access so use
+  // after the arena is closed fails and the view does not keep memory.
+  private DoubleBuffer page(){ return m_store.page(m_i); }
+
+  @Override
+  public String toString()
+  {
+    return "Sphere3View[index="+m_i+"]";
+  }
+
+}
@@ -0,0 +1,136 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.offheap;
+
+import static java.lang.Math.sqrt;
+
+import java.nio.DoubleBuffer;
+
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.ZeroLengthVectorException;
+import org.aha.euclid.math.Comparisons;
+
+/**
+ * <p>
+ *   Off heap store of
+ *   {@link Triangle3} values: The three points and the normalized normal of
+ *   each triangle, normals computed as by
+ *   {@link Triangle3#set(double, double, double, double, double, double, double, double, double)}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Triangle3Store extends OffHeapStore
+{
+  /**
+   * <p>
+   *   Creates store of {@code n} triangles.
+   * </p>
+   * @param arena Arena to allocate in.
+   * @param n     Number of triangles.
+   * @throws IllegalArgumentException If {@code n<0}.
+   * @throws IllegalStateException If {@code arena} is closed.
+   */
+  public Triangle3Store(OffHeapArena arena, int n){ super(arena, n, 12); }
+
+  /**
+   * <p>
+   *   Sets triangle.
+   * </p>
+   * @param i  Index of triangle.
+   * @param x0 X coordinate of first point.
+   * @param y0 Y coordinate of first point.
+   * @param z0 Z coordinate of first point.
+   * @param x1 X coordinate of second point.
+   * @param y1 Y coordinate of second point.
+   * @param z1 Z coordinate of second point.
+   * @param x2 X coordinate of third point.
+   * @param y2 Y coordinate of third point.
+   * @param z2 Z coordinate of third point.
+   * @throws ZeroLengthVectorException If the points are on a line.
+   */
+  public void set(int i, double x0, double y0, double z0, double x1,
+    double y1, double z1, double x2, double y2, double z2)
+  {
+    double ux=x2-x0;
+    double uy=y2-y0;
+    double uz=z2-z0;
+
+    double vx=x1-x0;
+    double vy=y1-y0;
+    double vz=z1-z0;
+
+    double nx=vy*uz-vz*uy;
+    double ny=vz*ux-vx*uz;
+    double nz=vx*uy-vy*ux;
+
+    if (Comparisons.zero3dVector(nx, ny, nz))
+    {
+      throw new ZeroLengthVectorException();
+    }
+
+    double l=sqrt(nx*nx+ny*ny+nz*nz);
+    put(i, x0, y0, z0, x1, y1, z1, x2, y2, z2, nx/l, ny/l, nz/l);
+  }
+
+  /**
+   * <p>
+   *   Sets triangle.
+   * </p>
+   * @param i Index of triangle.
+   * @param t Triangle to copy.
+   */
+  public void set(int i, Triangle3 t)
+  {
+    put(i, t.x0(), t.y0(), t.z0(), t.x1(), t.y1(), t.z1(), t.x2(), t.y2(),
+      t.z2(), t.a(), t.b(), t.c());
+  }
+
+  /**
+   * <p>
+   *   Gets triangle.
+   * </p>
+   * @param i Index of triangle.
+   * @param t Assigned to triangle. If {@code null} allocates.
+   * @return Triangle.
+   */
+  public Triangle3 get(int i, Triangle3 t)
+  {
+    t=(t==null) ? new Triangle3() : t;
+    DoubleBuffer b=page(i);
+    int o=offset(i);
+    t.set(b.get(o), b.get(o+1), b.get(o+2), b.get(o+3), b.get(o+4),
+      b.get(o+5), b.get(o+6), b.get(o+7), b.get(o+8));
+    return t;
+  }
+
+  /**
+   * <p>
+   *   Creates view positioned at the first triangle.
+   * </p>
+   * @return View.
+   */
+  public Triangle3View view(){ return new Triangle3View(this); }
+
+  private void put(int i, double x0, double y0, double z0, double x1,
+    double y1, double z1, double x2, double y2, double z2, double a,
+    double b, double c)
+  {
+    DoubleBuffer d=page(i);
+    int o=offset(i);
+    d.put(o, x0);
+    d.put(o+1, y0);
+    d.put(o+2, z0);
+    d.put(o+3, x1);
+    d.put(o+4, y1);
+    d.put(o+5, z1);
+    d.put(o+6, x2);
+    d.put(o+7, y2);
+    d.put(o+8, z2);
+    d.put(o+9, a);
+    d.put(o+10, b);
+    d.put(o+11, c);
+  }
+
+}
@@ -0,0 +1,277 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.offheap;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.sqrt;
+
+import java.nio.DoubleBuffer;
+
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.math.EuclidMath;
+
+/**
+ * <p>
+ *   Flyweight over the triangles of a
+ *   {@link Triangle3Store}: Moved from triangle to triangle and answers the
+ *   queries of
+ *   {@link Triangle3} reading the store's memory, no objects are allocated
+ *   unless asked to.
+ * </p>
+ * <p>
+ *   Once the arena is closed all queries throw
+ *   {@link IllegalStateException}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Triangle3View
+{
+  private final Triangle3Store m_store;
+
+  private int m_o;
+
+  private int m_i=-1;
+
+  // Creates view, positioned at first triangle if any.
+  Triangle3View(Triangle3Store store)
+  {
+    m_store=store;
+    if (store.size()>0) moveTo(0);
+  }
+
+  /**
+   * <p>
+   *   Moves to triangle.
+   * </p>
+   * @param i Index of triangle.
+   * @return {@code this}.
+   * @throws IndexOutOfBoundsException If no such triangle.
+   * @throws IllegalStateException If arena closed.
+   */
+  public Triangle3View moveTo(int i)
+  {
+    m_store.page(i); // Checks i and that arena is open.
+    m_o=m_store.offset(i);
+    m_i=i;
+    return this;
+  }
+
+  /**
+   * <p>
+   *   Gets index of the triangle {@code this} is at.
+   * </p>
+   * @return Index, {@code -1} if store is empty.
+   */
+  public int index(){ return m_i; }
+
+  /**
+   * <p>
+   *   Gets coordinate of a point.
+   * </p>
+   * @param p Point, {@code 0}, {@code 1} or {@code 2}.
+   * @param k Coordinate, {@code 0} for x, {@code 1} for y or {@code 2} for
+   *          z.
+   * @return Coordinate.
+   */
+  public double get(int p, int k)
+  {
+    if (p<0 || p>2)
+    {
+      throw new IndexOutOfBoundsException("p : "+p);
+    }
+    if (k<0 || k>2)
+    {
+      throw new IndexOutOfBoundsException("k : "+k);
+    }
+
+    return page().get(m_o+3*p+k);
+  }
+
+  /**
+   * <p>
+   *   Gets x component of normal.
+   * </p>
+   * @return Component.
+   */
+  public double a(){ return page().get(m_o+9); }
+
+  /**
+   * <p>
+   *   Gets y component of normal.
+   * </p>
+   * @return Component.
+   */
+  public double b(){ return page().get(m_o+10); }
+
+  /**
+   * <p>
+   *   Gets z component of normal.
+   * </p>
+   * @return Component.
+   */
+  public double c(){ return page().get(m_o+11); }
+
+  /**
+   * <p>
+   *   Gets the constant of the plane's implicit equation.
+   * </p>
+   * @return Constant.
+   * @see Triangle3#d()
+   */
+  public double d()
+  {
+    DoubleBuffer b=page();
+    int o=m_o;
+    return -(b.get(o+9)*b.get(o)+b.get(o+10)*b.get(o+1)+
+      b.get(o+11)*b.get(o+2));
+  }
+
+  /**
+   * <p>
+   *   Evaluates left side of the plane's implicit equation at a given point:
+   *   The signed distance from the point to the plane.
+   * </p>
+   * @param x Point's x coordinate.
+   * @param y Point's y coordinate.
+   * @param z Point's z coordinate.
+   * @return Signed distance.
+   * @see Triangle3#axbyczd(double, double, double)
+   */
+  public double axbyczd(double x, double y, double z)
+  {
+    DoubleBuffer b=page();
+    int o=m_o;
+    return b.get(o+9)*(x-b.get(o))+b.get(o+10)*(y-b.get(o+1))+
+      b.get(o+11)*(z-b.get(o+2));
+  }
+
+  /**
+   * <p>
+   *   Gets the distance from a point to the plane.
+   * </p>
+   * @param x Point's x coordinate.
+   * @param y Point's y coordinate.
+   * @param z Point's z coordinate.
+   * @return Distance.
+   * @see Triangle3#distance(double, double, double)
+   */
+  public double distance(double x, double y, double z)
+  {
+    return abs(axbyczd(x, y, z));
+  }
+
+  /**
+   * <p>
+   *   Finds the closest point in the plane to given point.
+   * </p>
+   * @param x Point's x coordinate.
+   * @param y Point's y coordinate.
+   * @param z Point's z coordinate.
+   * @param c Assigned to closest point. If {@code null} allocates.
+   * @return closest point in plane to {@code (x,y,z)}.
+   * @see Triangle3#closest(double, double, double, double[])
+   */
+  public double[] closest(double x, double y, double z, double[] c)
+  {
+    c=(c==null) ? new double[3] : c;
+    double d=axbyczd(x, y, z);
+    c[0]=x-a()*d;
+    c[1]=y-b()*d;
+    c[2]=z-c()*d;
+    return c;
+  }
+
+  /**
+   * <p>
+   *   Computes area.
+   * </p>
+   * @return Area.
+   * @see Triangle3#area()
+   */
+  public double area()
+  {
+    DoubleBuffer b=page();
+    int o=m_o;
+    double ux=b.get(o+3)-b.get(o);
+    double uy=b.get(o+4)-b.get(o+1);
+    double uz=b.get(o+5)-b.get(o+2);
+    double vx=b.get(o+6)-b.get(o);
+    double vy=b.get(o+7)-b.get(o+1);
+    double vz=b.get(o+8)-b.get(o+2);
+    double wx=uy*vz-uz*vy;
+    double wy=uz*vx-ux*vz;
+    double wz=ux*vy-uy*vx;
+    return 0.5*sqrt(wx*wx+wy*wy+wz*wz);
+  }
+
+  /**
+   * <p>
+   *   Computes average point.
+   * </p>
+   * @param c Assigned to average point. If {@code null} allocates.
+   * @return Average point.
+   * @see Triangle3#centroid(double[])
+   */
+  public double[] centroid(double[] c)
+  {
+    c=(c==null) ? new double[3] : c;
+    DoubleBuffer b=page();
+    int o=m_o;
+    c[0]=(b.get(o)+b.get(o+3)+b.get(o+6))/3.0;
+    c[1]=(b.get(o+1)+b.get(o+4)+b.get(o+7))/3.0;
+    c[2]=(b.get(o+2)+b.get(o+5)+b.get(o+8))/3.0;
+    return c;
+  }
+
+  /**
+   * <p>
+   *   Computes point's barycentric coordinates related to the triangle.
+   * </p>
+   * @param x  Point's x coordinate.
+   * @param y  Point's y coordinate.
+   * @param z  Point's z coordinate.
+   * @param bc Assigned to the barycentric coordinates of {@code (x,y,z)}. If
+   *           {@code null} allocates.
+   * @return Point's barycentric coordinates.
+   * @see Triangle3#barycentric(double, double, double, double[])
+   */
+  public double[] barycentric(double x, double y, double z, double[] bc)
+  {
+    DoubleBuffer b=page();
+    int o=m_o;
+    return EuclidMath.barycentric(b.get(o), b.get(o+1), b.get(o+2),
+      b.get(o+3), b.get(o+4), b.get(o+5), b.get(o+6), b.get(o+7),
+      b.get(o+8), b.get(o+9), b.get(o+10), b.get(o+11), x, y, z, bc);
+  }
+
+  /**
+   * <p>
+   *   Tells if point in the triangle's plane is inside triangle or not.
+   * </p>
+   * @param x Point's x coordinate.
+   * @param y Point's y coordinate.
+   * @param z Point's z coordinate.
+   * @return {@code true} if {@code (x,y,z)} inside else {@code false}.
+   * @see Triangle3#inside(double, double, double)
+   */
+  public boolean inside(double x, double y, double z)
+  {
+    DoubleBuffer b=page();
+    int o=m_o;
+    return EuclidMath.inside(b.get(o), b.get(o+1), b.get(o+2), b.get(o+3),
+      b.get(o+4), b.get(o+5), b.get(o+6), b.get(o+7), b.get(o+8), x, y, z);
+  }
+
+  // Gets page of the triangle this is at: Fetched on each access so use
+  // after the arena is closed fails and the view does not keep memory.
+  private DoubleBuffer page(){ return m_store.page(m_i); }
+
+  @Override
+  public String toString()
+  {
+    return "Triangle3View[index="+m_i+"]";
+  }
+
+}
@@ -0,0 +1,313 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.quality;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ *   Histogram with bins of equal width over a range of values, counting
+ *   values below and above the range separately.
+ * </p>
+ * <p>
+ *   Values can be removed as well as added so a histogram can be kept up to
+ *   date as the values it counts change, and histograms with the same bins
+ *   can be merged. The sum is kept as a {@code double} and so may drift by
+ *   rounding after many removals.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Histogram
+{
+  private final double m_min;
+
+  private final double m_max;
+
+  private final double m_scale;
+
+  private final long[] m_counts;
+
+  private long m_under=0;
+
+  private long m_over=0;
+
+  private long m_n=0;
+
+  private double m_sum=0.0;
+
+  /**
+   * <p>
+   *   Creates empty histogram.
+   * </p>
+   * @param bins Number of bins.
+   * @param min  Low end of the range, the first bin's lower bound.
+   * @param max  High end of the range, the last bin's upper bound. Values
+   *             equal to {@code max} are in the last bin.
+   * @throws IllegalArgumentException If {@code bins<1} or not
+   *         {@code min<max}.
+   */
+  public Histogram(int bins, double min, double max)
+  {
+    if (bins<1)
+    {
+      throw new IllegalArgumentException("bins<1 : "+bins);
+    }
+    if (!(min<max))
+    {
+      throw new IllegalArgumentException("!(min<max) : "+min+" : "+max);
+    }
+
+    m_min=min;
+    m_max=max;
+    m_scale=bins/(max-min);
+    m_counts=new long[bins];
+  }
+
+  /**
+   * <p>
+   *   Copy constructor.
+   * </p>
+   * @param o Histogram to copy.
+   */
+  public Histogram(Histogram o)
+  {
+    m_min=o.m_min;
+    m_max=o.m_max;
+    m_scale=o.m_scale;
+    m_counts=o.m_counts.clone();
+    m_under=o.m_under;
+    m_over=o.m_over;
+    m_n=o.m_n;
+    m_sum=o.m_sum;
+  }
+
+  /**
+   * <p>
+   *   Gets number of bins.
+   * </p>
+   * @return Count.
+   */
+  public int getBinCount(){ return m_counts.length; }
+
+  /**
+   * <p>
+   *   Gets low end of the range.
+   * </p>
+   * @return Value.
+   */
+  public double getMin(){ return m_min; }
+
+  /**
+   * <p>
+   *   Gets high end of the range.
+   * </p>
+   * @return Value.
+   */
+  public double getMax(){ return m_max; }
+
+  /**
+   * <p>
+   *   Gets lower bound of a bin.
+   * </p>
+   * @param b Bin.
+   * @return Bound.
+   * @throws IndexOutOfBoundsException If no such bin.
+   */
+  public double getBinLow(int b)
+  {
+    checkBin(b);
+    return m_min+b/m_scale;
+  }
+
+  /**
+   * <p>
+   *   Gets upper bound of a bin.
+   * </p>
+   * @param b Bin.
+   * @return Bound.
+   * @throws IndexOutOfBoundsException If no such bin.
+   */
+  public double getBinHigh(int b)
+  {
+    checkBin(b);
+    return (b==m_counts.length-1) ? m_max : m_min+(b+1)/m_scale;
+  }
+
+  /**
+   * <p>
+   *   Gets number of values in a bin.
+   * </p>
+   * @param b Bin.
+   * @return Count.
+   * @throws IndexOutOfBoundsException If no such bin.
+   */
+  public long getCount(int b)
+  {
+    checkBin(b);
+    return m_counts[b];
+  }
+
+  /**
+   * <p>
+   *   Gets number of values less than
+   *   {@link #getMin()}.
+   * </p>
+   * @return Count.
+   */
+  public long getUnderflow(){ return m_under; }
+
+  /**
+   * <p>
+   *   Gets number of values greater than
+   *   {@link #getMax()}.
+   * </p>
+   * @return Count.
+   */
+  public long getOverflow(){ return m_over; }
+
+  /**
+   * <p>
+   *   Gets number of values, including those outside the range.
+   * </p>
+   * @return Count.
+   */
+  public long size(){ return m_n; }
+
+  /**
+   * <p>
+   *   Gets sum of values.
+   * </p>
+   * @return Sum.
+   */
+  public double getSum(){ return m_sum; }
+
+  /**
+   * <p>
+   *   Gets mean of values.
+   * </p>
+   * @return Mean, {@code NaN} if empty.
+   */
+  public double getMean(){ return (m_n==0) ? Double.NaN : m_sum/m_n; }
+
+  /**
+   * <p>
+   *   Gets the bin a value is in.
+   * </p>
+   * @param v Value.
+   * @return Bin, {@code -1} if {@code v<}{@link #getMin()} and
+   *         {@link #getBinCount()} if {@code v>}{@link #getMax()}.
+   */
+  public int bin(double v)
+  {
+    if (v<m_min) return -1;
+    if (v>m_max) return m_counts.length;
+    int retVal=(int)((v-m_min)*m_scale);
+    return (retVal>=m_counts.length) ? m_counts.length-1 : retVal;
+  }
+
+  /**
+   * <p>
+   *   Adds value.
+   * </p>
+   * @param v Value, {@code NaN} is ignored.
+   */
+  public void add(double v)
+  {
+    if (Double.isNaN(v)) return;
+
+    int b=bin(v);
+    if (b<0) m_under++;
+    else if (b==m_counts.length) m_over++;
+    else m_counts[b]++;
+    m_n++;
+    m_sum+=v;
+  }
+
+  /**
+   * <p>
+   *   Removes value previously added.
+   * </p>
+   * @param v Value, {@code NaN} is ignored.
+   * @throws IllegalStateException If no value counted where {@code v}
+   *         would be.
+   */
+  public void remove(double v)
+  {
+    if (Double.isNaN(v)) return;
+
+    int b=bin(v);
+    if (b<0)
+    {
+      if (m_under==0) throw new IllegalStateException("not added : "+v);
+      m_under--;
+    }
+    else if (b==m_counts.length)
+    {
+      if (m_over==0) throw new IllegalStateException("not added : "+v);
+      m_over--;
+    }
+    else
+    {
+      if (m_counts[b]==0) throw new IllegalStateException("not added : "+v);
+      m_counts[b]--;
+    }
+    m_n--;
+    m_sum-=v;
+  }
+
+  /**
+   * <p>
+   *   Adds the values counted by other histogram.
+   * </p>
+   * @param o Other histogram, must have the same bins.
+   * @throws IllegalArgumentException If {@code o} has other bins.
+   */
+  public void add(Histogram o)
+  {
+    if (o.m_counts.length!=m_counts.length || o.m_min!=m_min ||
+        o.m_max!=m_max)
+    {
+      throw new IllegalArgumentException("other bins : "+o);
+    }
+
+    for (int b=0; b<m_counts.length; b++) m_counts[b]+=o.m_counts[b];
+    m_under+=o.m_under;
+    m_over+=o.m_over;
+    m_n+=o.m_n;
+    m_sum+=o.m_sum;
+  }
+
+  /**
+   * <p>
+   *   Removes all values.
+   * </p>
+   */
+  public void clear()
+  {
+    Arrays.fill(m_counts, 0L);
+    m_under=0;
+    m_over=0;
+    m_n=0;
+    m_sum=0.0;
+  }
+
+  private void checkBin(int b)
+  {
+    if (b<0 || b>=m_counts.length)
+    {
+      throw new IndexOutOfBoundsException("b : "+b+" bins : "+
+        m_counts.length);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "Histogram[min="+m_min+", max="+m_max+", under="+m_under+
+      ", counts="+Arrays.toString(m_counts)+", over="+m_over+", n="+m_n+
+      ", mean="+getMean()+"]";
+  }
+
+}
@@ -0,0 +1,681 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.quality;
+
+import static java.lang.Math.atan2;
+import static java.lang.Math.max;
+import static java.lang.Math.sqrt;
+
+import java.util.concurrent.RecursiveAction;
+
+import org.aha.euclid.Mesh3;
+import org.aha.euclid.Triangle2;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.math.Comparisons;
+
+/**
+ * <p>
+ *   Mesh quality analysis: Measures each triangle of a
+ *   {@link Mesh3}, an array of
+ *   {@link Triangle3} or an array of
+ *   {@link Triangle2} and collects the measures in
+ *   {@link Histogram}s.
+ * </p>
+ * <p>
+ *   The measures are
+ * </p>
+ * <ul>
+ *   <li>
+ *     {@link #RATIO}: Radius of circumscribed circle over radius of
+ *     inscribed circle as
+ *     {@link Triangle3#ratio()}, {@code 2} for equilateral triangles. Not
+ *     less than {@code 2}: Values rounding gives below are taken as
+ *     {@code 2}, the low end of the ratio histogram.
+ *   </li>
+ *   <li>
+ *     {@link #MIN_ANGLE} and
+ *     {@link #MAX_ANGLE}: Smallest and biggest angle in radians.
+ *   </li>
+ *   <li>
+ *     {@link #AREA}: Area.
+ *   </li>
+ *   <li>
+ *     {@link #EDGE_LENGTH}: Length of each of the three edges, edges shared
+ *     by triangles are counted once for each.
+ *   </li>
+ * </ul>
+ * <p>
+ *   A triangle is degenerate if it would make
+ *   {@link Triangle3#set(double, double, double, double, double, double, double, double, double)}
+ *   throw: It is counted by
+ *   {@link #getDegenerateCount()} and its area and edges are counted but not
+ *   its ratio and angles.
+ * </p>
+ * <p>
+ *   {@link #analyze()} measures all triangles and creates the histograms:
+ *   Ratio from {@code 2} to a given maximum, angles from {@code 0} to
+ *   {@code PI} and area and edge length from {@code 0} to the biggest
+ *   measured. Then if some triangles change
+ *   {@link #update(int, int)} measures those again and moves their counts,
+ *   without a full pass. New values outside the ranges set by the analysis
+ *   are counted as overflow.
+ * </p>
+ * <p>
+ *   {@link #parallelAnalyze()} splits the work in tasks run in the common
+ *   fork-join pool, each task counting in histograms of its own that are
+ *   merged as tasks join.
+ * </p>
+ * <p>
+ *   Objects of this class are not thread safe.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class MeshQuality
+{
+  /**
+   * <p>
+   *   Number of triangles a fork-join task processes without splitting.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=4096;
+
+  /**
+   * <p>
+   *   Ratio of circumscribed to inscribed circle's radius.
+   * </p>
+   */
+  public static final int RATIO=0;
+
+  /**
+   * <p>
+   *   Smallest angle.
+   * </p>
+   */
+  public static final int MIN_ANGLE=1;
+
+  /**
+   * <p>
+   *   Biggest angle.
+   * </p>
+   */
+  public static final int MAX_ANGLE=2;
+
+  /**
+   * <p>
+   *   Area.
+   * </p>
+   */
+  public static final int AREA=3;
+
+  /**
+   * <p>
+   *   Edge length.
+   * </p>
+   */
+  public static final int EDGE_LENGTH=4;
+
+  // Values per triangle: Ratio, min angle, max angle, area and the three
+  // edge lengths.
+  private static final int STRIDE=7;
+
+  private final Mesh3 m_mesh;
+
+  private final Triangle3[] m_t3;
+
+  private final Triangle2[] m_t2;
+
+  private final int m_n;
+
+  private final int m_bins;
+
+  private final double m_maxRatio;
+
+  private final double[] m_values;
+
+  private Histogram[] m_histograms=null;
+
+  private int m_degenerate=0;
+
+  /**
+   * <p>
+   *   Creates analysis of mesh's triangles.
+   * </p>
+   * <p>
+   *   The mesh is not copied: After moving vertices in place in
+   *   {@link Mesh3#vertices()} call {@link #update(int, int)} for the
+   *   triangles using them.
+   * </p>
+   * @param m        Mesh.
+   * @param bins     Number of bins in histograms.
+   * @param maxRatio High end of ratio histogram's range.
+   * @throws IllegalArgumentException If {@code bins<1} or
+   *         {@code maxRatio<=2}.
+   */
+  public MeshQuality(Mesh3 m, int bins, double maxRatio)
+  {
+    this(m, null, null, m.size(), bins, maxRatio);
+  }
+
+  /**
+   * <p>
+   *   Creates analysis of triangles.
+   * </p>
+   * @param t        Triangles, not copied.
+   * @param bins     Number of bins in histograms.
+   * @param maxRatio High end of ratio histogram's range.
+   * @throws IllegalArgumentException If {@code bins<1} or
+   *         {@code maxRatio<=2}.
+   */
+  public MeshQuality(Triangle3[] t, int bins, double maxRatio)
+  {
+    this(null, t, null, t.length, bins, maxRatio);
+  }
+
+  /**
+   * <p>
+   *   Creates analysis of triangles.
+   * </p>
+   * @param t        Triangles, not copied.
+   * @param bins     Number of bins in histograms.
+   * @param maxRatio High end of ratio histogram's range.
+   * @throws IllegalArgumentException If {@code bins<1} or
+   *         {@code maxRatio<=2}.
+   */
+  public MeshQuality(Triangle2[] t, int bins, double maxRatio)
+  {
+    this(null, null, t, t.length, bins, maxRatio);
+  }
+
+  private MeshQuality(Mesh3 m, Triangle3[] t3, Triangle2[] t2, int n,
+    int bins, double maxRatio)
+  {
+    if (bins<1)
+    {
+      throw new IllegalArgumentException("bins<1 : "+bins);
+    }
+    if (!(maxRatio>2.0))
+    {
+      throw new IllegalArgumentException("maxRatio<=2 : "+maxRatio);
+    }
+
+    m_mesh=m;
+    m_t3=t3;
+    m_t2=t2;
+    m_n=n;
+    m_bins=bins;
+    m_maxRatio=maxRatio;
+    m_values=new double[STRIDE*n];
+  }
+
+  /**
+   * <p>
+   *   Gets number of triangles.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_n; }
+
+  /**
+   * <p>
+   *   Tells if
+   *   {@link #analyze()} or
+   *   {@link #parallelAnalyze()} has been done.
+   * </p>
+   * @return {@code true} if analyzed, {@code false} if not.
+   */
+  public boolean isAnalyzed(){ return m_histograms!=null; }
+
+  /**
+   * <p>
+   *   Measures all triangles and counts the measures in new histograms.
+   * </p>
+   */
+  public void analyze()
+  {
+    double[] maxima=new double[2];
+    measure(0, m_n, maxima);
+    Histogram[] h=createHistograms(maxima[0], maxima[1]);
+    m_degenerate=count(h, 0, m_n);
+    m_histograms=h;
+  }
+
+  /**
+   * <p>
+   *   Measures all triangles and counts the measures in new histograms using
+   *   the common fork-join pool.
+   * </p>
+   * @see #analyze()
+   */
+  public void parallelAnalyze()
+  {
+    MeasureTask mt=new MeasureTask(this, 0, m_n);
+    mt.invoke();
+    CountTask ct=new CountTask(this, mt.m_maxArea, mt.m_maxLength, 0, m_n);
+    ct.invoke();
+    m_degenerate=ct.m_degenerate;
+    m_histograms=ct.m_histograms;
+  }
+
+  /**
+   * <p>
+   *   Measures a triangle again after it changed.
+   * </p>
+   * @param k Index of triangle.
+   * @throws IndexOutOfBoundsException If no such triangle.
+   * @throws IllegalStateException If not analyzed.
+   */
+  public void update(int k){ update(k, k+1); }
+
+  /**
+   * <p>
+   *   Measures a range of triangles again after they changed.
+   * </p>
+   * @param from Index of first triangle.
+   * @param to   Index after last triangle.
+   * @throws IndexOutOfBoundsException If not a range of triangles.
+   * @throws IllegalStateException If not analyzed.
+   */
+  public void update(int from, int to)
+  {
+    if (from<0 || to>m_n || from>to)
+    {
+      throw new IndexOutOfBoundsException("from : "+from+" to : "+to+
+        " size : "+m_n);
+    }
+    checkAnalyzed();
+
+    Histogram[] h=m_histograms;
+    for (int k=from; k<to; k++)
+    {
+      m_degenerate-=remove(h, k);
+      measure(k);
+      m_degenerate+=add(h, k);
+    }
+  }
+
+  /**
+   * <p>
+   *   Gets histogram of a measure.
+   * </p>
+   * <p>
+   *   The histogram returned is the one kept up to date by
+   *   {@link #update(int, int)} and must not be modified.
+   * </p>
+   * @param measure {@link #RATIO},
+   *                {@link #MIN_ANGLE},
+   *                {@link #MAX_ANGLE},
+   *                {@link #AREA} or
+   *                {@link #EDGE_LENGTH}.
+   * @return Histogram.
+   * @throws IllegalArgumentException If {@code measure} not valid.
+   * @throws IllegalStateException If not analyzed.
+   */
+  public Histogram getHistogram(int measure)
+  {
+    if (measure<RATIO || measure>EDGE_LENGTH)
+    {
+      throw new IllegalArgumentException("measure : "+measure);
+    }
+    checkAnalyzed();
+
+    return m_histograms[measure];
+  }
+
+  /**
+   * <p>
+   *   Gets number of degenerate triangles.
+   * </p>
+   * @return Count.
+   * @throws IllegalStateException If not analyzed.
+   */
+  public int getDegenerateCount()
+  {
+    checkAnalyzed();
+    return m_degenerate;
+  }
+
+  /**
+   * <p>
+   *   Tells if triangle was degenerate when last measured.
+   * </p>
+   * @param k Index of triangle.
+   * @return {@code true} if degenerate, {@code false} if not.
+   */
+  public boolean isDegenerate(int k){ return Double.isNaN(value(k, RATIO)); }
+
+  /**
+   * <p>
+   *   Gets triangle's ratio when last measured.
+   * </p>
+   * @param k Index of triangle.
+   * @return Ratio, {@code NaN} if degenerate.
+   */
+  public double getRatio(int k){ return value(k, RATIO); }
+
+  /**
+   * <p>
+   *   Gets triangle's smallest angle when last measured.
+   * </p>
+   * @param k Index of triangle.
+   * @return Angle in radians, {@code NaN} if degenerate.
+   */
+  public double getMinAngle(int k){ return value(k, MIN_ANGLE); }
+
+  /**
+   * <p>
+   *   Gets triangle's biggest angle when last measured.
+   * </p>
+   * @param k Index of triangle.
+   * @return Angle in radians, {@code NaN} if degenerate.
+   */
+  public double getMaxAngle(int k){ return value(k, MAX_ANGLE); }
+
+  /**
+   * <p>
+   *   Gets triangle's area when last measured.
+   * </p>
+   * @param k Index of triangle.
+   * @return Area.
+   */
+  public double getArea(int k){ return value(k, AREA); }
+
+  /**
+   * <p>
+   *   Gets length of triangle's edge when last measured.
+   * </p>
+   * @param k Index of triangle.
+   * @param e Edge, as
+   *          {@link Triangle3#length0()},
+   *          {@link Triangle3#length1()} and
+   *          {@link Triangle3#length2()}.
+   * @return Length.
+   * @throws IndexOutOfBoundsException If {@code e} not {@code 0}, {@code 1}
+   *         or {@code 2}.
+   */
+  public double getLength(int k, int e)
+  {
+    if (e<0 || e>2)
+    {
+      throw new IndexOutOfBoundsException("e : "+e);
+    }
+    return value(k, EDGE_LENGTH+e);
+  }
+
+  private double value(int k, int i)
+  {
+    if (k<0 || k>=m_n)
+    {
+      throw new IndexOutOfBoundsException("k : "+k+" size : "+m_n);
+    }
+    return m_values[STRIDE*k+i];
+  }
+
+  private void checkAnalyzed()
+  {
+    if (m_histograms==null) throw new IllegalStateException("not analyzed");
+  }
+
+  private Histogram[] createHistograms(double maxArea, double maxLength)
+  {
+    int b=m_bins;
+    return new Histogram[]
+    {
+      new Histogram(b, 2.0, m_maxRatio),
+      new Histogram(b, 0.0, Math.PI),
+      new Histogram(b, 0.0, Math.PI),
+      new Histogram(b, 0.0, (maxArea>0.0) ? maxArea : 1.0),
+      new Histogram(b, 0.0, (maxLength>0.0) ? maxLength : 1.0)
+    };
+  }
+
+  // Measures triangles in range, assigns maxima biggest area and edge
+  // length.
+  private void measure(int from, int to, double[] maxima)
+  {
+    double[] v=m_values;
+    double maxArea=0.0;
+    double maxLength=0.0;
+    for (int k=from; k<to; k++)
+    {
+      measure(k);
+      int o=STRIDE*k;
+      maxArea=max(maxArea, v[o+AREA]);
+      maxLength=max(maxLength, max(v[o+EDGE_LENGTH],
+        max(v[o+EDGE_LENGTH+1], v[o+EDGE_LENGTH+2])));
+    }
+    maxima[0]=maxArea;
+    maxima[1]=maxLength;
+  }
+
+  // Counts measures of triangles in range, returns number of degenerate.
+  private int count(Histogram[] h, int from, int to)
+  {
+    int retVal=0;
+    for (int k=from; k<to; k++) retVal+=add(h, k);
+    return retVal;
+  }
+
+  // Adds triangle's measures, returns 1 if degenerate else 0.
+  private int add(Histogram[] h, int k)
+  {
+    double[] v=m_values;
+    int o=STRIDE*k;
+    h[AREA].add(v[o+AREA]);
+    h[EDGE_LENGTH].add(v[o+EDGE_LENGTH]);
+    h[EDGE_LENGTH].add(v[o+EDGE_LENGTH+1]);
+    h[EDGE_LENGTH].add(v[o+EDGE_LENGTH+2]);
+    if (Double.isNaN(v[o+RATIO])) return 1;
+    h[RATIO].add(v[o+RATIO]);
+    h[MIN_ANGLE].add(v[o+MIN_ANGLE]);
+    h[MAX_ANGLE].add(v[o+MAX_ANGLE]);
+    return 0;
+  }
+
+  // Removes triangle's measures, returns 1 if degenerate else 0.
+  private int remove(Histogram[] h, int k)
+  {
+    double[] v=m_values;
+    int o=STRIDE*k;
+    h[AREA].remove(v[o+AREA]);
+    h[EDGE_LENGTH].remove(v[o+EDGE_LENGTH]);
+    h[EDGE_LENGTH].remove(v[o+EDGE_LENGTH+1]);
+    h[EDGE_LENGTH].remove(v[o+EDGE_LENGTH+2]);
+    if (Double.isNaN(v[o+RATIO])) return 1;
+    h[RATIO].remove(v[o+RATIO]);
+    h[MIN_ANGLE].remove(v[o+MIN_ANGLE]);
+    h[MAX_ANGLE].remove(v[o+MAX_ANGLE]);
+    return 0;
+  }
+
+  private void measure(int k)
+  {
+    int o=STRIDE*k;
+    if (m_mesh!=null)
+    {
+      double[] v=m_mesh.vertices();
+      int[] t=m_mesh.indices();
+      int i0=3*t[3*k];
+      int i1=3*t[3*k+1];
+      int i2=3*t[3*k+2];
+      measure(v[i0], v[i0+1], v[i0+2], v[i1], v[i1+1], v[i1+2], v[i2],
+        v[i2+1], v[i2+2], m_values, o);
+    }
+    else if (m_t3!=null)
+    {
+      Triangle3 t=m_t3[k];
+      measure(t.x0(), t.y0(), t.z0(), t.x1(), t.y1(), t.z1(), t.x2(), t.y2(),
+        t.z2(), m_values, o);
+    }
+    else
+    {
+      Triangle2 t=m_t2[k];
+      measure(t.x0(), t.y0(), 0.0, t.x1(), t.y1(), 0.0, t.x2(), t.y2(), 0.0,
+        m_values, o);
+    }
+  }
+
+  // Measures triangle, assigns measures to m from o. One pass computing the
+  // edges once: What Triangle3 computes with area(), length0(), length1(),
+  // length2() and ratio().
+  private static void measure(double x0, double y0, double z0, double x1,
+    double y1, double z1, double x2, double y2, double z2, double[] m, int o)
+  {
+    double e0x=x1-x0;
+    double e0y=y1-y0;
+    double e0z=z1-z0;
+
+    double e1x=x2-x1;
+    double e1y=y2-y1;
+    double e1z=z2-z1;
+
+    double e2x=x0-x2;
+    double e2y=y0-y2;
+    double e2z=z0-z2;
+
+    double l0=sqrt(e0x*e0x+e0y*e0y+e0z*e0z);
+    double l1=sqrt(e1x*e1x+e1y*e1y+e1z*e1z);
+    double l2=sqrt(e2x*e2x+e2y*e2y+e2z*e2z);
+
+    // (p1-p0)x(p2-p0), length twice the area.
+    double nx=e2y*e0z-e2z*e0y;
+    double ny=e2z*e0x-e2x*e0z;
+    double nz=e2x*e0y-e2y*e0x;
+    double area2=sqrt(nx*nx+ny*ny+nz*nz);
+
+    m[o+AREA]=0.5*area2;
+    m[o+EDGE_LENGTH]=l0;
+    m[o+EDGE_LENGTH+1]=l1;
+    m[o+EDGE_LENGTH+2]=l2;
+
+    if (Comparisons.zero3dVector(nx, ny, nz))
+    {
+      m[o+RATIO]=Double.NaN;
+      m[o+MIN_ANGLE]=Double.NaN;
+      m[o+MAX_ANGLE]=Double.NaN;
+      return;
+    }
+
+    // R=l0*l1*l2/(4*A) and r=2*A/(l0+l1+l2). Rounding may give less than 2
+    // for equilateral triangles.
+    m[o+RATIO]=max(2.0, (l0*l1*l2*(l0+l1+l2))/(2.0*area2*area2));
+
+    // Angle at a point is atan2(2*A, dot of the edges from it). Smallest is
+    // opposite shortest edge, biggest opposite longest.
+    double d0=-(e0x*e2x+e0y*e2y+e0z*e2z);
+    double d1=-(e0x*e1x+e0y*e1y+e0z*e1z);
+    double d2=-(e1x*e2x+e1y*e2y+e1z*e2z);
+
+    double dmin=(l1<=l0 && l1<=l2) ? d0 : (l2<=l0) ? d1 : d2;
+    double dmax=(l1>=l0 && l1>=l2) ? d0 : (l2>=l0) ? d1 : d2;
+    m[o+MIN_ANGLE]=atan2(area2, dmin);
+    m[o+MAX_ANGLE]=atan2(area2, dmax);
+  }
+
+  // Fork-join task measuring for parallelAnalyze.
+  private static final class MeasureTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final MeshQuality m_quality;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    private double m_maxArea=0.0;
+
+    private double m_maxLength=0.0;
+
+    MeasureTask(MeshQuality quality, int from, int to)
+    {
+      m_quality=quality;
+      m_from=from;
+      m_to=to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        double[] maxima=new double[2];
+        m_quality.measure(m_from, m_to, maxima);
+        m_maxArea=maxima[0];
+        m_maxLength=maxima[1];
+        return;
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      MeasureTask a=new MeasureTask(m_quality, m_from, mid);
+      MeasureTask b=new MeasureTask(m_quality, mid, m_to);
+      invokeAll(a, b);
+      m_maxArea=max(a.m_maxArea, b.m_maxArea);
+      m_maxLength=max(a.m_maxLength, b.m_maxLength);
+    }
+  }
+
+  // Fork-join task counting for parallelAnalyze, each leaf counts in
+  // histograms of its own merged as tasks join.
+  private static final class CountTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final MeshQuality m_quality;
+
+    private final double m_maxArea;
+
+    private final double m_maxLength;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    private Histogram[] m_histograms=null;
+
+    private int m_degenerate=0;
+
+    CountTask(MeshQuality quality, double maxArea, double maxLength,
+      int from, int to)
+    {
+      m_quality=quality;
+      m_maxArea=maxArea;
+      m_maxLength=maxLength;
+      m_from=from;
+      m_to=to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        m_histograms=m_quality.createHistograms(m_maxArea, m_maxLength);
+        m_degenerate=m_quality.count(m_histograms, m_from, m_to);
+        return;
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      CountTask a=new CountTask(m_quality, m_maxArea, m_maxLength, m_from,
+        mid);
+      CountTask b=new CountTask(m_quality, m_maxArea, m_maxLength, mid,
+        m_to);
+      invokeAll(a, b);
+      for (int i=0; i<a.m_histograms.length; i++)
+      {
+        a.m_histograms[i].add(b.m_histograms[i]);
+      }
+      m_histograms=a.m_histograms;
+      m_degenerate=a.m_degenerate+b.m_degenerate;
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "MeshQuality[size="+m_n+", analyzed="+isAnalyzed()+
+      ", degenerate="+m_degenerate+"]";
+  }
+
+}
@@ -0,0 +1,736 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.slice;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.aha.euclid.Mesh3;
+import org.aha.euclid.Plane3;
+import org.aha.euclid.ZeroLengthVectorException;
+import org.aha.euclid.math.Comparisons;
+
+/**
+ * <p>
+ *   Slices a
+ *   {@link Mesh3} with a family of parallel planes into
+ *   {@link Polyline}s.
+ * </p>
+ * <p>
+ *   The planes share a normal {@code n} and plane {@code h} is the points
+ *   {@code p} with {@code n.p=h}: {@code h} is the height of the plane along
+ *   {@code n}. On creation the heights of the vertices are computed and the
+ *   triangles sorted by the lowest height of their vertices once. Slicing
+ *   sweeps the planes in height order keeping the triangles spanning the
+ *   current height active, so the cost of a layer is in the number of
+ *   triangles it cuts, not the size of the mesh.
+ * </p>
+ * <p>
+ *   In a layer each cut triangle gives a segment between two crossed edges.
+ *   The crossing point of an edge is computed once, in the same way for
+ *   both triangles sharing it, and segments are stitched into polylines by
+ *   a hash of the crossed edges. Vertices at the same position are taken as
+ *   one so meshes not sharing vertices between triangles, as read from STL
+ *   by
+ *   {@link org.aha.euclid.io.MeshReader}, are stitched as if they did. A
+ *   vertex exactly at a plane's height counts
+ *   as above it so shared edges are decided the same in all triangles and
+ *   polylines of closed meshes are closed. Segments are oriented by the
+ *   triangles' winding: For a closed mesh with consistent winding and
+ *   normals pointing out, outer boundaries are counter clockwise seen from
+ *   the side {@code n} points to, see
+ *   {@link Polyline#area()}. Polylines of meshes with boundaries may be
+ *   open.
+ * </p>
+ * <p>
+ *   Layers are independent:
+ *   {@link #parallelSlice(double[])} sweeps runs of layers in tasks run in
+ *   the common fork-join pool. Each run starts by scanning the triangles
+ *   below its first layer so runs are at least
+ *   {@link #PARALLEL_THRESHOLD} layers and there are not many more runs than
+ *   the pool has threads.
+ * </p>
+ * <p>
+ *   Vertices are read on creation, create a new slicer if the mesh
+ *   changes.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class MeshSlicer
+{
+  /**
+   * <p>
+   *   Least number of layers a fork-join task slices without splitting.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=16;
+
+  private final Mesh3 m_mesh;
+
+  private final double m_nx;
+
+  private final double m_ny;
+
+  private final double m_nz;
+
+  // Plane coordinate axes.
+
+  private final double[] m_u;
+
+  private final double[] m_v;
+
+  // Height of vertices.
+  private final double[] m_hv;
+
+  // First vertex at the same position as vertex.
+  private final int[] m_weld;
+
+  // Triangles' heights rounded out to float, m_lo in m_order.
+
+  private final float[] m_lo;
+
+  private final float[] m_hi;
+
+  // Triangles by lowest height.
+  private final int[] m_order;
+
+  private final double m_min;
+
+  private final double m_max;
+
+  /**
+   * <p>
+   *   Creates slicer for planes with normal of given plane.
+   * </p>
+   * @param m Mesh.
+   * @param p Plane.
+   */
+  public MeshSlicer(Mesh3 m, Plane3 p){ this(m, p.a(), p.b(), p.c()); }
+
+  /**
+   * <p>
+   *   Creates slicer for planes with given normal.
+   * </p>
+   * @param m  Mesh.
+   * @param nx Normal's x component.
+   * @param ny Normal's y component.
+   * @param nz Normal's z component.
+   * @throws ZeroLengthVectorException If normal has zero length.
+   */
+  public MeshSlicer(Mesh3 m, double nx, double ny, double nz)
+  {
+    if (Comparisons.zero3dVector(nx, ny, nz))
+    {
+      throw new ZeroLengthVectorException();
+    }
+
+    double l=sqrt(nx*nx+ny*ny+nz*nz);
+    m_mesh=m;
+    m_nx=nx/l;
+    m_ny=ny/l;
+    m_nz=nz/l;
+
+    // u along the axis least aligned with n projected into the plane, so u
+    // and v are x and y for planes normal to z.
+    double ax=abs(m_nx);
+    double ay=abs(m_ny);
+    double az=abs(m_nz);
+    double ex=(ax<=ay && ax<=az) ? 1.0 : 0.0;
+    double ey=(ex==0.0 && ay<=az) ? 1.0 : 0.0;
+    double ez=(ex==0.0 && ey==0.0) ? 1.0 : 0.0;
+    double d=ex*m_nx+ey*m_ny+ez*m_nz;
+    double ux=ex-d*m_nx;
+    double uy=ey-d*m_ny;
+    double uz=ez-d*m_nz;
+    double ul=sqrt(ux*ux+uy*uy+uz*uz);
+    m_u=new double[]{ ux/ul, uy/ul, uz/ul };
+    m_v=new double[]
+    {
+      m_ny*m_u[2]-m_nz*m_u[1],
+      m_nz*m_u[0]-m_nx*m_u[2],
+      m_nx*m_u[1]-m_ny*m_u[0]
+    };
+
+    double[] v=m.vertices();
+    int nv=m.getVertexCount();
+    m_hv=new double[nv];
+    double hmin=Double.POSITIVE_INFINITY;
+    double hmax=Double.NEGATIVE_INFINITY;
+    for (int i=0; i<nv; i++)
+    {
+      double h=m_nx*v[3*i]+m_ny*v[3*i+1]+m_nz*v[3*i+2];
+      m_hv[i]=h;
+      hmin=min(hmin, h);
+      hmax=max(hmax, h);
+    }
+    m_min=hmin;
+    m_max=hmax;
+    m_weld=weld(v, nv);
+
+    int[] t=m.indices();
+    int n=m.size();
+    m_lo=new float[n];
+    m_hi=new float[n];
+    long[] keys=new long[n];
+    for (int k=0; k<n; k++)
+    {
+      double h0=m_hv[t[3*k]];
+      double h1=m_hv[t[3*k+1]];
+      double h2=m_hv[t[3*k+2]];
+      float lo=down(min(h0, min(h1, h2)));
+      m_hi[k]=up(max(h0, max(h1, h2)));
+      keys[k]=((long)sortable(lo)<<32)|k;
+    }
+    Arrays.sort(keys);
+    m_order=new int[n];
+    for (int k=0; k<n; k++)
+    {
+      m_order[k]=(int)keys[k];
+      m_lo[k]=lo(keys[k]);
+    }
+  }
+
+  /**
+   * <p>
+   *   Gets number of triangles.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_order.length; }
+
+  /**
+   * <p>
+   *   Gets normal of the planes.
+   * </p>
+   * @param n Assigned to normal. If {@code null} allocates.
+   * @return Normal, unit length.
+   */
+  public double[] getNormal(double[] n)
+  {
+    n=(n==null) ? new double[3] : n;
+    n[0]=m_nx;
+    n[1]=m_ny;
+    n[2]=m_nz;
+    return n;
+  }
+
+  /**
+   * <p>
+   *   Gets lowest height of the mesh's vertices.
+   * </p>
+   * @return Height, {@code +Infinity} if no vertices.
+   */
+  public double getMin(){ return m_min; }
+
+  /**
+   * <p>
+   *   Gets highest height of the mesh's vertices.
+   * </p>
+   * @return Height, {@code -Infinity} if no vertices.
+   */
+  public double getMax(){ return m_max; }
+
+  /**
+   * <p>
+   *   Gets the height of a plane.
+   * </p>
+   * @param p Plane, parallel to the planes sliced with.
+   * @return Height.
+   * @throws IllegalArgumentException If {@code p} not parallel.
+   */
+  public double height(Plane3 p)
+  {
+    double cx=m_ny*p.c()-m_nz*p.b();
+    double cy=m_nz*p.a()-m_nx*p.c();
+    double cz=m_nx*p.b()-m_ny*p.a();
+    if (!Comparisons.zero3dVector(cx, cy, cz))
+    {
+      throw new IllegalArgumentException("not parallel : "+p);
+    }
+
+    return m_nx*p.x0()+m_ny*p.y0()+m_nz*p.z0();
+  }
+
+  /**
+   * <p>
+   *   Slices with a plane.
+   * </p>
+   * @param p Plane, parallel to the planes sliced with.
+   * @return Polylines.
+   * @throws IllegalArgumentException If {@code p} not parallel.
+   */
+  public List<Polyline> slice(Plane3 p){ return slice(height(p)); }
+
+  /**
+   * <p>
+   *   Slices with a plane.
+   * </p>
+   * @param h Plane's height.
+   * @return Polylines.
+   * @throws IllegalArgumentException If {@code h} is {@code NaN}.
+   */
+  public List<Polyline> slice(double h){ return slice(new double[]{ h }).get(0); }
+
+  /**
+   * <p>
+   *   Slices with planes.
+   * </p>
+   * @param h Planes' heights, need not be sorted.
+   * @return Polylines of each plane, in the order of {@code h}.
+   * @throws IllegalArgumentException If a height is {@code NaN}.
+   */
+  public List<List<Polyline>> slice(double[] h)
+  {
+    double[] s=sorted(h);
+    List<Polyline>[] layers=layers(s.length);
+    sweep(s, 0, s.length, layers);
+    return result(h, s, layers);
+  }
+
+  /**
+   * <p>
+   *   Slices with planes using the common fork-join pool.
+   * </p>
+   * @param h Planes' heights, need not be sorted.
+   * @return Polylines of each plane, in the order of {@code h}.
+   * @throws IllegalArgumentException If a height is {@code NaN}.
+   * @see #slice(double[])
+   */
+  public List<List<Polyline>> parallelSlice(double[] h)
+  {
+    double[] s=sorted(h);
+    List<Polyline>[] layers=layers(s.length);
+    int leaf=s.length/(4*ForkJoinPool.getCommonPoolParallelism());
+    leaf=max(PARALLEL_THRESHOLD, leaf);
+    new SliceTask(this, s, 0, s.length, leaf, layers).invoke();
+    return result(h, s, layers);
+  }
+
+  // Maps vertices to the first vertex at the same position.
+  private static int[] weld(double[] v, int nv)
+  {
+    int[] retVal=new int[nv];
+    int cap=16;
+    while (cap<2*nv) cap<<=1;
+    int mask=cap-1;
+    int[] slots=new int[cap];
+    for (int i=0; i<nv; i++)
+    {
+      // +0.0 so -0.0 hashes as 0.0.
+      double x=v[3*i]+0.0;
+      double y=v[3*i+1]+0.0;
+      double z=v[3*i+2]+0.0;
+      long hash=Double.doubleToLongBits(x);
+      hash=hash*0x9E3779B97F4A7C15L+Double.doubleToLongBits(y);
+      hash=hash*0x9E3779B97F4A7C15L+Double.doubleToLongBits(z);
+      hash*=0x9E3779B97F4A7C15L;
+      int slot=(int)(hash^(hash>>>32))&mask;
+      retVal[i]=i;
+      while (slots[slot]!=0)
+      {
+        int j=slots[slot]-1;
+        if (v[3*j]==x && v[3*j+1]==y && v[3*j+2]==z)
+        {
+          retVal[i]=j;
+          break;
+        }
+        slot=(slot+1)&mask;
+      }
+      if (retVal[i]==i) slots[slot]=i+1;
+    }
+    return retVal;
+  }
+
+  private static double[] sorted(double[] h)
+  {
+    for (double x : h)
+    {
+      if (Double.isNaN(x)) throw new IllegalArgumentException("NaN height");
+    }
+
+    double[] retVal=h.clone();
+    Arrays.sort(retVal);
+    return retVal;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Polyline>[] layers(int n)
+  {
+    return (List<Polyline>[])new List<?>[n];
+  }
+
+  // Maps polylines of sorted heights s to order of h.
+  private static List<List<Polyline>> result(double[] h, double[] s,
+    List<Polyline>[] layers)
+  {
+    List<List<Polyline>> retVal=new ArrayList<>(h.length);
+    for (double x : h) retVal.add(layers[Arrays.binarySearch(s, x)]);
+    return retVal;
+  }
+
+  // Slices with sorted heights s[from, to), polylines of s[i] to layers[i].
+  private void sweep(double[] s, int from, int to, List<Polyline>[] layers)
+  {
+    Layer l=new Layer(this);
+    int[] active=new int[64];
+    int na=0;
+    int p=0;
+    int n=m_order.length;
+    for (int i=from; i<to; i++)
+    {
+      double h=s[i];
+      if (i>from && h==s[i-1])
+      {
+        layers[i]=layers[i-1];
+        continue;
+      }
+
+      // Triangles below h are not added, a sweep starting high skips them.
+      while (p<n && m_lo[p]<h)
+      {
+        int t=m_order[p++];
+        if (m_hi[t]<h) continue;
+        if (na==active.length) active=Arrays.copyOf(active, 2*na);
+        active[na++]=t;
+      }
+
+      int k=0;
+      for (int j=0; j<na; j++)
+      {
+        int t=active[j];
+        if (m_hi[t]>=h) active[k++]=t;
+      }
+      na=k;
+
+      layers[i]=l.slice(h, active, na);
+    }
+  }
+
+  // Sortable int of float: Order as the floats.
+  private static int sortable(float f)
+  {
+    int bits=Float.floatToIntBits(f);
+    return bits^((bits>>31)&0x7fffffff);
+  }
+
+  private static float lo(long key)
+  {
+    int bits=(int)(key>>>32);
+    return Float.intBitsToFloat(bits^((bits>>31)&0x7fffffff));
+  }
+
+  private static float down(double d)
+  {
+    float retVal=(float)d;
+    return (retVal>d) ? Math.nextDown(retVal) : retVal;
+  }
+
+  private static float up(double d)
+  {
+    float retVal=(float)d;
+    return (retVal<d) ? Math.nextUp(retVal) : retVal;
+  }
+
+  // Slices a layer, buffers kept between layers of a sweep.
+  private static final class Layer
+  {
+    private final MeshSlicer m_slicer;
+
+    // Edge hash: Key is welded vertex indices (i<j) as (i<<32)|j, never 0.
+
+    private long[] m_keys=new long[64];
+
+    private int[] m_slots=new int[64];
+
+    // Crossed edges: Point and the one or two segments using edge.
+
+    private double[] m_points=new double[96];
+
+    private int[] m_adj0=new int[32];
+
+    private int[] m_adj1=new int[32];
+
+    private int m_edges;
+
+    // Segments: From edge a to edge b.
+
+    private int[] m_a=new int[32];
+
+    private int[] m_b=new int[32];
+
+    private boolean[] m_visited=new boolean[32];
+
+    private int m_segments;
+
+    // Current polyline's edges.
+    private int[] m_line=new int[32];
+
+    Layer(MeshSlicer slicer){ m_slicer=slicer; }
+
+    List<Polyline> slice(double h, int[] active, int na)
+    {
+      MeshSlicer s=m_slicer;
+      double[] hv=s.m_hv;
+      int[] w=s.m_weld;
+      int[] t=s.m_mesh.indices();
+
+      int cap=64;
+      while (cap<4*na) cap<<=1;
+      if (m_keys.length<cap)
+      {
+        m_keys=new long[cap];
+        m_slots=new int[cap];
+      }
+      else
+      {
+        Arrays.fill(m_keys, 0, cap, 0L);
+      }
+      m_edges=0;
+      m_segments=0;
+
+      for (int j=0; j<na; j++)
+      {
+        int k=active[j];
+        int a=w[t[3*k]];
+        int b=w[t[3*k+1]];
+        int c=w[t[3*k+2]];
+        // Two corners at one position: No area, nothing cut.
+        if (a==b || b==c || c==a) continue;
+
+        boolean ba=hv[a]<h;
+        boolean bb=hv[b]<h;
+        boolean bc=hv[c]<h;
+        if (ba==bb && bb==bc) continue;
+
+        // Walking the triangle the segment runs from the edge going down to
+        // the edge going up.
+        int down;
+        int up;
+        if (ba==bb)
+        {
+          down=ba ? edge(c, a, h, cap) : edge(b, c, h, cap);
+          up=ba ? edge(b, c, h, cap) : edge(c, a, h, cap);
+        }
+        else if (bb==bc)
+        {
+          down=bb ? edge(a, b, h, cap) : edge(c, a, h, cap);
+          up=bb ? edge(c, a, h, cap) : edge(a, b, h, cap);
+        }
+        else
+        {
+          down=bc ? edge(b, c, h, cap) : edge(a, b, h, cap);
+          up=bc ? edge(a, b, h, cap) : edge(b, c, h, cap);
+        }
+        segment(down, up);
+      }
+
+      List<Polyline> retVal=new ArrayList<>();
+
+      // Open from boundary edges a segment starts at, then other boundary
+      // edges, then closed.
+      for (int e=0; e<m_edges; e++)
+      {
+        int sg=m_adj0[e];
+        if (m_adj1[e]<0 && m_a[sg]==e && !m_visited[sg])
+        {
+          walk(e, sg, retVal);
+        }
+      }
+      for (int e=0; e<m_edges; e++)
+      {
+        int sg=m_adj0[e];
+        if (m_adj1[e]<0 && !m_visited[sg]) walk(e, sg, retVal);
+      }
+      for (int sg=0; sg<m_segments; sg++)
+      {
+        if (!m_visited[sg]) walk(m_a[sg], sg, retVal);
+      }
+
+      return Collections.unmodifiableList(retVal);
+    }
+
+    // Gets index of crossed edge (p, q), adds if new.
+    private int edge(int p, int q, double h, int cap)
+    {
+      int i=min(p, q);
+      int j=max(p, q);
+      long key=((long)i<<32)|j;
+
+      int mask=cap-1;
+      long hash=key*0x9E3779B97F4A7C15L;
+      int slot=(int)(hash^(hash>>>32))&mask;
+      while (m_keys[slot]!=0L)
+      {
+        if (m_keys[slot]==key) return m_slots[slot];
+        slot=(slot+1)&mask;
+      }
+      m_keys[slot]=key;
+
+      int e=m_edges++;
+      m_slots[slot]=e;
+      if (e==m_adj0.length)
+      {
+        m_adj0=Arrays.copyOf(m_adj0, 2*e);
+        m_adj1=Arrays.copyOf(m_adj1, 2*e);
+        m_points=Arrays.copyOf(m_points, 6*e);
+      }
+      m_adj0[e]=-1;
+      m_adj1[e]=-1;
+
+      // From lower vertex index so both triangles get the same point.
+      double[] hv=m_slicer.m_hv;
+      double[] v=m_slicer.m_mesh.vertices();
+      double f=(h-hv[i])/(hv[j]-hv[i]);
+      m_points[3*e]=v[3*i]+f*(v[3*j]-v[3*i]);
+      m_points[3*e+1]=v[3*i+1]+f*(v[3*j+1]-v[3*i+1]);
+      m_points[3*e+2]=v[3*i+2]+f*(v[3*j+2]-v[3*i+2]);
+      return e;
+    }
+
+    private void segment(int a, int b)
+    {
+      int s=m_segments++;
+      if (s==m_a.length)
+      {
+        m_a=Arrays.copyOf(m_a, 2*s);
+        m_b=Arrays.copyOf(m_b, 2*s);
+        m_visited=Arrays.copyOf(m_visited, 2*s);
+      }
+      m_a[s]=a;
+      m_b[s]=b;
+      m_visited[s]=false;
+      link(a, s);
+      link(b, s);
+    }
+
+    // Edges of manifold meshes are used by at most two segments, further
+    // are not linked.
+    private void link(int e, int s)
+    {
+      if (m_adj0[e]<0) m_adj0[e]=s;
+      else if (m_adj1[e]<0) m_adj1[e]=s;
+    }
+
+    // Follows segments from edge e along segment s.
+    private void walk(int e, int s, List<Polyline> out)
+    {
+      int start=e;
+      int n=0;
+      m_line=add(m_line, n++, e);
+      boolean closed=false;
+      while (true)
+      {
+        m_visited[s]=true;
+        e=(m_a[s]==e) ? m_b[s] : m_a[s];
+        if (e==start)
+        {
+          closed=true;
+          break;
+        }
+        m_line=add(m_line, n++, e);
+        int next=(m_adj0[e]==s) ? m_adj1[e] : m_adj0[e];
+        if (next<0 || m_visited[next]) break;
+        s=next;
+      }
+      emit(n, closed, out);
+    }
+
+    // Emits current polyline without repeated points.
+    private void emit(int n, boolean closed, List<Polyline> out)
+    {
+      double[] p=new double[3*n];
+      int m=0;
+      for (int i=0; i<n; i++)
+      {
+        int o=3*m_line[i];
+        double x=m_points[o];
+        double y=m_points[o+1];
+        double z=m_points[o+2];
+        if (m>0 && x==p[3*m-3] && y==p[3*m-2] && z==p[3*m-1]) continue;
+        p[3*m]=x;
+        p[3*m+1]=y;
+        p[3*m+2]=z;
+        m++;
+      }
+      if (closed && m>1 && p[0]==p[3*m-3] && p[1]==p[3*m-2] &&
+          p[2]==p[3*m-1])
+      {
+        m--;
+      }
+
+      if (m<(closed ? 3 : 2)) return;
+      if (3*m<p.length) p=Arrays.copyOf(p, 3*m);
+      out.add(new Polyline(p, m, closed, m_slicer.m_u, m_slicer.m_v));
+    }
+
+    private static int[] add(int[] a, int n, int v)
+    {
+      if (n==a.length) a=Arrays.copyOf(a, max(16, 2*n));
+      a[n]=v;
+      return a;
+    }
+  }
+
+  // Fork-join task for parallelSlice: Each leaf sweeps its own run of
+  // layers.
+  private static final class SliceTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final MeshSlicer m_slicer;
+
+    private final double[] m_s;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    private final int m_leaf;
+
+    private final List<Polyline>[] m_layers;
+
+    SliceTask(MeshSlicer slicer, double[] s, int from, int to, int leaf,
+      List<Polyline>[] layers)
+    {
+      m_slicer=slicer;
+      m_s=s;
+      m_from=from;
+      m_to=to;
+      m_leaf=leaf;
+      m_layers=layers;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=m_leaf)
+      {
+        m_slicer.sweep(m_s, m_from, m_to, m_layers);
+        return;
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      invokeAll(new SliceTask(m_slicer, m_s, m_from, mid, m_leaf, m_layers),
+        new SliceTask(m_slicer, m_s, mid, m_to, m_leaf, m_layers));
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "MeshSlicer[size="+size()+", n=("+m_nx+","+m_ny+","+m_nz+
+      "), min="+m_min+", max="+m_max+"]";
+  }
+
+}
@@ -0,0 +1,229 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.slice;
+
+import static org.aha.euclid.math.Vectors.pointToString;
+
+import org.aha.euclid.Line2;
+import org.aha.euclid.Line3;
+
+/**
+ * <p>
+ *   Polyline in a plane produced by
+ *   {@link MeshSlicer}: Points in 3D and in the plane's 2D coordinates,
+ *   closed if the last point connects to the first.
+ * </p>
+ * <p>
+ *   Objects of this class are immutable.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Polyline
+{
+  private final double[] m_p;
+
+  private final int m_n;
+
+  private final boolean m_closed;
+
+  private final double[] m_u;
+
+  private final double[] m_v;
+
+  // Points at 3*i in p, not copied. Plane coordinates along u and v.
+  Polyline(double[] p, int n, boolean closed, double[] u, double[] v)
+  {
+    m_p=p;
+    m_n=n;
+    m_closed=closed;
+    m_u=u;
+    m_v=v;
+  }
+
+  /**
+   * <p>
+   *   Gets number of points.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_n; }
+
+  /**
+   * <p>
+   *   Tells if closed.
+   * </p>
+   * @return {@code true} if last point connects to first, {@code false} if
+   *         not.
+   */
+  public boolean isClosed(){ return m_closed; }
+
+  /**
+   * <p>
+   *   Gets number of line segments:
+   *   {@link #size()} if closed, one less if not.
+   * </p>
+   * @return Count.
+   */
+  public int getSegmentCount(){ return m_closed ? m_n : m_n-1; }
+
+  /**
+   * <p>
+   *   Gets point.
+   * </p>
+   * @param i Index of point.
+   * @param p Assigned to point. If {@code null} allocates.
+   * @return Point.
+   * @throws IndexOutOfBoundsException If no such point.
+   */
+  public double[] getPoint(int i, double[] p)
+  {
+    checkPoint(i);
+    p=(p==null) ? new double[3] : p;
+    p[0]=m_p[3*i];
+    p[1]=m_p[3*i+1];
+    p[2]=m_p[3*i+2];
+    return p;
+  }
+
+  /**
+   * <p>
+   *   Gets point in the plane's 2D coordinates: For planes normal to the z
+   *   axis these are the x and y coordinates.
+   * </p>
+   * @param i Index of point.
+   * @param p Assigned to point. If {@code null} allocates.
+   * @return Point.
+   * @throws IndexOutOfBoundsException If no such point.
+   */
+  public double[] getPoint2(int i, double[] p)
+  {
+    checkPoint(i);
+    p=(p==null) ? new double[2] : p;
+    p[0]=u(i);
+    p[1]=v(i);
+    return p;
+  }
+
+  /**
+   * <p>
+   *   Gets line segment.
+   * </p>
+   * @param k Index of segment, from point {@code k} to the next.
+   * @param l Assigned to segment. If {@code null} allocates.
+   * @return Segment.
+   * @throws IndexOutOfBoundsException If no such segment.
+   */
+  public Line3 getLine(int k, Line3 l)
+  {
+    int j=next(k);
+    l=(l==null) ? new Line3() : l;
+    l.set(m_p[3*k], m_p[3*k+1], m_p[3*k+2], m_p[3*j], m_p[3*j+1],
+      m_p[3*j+2]);
+    return l;
+  }
+
+  /**
+   * <p>
+   *   Gets line segment in the plane's 2D coordinates.
+   * </p>
+   * @param k Index of segment, from point {@code k} to the next.
+   * @param l Assigned to segment. If {@code null} allocates.
+   * @return Segment.
+   * @throws IndexOutOfBoundsException If no such segment.
+   * @see #getPoint2(int, double[])
+   */
+  public Line2 getLine(int k, Line2 l)
+  {
+    int j=next(k);
+    l=(l==null) ? new Line2() : l;
+    l.set(u(k), v(k), u(j), v(j));
+    return l;
+  }
+
+  /**
+   * <p>
+   *   Computes length.
+   * </p>
+   * @return Length.
+   */
+  public double length()
+  {
+    double retVal=0.0;
+    int n=getSegmentCount();
+    for (int k=0; k<n; k++)
+    {
+      int j=(k+1==m_n) ? 0 : k+1;
+      double dx=m_p[3*j]-m_p[3*k];
+      double dy=m_p[3*j+1]-m_p[3*k+1];
+      double dz=m_p[3*j+2]-m_p[3*k+2];
+      retVal+=Math.sqrt(dx*dx+dy*dy+dz*dz);
+    }
+    return retVal;
+  }
+
+  /**
+   * <p>
+   *   Computes the signed area enclosed in the plane's 2D coordinates:
+   *   Positive if counter clockwise seen from the side the normal points
+   *   to. Slicing a closed mesh with normals pointing out gives positive
+   *   area for outer boundaries and negative for holes.
+   * </p>
+   * @return Area, {@code 0.0} if not closed.
+   */
+  public double area()
+  {
+    if (!m_closed) return 0.0;
+
+    double u0=u(0);
+    double v0=v(0);
+    double retVal=0.0;
+    for (int k=1; k+1<m_n; k++)
+    {
+      retVal+=(u(k)-u0)*(v(k+1)-v0)-(u(k+1)-u0)*(v(k)-v0);
+    }
+    return 0.5*retVal;
+  }
+
+  private double u(int i)
+  {
+    return m_p[3*i]*m_u[0]+m_p[3*i+1]*m_u[1]+m_p[3*i+2]*m_u[2];
+  }
+
+  private double v(int i)
+  {
+    return m_p[3*i]*m_v[0]+m_p[3*i+1]*m_v[1]+m_p[3*i+2]*m_v[2];
+  }
+
+  private int next(int k)
+  {
+    if (k<0 || k>=getSegmentCount())
+    {
+      throw new IndexOutOfBoundsException("k : "+k+" segments : "+
+        getSegmentCount());
+    }
+    return (k+1==m_n) ? 0 : k+1;
+  }
+
+  private void checkPoint(int i)
+  {
+    if (i<0 || i>=m_n)
+    {
+      throw new IndexOutOfBoundsException("i : "+i+" size : "+m_n);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    StringBuilder sb=new StringBuilder(m_closed ? "closed[" : "open[");
+    for (int i=0; i<m_n; i++)
+    {
+      if (i>0) sb.append(",");
+      sb.append(pointToString(m_p[3*i], m_p[3*i+1], m_p[3*i+2]));
+    }
+    return sb.append("]").toString();
+  }
+
+}
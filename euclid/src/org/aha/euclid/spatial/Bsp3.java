@@ -0,0 +1,828 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.spatial;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.aha.euclid.Plane3;
+import org.aha.euclid.Triangle3;
+
+/**
+ * <p>
+ *   Binary space partitioning (BSP) tree over a set of
+ *   {@link Triangle3}.
+ * </p>
+ * <p>
+ *   Each node is split by the plane of one of its triangles: Triangles
+ *   coplanar with the plane are stored at the node, triangles in front of it
+ *   (where
+ *   {@link Plane3#axbyczd(double, double, double)} is positive) go to the
+ *   front subtree and triangles behind it to the back subtree. Triangles
+ *   spanning the plane are split along it and the pieces triangulated. A
+ *   point is on a plane if its distance to it is at most
+ *   {@link #getTolerance()}.
+ * </p>
+ * <p>
+ *   The splitting plane of a node is chosen among the planes of a sample of
+ *   its triangles as the one that, on a sample of the triangles, splits the
+ *   fewest and best balances front and back. Samples are evenly spaced so
+ *   the tree does not depend on if built in parallel or not.
+ * </p>
+ * <p>
+ *   The tree is stored as flat arrays: Per node the splitting plane, the
+ *   children and the range of its triangles, the triangles stored
+ *   consecutive. Triangles of the tree are identified by their index in the
+ *   tree, see
+ *   {@link #size()},
+ *   {@link #getTriangle(int, double[])} and
+ *   {@link #getIndex(int)}.
+ * </p>
+ * <p>
+ *   Objects of this class are immutable and so thread safe. Queries do not
+ *   allocate when passed a traversal stack, see
+ *   {@link #newStack()}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Bsp3
+{
+  /**
+   * <p>
+   *   Number of triangles a fork-join task builds the tree of without
+   *   forking.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=2048;
+
+  /**
+   * <p>
+   *   Tolerance relative to the sum of the largest absolute coordinates used
+   *   if no tolerance given.
+   * </p>
+   */
+  public static final double RELATIVE_TOLERANCE=1e-9;
+
+  // Planes tried as splitting plane per node.
+  private static final int CANDIDATES=8;
+
+  // Triangles a plane tried is evaluated against.
+  private static final int SAMPLES=64;
+
+  // Cost of a split relative to a triangle of imbalance.
+  private static final double SPLIT_COST=8.0;
+
+  private static final int FRONT=0;
+
+  private static final int BACK=1;
+
+  private final double m_tol;
+
+  // Per triangle built from: a, b, c and d of its plane.
+  private final double[] m_src;
+
+  // Per node: front child, back child, first triangle and count. Children
+  // -1 if none.
+  private final int[] m_nodes;
+
+  // Per node: a, b, c and d of splitting plane.
+  private final double[] m_planes;
+
+  // Per triangle in node order: x, y and z of the three points.
+  private final double[] m_tris;
+
+  // Per triangle in node order: Index in array tree built from.
+  private final int[] m_index;
+
+  private final int m_nodeCount;
+
+  private final int m_maxDepth;
+
+  /**
+   * <p>
+   *   Builds tree using tolerance computed from the triangles, see
+   *   {@link #RELATIVE_TOLERANCE}.
+   * </p>
+   * @param tris Triangles. This does not keep references to the triangles,
+   *             later changes to them are not seen.
+   */
+  public Bsp3(Triangle3[] tris){ this(tris, false); }
+
+  /**
+   * <p>
+   *   Builds tree using tolerance computed from the triangles, see
+   *   {@link #RELATIVE_TOLERANCE}.
+   * </p>
+   * @param tris     Triangles. This does not keep references to the
+   *                 triangles, later changes to them are not seen.
+   * @param parallel {@code true} if to build subtrees in parallel,
+   *                 {@code false} if not.
+   */
+  public Bsp3(Triangle3[] tris, boolean parallel)
+  {
+    this(tris, RELATIVE_TOLERANCE*extent(tris), parallel);
+  }
+
+  /**
+   * <p>
+   *   Builds tree.
+   * </p>
+   * @param tris     Triangles. This does not keep references to the
+   *                 triangles, later changes to them are not seen.
+   * @param tol      Tolerance.
+   * @param parallel {@code true} if to build subtrees in parallel,
+   *                 {@code false} if not.
+   * @throws IllegalArgumentException If {@code tol<0}.
+   */
+  public Bsp3(Triangle3[] tris, double tol, boolean parallel)
+  {
+    if (!(tol>=0.0))
+    {
+      throw new IllegalArgumentException("tol<0 : "+tol);
+    }
+
+    m_tol=tol;
+
+    int n=tris.length;
+    m_src=new double[4*n];
+    Soup all=new Soup(n);
+    for (int i=0; i<n; i++)
+    {
+      Triangle3 t=tris[i];
+      m_src[4*i]=t.a();
+      m_src[4*i+1]=t.b();
+      m_src[4*i+2]=t.c();
+      m_src[4*i+3]=t.d();
+      all.add(t.x0(), t.y0(), t.z0(), t.x1(), t.y1(), t.z1(), t.x2(), t.y2(),
+        t.z2(), i);
+    }
+
+    Part part;
+    if (parallel && n>PARALLEL_THRESHOLD)
+    {
+      BuildTask task=new BuildTask(this, all);
+      ForkJoinPool.commonPool().invoke(task);
+      part=task.m_part;
+      part.flatten();
+    }
+    else
+    {
+      part=new Part();
+      build(all, part, -1, FRONT);
+    }
+
+    m_nodeCount=part.m_nodeCount;
+    m_nodes=Arrays.copyOf(part.m_nodes, 4*m_nodeCount);
+    m_planes=Arrays.copyOf(part.m_planes, 4*m_nodeCount);
+    m_tris=Arrays.copyOf(part.m_tris, 9*part.m_triCount);
+    m_index=Arrays.copyOf(part.m_index, part.m_triCount);
+
+    // Children are after their parent.
+    int[] depth=new int[m_nodeCount];
+    int maxDepth=0;
+    for (int i=0; i<m_nodeCount; i++)
+    {
+      depth[i]=max(depth[i], 1);
+      maxDepth=max(maxDepth, depth[i]);
+      int f=m_nodes[4*i];
+      int b=m_nodes[4*i+1];
+      if (f>=0) depth[f]=depth[i]+1;
+      if (b>=0) depth[b]=depth[i]+1;
+    }
+    m_maxDepth=maxDepth;
+  }
+
+  private static double extent(Triangle3[] tris)
+  {
+    double ax=0.0;
+    double ay=0.0;
+    double az=0.0;
+    for (Triangle3 t : tris)
+    {
+      ax=max(ax, max(abs(t.x0()), max(abs(t.x1()), abs(t.x2()))));
+      ay=max(ay, max(abs(t.y0()), max(abs(t.y1()), abs(t.y2()))));
+      az=max(az, max(abs(t.z0()), max(abs(t.z1()), abs(t.z2()))));
+    }
+    return ax+ay+az;
+  }
+
+  /**
+   * <p>
+   *   Gets the tolerance used deciding if a point is on a plane.
+   * </p>
+   * @return Tolerance.
+   */
+  public double getTolerance(){ return m_tol; }
+
+  /**
+   * <p>
+   *   Gets number of triangles in tree, pieces of split triangles counted.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_index.length; }
+
+  /**
+   * <p>
+   *   Gets number of nodes in tree.
+   * </p>
+   * @return Count.
+   */
+  public int getNodeCount(){ return m_nodeCount; }
+
+  /**
+   * <p>
+   *   Gets the depth of the deepest node, the root is at depth {@code 1}.
+   * </p>
+   * @return Depth.
+   */
+  public int getMaxDepth(){ return m_maxDepth; }
+
+  /**
+   * <p>
+   *   Gets the points of a triangle in the tree.
+   * </p>
+   * @param i Index of triangle in tree.
+   * @param p Array to assign {@code {x0, y0, z0, x1, y1, z1, x2, y2, z2}}
+   *          to. If {@code null} allocates.
+   * @return {@code p} or allocated if {@code p==null}.
+   * @throws IndexOutOfBoundsException If {@code i<0 || i>=size()}.
+   */
+  public double[] getTriangle(int i, double[] p)
+  {
+    int n=m_index.length;
+    if (i<0 || i>=n)
+    {
+      throw new IndexOutOfBoundsException("i : "+i+" size : "+n);
+    }
+
+    p=(p==null) ? new double[9] : p;
+    System.arraycopy(m_tris, 9*i, p, 0, 9);
+    return p;
+  }
+
+  /**
+   * <p>
+   *   Gets index of the triangle built from a triangle in the tree is, or is
+   *   a piece of.
+   * </p>
+   * @param i Index of triangle in tree.
+   * @return Index in array tree built from.
+   * @throws IndexOutOfBoundsException If {@code i<0 || i>=size()}.
+   */
+  public int getIndex(int i)
+  {
+    int n=m_index.length;
+    if (i<0 || i>=n)
+    {
+      throw new IndexOutOfBoundsException("i : "+i+" size : "+n);
+    }
+    return m_index[i];
+  }
+
+  /**
+   * <p>
+   *   Allocates a traversal stack big enough for queries on {@code this}.
+   * </p>
+   * <p>
+   *   Keep one per thread and pass to queries to avoid allocation per query.
+   * </p>
+   * @return Stack.
+   */
+  public int[] newStack(){ return new int[2*m_maxDepth+1]; }
+
+  /**
+   * <p>
+   *   Orders the triangles front to back as seen from a point: No triangle
+   *   is hidden by one later in the order.
+   * </p>
+   * @param x     Point's x coordinate.
+   * @param y     Point's y coordinate.
+   * @param z     Point's z coordinate.
+   * @param order Array to assign indices of triangles in tree to.
+   * @param stack Traversal stack. If {@code null} allocates.
+   * @return Number of indices assigned: {@link #size()}.
+   * @throws IllegalArgumentException If {@code order.length<size()}.
+   * @see #newStack()
+   */
+  public int frontToBack(double x, double y, double z, int[] order,
+    int[] stack)
+  {
+    return order(x, y, z, true, order, stack);
+  }
+
+  /**
+   * <p>
+   *   Orders the triangles back to front as seen from a point, the order of
+   *   the painter's algorithm: No triangle hides one earlier in the order.
+   * </p>
+   * @param x     Point's x coordinate.
+   * @param y     Point's y coordinate.
+   * @param z     Point's z coordinate.
+   * @param order Array to assign indices of triangles in tree to.
+   * @param stack Traversal stack. If {@code null} allocates.
+   * @return Number of indices assigned: {@link #size()}.
+   * @throws IllegalArgumentException If {@code order.length<size()}.
+   * @see #newStack()
+   */
+  public int backToFront(double x, double y, double z, int[] order,
+    int[] stack)
+  {
+    return order(x, y, z, false, order, stack);
+  }
+
+  private int order(double x, double y, double z, boolean frontToBack,
+    int[] order, int[] stack)
+  {
+    int n=m_index.length;
+    if (order.length<n)
+    {
+      throw new IllegalArgumentException("order.length<size : "+
+        order.length+"<"+n);
+    }
+
+    if (m_nodeCount==0) return 0;
+
+    stack=(stack==null) ? newStack() : stack;
+
+    int[] nodes=m_nodes;
+    double[] planes=m_planes;
+    int retVal=0;
+    int sp=0;
+    stack[sp++]=0;
+    while (sp>0)
+    {
+      int node=stack[--sp];
+
+      // Complemented node: Its triangles are next.
+      if (node<0)
+      {
+        int o=4*(~node);
+        int first=nodes[o+2];
+        int e=first+nodes[o+3];
+        for (int i=first; i<e; i++) order[retVal++]=i;
+        continue;
+      }
+
+      int o=4*node;
+      double dist=planes[o]*x+planes[o+1]*y+planes[o+2]*z+planes[o+3];
+      boolean front=(dist>=0.0)==frontToBack;
+      int near=front ? nodes[o] : nodes[o+1];
+      int far=front ? nodes[o+1] : nodes[o];
+      if (far>=0) stack[sp++]=far;
+      stack[sp++]=~node;
+      if (near>=0) stack[sp++]=near;
+    }
+    return retVal;
+  }
+
+  // Builds tree of s into part, root linked as child of parent.
+  private void build(Soup s, Part part, int parent, int side)
+  {
+    ArrayList<Soup> stack=new ArrayList<>();
+    s.m_parent=parent;
+    s.m_side=side;
+    stack.add(s);
+    while (!stack.isEmpty())
+    {
+      Soup curr=stack.remove(stack.size()-1);
+      if (curr.m_n==0) continue;
+
+      Soup front=new Soup(curr.m_n>>1);
+      Soup back=new Soup(curr.m_n>>1);
+      int node=divide(curr, part, front, back);
+      part.link(curr.m_parent, curr.m_side, node);
+
+      back.m_parent=node;
+      back.m_side=BACK;
+      stack.add(back);
+      front.m_parent=node;
+      front.m_side=FRONT;
+      stack.add(front);
+    }
+  }
+
+  // Adds node splitting s to part with the triangles of s coplanar to its
+  // plane, adds triangles in front to front and behind to back. Pieces of
+  // the splitter's triangle are kept at the node whatever the tolerance,
+  // rounding may put their points either side of their own plane and each
+  // node must take at least one triangle for the build to end.
+  private int divide(Soup s, Part part, Soup front, Soup back)
+  {
+    int splitter=s.m_index[splitter(s)];
+    int src=4*splitter;
+    double a=m_src[src];
+    double b=m_src[src+1];
+    double c=m_src[src+2];
+    double d=m_src[src+3];
+
+    int retVal=part.node(a, b, c, d);
+
+    double[] p=s.m_p;
+    double[] dist=new double[3];
+    double[] poly=new double[12];
+    for (int i=0; i<s.m_n; i++)
+    {
+      int o=9*i;
+      int index=s.m_index[i];
+      if (index==splitter)
+      {
+        part.tri(p, o, index);
+        continue;
+      }
+
+      switch (side(a, b, c, d, p, o, dist))
+      {
+        case 0 : part.tri(p, o, index); break;
+        case 1 : front.add(p, o, index); break;
+        case 2 : back.add(p, o, index); break;
+        default :
+          split(p, o, index, dist, true, poly, front);
+          split(p, o, index, dist, false, poly, back);
+      }
+    }
+    return retVal;
+  }
+
+  // Index in s of triangle whose plane is the one of a sample with least
+  // cost on a sample.
+  private int splitter(Soup s)
+  {
+    int n=s.m_n;
+    int nc=min(n, CANDIDATES);
+    int ns=min(n, SAMPLES);
+    double[] p=s.m_p;
+    double[] dist=new double[3];
+    int retVal=0;
+    double best=Double.POSITIVE_INFINITY;
+    for (int i=0; i<nc; i++)
+    {
+      int t=(int)((long)i*n/nc);
+      int src=4*s.m_index[t];
+      double a=m_src[src];
+      double b=m_src[src+1];
+      double c=m_src[src+2];
+      double d=m_src[src+3];
+
+      int front=0;
+      int back=0;
+      int split=0;
+      for (int j=0; j<ns; j++)
+      {
+        int u=(int)((long)j*n/ns);
+        switch (side(a, b, c, d, p, 9*u, dist))
+        {
+          case 1 : front++; break;
+          case 2 : back++; break;
+          case 3 : split++; break;
+          default :
+        }
+      }
+
+      double cost=SPLIT_COST*split+abs(front-back);
+      if (cost<best)
+      {
+        best=cost;
+        retVal=t;
+      }
+    }
+    return retVal;
+  }
+
+  // Assigns distances of triangle's points to dist and returns 0 if on
+  // plane, 1 if in front, 2 if behind and 3 if spanning.
+  private int side(double a, double b, double c, double d, double[] p,
+    int o, double[] dist)
+  {
+    double tol=m_tol;
+    int retVal=0;
+    for (int k=0; k<3; k++)
+    {
+      int q=o+3*k;
+      double v=a*p[q]+b*p[q+1]+c*p[q+2]+d;
+      dist[k]=v;
+      if (v>tol) retVal|=1;
+      else if (v<-tol) retVal|=2;
+    }
+    return retVal;
+  }
+
+  // Adds the piece of spanning triangle in front or behind to s.
+  private void split(double[] p, int o, int index, double[] dist,
+    boolean front, double[] poly, Soup s)
+  {
+    double tol=m_tol;
+    double sign=front ? 1.0 : -1.0;
+    int n=0;
+    for (int i=0; i<3; i++)
+    {
+      int j=(i==2) ? 0 : i+1;
+      double di=sign*dist[i];
+      double dj=sign*dist[j];
+      int pi=o+3*i;
+      int pj=o+3*j;
+      if (di>=-tol)
+      {
+        poly[n++]=p[pi];
+        poly[n++]=p[pi+1];
+        poly[n++]=p[pi+2];
+      }
+
+      if ((di>tol && dj<-tol) || (di<-tol && dj>tol))
+      {
+        // From the point in front so both pieces and the triangle sharing
+        // the edge get the same point.
+        double fi=dist[i];
+        double fj=dist[j];
+        int from=(fi>0.0) ? pi : pj;
+        int to=(fi>0.0) ? pj : pi;
+        double t=(fi>0.0) ? fi/(fi-fj) : fj/(fj-fi);
+        poly[n++]=p[from]+t*(p[to]-p[from]);
+        poly[n++]=p[from+1]+t*(p[to+1]-p[from+1]);
+        poly[n++]=p[from+2]+t*(p[to+2]-p[from+2]);
+      }
+    }
+
+    // Fan triangulation keeps orientation.
+    int np=n/3;
+    for (int k=1; k<np-1; k++)
+    {
+      int q=3*k;
+      int r=q+3;
+      s.add(poly[0], poly[1], poly[2], poly[q], poly[q+1], poly[q+2],
+        poly[r], poly[r+1], poly[r+2], index);
+    }
+  }
+
+  // Triangles to build tree of.
+  private static final class Soup
+  {
+    double[] m_p;
+
+    int[] m_index;
+
+    int m_n=0;
+
+    // Node to link root of tree of this to and as which child.
+
+    int m_parent=-1;
+
+    int m_side=FRONT;
+
+    Soup(int capacity)
+    {
+      capacity=max(capacity, 4);
+      m_p=new double[9*capacity];
+      m_index=new int[capacity];
+    }
+
+    void add(double[] p, int o, int index)
+    {
+      ensure();
+      System.arraycopy(p, o, m_p, 9*m_n, 9);
+      m_index[m_n++]=index;
+    }
+
+    void add(double x0, double y0, double z0, double x1, double y1,
+      double z1, double x2, double y2, double z2, int index)
+    {
+      ensure();
+      int o=9*m_n;
+      m_p[o]=x0;
+      m_p[o+1]=y0;
+      m_p[o+2]=z0;
+      m_p[o+3]=x1;
+      m_p[o+4]=y1;
+      m_p[o+5]=z1;
+      m_p[o+6]=x2;
+      m_p[o+7]=y2;
+      m_p[o+8]=z2;
+      m_index[m_n++]=index;
+    }
+
+    private void ensure()
+    {
+      if (m_n==m_index.length)
+      {
+        m_p=Arrays.copyOf(m_p, 18*m_n);
+        m_index=Arrays.copyOf(m_index, 2*m_n);
+      }
+    }
+  }
+
+  // Tree or subtree being built, laid out as the tree's arrays. Parts built
+  // in parallel are copied into the root part once when all built.
+  private static final class Part
+  {
+    int[] m_nodes=new int[64];
+
+    double[] m_planes=new double[64];
+
+    int m_nodeCount=0;
+
+    double[] m_tris=new double[9*16];
+
+    int[] m_index=new int[16];
+
+    int m_triCount=0;
+
+    // Node with parts built in parallel as children and the parts.
+
+    int m_fork=-1;
+
+    Part m_front;
+
+    Part m_back;
+
+    // Adds node, triangles added until next node is added are its.
+    int node(double a, double b, double c, double d)
+    {
+      if (4*m_nodeCount==m_nodes.length)
+      {
+        m_nodes=Arrays.copyOf(m_nodes, 2*m_nodes.length);
+        m_planes=Arrays.copyOf(m_planes, 2*m_planes.length);
+      }
+
+      int o=4*m_nodeCount;
+      m_nodes[o]=-1;
+      m_nodes[o+1]=-1;
+      m_nodes[o+2]=m_triCount;
+      m_nodes[o+3]=0;
+      m_planes[o]=a;
+      m_planes[o+1]=b;
+      m_planes[o+2]=c;
+      m_planes[o+3]=d;
+      return m_nodeCount++;
+    }
+
+    void tri(double[] p, int o, int index)
+    {
+      if (m_triCount==m_index.length)
+      {
+        m_tris=Arrays.copyOf(m_tris, 18*m_triCount);
+        m_index=Arrays.copyOf(m_index, 2*m_triCount);
+      }
+
+      System.arraycopy(p, o, m_tris, 9*m_triCount, 9);
+      m_index[m_triCount++]=index;
+      m_nodes[4*(m_nodeCount-1)+3]++;
+    }
+
+    void link(int parent, int side, int child)
+    {
+      if (parent>=0) m_nodes[4*parent+side]=child;
+    }
+
+    // Links parts built in parallel as front and back of node.
+    void fork(int node, Part front, Part back)
+    {
+      m_fork=node;
+      m_front=front;
+      m_back=back;
+    }
+
+    // Appends the parts forked to this.
+    void flatten()
+    {
+      int nodes=nodeCount();
+      int tris=triCount();
+      m_nodes=Arrays.copyOf(m_nodes, 4*nodes);
+      m_planes=Arrays.copyOf(m_planes, 4*nodes);
+      m_tris=Arrays.copyOf(m_tris, 9*tris);
+      m_index=Arrays.copyOf(m_index, tris);
+      linkForked(this, 0);
+    }
+
+    private int nodeCount()
+    {
+      return m_nodeCount+
+        ((m_front==null) ? 0 : m_front.nodeCount()+m_back.nodeCount());
+    }
+
+    private int triCount()
+    {
+      return m_triCount+
+        ((m_front==null) ? 0 : m_front.triCount()+m_back.triCount());
+    }
+
+    private void linkForked(Part o, int offset)
+    {
+      if (o.m_front==null) return;
+
+      int node=o.m_fork+offset;
+      link(node, FRONT, append(o.m_front));
+      link(node, BACK, append(o.m_back));
+      o.m_front=null;
+      o.m_back=null;
+    }
+
+    // Appends other part, space reserved, returns index of its root or -1
+    // if empty.
+    private int append(Part o)
+    {
+      if (o.m_nodeCount==0) return -1;
+
+      int nodes=m_nodeCount;
+      int tris=m_triCount;
+      for (int i=0; i<o.m_nodeCount; i++)
+      {
+        int s=4*i;
+        int t=4*(nodes+i);
+        int f=o.m_nodes[s];
+        int b=o.m_nodes[s+1];
+        m_nodes[t]=(f<0) ? -1 : f+nodes;
+        m_nodes[t+1]=(b<0) ? -1 : b+nodes;
+        m_nodes[t+2]=o.m_nodes[s+2]+tris;
+        m_nodes[t+3]=o.m_nodes[s+3];
+      }
+      System.arraycopy(o.m_planes, 0, m_planes, 4*nodes, 4*o.m_nodeCount);
+      System.arraycopy(o.m_tris, 0, m_tris, 9*tris, 9*o.m_triCount);
+      System.arraycopy(o.m_index, 0, m_index, tris, o.m_triCount);
+      m_nodeCount+=o.m_nodeCount;
+      m_triCount+=o.m_triCount;
+      linkForked(o, nodes);
+      return nodes;
+    }
+  }
+
+  // Fork-join task building the tree of a soup: Forks when both sides of a
+  // node are big, else builds the smaller side and goes on with the other.
+  private static final class BuildTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final Bsp3 m_bsp;
+
+    private final Soup m_soup;
+
+    Part m_part;
+
+    BuildTask(Bsp3 bsp, Soup soup)
+    {
+      m_bsp=bsp;
+      m_soup=soup;
+    }
+
+    @Override
+    protected void compute()
+    {
+      Part part=new Part();
+      Soup s=m_soup;
+      int parent=-1;
+      int side=FRONT;
+      while (true)
+      {
+        if (s.m_n<=PARALLEL_THRESHOLD)
+        {
+          m_bsp.build(s, part, parent, side);
+          break;
+        }
+
+        Soup front=new Soup(s.m_n>>1);
+        Soup back=new Soup(s.m_n>>1);
+        int node=m_bsp.divide(s, part, front, back);
+        part.link(parent, side, node);
+
+        if (front.m_n>PARALLEL_THRESHOLD && back.m_n>PARALLEL_THRESHOLD)
+        {
+          BuildTask a=new BuildTask(m_bsp, front);
+          BuildTask b=new BuildTask(m_bsp, back);
+          invokeAll(a, b);
+          part.fork(node, a.m_part, b.m_part);
+          break;
+        }
+
+        parent=node;
+        if (front.m_n<=back.m_n)
+        {
+          m_bsp.build(front, part, node, FRONT);
+          s=back;
+          side=BACK;
+        }
+        else
+        {
+          m_bsp.build(back, part, node, BACK);
+          s=front;
+          side=FRONT;
+        }
+      }
+      m_part=part;
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "Bsp3[size="+m_index.length+", nodes="+m_nodeCount+
+      ", depth="+m_maxDepth+"]";
+  }
+
+}
@@ -0,0 +1,691 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.spatial;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import org.aha.euclid.Line3;
+import org.aha.euclid.Triangle3;
+
+/**
+ * <p>
+ *   Bounding volume hierarchy over a set of
+ *   {@link Triangle3} for finding where a
+ *   {@link Line3} ray or segment hits the triangles.
+ * </p>
+ * <p>
+ *   Lines are parametrized as in
+ *   {@link Line3#getPoint(double)}: The ray defined by a line is the points
+ *   for parameter {@code t>=0} while the segment is the points for parameter
+ *   {@code 0<=t<=1}.
+ * </p>
+ * <p>
+ *   The hierarchy is built using the surface area heuristic (SAH) and stored
+ *   as flat arrays: A node is a leaf if its count is positive, the triangles
+ *   of a leaf are stored consecutive in leaf order. An interior node's first
+ *   child is the next node, the index of the second child is stored.
+ * </p>
+ * <p>
+ *   Hits are reported as the index of the triangle in the array the hierarchy
+ *   was built from and the parameters {@code {t, u, v}} where {@code t} is the
+ *   line parameter and {@code u} and {@code v} are the barycentric
+ *   coordinates related to the triangle's second and third point: The
+ *   barycentric coordinates as computed by
+ *   {@link Triangle3#barycentric(double, double, double)} are
+ *   {@code {1-u-v, u, v}}.
+ * </p>
+ * <p>
+ *   Objects of this class are immutable and so thread safe. Queries do not
+ *   allocate when passed result arrays and a traversal stack, see
+ *   {@link #newStack()}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Bvh3
+{
+  private static final int BINS=16;
+
+  private static final int LEAF_SIZE=4;
+
+  private static final double TRAVERSAL_COST=1.0;
+
+  private static final double INTERSECT_COST=1.0;
+
+  // Per triangle in leaf order: p0 and edges p1-p0 and p2-p0.
+  private final double[] m_tris;
+
+  // Leaf order to index in array hierarchy built from.
+  private final int[] m_index;
+
+  // Per node: min x, y, z and max x, y, z.
+  private final double[] m_bounds;
+
+  // Per node: first triangle or second child and count (0 if interior).
+  private final int[] m_nodes;
+
+  private final int m_nodeCount;
+
+  private final int m_maxDepth;
+
+  /**
+   * <p>
+   *   Builds hierarchy.
+   * </p>
+   * @param tris Triangles. This does not keep references to the triangles,
+   *             later changes to them are not seen.
+   */
+  public Bvh3(Triangle3[] tris)
+  {
+    int n=tris.length;
+
+    double[] bounds=new double[6*n];
+    double[] centroids=new double[3*n];
+    int[] perm=new int[n];
+    for (int i=0; i<n; i++)
+    {
+      Triangle3 t=tris[i];
+      int b=6*i;
+      bounds[b]=min(t.x0(), min(t.x1(), t.x2()));
+      bounds[b+1]=min(t.y0(), min(t.y1(), t.y2()));
+      bounds[b+2]=min(t.z0(), min(t.z1(), t.z2()));
+      bounds[b+3]=max(t.x0(), max(t.x1(), t.x2()));
+      bounds[b+4]=max(t.y0(), max(t.y1(), t.y2()));
+      bounds[b+5]=max(t.z0(), max(t.z1(), t.z2()));
+      centroids[3*i]=0.5*(bounds[b]+bounds[b+3]);
+      centroids[3*i+1]=0.5*(bounds[b+1]+bounds[b+4]);
+      centroids[3*i+2]=0.5*(bounds[b+2]+bounds[b+5]);
+      perm[i]=i;
+    }
+
+    int cap=max(1, 2*n-1);
+    m_bounds=new double[6*cap];
+    m_nodes=new int[2*cap];
+
+    Build st=new Build();
+    if (n==0)
+    {
+      st.m_nodeCount=1;
+      m_bounds[0]=m_bounds[1]=m_bounds[2]=Double.POSITIVE_INFINITY;
+      m_bounds[3]=m_bounds[4]=m_bounds[5]=Double.NEGATIVE_INFINITY;
+    }
+    else
+    {
+      build(st, bounds, centroids, perm, 0, n, 1);
+    }
+    m_nodeCount=st.m_nodeCount;
+    m_maxDepth=st.m_maxDepth;
+
+    m_index=perm;
+    m_tris=new double[9*n];
+    for (int i=0; i<n; i++)
+    {
+      Triangle3 t=tris[perm[i]];
+      int o=9*i;
+      m_tris[o]=t.x0();
+      m_tris[o+1]=t.y0();
+      m_tris[o+2]=t.z0();
+      m_tris[o+3]=t.x1()-t.x0();
+      m_tris[o+4]=t.y1()-t.y0();
+      m_tris[o+5]=t.z1()-t.z0();
+      m_tris[o+6]=t.x2()-t.x0();
+      m_tris[o+7]=t.y2()-t.y0();
+      m_tris[o+8]=t.z2()-t.z0();
+    }
+  }
+
+  /**
+   * <p>
+   *   Gets number of triangles in hierarchy.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_index.length; }
+
+  /**
+   * <p>
+   *   Gets number of nodes in hierarchy.
+   * </p>
+   * @return Count.
+   */
+  public int getNodeCount(){ return m_nodeCount; }
+
+  /**
+   * <p>
+   *   Gets the depth of the deepest leaf, the root is at depth {@code 1}.
+   * </p>
+   * @return Depth.
+   */
+  public int getMaxDepth(){ return m_maxDepth; }
+
+  /**
+   * <p>
+   *   Allocates a traversal stack big enough for queries on {@code this}.
+   * </p>
+   * <p>
+   *   Keep one per thread and pass to queries to avoid allocation per query.
+   * </p>
+   * @return Stack.
+   */
+  public int[] newStack(){ return new int[m_maxDepth+1]; }
+
+  /**
+   * <p>
+   *   Finds the first triangle hit by a ray or segment.
+   * </p>
+   * @param l       Line.
+   * @param segment {@code true} if to intersect the segment, {@code false} if
+   *                to intersect the ray.
+   * @param tuv     If not {@code null} and hit assigned {@code {t, u, v}} of
+   *                the hit.
+   * @param stack   Traversal stack. If {@code null} allocates.
+   * @return Index of triangle hit or {@code -1} if no hit.
+   * @see #newStack()
+   */
+  public int first(Line3 l, boolean segment, double[] tuv, int[] stack)
+  {
+    if (m_index.length==0) return -1;
+
+    stack=(stack==null) ? newStack() : stack;
+
+    double ox=l.x0();
+    double oy=l.y0();
+    double oz=l.z0();
+    double dx=l.x1()-ox;
+    double dy=l.y1()-oy;
+    double dz=l.z1()-oz;
+    double ix=1.0/dx;
+    double iy=1.0/dy;
+    double iz=1.0/dz;
+
+    double tmax=segment ? 1.0 : Double.POSITIVE_INFINITY;
+    int hit=-1;
+    double hu=0.0;
+    double hv=0.0;
+
+    int sp=0;
+    int node=0;
+    while (true)
+    {
+      if (slab(node, ox, oy, oz, ix, iy, iz, tmax))
+      {
+        int count=m_nodes[2*node+1];
+        if (count==0)
+        {
+          stack[sp++]=m_nodes[2*node];
+          node++;
+          continue;
+        }
+
+        int end=m_nodes[2*node]+count;
+        for (int i=m_nodes[2*node]; i<end; i++)
+        {
+          int o=9*i;
+
+          double e1x=m_tris[o+3];
+          double e1y=m_tris[o+4];
+          double e1z=m_tris[o+5];
+          double e2x=m_tris[o+6];
+          double e2y=m_tris[o+7];
+          double e2z=m_tris[o+8];
+
+          double px=dy*e2z-dz*e2y;
+          double py=dz*e2x-dx*e2z;
+          double pz=dx*e2y-dy*e2x;
+
+          double det=e1x*px+e1y*py+e1z*pz;
+          if (det==0.0) continue;
+          double inv=1.0/det;
+
+          double tx=ox-m_tris[o];
+          double ty=oy-m_tris[o+1];
+          double tz=oz-m_tris[o+2];
+
+          double u=(tx*px+ty*py+tz*pz)*inv;
+          if (u<0.0 || u>1.0) continue;
+
+          double qx=ty*e1z-tz*e1y;
+          double qy=tz*e1x-tx*e1z;
+          double qz=tx*e1y-ty*e1x;
+
+          double v=(dx*qx+dy*qy+dz*qz)*inv;
+          if (v<0.0 || u+v>1.0) continue;
+
+          double t=(e2x*qx+e2y*qy+e2z*qz)*inv;
+          if (t<0.0 || t>tmax) continue;
+
+          tmax=t;
+          hit=i;
+          hu=u;
+          hv=v;
+        }
+      }
+
+      if (sp==0) break;
+      node=stack[--sp];
+    }
+
+    if (hit==-1) return -1;
+
+    if (tuv!=null)
+    {
+      tuv[0]=tmax;
+      tuv[1]=hu;
+      tuv[2]=hv;
+    }
+
+    return m_index[hit];
+  }
+
+  /**
+   * <p>
+   *   Tells if a ray or segment hits any triangle.
+   * </p>
+   * @param l       Line.
+   * @param segment {@code true} if to intersect the segment, {@code false} if
+   *                to intersect the ray.
+   * @param stack   Traversal stack. If {@code null} allocates.
+   * @return {@code true} if hits, {@code false} if not.
+   * @see #newStack()
+   */
+  public boolean any(Line3 l, boolean segment, int[] stack)
+  {
+    return all(l, segment, null, null, stack, true)>0;
+  }
+
+  /**
+   * <p>
+   *   Finds all triangles hit by a ray or segment.
+   * </p>
+   * <p>
+   *   Hits are reported in no particular order. If there are more hits than
+   *   {@code idx} has room for the hits not room for are not reported but are
+   *   counted in the returned value.
+   * </p>
+   * @param l       Line.
+   * @param segment {@code true} if to intersect the segment, {@code false} if
+   *                to intersect the ray.
+   * @param idx     Assigned to indices of triangles hit. May be {@code null}
+   *                in which case hits are only counted.
+   * @param tuv     If not {@code null} assigned to {@code {t, u, v}} of the
+   *                hits, {@code tuv[3*i]}, {@code tuv[3*i+1]} and
+   *                {@code tuv[3*i+2]} are for the hit reported at
+   *                {@code idx[i]}. Must have room for {@code 3*idx.length}
+   *                values.
+   * @param stack   Traversal stack. If {@code null} allocates.
+   * @return Number of hits.
+   * @see #newStack()
+   */
+  public int all(Line3 l, boolean segment, int[] idx, double[] tuv,
+    int[] stack)
+  {
+    return all(l, segment, idx, tuv, stack, false);
+  }
+
+  // Implementation of any and all queries.
+  private int all(Line3 l, boolean segment, int[] idx, double[] tuv,
+    int[] stack, boolean any)
+  {
+    if (m_index.length==0) return 0;
+
+    stack=(stack==null) ? newStack() : stack;
+
+    double ox=l.x0();
+    double oy=l.y0();
+    double oz=l.z0();
+    double dx=l.x1()-ox;
+    double dy=l.y1()-oy;
+    double dz=l.z1()-oz;
+    double ix=1.0/dx;
+    double iy=1.0/dy;
+    double iz=1.0/dz;
+
+    double tmax=segment ? 1.0 : Double.POSITIVE_INFINITY;
+    int cap=(idx==null) ? 0 : idx.length;
+    int hits=0;
+
+    int sp=0;
+    int node=0;
+    while (true)
+    {
+      if (slab(node, ox, oy, oz, ix, iy, iz, tmax))
+      {
+        int count=m_nodes[2*node+1];
+        if (count==0)
+        {
+          stack[sp++]=m_nodes[2*node];
+          node++;
+          continue;
+        }
+
+        int end=m_nodes[2*node]+count;
+        for (int i=m_nodes[2*node]; i<end; i++)
+        {
+          int o=9*i;
+
+          double e1x=m_tris[o+3];
+          double e1y=m_tris[o+4];
+          double e1z=m_tris[o+5];
+          double e2x=m_tris[o+6];
+          double e2y=m_tris[o+7];
+          double e2z=m_tris[o+8];
+
+          double px=dy*e2z-dz*e2y;
+          double py=dz*e2x-dx*e2z;
+          double pz=dx*e2y-dy*e2x;
+
+          double det=e1x*px+e1y*py+e1z*pz;
+          if (det==0.0) continue;
+          double inv=1.0/det;
+
+          double tx=ox-m_tris[o];
+          double ty=oy-m_tris[o+1];
+          double tz=oz-m_tris[o+2];
+
+          double u=(tx*px+ty*py+tz*pz)*inv;
+          if (u<0.0 || u>1.0) continue;
+
+          double qx=ty*e1z-tz*e1y;
+          double qy=tz*e1x-tx*e1z;
+          double qz=tx*e1y-ty*e1x;
+
+          double v=(dx*qx+dy*qy+dz*qz)*inv;
+          if (v<0.0 || u+v>1.0) continue;
+
+          double t=(e2x*qx+e2y*qy+e2z*qz)*inv;
+          if (t<0.0 || t>tmax) continue;
+
+          if (any) return 1;
+
+          if (hits<cap)
+          {
+            idx[hits]=m_index[i];
+            if (tuv!=null)
+            {
+              tuv[3*hits]=t;
+              tuv[3*hits+1]=u;
+              tuv[3*hits+2]=v;
+            }
+          }
+          hits++;
+        }
+      }
+
+      if (sp==0) break;
+      node=stack[--sp];
+    }
+
+    return hits;
+  }
+
+  // Slab test of line against node's box for parameters in [0, tmax].
+  private boolean slab(int node, double ox, double oy, double oz, double ix,
+    double iy, double iz, double tmax)
+  {
+    int b=6*node;
+
+    double t0=(m_bounds[b]-ox)*ix;
+    double t1=(m_bounds[b+3]-ox)*ix;
+    double tmin=min(t0, t1);
+    double tmx=max(t0, t1);
+
+    t0=(m_bounds[b+1]-oy)*iy;
+    t1=(m_bounds[b+4]-oy)*iy;
+    tmin=max(tmin, min(t0, t1));
+    tmx=min(tmx, max(t0, t1));
+
+    t0=(m_bounds[b+2]-oz)*iz;
+    t1=(m_bounds[b+5]-oz)*iz;
+    tmin=max(tmin, min(t0, t1));
+    tmx=min(tmx, max(t0, t1));
+
+    // A NaN (0*inf, line in the plane of a slab) propagates through min/max
+    // and makes the comparisons false: The node is visited, conservative.
+    return !(tmin>tmx || tmx<0.0 || tmin>tmax);
+  }
+
+  // Builds subtree for perm[from, to), returns node index.
+  private int build(Build st, double[] bounds, double[] centroids, int[] perm,
+    int from, int to, int depth)
+  {
+    int node=st.m_nodeCount++;
+    st.m_maxDepth=max(st.m_maxDepth, depth);
+
+    int b=6*node;
+    double bx0=Double.POSITIVE_INFINITY;
+    double by0=Double.POSITIVE_INFINITY;
+    double bz0=Double.POSITIVE_INFINITY;
+    double bx1=Double.NEGATIVE_INFINITY;
+    double by1=Double.NEGATIVE_INFINITY;
+    double bz1=Double.NEGATIVE_INFINITY;
+
+    double cx0=Double.POSITIVE_INFINITY;
+    double cy0=Double.POSITIVE_INFINITY;
+    double cz0=Double.POSITIVE_INFINITY;
+    double cx1=Double.NEGATIVE_INFINITY;
+    double cy1=Double.NEGATIVE_INFINITY;
+    double cz1=Double.NEGATIVE_INFINITY;
+
+    for (int i=from; i<to; i++)
+    {
+      int t=perm[i];
+      int tb=6*t;
+      bx0=min(bx0, bounds[tb]);
+      by0=min(by0, bounds[tb+1]);
+      bz0=min(bz0, bounds[tb+2]);
+      bx1=max(bx1, bounds[tb+3]);
+      by1=max(by1, bounds[tb+4]);
+      bz1=max(bz1, bounds[tb+5]);
+
+      double cx=centroids[3*t];
+      double cy=centroids[3*t+1];
+      double cz=centroids[3*t+2];
+      cx0=min(cx0, cx);
+      cy0=min(cy0, cy);
+      cz0=min(cz0, cz);
+      cx1=max(cx1, cx);
+      cy1=max(cy1, cy);
+      cz1=max(cz1, cz);
+    }
+
+    m_bounds[b]=bx0;
+    m_bounds[b+1]=by0;
+    m_bounds[b+2]=bz0;
+    m_bounds[b+3]=bx1;
+    m_bounds[b+4]=by1;
+    m_bounds[b+5]=bz1;
+
+    int n=to-from;
+    if (n<=LEAF_SIZE)
+    {
+      leaf(node, from, n);
+      return node;
+    }
+
+    // Binned SAH over all three axes.
+
+    double[] cmin={ cx0, cy0, cz0 };
+    double[] cext={ cx1-cx0, cy1-cy0, cz1-cz0 };
+
+    int[] cnt=st.m_cnt;
+    double[] bb=st.m_bb;
+    double[] rarea=st.m_rarea;
+
+    double bestCost=Double.POSITIVE_INFINITY;
+    int bestAxis=-1;
+    int bestBin=-1;
+
+    for (int axis=0; axis<3; axis++)
+    {
+      if (cext[axis]<=0.0) continue;
+
+      double scale=BINS/cext[axis];
+
+      for (int k=0; k<BINS; k++)
+      {
+        cnt[k]=0;
+        emptyBox(bb, k);
+      }
+
+      for (int i=from; i<to; i++)
+      {
+        int t=perm[i];
+        int k=bin(centroids[3*t+axis], cmin[axis], scale);
+        cnt[k]++;
+        growBox(bb, k, bounds, t);
+      }
+
+      // Sweep from right to get area and count to the right of each split.
+
+      double rx0=Double.POSITIVE_INFINITY;
+      double ry0=Double.POSITIVE_INFINITY;
+      double rz0=Double.POSITIVE_INFINITY;
+      double rx1=Double.NEGATIVE_INFINITY;
+      double ry1=Double.NEGATIVE_INFINITY;
+      double rz1=Double.NEGATIVE_INFINITY;
+      for (int k=BINS-1; k>0; k--)
+      {
+        int o=6*k;
+        rx0=min(rx0, bb[o]);
+        ry0=min(ry0, bb[o+1]);
+        rz0=min(rz0, bb[o+2]);
+        rx1=max(rx1, bb[o+3]);
+        ry1=max(ry1, bb[o+4]);
+        rz1=max(rz1, bb[o+5]);
+        rarea[k]=area(rx0, ry0, rz0, rx1, ry1, rz1);
+      }
+
+      double lx0=Double.POSITIVE_INFINITY;
+      double ly0=Double.POSITIVE_INFINITY;
+      double lz0=Double.POSITIVE_INFINITY;
+      double lx1=Double.NEGATIVE_INFINITY;
+      double ly1=Double.NEGATIVE_INFINITY;
+      double lz1=Double.NEGATIVE_INFINITY;
+      int lcnt=0;
+      for (int k=0; k<BINS-1; k++)
+      {
+        int o=6*k;
+        lx0=min(lx0, bb[o]);
+        ly0=min(ly0, bb[o+1]);
+        lz0=min(lz0, bb[o+2]);
+        lx1=max(lx1, bb[o+3]);
+        ly1=max(ly1, bb[o+4]);
+        lz1=max(lz1, bb[o+5]);
+        lcnt+=cnt[k];
+
+        int rcnt=n-lcnt;
+        if (lcnt==0 || rcnt==0) continue;
+
+        double cost=area(lx0, ly0, lz0, lx1, ly1, lz1)*lcnt+rarea[k+1]*rcnt;
+        if (cost<bestCost)
+        {
+          bestCost=cost;
+          bestAxis=axis;
+          bestBin=k;
+        }
+      }
+    }
+
+    double parea=area(bx0, by0, bz0, bx1, by1, bz1);
+
+    int mid;
+    if (bestAxis==-1)
+    {
+      // All centroids at the same point: split in the middle.
+      mid=from+n/2;
+    }
+    else
+    {
+      double splitCost=TRAVERSAL_COST+INTERSECT_COST*bestCost/parea;
+      if (n<=2*LEAF_SIZE && splitCost>=INTERSECT_COST*n)
+      {
+        leaf(node, from, n);
+        return node;
+      }
+
+      double scale=BINS/cext[bestAxis];
+      int i=from;
+      int j=to-1;
+      while (i<=j)
+      {
+        int t=perm[i];
+        if (bin(centroids[3*t+bestAxis], cmin[bestAxis], scale)<=bestBin)
+        {
+          i++;
+        }
+        else
+        {
+          perm[i]=perm[j];
+          perm[j]=t;
+          j--;
+        }
+      }
+      mid=i;
+    }
+
+    build(st, bounds, centroids, perm, from, mid, depth+1);
+    int right=build(st, bounds, centroids, perm, mid, to, depth+1);
+    m_nodes[2*node]=right;
+    m_nodes[2*node+1]=0;
+    return node;
+  }
+
+  private void leaf(int node, int from, int n)
+  {
+    m_nodes[2*node]=from;
+    m_nodes[2*node+1]=n;
+  }
+
+  private static int bin(double c, double cmin, double scale)
+  {
+    int k=(int)((c-cmin)*scale);
+    return (k>=BINS) ? BINS-1 : k;
+  }
+
+  private static void emptyBox(double[] bb, int k)
+  {
+    int o=6*k;
+    bb[o]=bb[o+1]=bb[o+2]=Double.POSITIVE_INFINITY;
+    bb[o+3]=bb[o+4]=bb[o+5]=Double.NEGATIVE_INFINITY;
+  }
+
+  private static void growBox(double[] bb, int k, double[] bounds, int t)
+  {
+    int o=6*k;
+    int tb=6*t;
+    bb[o]=min(bb[o], bounds[tb]);
+    bb[o+1]=min(bb[o+1], bounds[tb+1]);
+    bb[o+2]=min(bb[o+2], bounds[tb+2]);
+    bb[o+3]=max(bb[o+3], bounds[tb+3]);
+    bb[o+4]=max(bb[o+4], bounds[tb+4]);
+    bb[o+5]=max(bb[o+5], bounds[tb+5]);
+  }
+
+  // Half surface area of box.
+  private static double area(double x0, double y0, double z0, double x1,
+    double y1, double z1)
+  {
+    double ex=x1-x0;
+    double ey=y1-y0;
+    double ez=z1-z0;
+    return ex*ey+ey*ez+ez*ex;
+  }
+
+  // Build state: Node and depth counters and binning scratch, dropped when
+  // built so all fields of the hierarchy can be final.
+  private static final class Build
+  {
+    int m_nodeCount=0;
+
+    int m_maxDepth=0;
+
+    final int[] m_cnt=new int[BINS];
+
+    final double[] m_bb=new double[6*BINS];
+
+    final double[] m_rarea=new double[BINS];
+  }
+
+}
@@ -0,0 +1,257 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.spatial;
+
+import static org.aha.euclid.math.Predicates.orient2d;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+import org.aha.euclid.math.Predicates;
+
+/**
+ * <p>
+ *   Convex hull of points in 2D.
+ * </p>
+ * <p>
+ *   Computed with Andrew's monotone chain: The points are sorted by
+ *   {@code x} then {@code y} and the lower and upper hulls built in one pass
+ *   each, popping points making a right turn. The turns are decided with
+ *   {@link Predicates#orient2d(double, double, double, double, double, double)}
+ *   so the result is exact also for collinear and duplicated points.
+ *   Points on an edge of the hull are not hull vertices.
+ * </p>
+ * <p>
+ *   In parallel mode runs of
+ *   {@link #PARALLEL_THRESHOLD} points are hulled in the common fork-join
+ *   pool and the hulls' vertices merged by hulling them.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class ConvexHull2
+{
+  private ConvexHull2(){} // Utility pattern dictates private constructor.
+
+  /**
+   * <p>
+   *   Number of points a fork-join task hulls without splitting.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=1<<14;
+
+  /**
+   * <p>
+   *   Computes convex hull.
+   * </p>
+   * @param x X coordinates of points.
+   * @param y Y coordinates of points.
+   * @return Indices of the hull's vertices in counter clockwise order
+   *         starting with the point with least {@code x} (least {@code y} of
+   *         those). If all points are on a line the two end points, if all
+   *         are equal one of them.
+   * @throws IllegalArgumentException If {@code x} and {@code y} not of same
+   *         length.
+   */
+  public static int[] hull(double[] x, double[] y){ return hull(x, y, false); }
+
+  /**
+   * <p>
+   *   Computes convex hull.
+   * </p>
+   * @param x        X coordinates of points.
+   * @param y        Y coordinates of points.
+   * @param parallel If to use the common fork-join pool, for millions of
+   *                 points.
+   * @return Indices of the hull's vertices in counter clockwise order
+   *         starting with the point with least {@code x} (least {@code y} of
+   *         those). If all points are on a line the two end points, if all
+   *         are equal one of them.
+   * @throws IllegalArgumentException If {@code x} and {@code y} not of same
+   *         length.
+   */
+  public static int[] hull(double[] x, double[] y, boolean parallel)
+  {
+    if (x.length!=y.length)
+    {
+      throw new IllegalArgumentException("x.length!=y.length : "+x.length+
+        "!="+y.length);
+    }
+
+    int n=x.length;
+    if (parallel && n>PARALLEL_THRESHOLD)
+    {
+      return new HullTask(x, y, 0, n).invoke();
+    }
+
+    int[] idx=new int[n];
+    for (int i=0; i<n; i++) idx[i]=i;
+    return chain(x, y, idx, n);
+  }
+
+  /**
+   * <p>
+   *   Computes the signed area of a polygon.
+   * </p>
+   * @param x X coordinates of points.
+   * @param y Y coordinates of points.
+   * @param p Indices of the polygon's vertices, for example a hull.
+   * @return Area, positive if counter clockwise.
+   */
+  public static double area(double[] x, double[] y, int[] p)
+  {
+    double retVal=0.0;
+    for (int k=0; k<p.length; k++)
+    {
+      int a=p[k];
+      int b=p[(k+1==p.length) ? 0 : k+1];
+      retVal+=x[a]*y[b]-x[b]*y[a];
+    }
+    return 0.5*retVal;
+  }
+
+  // Hull of points idx[0, n), sorts idx.
+  private static int[] chain(double[] x, double[] y, int[] idx, int n)
+  {
+    if (n==0) return new int[0];
+
+    sort(x, y, idx, 0, n-1);
+
+    // Lower hull left to right then upper right to left, sharing the end
+    // points.
+    int[] h=new int[2*n];
+    int k=0;
+    for (int i=0; i<n; i++)
+    {
+      int p=idx[i];
+      while (k>=2 && turn(x, y, h[k-2], h[k-1], p)<=0.0) k--;
+      if (k>0 && same(x, y, h[k-1], p)) continue;
+      h[k++]=p;
+    }
+    int lower=k+1;
+    for (int i=n-2; i>=0; i--)
+    {
+      int p=idx[i];
+      while (k>=lower && turn(x, y, h[k-2], h[k-1], p)<=0.0) k--;
+      if (same(x, y, h[k-1], p)) continue;
+      h[k++]=p;
+    }
+
+    // Upper hull ends at first point.
+    if (k>1 && same(x, y, h[k-1], h[0])) k--;
+    return Arrays.copyOf(h, k);
+  }
+
+  private static double turn(double[] x, double[] y, int a, int b, int c)
+  {
+    return orient2d(x[a], y[a], x[b], y[b], x[c], y[c]);
+  }
+
+  private static boolean same(double[] x, double[] y, int a, int b)
+  {
+    return x[a]==x[b] && y[a]==y[b];
+  }
+
+  private static boolean less(double[] x, double[] y, int a, int b)
+  {
+    return x[a]<x[b] || (x[a]==x[b] && y[a]<y[b]);
+  }
+
+  // Quicksort of idx[lo, hi] by x then y, insertion sort of short runs.
+  private static void sort(double[] x, double[] y, int[] idx, int lo, int hi)
+  {
+    while (hi-lo>16)
+    {
+      int mid=(lo+hi)>>>1;
+      if (less(x, y, idx[mid], idx[lo])) swap(idx, mid, lo);
+      if (less(x, y, idx[hi], idx[lo])) swap(idx, hi, lo);
+      if (less(x, y, idx[hi], idx[mid])) swap(idx, hi, mid);
+      int p=idx[mid];
+      int i=lo;
+      int j=hi;
+      while (i<=j)
+      {
+        while (less(x, y, idx[i], p)) i++;
+        while (less(x, y, p, idx[j])) j--;
+        if (i<=j) swap(idx, i++, j--);
+      }
+
+      // Recurse on the shorter part, loop on the longer.
+      if (j-lo<hi-i)
+      {
+        sort(x, y, idx, lo, j);
+        lo=i;
+      }
+      else
+      {
+        sort(x, y, idx, i, hi);
+        hi=j;
+      }
+    }
+
+    for (int i=lo+1; i<=hi; i++)
+    {
+      int v=idx[i];
+      int j=i-1;
+      while (j>=lo && less(x, y, v, idx[j]))
+      {
+        idx[j+1]=idx[j];
+        j--;
+      }
+      idx[j+1]=v;
+    }
+  }
+
+  private static void swap(int[] a, int i, int j)
+  {
+    int t=a[i];
+    a[i]=a[j];
+    a[j]=t;
+  }
+
+  // Fork-join task for parallel hull: Hulls of halves merged.
+  private static final class HullTask extends RecursiveTask<int[]>
+  {
+    private static final long serialVersionUID=1L;
+
+    private final double[] m_x;
+
+    private final double[] m_y;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    HullTask(double[] x, double[] y, int from, int to)
+    {
+      m_x=x;
+      m_y=y;
+      m_from=from;
+      m_to=to;
+    }
+
+    @Override
+    protected int[] compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        int n=m_to-m_from;
+        int[] idx=new int[n];
+        for (int i=0; i<n; i++) idx[i]=m_from+i;
+        return chain(m_x, m_y, idx, n);
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      HullTask a=new HullTask(m_x, m_y, m_from, mid);
+      HullTask b=new HullTask(m_x, m_y, mid, m_to);
+      invokeAll(a, b);
+      int[] ha=a.join();
+      int[] hb=b.join();
+      int[] idx=Arrays.copyOf(ha, ha.length+hb.length);
+      System.arraycopy(hb, 0, idx, ha.length, hb.length);
+      return chain(m_x, m_y, idx, idx.length);
+    }
+  }
+
+}
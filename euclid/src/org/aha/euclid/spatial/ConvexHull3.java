@@ -0,0 +1,939 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.spatial;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.sqrt;
+import static org.aha.euclid.math.EuclidMath.cross0;
+import static org.aha.euclid.math.EuclidMath.cross1;
+import static org.aha.euclid.math.EuclidMath.cross2;
+import static org.aha.euclid.math.EuclidMath.dot;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+import org.aha.euclid.Mesh3;
+import org.aha.euclid.Plane3;
+
+/**
+ * <p>
+ *   Convex hull of points in 3D.
+ * </p>
+ * <p>
+ *   Computed with QuickHull: From a tetrahedron of extreme points each
+ *   remaining point is assigned to a facet it is above. Repeatedly the
+ *   point furthest above a facet is added: The facets it sees are replaced
+ *   by a cone of triangles from the point to the horizon and the points
+ *   above the removed facets reassigned to the new. Points not above any
+ *   facet are inside and dropped.
+ * </p>
+ * <p>
+ *   Distances are compared to a tolerance scaled by the magnitude of the
+ *   coordinates: Points within it of a facet are not above it, so points
+ *   on the hull's surface, for example on a face of a grid, are in general
+ *   not vertices. Facets are triangles, a planar face of the hull is
+ *   several facets.
+ * </p>
+ * <p>
+ *   In parallel mode runs of
+ *   {@link #PARALLEL_THRESHOLD} points are hulled in the common fork-join
+ *   pool, hulls merged by hulling their vertices and the hull of all points
+ *   computed from the vertices of the merged hulls. Where the hulls keep
+ *   most of their points, as for points on a sphere, they are not merged
+ *   but left to the hull of all. This pays for millions of points on
+ *   several cores, for fewer points or one core hull sequentially.
+ * </p>
+ * <p>
+ *   Points can also be added one by one with
+ *   {@link #add(double, double, double)}: A point outside the hull is added
+ *   as QuickHull adds points, one inside only stored. While all points are
+ *   coplanar there are no facets.
+ * </p>
+ * <p>
+ *   Objects of this class are not thread safe.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class ConvexHull3
+{
+  /**
+   * <p>
+   *   Number of points a fork-join task hulls without splitting.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=1<<16;
+
+  private static final double EPSILON=Math.ulp(1.0);
+
+  // Points, x, y and z at 3*i.
+  private double[] m_p;
+
+  private int m_n=0;
+
+  // Largest absolute coordinates, tolerance scaled by their sum.
+
+  private double m_ax=0.0;
+
+  private double m_ay=0.0;
+
+  private double m_az=0.0;
+
+  private double m_tol=0.0;
+
+  // While no facets the number of points spanning the points in m_span:
+  // One if all are equal, two if on a line, three if in a plane. Four when
+  // facets.
+  private int m_rank=0;
+
+  private final int[] m_span=new int[3];
+
+  private final double[] m_spanPlane=new double[4];
+
+  // Facets: Three vertices counter clockwise seen from outside, neighbour k
+  // across edge from vertex k to k+1 and plane as unit normal and offset.
+  // Removed facets have vertex -1 and are reused.
+
+  private int[] m_fv=new int[48];
+
+  private int[] m_fn=new int[48];
+
+  private double[] m_fp=new double[64];
+
+  private int m_slots=0;
+
+  private int m_size=0;
+
+  private int[] m_free=new int[16];
+
+  private int m_freeCount=0;
+
+  // Per facet: Points above as list linked by m_next, the furthest and its
+  // distance.
+
+  private int[] m_out=new int[16];
+
+  private int[] m_far=new int[16];
+
+  private double[] m_farDist=new double[16];
+
+  // Per facet visit mark: m_stamp if visible, -m_stamp if not.
+  private int[] m_mark=new int[16];
+
+  private int m_stamp=0;
+
+  // Per point: Next in list of points above facet, new facet starting at
+  // point on horizon.
+
+  private int[] m_next;
+
+  private int[] m_startAt;
+
+  // Scratch.
+
+  private int[] m_work=new int[16];
+
+  private int m_workCount=0;
+
+  private int[] m_stack=new int[16];
+
+  private int[] m_visible=new int[16];
+
+  private int[] m_cone=new int[16];
+
+  // Result: Live facets, null when changed.
+  private int[] m_live;
+
+  /**
+   * <p>
+   *   Creates hull with no points, add points with
+   *   {@link #add(double, double, double)}.
+   * </p>
+   */
+  public ConvexHull3()
+  {
+    m_p=new double[48];
+    m_next=new int[16];
+    m_startAt=new int[16];
+    Arrays.fill(m_startAt, -1);
+  }
+
+  /**
+   * <p>
+   *   Computes convex hull.
+   * </p>
+   * @param p Points, x, y and z coordinates of point {@code i} at
+   *          {@code 3*i}.
+   * @throws IllegalArgumentException If {@code p.length} not a multiple of
+   *         {@code 3}.
+   */
+  public ConvexHull3(double[] p){ this(p, false); }
+
+  /**
+   * <p>
+   *   Computes convex hull.
+   * </p>
+   * @param p        Points, x, y and z coordinates of point {@code i} at
+   *                 {@code 3*i}.
+   * @param parallel If to use the common fork-join pool, for millions of
+   *                 points.
+   * @throws IllegalArgumentException If {@code p.length} not a multiple of
+   *         {@code 3}.
+   */
+  public ConvexHull3(double[] p, boolean parallel)
+  {
+    if (p.length%3!=0)
+    {
+      throw new IllegalArgumentException("p.length%3!=0 : "+p.length);
+    }
+
+    m_p=p.clone();
+    m_n=p.length/3;
+    m_next=new int[m_n];
+    m_startAt=new int[m_n];
+    Arrays.fill(m_startAt, -1);
+    for (int i=0; i<m_n; i++) grow(i);
+
+    int[] idx;
+    if (parallel && m_n>PARALLEL_THRESHOLD)
+    {
+      idx=new HullTask(m_p, 0, m_n).invoke();
+    }
+    else
+    {
+      idx=new int[m_n];
+      for (int i=0; i<m_n; i++) idx[i]=i;
+    }
+    build(idx, idx.length);
+  }
+
+  /**
+   * <p>
+   *   Gets number of points.
+   * </p>
+   * @return Count.
+   */
+  public int getPointCount(){ return m_n; }
+
+  /**
+   * <p>
+   *   Gets point.
+   * </p>
+   * @param i Index of point.
+   * @param p Assigned to point. If {@code null} allocates.
+   * @return Point.
+   */
+  public double[] getPoint(int i, double[] p)
+  {
+    if (i<0 || i>=m_n)
+    {
+      throw new IndexOutOfBoundsException("i : "+i+" size : "+m_n);
+    }
+
+    p=(p==null) ? new double[3] : p;
+    p[0]=m_p[3*i];
+    p[1]=m_p[3*i+1];
+    p[2]=m_p[3*i+2];
+    return p;
+  }
+
+  /**
+   * <p>
+   *   Gets the tolerance distances to facets are compared to.
+   * </p>
+   * @return Tolerance.
+   */
+  public double getTolerance(){ return m_tol; }
+
+  /**
+   * <p>
+   *   Gets number of facets.
+   * </p>
+   * @return Count, {@code 0} if all points are coplanar.
+   */
+  public int size(){ return m_size; }
+
+  /**
+   * <p>
+   *   Gets the facets.
+   * </p>
+   * @return Indices of points, three per facet in counter clockwise order
+   *         seen from outside.
+   */
+  public int[] getTriangles()
+  {
+    int[] live=live();
+    int[] retVal=new int[3*live.length];
+    for (int k=0; k<live.length; k++)
+    {
+      System.arraycopy(m_fv, 3*live[k], retVal, 3*k, 3);
+    }
+    return retVal;
+  }
+
+  /**
+   * <p>
+   *   Gets index of a point of a facet.
+   * </p>
+   * @param k Index of facet.
+   * @param i Index of point in facet: {@code 0}, {@code 1} or {@code 2}.
+   * @return Index of point.
+   */
+  public int getPoint(int k, int i)
+  {
+    if (i<0 || i>2)
+    {
+      throw new IllegalArgumentException("i not in [0, 2] : "+i);
+    }
+    return m_fv[3*facet(k)+i];
+  }
+
+  /**
+   * <p>
+   *   Gets plane of a facet.
+   * </p>
+   * @param k Index of facet.
+   * @param p Assigned to plane through the facet's first point with normal
+   *          pointing out. If {@code null} allocates.
+   * @return Plane.
+   */
+  public Plane3 getPlane(int k, Plane3 p)
+  {
+    p=(p==null) ? new Plane3() : p;
+    int f=facet(k);
+    int a=3*m_fv[3*f];
+    p.set(m_p[a], m_p[a+1], m_p[a+2], m_fp[4*f], m_fp[4*f+1], m_fp[4*f+2]);
+    return p;
+  }
+
+  /**
+   * <p>
+   *   Gets the vertices of the hull.
+   * </p>
+   * @return Indices of points, ascending. Empty if no facets.
+   */
+  public int[] getVertices()
+  {
+    int[] live=live();
+    int[] v=new int[3*live.length];
+    for (int k=0; k<live.length; k++)
+    {
+      System.arraycopy(m_fv, 3*live[k], v, 3*k, 3);
+    }
+    Arrays.sort(v);
+    int n=0;
+    for (int i=0; i<v.length; i++)
+    {
+      if (n==0 || v[n-1]!=v[i]) v[n++]=v[i];
+    }
+    return Arrays.copyOf(v, n);
+  }
+
+  /**
+   * <p>
+   *   Creates mesh of the facets.
+   * </p>
+   * @return Mesh with all points as vertices.
+   */
+  public Mesh3 toMesh()
+  {
+    return new Mesh3(Arrays.copyOf(m_p, 3*m_n), getTriangles());
+  }
+
+  /**
+   * <p>
+   *   Computes the volume of the hull.
+   * </p>
+   * @return Volume, {@code 0.0} if no facets.
+   */
+  public double volume()
+  {
+    if (m_size==0) return 0.0;
+
+    // Tetrahedra from a vertex to facets.
+    int o=3*m_fv[3*live()[0]];
+    double ox=m_p[o];
+    double oy=m_p[o+1];
+    double oz=m_p[o+2];
+    double retVal=0.0;
+    for (int f : live())
+    {
+      int a=3*m_fv[3*f];
+      int b=3*m_fv[3*f+1];
+      int c=3*m_fv[3*f+2];
+      double ux=m_p[a]-ox, uy=m_p[a+1]-oy, uz=m_p[a+2]-oz;
+      double vx=m_p[b]-ox, vy=m_p[b+1]-oy, vz=m_p[b+2]-oz;
+      double wx=m_p[c]-ox, wy=m_p[c+1]-oy, wz=m_p[c+2]-oz;
+      retVal+=dot(ux, uy, uz, cross0(vx, vy, vz, wx, wy, wz),
+        cross1(vx, vy, vz, wx, wy, wz), cross2(vx, vy, vz, wx, wy, wz));
+    }
+    return retVal/6.0;
+  }
+
+  /**
+   * <p>
+   *   Tells if a point is inside or on the hull, within the tolerance.
+   * </p>
+   * @param x X coordinate of point.
+   * @param y Y coordinate of point.
+   * @param z Z coordinate of point.
+   * @return {@code true} if inside, {@code false} if outside or no
+   *         facets.
+   */
+  public boolean contains(double x, double y, double z)
+  {
+    if (m_size==0) return false;
+
+    for (int f : live())
+    {
+      if (dist(f, x, y, z)>m_tol) return false;
+    }
+    return true;
+  }
+
+  /**
+   * <p>
+   *   Adds point, extending the hull if outside.
+   * </p>
+   * @param x X coordinate of point.
+   * @param y Y coordinate of point.
+   * @param z Z coordinate of point.
+   * @return Index of point.
+   */
+  public int add(double x, double y, double z)
+  {
+    int i=m_n++;
+    if (3*m_n>m_p.length)
+    {
+      m_p=Arrays.copyOf(m_p, max(48, 2*m_p.length));
+    }
+    if (m_n>m_next.length)
+    {
+      int l=m_next.length;
+      m_next=Arrays.copyOf(m_next, max(16, 2*l));
+      m_startAt=Arrays.copyOf(m_startAt, m_next.length);
+      Arrays.fill(m_startAt, l, m_startAt.length, -1);
+    }
+    m_p[3*i]=x;
+    m_p[3*i+1]=y;
+    m_p[3*i+2]=z;
+    grow(i);
+
+    if (m_rank<4)
+    {
+      // Builds again when the points' span grows, at most four times.
+      if (outsideSpan(i))
+      {
+        int[] idx=new int[m_n];
+        for (int j=0; j<m_n; j++) idx[j]=j;
+        build(idx, m_n);
+      }
+      return i;
+    }
+
+    int best=-1;
+    double bestDist=m_tol;
+    for (int f=0; f<m_slots; f++)
+    {
+      if (m_fv[3*f]<0) continue;
+      double d=dist(f, i);
+      if (d>bestDist)
+      {
+        best=f;
+        bestDist=d;
+      }
+    }
+    if (best>=0) addEye(i, best);
+    return i;
+  }
+
+  // Updates largest coordinates and tolerance with point i.
+  private void grow(int i)
+  {
+    m_ax=max(m_ax, abs(m_p[3*i]));
+    m_ay=max(m_ay, abs(m_p[3*i+1]));
+    m_az=max(m_az, abs(m_p[3*i+2]));
+    m_tol=3.0*EPSILON*(m_ax+m_ay+m_az);
+  }
+
+  // QuickHull of points idx[0, n).
+  private void build(int[] idx, int n)
+  {
+    m_slots=0;
+    m_size=0;
+    m_freeCount=0;
+    m_workCount=0;
+    m_live=null;
+
+    if (!simplex(idx, n)) return;
+
+    for (int j=0; j<n; j++)
+    {
+      int i=idx[j];
+      int best=-1;
+      double bestDist=m_tol;
+      for (int f=0; f<4; f++)
+      {
+        double d=dist(f, i);
+        if (d>bestDist)
+        {
+          best=f;
+          bestDist=d;
+        }
+      }
+      if (best>=0) above(best, i, bestDist);
+    }
+
+    while (m_workCount>0)
+    {
+      int f=m_work[--m_workCount];
+      if (m_fv[3*f]>=0 && m_out[f]>=0) addEye(m_far[f], f);
+    }
+  }
+
+  // Creates tetrahedron of extreme points, if the points are not coplanar.
+  private boolean simplex(int[] idx, int n)
+  {
+    if (n==0)
+    {
+      m_rank=0;
+      return false;
+    }
+
+    // End points of the largest extent along an axis.
+    int[] lo=new int[]{ idx[0], idx[0], idx[0] };
+    int[] hi=new int[]{ idx[0], idx[0], idx[0] };
+    for (int j=1; j<n; j++)
+    {
+      int i=idx[j];
+      for (int a=0; a<3; a++)
+      {
+        if (m_p[3*i+a]<m_p[3*lo[a]+a]) lo[a]=i;
+        if (m_p[3*i+a]>m_p[3*hi[a]+a]) hi[a]=i;
+      }
+    }
+    int axis=0;
+    double extent=-1.0;
+    for (int a=0; a<3; a++)
+    {
+      double e=m_p[3*hi[a]+a]-m_p[3*lo[a]+a];
+      if (e>extent)
+      {
+        axis=a;
+        extent=e;
+      }
+    }
+    int v0=lo[axis];
+    int v1=hi[axis];
+    m_span[0]=v0;
+    if (extent<=m_tol)
+    {
+      m_rank=1;
+      return false;
+    }
+
+    // Furthest from line.
+    double ux=m_p[3*v1]-m_p[3*v0];
+    double uy=m_p[3*v1+1]-m_p[3*v0+1];
+    double uz=m_p[3*v1+2]-m_p[3*v0+2];
+    int v2=-1;
+    double best=-1.0;
+    for (int j=0; j<n; j++)
+    {
+      int i=idx[j];
+      double d=lineDist2(v0, ux, uy, uz, i);
+      if (d>best)
+      {
+        v2=i;
+        best=d;
+      }
+    }
+    m_span[1]=v1;
+    if (sqrt(best/dot(ux, uy, uz))<=m_tol)
+    {
+      m_rank=2;
+      return false;
+    }
+
+    // Furthest from plane.
+    double[] q=m_spanPlane;
+    plane(v0, v1, v2, q, 0);
+    int v3=-1;
+    best=-1.0;
+    for (int j=0; j<n; j++)
+    {
+      int i=idx[j];
+      double d=abs(q[0]*m_p[3*i]+q[1]*m_p[3*i+1]+q[2]*m_p[3*i+2]-q[3]);
+      if (d>best)
+      {
+        v3=i;
+        best=d;
+      }
+    }
+    m_span[2]=v2;
+    if (best<=m_tol)
+    {
+      m_rank=3;
+      return false;
+    }
+
+    m_rank=4;
+    if (q[0]*m_p[3*v3]+q[1]*m_p[3*v3+1]+q[2]*m_p[3*v3+2]-q[3]<0.0)
+    {
+      int t=v1;
+      v1=v2;
+      v2=t;
+    }
+
+    // v3 above v0, v1, v2 counter clockwise.
+    int f0=newFacet(v0, v2, v1);
+    int f1=newFacet(v0, v1, v3);
+    int f2=newFacet(v1, v2, v3);
+    int f3=newFacet(v2, v0, v3);
+    link(f0, f1);
+    link(f0, f2);
+    link(f0, f3);
+    link(f1, f2);
+    link(f1, f3);
+    link(f2, f3);
+    return true;
+  }
+
+  // Tells if point i is outside the points' span while no facets.
+  private boolean outsideSpan(int i)
+  {
+    int s0=m_span[0];
+    switch (m_rank)
+    {
+      case 0 : return true;
+      case 1 :
+        return abs(m_p[3*i]-m_p[3*s0])>m_tol ||
+               abs(m_p[3*i+1]-m_p[3*s0+1])>m_tol ||
+               abs(m_p[3*i+2]-m_p[3*s0+2])>m_tol;
+      case 2 :
+        int s1=m_span[1];
+        double ux=m_p[3*s1]-m_p[3*s0];
+        double uy=m_p[3*s1+1]-m_p[3*s0+1];
+        double uz=m_p[3*s1+2]-m_p[3*s0+2];
+        return sqrt(lineDist2(s0, ux, uy, uz, i)/dot(ux, uy, uz))>m_tol;
+      default :
+        double[] q=m_spanPlane;
+        return abs(q[0]*m_p[3*i]+q[1]*m_p[3*i+1]+q[2]*m_p[3*i+2]-q[3])>
+          m_tol;
+    }
+  }
+
+  // Squared distance from point i to line through point o along u, times
+  // |u|^2.
+  private double lineDist2(int o, double ux, double uy, double uz, int i)
+  {
+    double wx=m_p[3*i]-m_p[3*o];
+    double wy=m_p[3*i+1]-m_p[3*o+1];
+    double wz=m_p[3*i+2]-m_p[3*o+2];
+    return dot(cross0(ux, uy, uz, wx, wy, wz), cross1(ux, uy, uz, wx, wy, wz),
+      cross2(ux, uy, uz, wx, wy, wz));
+  }
+
+  // Unit normal and offset of plane through a, b and c to q at o. Offset
+  // from the centroid for accuracy.
+  private void plane(int a, int b, int c, double[] q, int o)
+  {
+    double ax=m_p[3*a], ay=m_p[3*a+1], az=m_p[3*a+2];
+    double ux=m_p[3*b]-ax, uy=m_p[3*b+1]-ay, uz=m_p[3*b+2]-az;
+    double vx=m_p[3*c]-ax, vy=m_p[3*c+1]-ay, vz=m_p[3*c+2]-az;
+    double nx=cross0(ux, uy, uz, vx, vy, vz);
+    double ny=cross1(ux, uy, uz, vx, vy, vz);
+    double nz=cross2(ux, uy, uz, vx, vy, vz);
+    double l=sqrt(dot(nx, ny, nz));
+    if (l>0.0)
+    {
+      nx/=l;
+      ny/=l;
+      nz/=l;
+    }
+    double cx=(ax+m_p[3*b]+m_p[3*c])/3.0;
+    double cy=(ay+m_p[3*b+1]+m_p[3*c+1])/3.0;
+    double cz=(az+m_p[3*b+2]+m_p[3*c+2])/3.0;
+    q[o]=nx;
+    q[o+1]=ny;
+    q[o+2]=nz;
+    q[o+3]=dot(nx, ny, nz, cx, cy, cz);
+  }
+
+  private double dist(int f, int i)
+  {
+    return dist(f, m_p[3*i], m_p[3*i+1], m_p[3*i+2]);
+  }
+
+  private double dist(int f, double x, double y, double z)
+  {
+    int o=4*f;
+    return m_fp[o]*x+m_fp[o+1]*y+m_fp[o+2]*z-m_fp[o+3];
+  }
+
+  private int newFacet(int a, int b, int c)
+  {
+    int f;
+    if (m_freeCount>0)
+    {
+      f=m_free[--m_freeCount];
+    }
+    else
+    {
+      f=m_slots++;
+      if (f==m_out.length)
+      {
+        int l=2*f;
+        m_fv=Arrays.copyOf(m_fv, 3*l);
+        m_fn=Arrays.copyOf(m_fn, 3*l);
+        m_fp=Arrays.copyOf(m_fp, 4*l);
+        m_out=Arrays.copyOf(m_out, l);
+        m_far=Arrays.copyOf(m_far, l);
+        m_farDist=Arrays.copyOf(m_farDist, l);
+        m_mark=Arrays.copyOf(m_mark, l);
+      }
+    }
+    m_fv[3*f]=a;
+    m_fv[3*f+1]=b;
+    m_fv[3*f+2]=c;
+    m_fn[3*f]=-1;
+    m_fn[3*f+1]=-1;
+    m_fn[3*f+2]=-1;
+    plane(a, b, c, m_fp, 4*f);
+    m_out[f]=-1;
+    m_far[f]=-1;
+    m_farDist[f]=0.0;
+    m_mark[f]=0;
+    m_size++;
+    m_live=null;
+    return f;
+  }
+
+  // Links facets f and g sharing an edge.
+  private void link(int f, int g)
+  {
+    for (int k=0; k<3; k++)
+    {
+      int a=m_fv[3*f+k];
+      int b=m_fv[3*f+(k+1)%3];
+      for (int j=0; j<3; j++)
+      {
+        if (m_fv[3*g+j]==b && m_fv[3*g+(j+1)%3]==a)
+        {
+          m_fn[3*f+k]=g;
+          m_fn[3*g+j]=f;
+          return;
+        }
+      }
+    }
+  }
+
+  // Adds point i at distance d above facet f to its list.
+  private void above(int f, int i, double d)
+  {
+    if (m_out[f]<0)
+    {
+      m_work=add(m_work, m_workCount++, f);
+    }
+    m_next[i]=m_out[f];
+    m_out[f]=i;
+    if (d>m_farDist[f])
+    {
+      m_far[f]=i;
+      m_farDist[f]=d;
+    }
+  }
+
+  // Adds point e above facet f0: Replaces the facets e sees by a cone from
+  // e to the horizon.
+  private void addEye(int e, int f0)
+  {
+    int stamp=++m_stamp;
+
+    // Visible facets by depth first search from f0.
+    int nv=0;
+    int ns=0;
+    m_mark[f0]=stamp;
+    m_stack=add(m_stack, ns++, f0);
+    while (ns>0)
+    {
+      int f=m_stack[--ns];
+      m_visible=add(m_visible, nv++, f);
+      for (int k=0; k<3; k++)
+      {
+        int g=m_fn[3*f+k];
+        if (m_mark[g]==stamp || m_mark[g]==-stamp) continue;
+        if (dist(g, e)>m_tol)
+        {
+          m_mark[g]=stamp;
+          m_stack=add(m_stack, ns++, g);
+        }
+        else
+        {
+          m_mark[g]=-stamp;
+        }
+      }
+    }
+
+    // Cone: A facet per horizon edge a to b keeping its orientation,
+    // linked to the facet behind the edge.
+    int nc=0;
+    for (int j=0; j<nv; j++)
+    {
+      int f=m_visible[j];
+      for (int k=0; k<3; k++)
+      {
+        int g=m_fn[3*f+k];
+        if (m_mark[g]==stamp) continue;
+        int a=m_fv[3*f+k];
+        int b=m_fv[3*f+(k+1)%3];
+        int c=newFacet(a, b, e);
+        m_cone=add(m_cone, nc++, c);
+        m_fn[3*c]=g;
+        for (int i=0; i<3; i++)
+        {
+          if (m_fn[3*g+i]==f && m_fv[3*g+i]==b) m_fn[3*g+i]=c;
+        }
+        m_startAt[a]=c;
+      }
+    }
+
+    // The facet of edge b to e is the one starting at b.
+    for (int j=0; j<nc; j++)
+    {
+      int c=m_cone[j];
+      int d=m_startAt[m_fv[3*c+1]];
+      m_fn[3*c+1]=d;
+      m_fn[3*d+2]=c;
+    }
+    for (int j=0; j<nc; j++) m_startAt[m_fv[3*m_cone[j]]]=-1;
+
+    // Points above removed facets to the cone.
+    for (int j=0; j<nv; j++)
+    {
+      int f=m_visible[j];
+      for (int i=m_out[f]; i>=0;)
+      {
+        int next=m_next[i];
+        if (i!=e)
+        {
+          int best=-1;
+          double bestDist=m_tol;
+          for (int k=0; k<nc; k++)
+          {
+            double d=dist(m_cone[k], i);
+            if (d>bestDist)
+            {
+              best=m_cone[k];
+              bestDist=d;
+            }
+          }
+          if (best>=0) above(best, i, bestDist);
+        }
+        i=next;
+      }
+
+      m_fv[3*f]=-1;
+      m_free=add(m_free, m_freeCount++, f);
+      m_size--;
+    }
+  }
+
+  // Indices of live facets.
+  private int[] live()
+  {
+    if (m_live==null)
+    {
+      int[] l=new int[m_size];
+      int n=0;
+      for (int f=0; f<m_slots; f++) if (m_fv[3*f]>=0) l[n++]=f;
+      m_live=l;
+    }
+    return m_live;
+  }
+
+  private int facet(int k)
+  {
+    int[] live=live();
+    if (k<0 || k>=live.length)
+    {
+      throw new IndexOutOfBoundsException("k : "+k+" size : "+live.length);
+    }
+    return live[k];
+  }
+
+  private static int[] add(int[] a, int n, int v)
+  {
+    if (n==a.length) a=Arrays.copyOf(a, max(16, 2*n));
+    a[n]=v;
+    return a;
+  }
+
+  // Fork-join task for parallel hull: Vertices of hulls of halves hulled.
+  private static final class HullTask extends RecursiveTask<int[]>
+  {
+    private static final long serialVersionUID=1L;
+
+    private final double[] m_p;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    HullTask(double[] p, int from, int to)
+    {
+      m_p=p;
+      m_from=from;
+      m_to=to;
+    }
+
+    @Override
+    protected int[] compute()
+    {
+      int[] idx;
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        idx=new int[m_to-m_from];
+        for (int i=0; i<idx.length; i++) idx[i]=m_from+i;
+      }
+      else
+      {
+        int mid=(m_from+m_to)>>>1;
+        HullTask a=new HullTask(m_p, m_from, mid);
+        HullTask b=new HullTask(m_p, mid, m_to);
+        invokeAll(a, b);
+        int[] va=a.join();
+        int[] vb=b.join();
+        idx=Arrays.copyOf(va, va.length+vb.length);
+        System.arraycopy(vb, 0, idx, va.length, vb.length);
+
+        // Halves' hulls kept most points, as on a sphere: Hulling again
+        // would repeat their work, leave it to the hull of all.
+        if (2*idx.length>m_to-m_from) return idx;
+      }
+
+      double[] q=new double[3*idx.length];
+      for (int j=0; j<idx.length; j++)
+      {
+        System.arraycopy(m_p, 3*idx[j], q, 3*j, 3);
+      }
+      ConvexHull3 h=new ConvexHull3(q);
+
+      // All kept if coplanar.
+      if (h.size()==0) return idx;
+
+      int[] v=h.getVertices();
+      for (int j=0; j<v.length; j++) v[j]=idx[v[j]];
+      return v;
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "ConvexHull3[points="+m_n+", facets="+m_size+"]";
+  }
+
+}
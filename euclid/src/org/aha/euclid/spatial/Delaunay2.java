@@ -0,0 +1,540 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.spatial;
+
+import static org.aha.euclid.math.Predicates.incircle;
+import static org.aha.euclid.math.Predicates.orient2d;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.aha.euclid.Triangle2;
+import org.aha.euclid.math.Predicates;
+
+/**
+ * <p>
+ *   Delaunay triangulation of points in 2D.
+ * </p>
+ * <p>
+ *   Points are inserted one by one (Bowyer-Watson): The triangles whose
+ *   circumscribed circle contains the point are replaced by triangles
+ *   connecting the point to the boundary of the hole. Triangles are stored
+ *   as vertex and neighbour indices in {@code int[]}s. The outside is
+ *   covered by ghost triangles sharing a vertex at infinity, so points
+ *   outside the convex hull are inserted as others.
+ * </p>
+ * <p>
+ *   The points are inserted in biased randomized insertion order (BRIO):
+ *   Shuffled, split in rounds doubling in size and each round sorted along
+ *   a Hilbert curve. The triangle containing a point is then found by
+ *   walking from the last triangle created a few steps.
+ * </p>
+ * <p>
+ *   The orientation and in-circle tests are done with
+ *   {@link Predicates} so the result is exact also for degenerate input,
+ *   for example points on a grid. Duplicated points are not part of any
+ *   triangle. If all points are on a line there are no triangles.
+ * </p>
+ * <p>
+ *   Objects of this class are immutable and so thread safe.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Delaunay2
+{
+  // The vertex at infinity, always the third vertex of ghost triangles.
+  private static final int INF=-1;
+
+  private final double[] m_x;
+
+  private final double[] m_y;
+
+  // Result: Real triangles, three vertices each in counter clockwise order.
+  private final int[] m_tris;
+
+  // Build: Per triangle three vertices and the three neighbours, neighbour
+  // k across the edge opposite vertex k.
+  private int[] m_v=new int[96];
+
+  private int[] m_n=new int[96];
+
+  private int m_triCount=0;
+
+  private int m_last=0;
+
+  // Build scratch.
+  private int[] m_mark=new int[32];
+
+  private int m_stamp=0;
+
+  private int[] m_stack=new int[32];
+
+  private int[] m_cavity=new int[32];
+
+  private int[] m_edges=new int[160];
+
+  private int[] m_startAt;
+
+  private int[] m_endAt;
+
+  // Build: Points in insertion order, for memory locality.
+  private double[] m_bx;
+
+  private double[] m_by;
+
+  /**
+   * <p>
+   *   Triangulates.
+   * </p>
+   * @param x X coordinates of points.
+   * @param y Y coordinates of points.
+   * @throws IllegalArgumentException If {@code x} and {@code y} not of same
+   *         length.
+   */
+  public Delaunay2(double[] x, double[] y){ this(x, y, false); }
+
+  /**
+   * <p>
+   *   Triangulates.
+   * </p>
+   * @param x        X coordinates of points.
+   * @param y        Y coordinates of points.
+   * @param parallel If to compute the insertion order using the common
+   *                 fork-join pool, for millions of points.
+   * @throws IllegalArgumentException If {@code x} and {@code y} not of same
+   *         length.
+   */
+  public Delaunay2(double[] x, double[] y, boolean parallel)
+  {
+    if (x.length!=y.length)
+    {
+      throw new IllegalArgumentException("x.length!=y.length : "+x.length+
+        "!="+y.length);
+    }
+
+    int n=x.length;
+    m_x=x.clone();
+    m_y=y.clone();
+    m_startAt=new int[n+1];
+    m_endAt=new int[n+1];
+
+    // Vertices are indices in insertion order while building.
+    int[] order=order(parallel);
+    m_bx=new double[n];
+    m_by=new double[n];
+    int[] seq=new int[n];
+    for (int i=0; i<n; i++)
+    {
+      m_bx[i]=m_x[order[i]];
+      m_by[i]=m_y[order[i]];
+      seq[i]=i;
+    }
+
+    if (start(seq)) for (int i=3; i<n; i++) insert(seq[i]);
+
+    int count=0;
+    for (int t=0; t<m_triCount; t++) if (m_v[3*t+2]!=INF) count++;
+    m_tris=new int[3*count];
+    for (int t=0, k=0; t<m_triCount; t++)
+    {
+      if (m_v[3*t+2]==INF) continue;
+      m_tris[k++]=order[m_v[3*t]];
+      m_tris[k++]=order[m_v[3*t+1]];
+      m_tris[k++]=order[m_v[3*t+2]];
+    }
+
+    m_v=null;
+    m_n=null;
+    m_mark=null;
+    m_stack=null;
+    m_cavity=null;
+    m_edges=null;
+    m_startAt=null;
+    m_endAt=null;
+    m_bx=null;
+    m_by=null;
+  }
+
+  /**
+   * <p>
+   *   Gets number of points.
+   * </p>
+   * @return Count.
+   */
+  public int getPointCount(){ return m_x.length; }
+
+  /**
+   * <p>
+   *   Gets number of triangles.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_tris.length/3; }
+
+  /**
+   * <p>
+   *   Gets the triangles.
+   * </p>
+   * @return Indices of points, three per triangle in counter clockwise
+   *         order.
+   */
+  public int[] getTriangles(){ return m_tris.clone(); }
+
+  /**
+   * <p>
+   *   Gets index of a point of a triangle.
+   * </p>
+   * @param k Index of triangle.
+   * @param i Index of point in triangle: {@code 0}, {@code 1} or {@code 2}.
+   * @return Index of point.
+   */
+  public int getPoint(int k, int i)
+  {
+    if (i<0 || i>2)
+    {
+      throw new IllegalArgumentException("i not in [0, 2] : "+i);
+    }
+    return m_tris[3*k+i];
+  }
+
+  /**
+   * <p>
+   *   Gets triangle.
+   * </p>
+   * @param k Index of triangle.
+   * @param t Assigned to triangle. If {@code null} allocates.
+   * @return Triangle.
+   */
+  public Triangle2 getTriangle(int k, Triangle2 t)
+  {
+    t=(t==null) ? new Triangle2() : t;
+    int a=m_tris[3*k];
+    int b=m_tris[3*k+1];
+    int c=m_tris[3*k+2];
+    t.set(m_x[a], m_y[a], m_x[b], m_y[b], m_x[c], m_y[c]);
+    return t;
+  }
+
+  // BRIO: Shuffled, rounds doubling in size, each sorted along Hilbert
+  // curve.
+  private int[] order(boolean parallel)
+  {
+    int n=m_x.length;
+
+    double minx=Double.POSITIVE_INFINITY;
+    double miny=Double.POSITIVE_INFINITY;
+    double maxx=Double.NEGATIVE_INFINITY;
+    double maxy=Double.NEGATIVE_INFINITY;
+    for (int i=0; i<n; i++)
+    {
+      minx=Math.min(minx, m_x[i]);
+      miny=Math.min(miny, m_y[i]);
+      maxx=Math.max(maxx, m_x[i]);
+      maxy=Math.max(maxy, m_y[i]);
+    }
+    double ext=Math.max(maxx-minx, maxy-miny);
+    final double s=(ext>0.0) ? 65535.0/ext : 0.0;
+    final double x0=minx;
+    final double y0=miny;
+
+    // Fixed seed so results are repeatable.
+    final int[] perm=new int[n];
+    for (int i=0; i<n; i++) perm[i]=i;
+    Random r=new Random(0x5DEECE66DL);
+    for (int i=n-1; i>0; i--)
+    {
+      int j=r.nextInt(i+1);
+      int t=perm[i];
+      perm[i]=perm[j];
+      perm[j]=t;
+    }
+
+    long[] keys=new long[n];
+    if (parallel)
+    {
+      Arrays.parallelSetAll(keys, i -> key(perm[i], x0, y0, s));
+    }
+    else
+    {
+      Arrays.setAll(keys, i -> key(perm[i], x0, y0, s));
+    }
+
+    int to=n;
+    while (to>0)
+    {
+      int from=(to<=64) ? 0 : to/2;
+      if (parallel)
+      {
+        Arrays.parallelSort(keys, from, to);
+      }
+      else
+      {
+        Arrays.sort(keys, from, to);
+      }
+      to=from;
+    }
+
+    int[] retVal=new int[n];
+    for (int i=0; i<n; i++) retVal[i]=(int)keys[i];
+    return retVal;
+  }
+
+  private long key(int i, double x0, double y0, double s)
+  {
+    int hx=(int)((m_x[i]-x0)*s);
+    int hy=(int)((m_y[i]-y0)*s);
+    return (hilbert(hx, hy)<<32)|i;
+  }
+
+  // Distance along Hilbert curve of order 16 of (x, y) in [0, 65535].
+  private static long hilbert(int x, int y)
+  {
+    long d=0;
+    for (int s=1<<15; s>0; s>>>=1)
+    {
+      int rx=((x&s)!=0) ? 1 : 0;
+      int ry=((y&s)!=0) ? 1 : 0;
+      d+=(long)s*s*((3*rx)^ry);
+      if (ry==0)
+      {
+        if (rx==1)
+        {
+          x=65535-x;
+          y=65535-y;
+        }
+        int t=x;
+        x=y;
+        y=t;
+      }
+    }
+    return d;
+  }
+
+  // Creates first triangle and moves its points first in order, false if
+  // all points on a line.
+  private boolean start(int[] order)
+  {
+    int n=order.length;
+    if (n<3) return false;
+
+    int a=order[0];
+    int ib=-1;
+    for (int i=1; i<n && ib==-1; i++)
+    {
+      int p=order[i];
+      if (m_bx[p]!=m_bx[a] || m_by[p]!=m_by[a]) ib=i;
+    }
+    if (ib==-1) return false;
+    int b=order[ib];
+
+    int ic=-1;
+    double o=0.0;
+    for (int i=ib+1; i<n && ic==-1; i++)
+    {
+      int p=order[i];
+      o=orient2d(m_bx[a], m_by[a], m_bx[b], m_by[b], m_bx[p], m_by[p]);
+      if (o!=0.0) ic=i;
+    }
+    if (ic==-1) return false;
+    int c=order[ic];
+
+    order[ic]=order[2];
+    order[ib]=order[1];
+    order[1]=b;
+    order[2]=c;
+
+    if (o<0.0)
+    {
+      int t=b;
+      b=c;
+      c=t;
+    }
+
+    // Triangle 0 real, 1, 2 and 3 ghosts across its edges.
+    m_triCount=4;
+    set(0, a, b, c, 1, 2, 3);
+    set(1, c, b, INF, 3, 2, 0);
+    set(2, a, c, INF, 1, 3, 0);
+    set(3, b, a, INF, 2, 1, 0);
+    m_last=0;
+    return true;
+  }
+
+  private void insert(int p)
+  {
+    double px=m_bx[p];
+    double py=m_by[p];
+
+    int t=locate(px, py);
+    if (t==-1) return;
+
+    // Cavity: The triangles in conflict, found from t.
+    int stamp=++m_stamp;
+    if (m_mark.length<m_triCount) m_mark=Arrays.copyOf(m_mark,
+      2*m_triCount);
+
+    int ncav=0;
+    int nedges=0;
+    int nstack=0;
+    m_mark[t]=stamp;
+    m_stack[nstack++]=t;
+    while (nstack>0)
+    {
+      int c=m_stack[--nstack];
+      if (ncav==m_cavity.length) m_cavity=Arrays.copyOf(m_cavity, 2*ncav);
+      m_cavity[ncav++]=c;
+
+      for (int k=0; k<3; k++)
+      {
+        int nb=m_n[3*c+k];
+        if (m_mark[nb]==stamp) continue;
+
+        if (conflict(nb, px, py))
+        {
+          m_mark[nb]=stamp;
+          if (nstack==m_stack.length) m_stack=Arrays.copyOf(m_stack,
+            2*nstack);
+          m_stack[nstack++]=nb;
+        }
+        else
+        {
+          // Boundary edge: Its vertices, the triangle outside and the
+          // outside triangle's slot to the cavity.
+          if (nedges+5>m_edges.length) m_edges=Arrays.copyOf(m_edges,
+            2*m_edges.length);
+          int j=(m_n[3*nb]==c) ? 0 : (m_n[3*nb+1]==c) ? 1 : 2;
+          m_edges[nedges++]=m_v[3*c+(k+1)%3];
+          m_edges[nedges++]=m_v[3*c+(k+2)%3];
+          m_edges[nedges++]=nb;
+          m_edges[nedges++]=j;
+          nedges++;
+        }
+      }
+    }
+
+    // One triangle per boundary edge (a, b): (a, b, p), reusing the
+    // cavity's. Neighbour across (b, p) starts at b, across (p, a) ends at
+    // a.
+    int m=nedges/5;
+    int need=m_triCount+m-ncav;
+    if (3*need>m_v.length)
+    {
+      m_v=Arrays.copyOf(m_v, Math.max(3*need, 2*m_v.length));
+      m_n=Arrays.copyOf(m_n, m_v.length);
+    }
+    for (int i=0, e=0; i<m; i++, e+=5)
+    {
+      int nt=(i<ncav) ? m_cavity[i] : m_triCount++;
+      m_startAt[slot(m_edges[e])]=nt;
+      m_endAt[slot(m_edges[e+1])]=nt;
+      m_edges[e+4]=nt;
+    }
+    for (int i=0, e=0; i<m; i++, e+=5)
+    {
+      int a=m_edges[e];
+      int b=m_edges[e+1];
+      int nb=m_edges[e+2];
+      int nt=m_edges[e+4];
+      m_n[3*nb+m_edges[e+3]]=nt;
+
+      int na=m_startAt[slot(b)];
+      int nbb=m_endAt[slot(a)];
+      if (a==INF)
+      {
+        set(nt, b, p, INF, nbb, nb, na);
+      }
+      else if (b==INF)
+      {
+        set(nt, p, a, INF, nb, na, nbb);
+      }
+      else
+      {
+        set(nt, a, b, p, na, nbb, nb);
+        m_last=nt;
+      }
+    }
+  }
+
+  private static int slot(int v){ return (v==INF) ? 0 : v+1; }
+
+  // Triangle containing point by walking from last, the ghost triangle
+  // outside the edge it is outside if outside hull. -1 if duplicate.
+  private int locate(double px, double py)
+  {
+    int t=m_last;
+    while (true)
+    {
+      int a=m_v[3*t];
+      int b=m_v[3*t+1];
+      int c=m_v[3*t+2];
+      if (c==INF) return t;
+
+      double ax=m_bx[a];
+      double ay=m_by[a];
+      double bx=m_bx[b];
+      double by=m_by[b];
+      double cx=m_bx[c];
+      double cy=m_by[c];
+
+      if (orient2d(bx, by, cx, cy, px, py)<0.0)
+      {
+        t=m_n[3*t];
+      }
+      else if (orient2d(cx, cy, ax, ay, px, py)<0.0)
+      {
+        t=m_n[3*t+1];
+      }
+      else if (orient2d(ax, ay, bx, by, px, py)<0.0)
+      {
+        t=m_n[3*t+2];
+      }
+      else
+      {
+        if ((px==ax && py==ay) || (px==bx && py==by) || (px==cx && py==cy))
+        {
+          return -1;
+        }
+        return t;
+      }
+    }
+  }
+
+  // Tells if point strictly inside triangle's circumscribed circle, for
+  // ghosts: Strictly outside its edge or strictly inside the edge.
+  private boolean conflict(int t, double px, double py)
+  {
+    int a=m_v[3*t];
+    int b=m_v[3*t+1];
+    int c=m_v[3*t+2];
+
+    double ax=m_bx[a];
+    double ay=m_by[a];
+    double bx=m_bx[b];
+    double by=m_by[b];
+
+    if (c!=INF)
+    {
+      return incircle(ax, ay, bx, by, m_bx[c], m_by[c], px, py)>0.0;
+    }
+
+    double o=orient2d(ax, ay, bx, by, px, py);
+    if (o!=0.0) return o>0.0;
+
+    if (ax!=bx) return (px>ax)==(px<bx) && px!=ax && px!=bx;
+    return (py>ay)==(py<by) && py!=ay && py!=by;
+  }
+
+  private void set(int t, int a, int b, int c, int na, int nb, int nc)
+  {
+    int o=3*t;
+    m_v[o]=a;
+    m_v[o+1]=b;
+    m_v[o+2]=c;
+    m_n[o]=na;
+    m_n[o+1]=nb;
+    m_n[o+2]=nc;
+  }
+
+}
@@ -0,0 +1,909 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.spatial;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.aha.euclid.Line2;
+import org.aha.euclid.Line3;
+import org.aha.euclid.MethodNotSupportedException;
+import org.aha.euclid.Plane3;
+
+/**
+ * <p>
+ *   Static k-d tree over points in 2D or 3D for finding the points nearest
+ *   to a point, a line or line segment and in 3D a plane, and the points
+ *   within a distance of those.
+ * </p>
+ * <p>
+ *   The tree is implicit in the order of the points: A range of more than a
+ *   leaf's points is split at its median point along the axis the range's
+ *   points extend the most, the points before are not greater and the
+ *   points after not less along that axis. Only the axis is stored per
+ *   split.
+ * </p>
+ * <p>
+ *   Searches descend the nearer subtree first and skip subtrees whose box
+ *   can not hold a point nearer than the nearest found: For a point or a
+ *   plane the distance to the box, for a line or segment if it misses the
+ *   box grown by the distance or else the distance to the box's bounding
+ *   sphere.
+ * </p>
+ * <p>
+ *   Points are reported as their index in the array the tree was built
+ *   from, distances are as given by
+ *   {@link Line2#distance(double, double)},
+ *   {@link Line3#distance(double, double, double)} and
+ *   {@link Plane3#distance(double, double, double)} for lines and planes.
+ *   A line's segment is the points for parameter {@code 0<=t<=1}, see
+ *   {@link Line3#getPoint(double)}.
+ * </p>
+ * <p>
+ *   Objects of this class are immutable and so thread safe. Queries do not
+ *   allocate when passed result arrays and a traversal stack, see
+ *   {@link #newStack()}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class KdTree
+{
+  /**
+   * <p>
+   *   Number of points a fork-join task builds the tree of without forking.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=1<<14;
+
+  private static final int LEAF_SIZE=8;
+
+  // Query kinds.
+
+  private static final int POINT=0;
+
+  private static final int LINE=1;
+
+  private static final int SEGMENT=2;
+
+  private static final int PLANE=3;
+
+  // Stack entry: from, to, lower bound of squared distance and box min x,
+  // y, z and max x, y, z.
+  private static final int ENTRY=9;
+
+  private final int m_dim;
+
+  // Points in tree order, dim per point.
+  private final double[] m_p;
+
+  // Tree order to index in array tree built from.
+  private final int[] m_index;
+
+  // Per split point in tree order: Axis.
+  private final byte[] m_axis;
+
+  // Box of all points: min x, y, z and max x, y, z, z range 0 in 2D.
+  private final double[] m_box=new double[6];
+
+  private final int m_depth;
+
+  /**
+   * <p>
+   *   Builds tree.
+   * </p>
+   * @param p   Points: {@code dim} coordinates per point. This does not keep
+   *            a reference to the array, later changes are not seen.
+   * @param dim Dimension: {@code 2} or {@code 3}.
+   * @throws IllegalArgumentException If {@code dim} not {@code 2} or
+   *         {@code 3} or {@code p.length} not a multiple of {@code dim}.
+   */
+  public KdTree(double[] p, int dim){ this(p, dim, false); }
+
+  /**
+   * <p>
+   *   Builds tree.
+   * </p>
+   * @param p        Points: {@code dim} coordinates per point. This does not
+   *                 keep a reference to the array, later changes are not
+   *                 seen.
+   * @param dim      Dimension: {@code 2} or {@code 3}.
+   * @param parallel {@code true} if to build subtrees in parallel,
+   *                 {@code false} if not.
+   * @throws IllegalArgumentException If {@code dim} not {@code 2} or
+   *         {@code 3} or {@code p.length} not a multiple of {@code dim}.
+   */
+  public KdTree(double[] p, int dim, boolean parallel)
+  {
+    if (dim!=2 && dim!=3)
+    {
+      throw new IllegalArgumentException("dim : "+dim);
+    }
+    if (p.length%dim!=0)
+    {
+      throw new IllegalArgumentException("p.length%dim!=0 : "+p.length+"%"+
+        dim);
+    }
+
+    m_dim=dim;
+    int n=p.length/dim;
+
+    int[] perm=new int[n];
+    for (int i=0; i<n; i++) perm[i]=i;
+    m_axis=new byte[n];
+
+    if (parallel && n>PARALLEL_THRESHOLD)
+    {
+      ForkJoinPool.commonPool().invoke(new BuildTask(this, p, perm, 0, n));
+    }
+    else
+    {
+      build(p, perm, 0, n);
+    }
+
+    m_index=perm;
+    m_p=new double[p.length];
+    for (int i=0; i<n; i++)
+    {
+      System.arraycopy(p, perm[i]*dim, m_p, i*dim, dim);
+    }
+
+    box(m_p, dim, 0, n, m_box);
+
+    int depth=1;
+    for (int c=n; c>LEAF_SIZE; c>>=1) depth++;
+    m_depth=depth;
+  }
+
+  /**
+   * <p>
+   *   Gets number of points in tree.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_index.length; }
+
+  /**
+   * <p>
+   *   Gets dimension of points.
+   * </p>
+   * @return {@code 2} or {@code 3}.
+   */
+  public int dimension(){ return m_dim; }
+
+  /**
+   * <p>
+   *   Allocates a traversal stack big enough for queries on {@code this}.
+   * </p>
+   * <p>
+   *   Keep one per thread and pass to queries to avoid allocation per query.
+   * </p>
+   * @return Stack.
+   */
+  public double[] newStack(){ return new double[(m_depth+2)*ENTRY]; }
+
+  /**
+   * <p>
+   *   Finds the points nearest to a point in 2D.
+   * </p>
+   * @param x     Point's x coordinate.
+   * @param y     Point's y coordinate.
+   * @param k     Number of points to find.
+   * @param idx   Array to assign indices of points found to, nearest first.
+   * @param dist  Array to assign distances of points found to.
+   * @param stack Traversal stack. If {@code null} allocates.
+   * @return Number of points found: {@code min(k, size())}.
+   * @throws MethodNotSupportedException If tree is not 2D.
+   * @throws IllegalArgumentException If {@code k<0} or {@code idx} or
+   *         {@code dist} shorter than {@code k}.
+   * @see #newStack()
+   */
+  public int nearest(double x, double y, int k, int[] idx, double[] dist,
+    double[] stack)
+  {
+    dim(2);
+    return nearest(POINT, x, y, 0, 0, 0, 0, 0, k, idx, dist, stack);
+  }
+
+  /**
+   * <p>
+   *   Finds the points nearest to a point in 3D.
+   * </p>
+   * @param x     Point's x coordinate.
+   * @param y     Point's y coordinate.
+   * @param z     Point's z coordinate.
+   * @param k     Number of points to find.
+   * @param idx   Array to assign indices of points found to, nearest first.
+   * @param dist  Array to assign distances of points found to.
+   * @param stack Traversal stack. If {@code null} allocates.
+   * @return Number of points found: {@code min(k, size())}.
+   * @throws MethodNotSupportedException If tree is not 3D.
+   * @throws IllegalArgumentException If {@code k<0} or {@code idx} or
+   *         {@code dist} shorter than {@code k}.
+   * @see #newStack()
+   */
+  public int nearest(double x, double y, double z, int k, int[] idx,
+    double[] dist, double[] stack)
+  {
+    dim(3);
+    return nearest(POINT, x, y, z, 0, 0, 0, 0, k, idx, dist, stack);
+  }
+
+  /**
+   * <p>
+   *   Finds the points nearest to a line or line segment in 2D.
+   * </p>
+   * @param l       Line.
+   * @param segment {@code true} if nearest to the segment, {@code false} if
+   *                to the line.
+   * @param k       Number of points to find.
+   * @param idx     Array to assign indices of points found to, nearest
+   *                first.
+   * @param dist    Array to assign distances of points found to.
+   * @param stack   Traversal stack. If {@code null} allocates.
+   * @return Number of points found: {@code min(k, size())}.
+   * @throws MethodNotSupportedException If tree is not 2D.
+   * @throws IllegalArgumentException If {@code k<0} or {@code idx} or
+   *         {@code dist} shorter than {@code k}.
+   * @see #newStack()
+   */
+  public int nearest(Line2 l, boolean segment, int k, int[] idx,
+    double[] dist, double[] stack)
+  {
+    dim(2);
+    return line(l.x0(), l.y0(), 0, l.x1(), l.y1(), 0, segment, k, 0.0, idx,
+      dist, stack);
+  }
+
+  /**
+   * <p>
+   *   Finds the points nearest to a line or line segment in 3D.
+   * </p>
+   * @param l       Line.
+   * @param segment {@code true} if nearest to the segment, {@code false} if
+   *                to the line.
+   * @param k       Number of points to find.
+   * @param idx     Array to assign indices of points found to, nearest
+   *                first.
+   * @param dist    Array to assign distances of points found to.
+   * @param stack   Traversal stack. If {@code null} allocates.
+   * @return Number of points found: {@code min(k, size())}.
+   * @throws MethodNotSupportedException If tree is not 3D.
+   * @throws IllegalArgumentException If {@code k<0} or {@code idx} or
+   *         {@code dist} shorter than {@code k}.
+   * @see #newStack()
+   */
+  public int nearest(Line3 l, boolean segment, int k, int[] idx,
+    double[] dist, double[] stack)
+  {
+    dim(3);
+    return line(l.x0(), l.y0(), l.z0(), l.x1(), l.y1(), l.z1(), segment, k,
+      0.0, idx, dist, stack);
+  }
+
+  /**
+   * <p>
+   *   Finds the points nearest to a plane.
+   * </p>
+   * @param p     Plane.
+   * @param k     Number of points to find.
+   * @param idx   Array to assign indices of points found to, nearest first.
+   * @param dist  Array to assign distances of points found to.
+   * @param stack Traversal stack. If {@code null} allocates.
+   * @return Number of points found: {@code min(k, size())}.
+   * @throws MethodNotSupportedException If tree is not 3D.
+   * @throws IllegalArgumentException If {@code k<0} or {@code idx} or
+   *         {@code dist} shorter than {@code k}.
+   * @see #newStack()
+   */
+  public int nearest(Plane3 p, int k, int[] idx, double[] dist,
+    double[] stack)
+  {
+    dim(3);
+    return nearest(PLANE, p.a(), p.b(), p.c(), p.d(), 0, 0, 0, k, idx, dist,
+      stack);
+  }
+
+  /**
+   * <p>
+   *   Finds the points within a distance of a point in 2D.
+   * </p>
+   * @param x     Point's x coordinate.
+   * @param y     Point's y coordinate.
+   * @param r     Distance.
+   * @param idx   Array to assign indices of points found to, in no
+   *              particular order. If more points are found than fit, the
+   *              rest are counted but not assigned.
+   * @param stack Traversal stack. If {@code null} allocates.
+   * @return Number of points within distance.
+   * @throws MethodNotSupportedException If tree is not 2D.
+   * @throws IllegalArgumentException If {@code r<0}.
+   * @see #newStack()
+   */
+  public int within(double x, double y, double r, int[] idx, double[] stack)
+  {
+    dim(2);
+    return search(POINT, x, y, 0, 0, 0, 0, 0, 0, r2(r), idx, null, stack);
+  }
+
+  /**
+   * <p>
+   *   Finds the points within a distance of a point in 3D.
+   * </p>
+   * @param x     Point's x coordinate.
+   * @param y     Point's y coordinate.
+   * @param z     Point's z coordinate.
+   * @param r     Distance.
+   * @param idx   Array to assign indices of points found to, in no
+   *              particular order. If more points are found than fit, the
+   *              rest are counted but not assigned.
+   * @param stack Traversal stack. If {@code null} allocates.
+   * @return Number of points within distance.
+   * @throws MethodNotSupportedException If tree is not 3D.
+   * @throws IllegalArgumentException If {@code r<0}.
+   * @see #newStack()
+   */
+  public int within(double x, double y, double z, double r, int[] idx,
+    double[] stack)
+  {
+    dim(3);
+    return search(POINT, x, y, z, 0, 0, 0, 0, 0, r2(r), idx, null, stack);
+  }
+
+  /**
+   * <p>
+   *   Finds the points within a distance of a line or line segment in 2D.
+   * </p>
+   * @param l       Line.
+   * @param segment {@code true} if within distance of the segment,
+   *                {@code false} if of the line.
+   * @param r       Distance.
+   * @param idx     Array to assign indices of points found to, in no
+   *                particular order. If more points are found than fit, the
+   *                rest are counted but not assigned.
+   * @param stack   Traversal stack. If {@code null} allocates.
+   * @return Number of points within distance.
+   * @throws MethodNotSupportedException If tree is not 2D.
+   * @throws IllegalArgumentException If {@code r<0}.
+   * @see #newStack()
+   */
+  public int within(Line2 l, boolean segment, double r, int[] idx,
+    double[] stack)
+  {
+    dim(2);
+    return line(l.x0(), l.y0(), 0, l.x1(), l.y1(), 0, segment, 0, r2(r), idx,
+      null, stack);
+  }
+
+  /**
+   * <p>
+   *   Finds the points within a distance of a line or line segment in 3D.
+   * </p>
+   * @param l       Line.
+   * @param segment {@code true} if within distance of the segment,
+   *                {@code false} if of the line.
+   * @param r       Distance.
+   * @param idx     Array to assign indices of points found to, in no
+   *                particular order. If more points are found than fit, the
+   *                rest are counted but not assigned.
+   * @param stack   Traversal stack. If {@code null} allocates.
+   * @return Number of points within distance.
+   * @throws MethodNotSupportedException If tree is not 3D.
+   * @throws IllegalArgumentException If {@code r<0}.
+   * @see #newStack()
+   */
+  public int within(Line3 l, boolean segment, double r, int[] idx,
+    double[] stack)
+  {
+    dim(3);
+    return line(l.x0(), l.y0(), l.z0(), l.x1(), l.y1(), l.z1(), segment, 0,
+      r2(r), idx, null, stack);
+  }
+
+  /**
+   * <p>
+   *   Finds the points within a distance of a plane.
+   * </p>
+   * @param p     Plane.
+   * @param r     Distance.
+   * @param idx   Array to assign indices of points found to, in no
+   *              particular order. If more points are found than fit, the
+   *              rest are counted but not assigned.
+   * @param stack Traversal stack. If {@code null} allocates.
+   * @return Number of points within distance.
+   * @throws MethodNotSupportedException If tree is not 3D.
+   * @throws IllegalArgumentException If {@code r<0}.
+   * @see #newStack()
+   */
+  public int within(Plane3 p, double r, int[] idx, double[] stack)
+  {
+    dim(3);
+    return search(PLANE, p.a(), p.b(), p.c(), p.d(), 0, 0, 0, 0, r2(r), idx,
+      null, stack);
+  }
+
+  private void dim(int dim)
+  {
+    if (m_dim!=dim) throw new MethodNotSupportedException();
+  }
+
+  // Squared distance of radius r.
+  private static double r2(double r)
+  {
+    if (!(r>=0.0))
+    {
+      throw new IllegalArgumentException("r<0 : "+r);
+    }
+
+    return r*r;
+  }
+
+  // Line through (x0, y0, z0) and (x1, y1, z1): As a point if of zero
+  // length, else with unit direction or for segment with the direction
+  // and its squared length.
+  private int line(double x0, double y0, double z0, double x1, double y1,
+    double z1, boolean segment, int k, double r2, int[] idx, double[] dist,
+    double[] stack)
+  {
+    double vx=x1-x0;
+    double vy=y1-y0;
+    double vz=z1-z0;
+    double vv=vx*vx+vy*vy+vz*vz;
+    if (vv==0.0)
+    {
+      return (k>0) ?
+        nearest(POINT, x0, y0, z0, 0, 0, 0, 0, k, idx, dist, stack) :
+        search(POINT, x0, y0, z0, 0, 0, 0, 0, 0, r2, idx, null, stack);
+    }
+
+    if (segment)
+    {
+      return (k>0) ?
+        nearest(SEGMENT, x0, y0, z0, vx, vy, vz, vv, k, idx, dist, stack) :
+        search(SEGMENT, x0, y0, z0, vx, vy, vz, vv, 0, r2, idx, null, stack);
+    }
+
+    double l=sqrt(vv);
+    vx/=l;
+    vy/=l;
+    vz/=l;
+    return (k>0) ?
+      nearest(LINE, x0, y0, z0, vx, vy, vz, 1.0, k, idx, dist, stack) :
+      search(LINE, x0, y0, z0, vx, vy, vz, 1.0, 0, r2, idx, null, stack);
+  }
+
+  private int nearest(int kind, double q0, double q1, double q2, double q3,
+    double q4, double q5, double q6, int k, int[] idx, double[] dist,
+    double[] stack)
+  {
+    if (k<0)
+    {
+      throw new IllegalArgumentException("k<0 : "+k);
+    }
+    if (idx.length<k)
+    {
+      throw new IllegalArgumentException("idx.length<k : "+idx.length+"<"+
+        k);
+    }
+    if (dist.length<k)
+    {
+      throw new IllegalArgumentException("dist.length<k : "+dist.length+"<"+
+        k);
+    }
+
+    k=min(k, m_index.length);
+    if (k==0) return 0;
+
+    search(kind, q0, q1, q2, q3, q4, q5, q6, k, Double.POSITIVE_INFINITY,
+      idx, dist, stack);
+
+    // Heap sort: Largest to the end.
+    for (int n=k-1; n>0; n--)
+    {
+      swap(idx, dist, 0, n);
+      siftDown(idx, dist, 0, n);
+    }
+    for (int i=0; i<k; i++) dist[i]=sqrt(dist[i]);
+    return k;
+  }
+
+  // If k>0 keeps k nearest in max heap on squared distance idx, dist, else
+  // counts points within squared distance r2 assigning indices to idx while
+  // room.
+  private int search(int kind, double q0, double q1, double q2, double q3,
+    double q4, double q5, double q6, int k, double r2, int[] idx,
+    double[] dist, double[] stack)
+  {
+    int n=m_index.length;
+    if (n==0) return 0;
+
+    stack=(stack==null) ? newStack() : stack;
+
+    double[] p=m_p;
+    int dim=m_dim;
+    int count=0;
+
+    int sp=0;
+    stack[0]=0;
+    stack[1]=n;
+    System.arraycopy(m_box, 0, stack, 3, 6);
+    stack[2]=bound(kind, q0, q1, q2, q3, q4, q5, q6, r2, stack, 0);
+    sp++;
+
+    while (sp>0)
+    {
+      int e=(--sp)*ENTRY;
+      if (stack[e+2]>r2) continue;
+
+      int from=(int)stack[e];
+      int to=(int)stack[e+1];
+      int leafTo=(to-from<=LEAF_SIZE) ? to : -1;
+      int mid=(from+to)>>>1;
+
+      // Points tested here: The leaf's or the split point.
+      int t0=(leafTo>=0) ? from : mid;
+      int t1=(leafTo>=0) ? to : mid+1;
+      for (int i=t0; i<t1; i++)
+      {
+        int o=i*dim;
+        double x=p[o];
+        double y=p[o+1];
+        double z=(dim==3) ? p[o+2] : 0.0;
+        double d2=dist2(kind, q0, q1, q2, q3, q4, q5, q6, x, y, z);
+        if (d2>r2) continue;
+
+        if (k==0)
+        {
+          if (count<idx.length) idx[count]=m_index[i];
+          count++;
+        }
+        else if (count<k)
+        {
+          idx[count]=m_index[i];
+          dist[count]=d2;
+          siftUp(idx, dist, count);
+          count++;
+          if (count==k) r2=dist[0];
+        }
+        else
+        {
+          idx[0]=m_index[i];
+          dist[0]=d2;
+          siftDown(idx, dist, 0, k);
+          r2=dist[0];
+        }
+      }
+      if (leafTo>=0) continue;
+
+      // Children: Before mid at e, after mid at f.
+      int axis=m_axis[mid];
+      double split=p[mid*dim+axis];
+      int f=e+ENTRY;
+      System.arraycopy(stack, e, stack, f, ENTRY);
+      stack[e+1]=mid;
+      stack[e+6+axis]=split;
+      stack[f]=mid+1;
+      stack[f+3+axis]=split;
+      stack[e+2]=(mid>from) ?
+        bound(kind, q0, q1, q2, q3, q4, q5, q6, r2, stack, e) :
+        Double.POSITIVE_INFINITY;
+      stack[f+2]=(to>mid+1) ?
+        bound(kind, q0, q1, q2, q3, q4, q5, q6, r2, stack, f) :
+        Double.POSITIVE_INFINITY;
+
+      // Nearer on top.
+      if (stack[e+2]<stack[f+2])
+      {
+        for (int j=0; j<ENTRY; j++)
+        {
+          double tmp=stack[e+j];
+          stack[e+j]=stack[f+j];
+          stack[f+j]=tmp;
+        }
+      }
+
+      if (stack[e+2]<=r2)
+      {
+        sp+=(stack[f+2]<=r2) ? 2 : 1;
+      }
+      else if (stack[f+2]<=r2)
+      {
+        System.arraycopy(stack, f, stack, e, ENTRY);
+        sp++;
+      }
+    }
+    return count;
+  }
+
+  private static double dist2(int kind, double q0, double q1, double q2,
+    double q3, double q4, double q5, double q6, double x, double y, double z)
+  {
+    switch (kind)
+    {
+      case POINT :
+      {
+        double dx=x-q0;
+        double dy=y-q1;
+        double dz=z-q2;
+        return dx*dx+dy*dy+dz*dz;
+      }
+      case LINE :
+      {
+        double wx=x-q0;
+        double wy=y-q1;
+        double wz=z-q2;
+        double cx=q4*wz-q5*wy;
+        double cy=q5*wx-q3*wz;
+        double cz=q3*wy-q4*wx;
+        return cx*cx+cy*cy+cz*cz;
+      }
+      case SEGMENT :
+      {
+        double wx=x-q0;
+        double wy=y-q1;
+        double wz=z-q2;
+        double t=(wx*q3+wy*q4+wz*q5)/q6;
+        t=(t<0.0) ? 0.0 : (t>1.0) ? 1.0 : t;
+        wx-=t*q3;
+        wy-=t*q4;
+        wz-=t*q5;
+        return wx*wx+wy*wy+wz*wz;
+      }
+      default :
+      {
+        double d=q0*x+q1*y+q2*z+q3;
+        return d*d;
+      }
+    }
+  }
+
+  // Lower bound of squared distance to points in box of entry at e, for
+  // lines and segments infinite if missing the box grown by sqrt(r2).
+  private static double bound(int kind, double q0, double q1, double q2,
+    double q3, double q4, double q5, double q6, double r2, double[] s, int e)
+  {
+    double x0=s[e+3];
+    double y0=s[e+4];
+    double z0=s[e+5];
+    double x1=s[e+6];
+    double y1=s[e+7];
+    double z1=s[e+8];
+    switch (kind)
+    {
+      case POINT :
+      {
+        double dx=(q0<x0) ? x0-q0 : (q0>x1) ? q0-x1 : 0.0;
+        double dy=(q1<y0) ? y0-q1 : (q1>y1) ? q1-y1 : 0.0;
+        double dz=(q2<z0) ? z0-q2 : (q2>z1) ? q2-z1 : 0.0;
+        return dx*dx+dy*dy+dz*dz;
+      }
+      case PLANE :
+      {
+        double d=q0*0.5*(x0+x1)+q1*0.5*(y0+y1)+q2*0.5*(z0+z1)+q3;
+        double h=abs(q0)*0.5*(x1-x0)+abs(q1)*0.5*(y1-y0)+
+          abs(q2)*0.5*(z1-z0);
+        double t=max(0.0, abs(d)-h);
+        return t*t;
+      }
+      default :
+      {
+        if (r2<Double.POSITIVE_INFINITY)
+        {
+          // Slab test: Parameter interval narrowed axis by axis to where
+          // the line is in the box grown by r, empty if it misses.
+          double r=sqrt(r2);
+          double tmin=(kind==SEGMENT) ? 0.0 : Double.NEGATIVE_INFINITY;
+          double tmax=(kind==SEGMENT) ? 1.0 : Double.POSITIVE_INFINITY;
+          for (int a=0; a<3; a++)
+          {
+            double o=(a==0) ? q0 : (a==1) ? q1 : q2;
+            double v=(a==0) ? q3 : (a==1) ? q4 : q5;
+            double lo=s[e+3+a]-r;
+            double hi=s[e+6+a]+r;
+            if (v==0.0)
+            {
+              if (o<lo || o>hi) return Double.POSITIVE_INFINITY;
+              continue;
+            }
+
+            double ta=(lo-o)/v;
+            double tb=(hi-o)/v;
+            tmin=max(tmin, min(ta, tb));
+            tmax=min(tmax, max(ta, tb));
+            if (tmin>tmax) return Double.POSITIVE_INFINITY;
+          }
+        }
+
+        double hx=0.5*(x1-x0);
+        double hy=0.5*(y1-y0);
+        double hz=0.5*(z1-z0);
+        double c=sqrt(dist2(kind, q0, q1, q2, q3, q4, q5, q6, x0+hx, y0+hy,
+          z0+hz));
+        double t=max(0.0, c-sqrt(hx*hx+hy*hy+hz*hz));
+        return t*t;
+      }
+    }
+  }
+
+  private static void siftUp(int[] idx, double[] d, int i)
+  {
+    while (i>0)
+    {
+      int parent=(i-1)>>>1;
+      if (d[parent]>=d[i]) return;
+      swap(idx, d, parent, i);
+      i=parent;
+    }
+  }
+
+  private static void siftDown(int[] idx, double[] d, int i, int n)
+  {
+    while (true)
+    {
+      int c=2*i+1;
+      if (c>=n) return;
+      if (c+1<n && d[c+1]>d[c]) c++;
+      if (d[i]>=d[c]) return;
+      swap(idx, d, i, c);
+      i=c;
+    }
+  }
+
+  private static void swap(int[] idx, double[] d, int i, int j)
+  {
+    int ti=idx[i];
+    idx[i]=idx[j];
+    idx[j]=ti;
+    double td=d[i];
+    d[i]=d[j];
+    d[j]=td;
+  }
+
+  // Orders perm[from, to) as tree, points in p.
+  private void build(double[] p, int[] perm, int from, int to)
+  {
+    while (to-from>LEAF_SIZE)
+    {
+      int mid=split(p, perm, from, to);
+      build(p, perm, mid+1, to);
+      to=mid;
+    }
+  }
+
+  // Selects median along axis of greatest extent, returns its position.
+  private int split(double[] p, int[] perm, int from, int to)
+  {
+    int dim=m_dim;
+    int axis=0;
+    double extent=-1.0;
+    for (int a=0; a<dim; a++)
+    {
+      double lo=Double.POSITIVE_INFINITY;
+      double hi=Double.NEGATIVE_INFINITY;
+      for (int i=from; i<to; i++)
+      {
+        double v=p[perm[i]*dim+a];
+        lo=min(lo, v);
+        hi=max(hi, v);
+      }
+      if (hi-lo>extent)
+      {
+        extent=hi-lo;
+        axis=a;
+      }
+    }
+
+    int retVal=(from+to)>>>1;
+    select(p, dim, axis, perm, from, to, retVal);
+    m_axis[retVal]=(byte)axis;
+    return retVal;
+  }
+
+  // Quickselect: Orders perm[from, to) so that position k has the point it
+  // would have sorted on axis, points before not greater, after not less.
+  private static void select(double[] p, int dim, int axis, int[] perm,
+    int from, int to, int k)
+  {
+    int lo=from;
+    int hi=to-1;
+    while (hi>lo)
+    {
+      double a=p[perm[lo]*dim+axis];
+      double b=p[perm[(lo+hi)>>>1]*dim+axis];
+      double c=p[perm[hi]*dim+axis];
+      double pivot=max(min(a, b), min(max(a, b), c));
+
+      int i=lo;
+      int j=hi;
+      while (i<=j)
+      {
+        while (p[perm[i]*dim+axis]<pivot) i++;
+        while (p[perm[j]*dim+axis]>pivot) j--;
+        if (i<=j)
+        {
+          int t=perm[i];
+          perm[i]=perm[j];
+          perm[j]=t;
+          i++;
+          j--;
+        }
+      }
+
+      if (k<=j) hi=j;
+      else if (k>=i) lo=i;
+      else return;
+    }
+  }
+
+  // Box of points [from, to) of p, z range 0 in 2D.
+  private static void box(double[] p, int dim, int from, int to,
+    double[] box)
+  {
+    for (int a=0; a<3; a++)
+    {
+      box[a]=(a<dim && to>from) ? Double.POSITIVE_INFINITY : 0.0;
+      box[a+3]=(a<dim && to>from) ? Double.NEGATIVE_INFINITY : 0.0;
+    }
+    for (int i=from; i<to; i++)
+    {
+      for (int a=0; a<dim; a++)
+      {
+        double v=p[i*dim+a];
+        box[a]=min(box[a], v);
+        box[a+3]=max(box[a+3], v);
+      }
+    }
+  }
+
+  // Fork-join task for parallel build.
+  private static final class BuildTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final KdTree m_tree;
+
+    private final double[] m_p;
+
+    private final int[] m_perm;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    BuildTask(KdTree tree, double[] p, int[] perm, int from, int to)
+    {
+      m_tree=tree;
+      m_p=p;
+      m_perm=perm;
+      m_from=from;
+      m_to=to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        m_tree.build(m_p, m_perm, m_from, m_to);
+        return;
+      }
+
+      int mid=m_tree.split(m_p, m_perm, m_from, m_to);
+      invokeAll(new BuildTask(m_tree, m_p, m_perm, m_from, mid),
+        new BuildTask(m_tree, m_p, m_perm, mid+1, m_to));
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "KdTree[dim="+m_dim+", size="+m_index.length+"]";
+  }
+
+}
@@ -0,0 +1,157 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.spatial;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ *   Growable buffer of index pairs stored in an {@code int[]}, meant to be
+ *   cleared and reused so finding pairs does not allocate once the buffer
+ *   has grown to size.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class PairBuffer
+{
+  private int[] m_pairs;
+
+  private int m_size=0;
+
+  /**
+   * <p>
+   *   Creates empty buffer.
+   * </p>
+   */
+  public PairBuffer(){ this(16); }
+
+  /**
+   * <p>
+   *   Creates empty buffer.
+   * </p>
+   * @param capacity Number of pairs to make room for.
+   * @throws IllegalArgumentException If {@code capacity<0}.
+   */
+  public PairBuffer(int capacity)
+  {
+    if (capacity<0)
+    {
+      throw new IllegalArgumentException("capacity<0 : "+capacity);
+    }
+
+    m_pairs=new int[2*capacity];
+  }
+
+  /**
+   * <p>
+   *   Gets number of pairs.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_size; }
+
+  /**
+   * <p>
+   *   Gets first index of a pair.
+   * </p>
+   * @param k Index of pair.
+   * @return Index.
+   */
+  public int getP(int k)
+  {
+    checkPair(k);
+    return m_pairs[2*k];
+  }
+
+  /**
+   * <p>
+   *   Gets second index of a pair.
+   * </p>
+   * @param k Index of pair.
+   * @return Index.
+   */
+  public int getQ(int k)
+  {
+    checkPair(k);
+    return m_pairs[2*k+1];
+  }
+
+  /**
+   * <p>
+   *   Gets the backing array, pair {@code k} is at {@code 2*k} and
+   *   {@code 2*k+1}. Only the first {@code 2*}{@link #size()} elements are
+   *   pairs.
+   * </p>
+   * <p>
+   *   The array is replaced when the buffer grows.
+   * </p>
+   * @return Array.
+   */
+  public int[] array(){ return m_pairs; }
+
+  /**
+   * <p>
+   *   Adds pair.
+   * </p>
+   * @param p First index.
+   * @param q Second index.
+   */
+  public void add(int p, int q)
+  {
+    if (2*m_size==m_pairs.length)
+    {
+      m_pairs=Arrays.copyOf(m_pairs, Math.max(32, 2*m_pairs.length));
+    }
+    m_pairs[2*m_size]=p;
+    m_pairs[2*m_size+1]=q;
+    m_size++;
+  }
+
+  /**
+   * <p>
+   *   Adds the pairs of other buffer.
+   * </p>
+   * @param o Other buffer.
+   */
+  public void add(PairBuffer o)
+  {
+    int n=2*(m_size+o.m_size);
+    if (n>m_pairs.length)
+    {
+      m_pairs=Arrays.copyOf(m_pairs, Math.max(n, 2*m_pairs.length));
+    }
+    System.arraycopy(o.m_pairs, 0, m_pairs, 2*m_size, 2*o.m_size);
+    m_size+=o.m_size;
+  }
+
+  /**
+   * <p>
+   *   Removes all pairs, keeps the storage.
+   * </p>
+   */
+  public void clear(){ m_size=0; }
+
+  private void checkPair(int k)
+  {
+    if (k<0 || k>=m_size)
+    {
+      throw new IndexOutOfBoundsException("k : "+k+" size : "+m_size);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    StringBuilder sb=new StringBuilder("[");
+    for (int k=0; k<m_size; k++)
+    {
+      if (k>0) sb.append(",");
+      sb.append("(").append(m_pairs[2*k]).append(",").append(m_pairs[2*k+1])
+        .append(")");
+    }
+    return sb.append("]").toString();
+  }
+
+}
@@ -0,0 +1,890 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.spatial;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+import java.util.Arrays;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line2;
+import org.aha.euclid.math.Comparisons;
+
+/**
+ * <p>
+ *   Finds all intersecting pairs among a set of
+ *   {@link Line2} segments using the Bentley-Ottmann sweep in
+ *   {@code O((N+K) log N)} time where {@code N} is the number of segments
+ *   and {@code K} the number of intersections.
+ * </p>
+ * <p>
+ *   Segments are parametrized as in
+ *   {@link Line2#getPoint(double)}: The segment defined by a line is the
+ *   points for parameter {@code 0<=t<=1}.
+ * </p>
+ * <p>
+ *   Intersections are computed with the parameters of
+ *   {@link Euclid#lineLine(Line2, Line2)}, a pair is reported if not
+ *   parallel and both parameters are in {@code [-d, 1+d]} where {@code d} is
+ *   {@link Comparisons#getDelta()} of the thread calling
+ *   {@link #intersect()}. Segments are parallel if the sine of the angle
+ *   between them is within {@code d}, a test independent of their lengths
+ *   unlike {@code lineLine}'s. Pairs found parallel are reported
+ *   if collinear (within {@code d}) and overlapping, the parameters are then
+ *   of the first common point along the first segment and
+ *   {@link #parallel(int)} returns {@code true}. The same {@code d} is used
+ *   as the distance within which the sweep considers a point to be on a
+ *   segment, so degenerate input (shared end points, many segments through a
+ *   point, vertical and overlapping segments) is handled.
+ * </p>
+ * <p>
+ *   Results are stored in arrays; access them with
+ *   {@link #getP(int)},
+ *   {@link #getQ(int)},
+ *   {@link #getPt(int)},
+ *   {@link #getQt(int)} and
+ *   {@link #parallel(int)} for {@code 0<=k<}{@link #count()}. Each pair is
+ *   reported once with {@code getP(k)<getQ(k)}, in no particular order.
+ * </p>
+ * <p>
+ *   Objects of this class are not thread safe.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class SegmentSweep2
+{
+  private static final int[] THE_EMPTY_ARRAY=new int[0];
+
+  private final int m_n;
+
+  // Segments as given.
+  private final double[] m_x0;
+
+  private final double[] m_y0;
+
+  private final double[] m_x1;
+
+  private final double[] m_y1;
+
+  // Segments swept: Left end point (smaller x, then smaller y) first.
+  private final double[] m_lx;
+
+  private final double[] m_ly;
+
+  private final double[] m_rx;
+
+  private final double[] m_ry;
+
+  // Slope of left to right segments, +infinity if vertical.
+  private final double[] m_slope;
+
+  // Status: treap of segments ordered at the sweep line, -1 is none.
+  private final int[] m_left;
+
+  private final int[] m_right;
+
+  private final int[] m_parent;
+
+  private final int[] m_prio;
+
+  private final boolean[] m_inTree;
+
+  private int m_root=-1;
+
+  // Events: binary heap of points, for end points b is -1 (left) or -2
+  // (right) and a the segment, for intersections a and b the segments.
+  private double[] m_ex=new double[16];
+
+  private double[] m_ey=new double[16];
+
+  private int[] m_ea=new int[16];
+
+  private int[] m_eb=new int[16];
+
+  private int m_eventCount=0;
+
+  // Per event scratch.
+  private final int[] m_mark;
+
+  private final boolean[] m_ends;
+
+  private int m_stamp=0;
+
+  private int[] m_block=THE_EMPTY_ARRAY;
+
+  private int[] m_ins=THE_EMPTY_ARRAY;
+
+  private int[] m_seeds=THE_EMPTY_ARRAY;
+
+  private int[] m_report=THE_EMPTY_ARRAY;
+
+  private int[] m_loose=THE_EMPTY_ARRAY;
+
+  private double m_delta;
+
+  // Pairs reported, open addressing on (p+1)<<32|(q+1), 0 is empty.
+  private long[] m_reported=new long[64];
+
+  private int m_reportedCount=0;
+
+  // Results.
+  private int m_count=0;
+
+  private int[] m_p=new int[16];
+
+  private int[] m_q=new int[16];
+
+  private double[] m_pt=new double[16];
+
+  private double[] m_qt=new double[16];
+
+  private boolean[] m_par=new boolean[16];
+
+  // Pair solution.
+  private double m_spt;
+
+  private double m_sqt;
+
+  private boolean m_sparallel;
+
+  /**
+   * <p>
+   *   Creates for given segments.
+   * </p>
+   * @param segments Segments. This does not keep references to the
+   *                 segments, later changes to them are not seen.
+   */
+  public SegmentSweep2(Line2[] segments)
+  {
+    int n=segments.length;
+    m_n=n;
+
+    m_x0=new double[n];
+    m_y0=new double[n];
+    m_x1=new double[n];
+    m_y1=new double[n];
+    m_lx=new double[n];
+    m_ly=new double[n];
+    m_rx=new double[n];
+    m_ry=new double[n];
+    m_slope=new double[n];
+
+    for (int i=0; i<n; i++)
+    {
+      Line2 l=segments[i];
+      double x0=l.x0();
+      double y0=l.y0();
+      double x1=l.x1();
+      double y1=l.y1();
+      m_x0[i]=x0;
+      m_y0[i]=y0;
+      m_x1[i]=x1;
+      m_y1[i]=y1;
+
+      boolean flip=(x1<x0) || (x1==x0 && y1<y0);
+      double dx=flip ? x0-x1 : x1-x0;
+      m_slope[i]=(dx==0.0) ? Double.POSITIVE_INFINITY :
+                             (flip ? y0-y1 : y1-y0)/dx;
+    }
+
+    m_left=new int[n];
+    m_right=new int[n];
+    m_parent=new int[n];
+    m_prio=new int[n];
+    m_inTree=new boolean[n];
+    m_mark=new int[n];
+    m_ends=new boolean[n];
+
+    // Fixed seed so runs are repeatable.
+    int r=0x2545F491;
+    for (int i=0; i<n; i++)
+    {
+      r^=r<<13;
+      r^=r>>>17;
+      r^=r<<5;
+      m_prio[i]=r;
+    }
+  }
+
+  /**
+   * <p>
+   *   Gets number of segments.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_n; }
+
+  /**
+   * <p>
+   *   Finds all intersecting pairs, replacing the result of a previous
+   *   invocation.
+   * </p>
+   * @return Number of intersecting pairs found.
+   */
+  public int intersect()
+  {
+    double d=Comparisons.getDelta();
+    m_delta=d;
+
+    // Sweeps segments extended by d in parameter at both ends, the
+    // segments a pair is reported for intersects.
+    for (int i=0; i<m_n; i++)
+    {
+      double x0=m_x0[i];
+      double y0=m_y0[i];
+      double x1=m_x1[i];
+      double y1=m_y1[i];
+      boolean flip=(x1<x0) || (x1==x0 && y1<y0);
+      double lx=flip ? x1 : x0;
+      double ly=flip ? y1 : y0;
+      double rx=flip ? x0 : x1;
+      double ry=flip ? y0 : y1;
+      double ex=d*(rx-lx);
+      double ey=d*(ry-ly);
+      m_lx[i]=lx-ex;
+      m_ly[i]=ly-ey;
+      m_rx[i]=rx+ex;
+      m_ry[i]=ry+ey;
+    }
+
+    m_count=0;
+    Arrays.fill(m_reported, 0L);
+    m_reportedCount=0;
+    m_root=-1;
+    Arrays.fill(m_inTree, false);
+    Arrays.fill(m_mark, 0);
+    m_stamp=0;
+
+    m_eventCount=0;
+    for (int i=0; i<m_n; i++)
+    {
+      push(m_lx[i], m_ly[i], i, -1);
+      push(m_rx[i], m_ry[i], i, -2);
+    }
+
+    while (m_eventCount>0)
+    {
+      double px=m_ex[0];
+      double py=m_ey[0];
+
+      m_stamp++;
+      int nins=0;
+      int nseeds=0;
+      while (m_eventCount>0 && m_ex[0]==px && m_ey[0]==py)
+      {
+        int a=m_ea[0];
+        int b=m_eb[0];
+        pop();
+
+        if (b==-1)
+        {
+          m_ins=add(m_ins, nins++, a);
+        }
+        else if (b==-2)
+        {
+          m_ends[a]=true;
+          m_seeds=add(m_seeds, nseeds++, a);
+        }
+        else
+        {
+          m_seeds=add(m_seeds, nseeds++, a);
+          m_seeds=add(m_seeds, nseeds++, b);
+        }
+      }
+
+      handle(px, py, nins, nseeds);
+    }
+
+    return m_count;
+  }
+
+  /**
+   * <p>
+   *   Gets number of intersecting pairs found by last invocation of
+   *   {@link #intersect()}.
+   * </p>
+   * @return Count.
+   */
+  public int count(){ return m_count; }
+
+  /**
+   * <p>
+   *   Gets index of first segment of an intersecting pair.
+   * </p>
+   * @param k Index of pair.
+   * @return Index of segment in array {@code this} was created from.
+   */
+  public int getP(int k)
+  {
+    checkPair(k);
+    return m_p[k];
+  }
+
+  /**
+   * <p>
+   *   Gets index of second segment of an intersecting pair.
+   * </p>
+   * @param k Index of pair.
+   * @return Index of segment in array {@code this} was created from.
+   */
+  public int getQ(int k)
+  {
+    checkPair(k);
+    return m_q[k];
+  }
+
+  /**
+   * <p>
+   *   Gets the parameter of intersection on first segment of a pair.
+   * </p>
+   * @param k Index of pair.
+   * @return Parameter.
+   */
+  public double getPt(int k)
+  {
+    checkPair(k);
+    return m_pt[k];
+  }
+
+  /**
+   * <p>
+   *   Gets the parameter of intersection on second segment of a pair.
+   * </p>
+   * @param k Index of pair.
+   * @return Parameter.
+   */
+  public double getQt(int k)
+  {
+    checkPair(k);
+    return m_qt[k];
+  }
+
+  /**
+   * <p>
+   *   Tells if a pair is collinear overlapping segments.
+   * </p>
+   * @param k Index of pair.
+   * @return {@code true} if collinear, {@code false} if crossing.
+   */
+  public boolean parallel(int k)
+  {
+    checkPair(k);
+    return m_par[k];
+  }
+
+  private void checkPair(int k)
+  {
+    if (k<0 || k>=m_count)
+    {
+      throw new IndexOutOfBoundsException("k : "+k+" count : "+m_count);
+    }
+  }
+
+  // Processes event at (px, py): m_ins has the segments starting here,
+  // m_seeds segments ending here and segments of intersections found here.
+  private void handle(double px, double py, int nins, int nseeds)
+  {
+    int stamp=m_stamp;
+
+    // The segments on the point are consecutive in the status, find them.
+    int lb=lowerBound(px, py);
+    int nblock=0;
+    int s=(lb==-1) ? last() : pred(lb);
+    while (s!=-1 && contains(s, px, py))
+    {
+      m_block=add(m_block, nblock++, s);
+      s=pred(s);
+    }
+    reverse(m_block, nblock);
+    s=lb;
+    while (s!=-1 && contains(s, px, py))
+    {
+      m_block=add(m_block, nblock++, s);
+      s=succ(s);
+    }
+
+    int pred;
+    int succ;
+    if (nblock==0)
+    {
+      pred=(lb==-1) ? last() : pred(lb);
+      succ=lb;
+    }
+    else
+    {
+      pred=pred(m_block[0]);
+      succ=succ(m_block[nblock-1]);
+    }
+
+    int nreport=0;
+    for (int i=0; i<nblock; i++)
+    {
+      m_mark[m_block[i]]=stamp;
+      m_report=add(m_report, nreport++, m_block[i]);
+    }
+
+    // Seeds not found above means the status is out of order due to round
+    // off: Report them and take out those ending here.
+    int nloose=0;
+    for (int i=0; i<nseeds; i++)
+    {
+      int seed=m_seeds[i];
+      if (!m_inTree[seed] || m_mark[seed]==stamp) continue;
+      if (!m_ends[seed] && !contains(seed, px, py)) continue;
+
+      m_mark[seed]=stamp;
+      m_report=add(m_report, nreport++, seed);
+      if (m_ends[seed])
+      {
+        int a=pred(seed);
+        int b=succ(seed);
+        remove(seed);
+        if (a!=-1) m_loose=add(m_loose, nloose++, a);
+        if (b!=-1) m_loose=add(m_loose, nloose++, b);
+      }
+    }
+
+    for (int i=0; i<nins; i++)
+    {
+      int u=m_ins[i];
+      if (m_mark[u]!=stamp)
+      {
+        m_mark[u]=stamp;
+        m_report=add(m_report, nreport++, u);
+      }
+    }
+
+    for (int i=0; i<nreport; i++)
+    {
+      for (int j=i+1; j<nreport; j++) report(m_report[i], m_report[j]);
+    }
+
+    // Replace block with segments continuing right of the point, ordered
+    // by slope as they are right of the point.
+    for (int i=0; i<nblock; i++)
+    {
+      int b=m_block[i];
+      remove(b);
+      if (!m_ends[b]) m_ins=add(m_ins, nins++, b);
+    }
+
+    for (int i=1; i<nins; i++)
+    {
+      int v=m_ins[i];
+      double k=m_slope[v];
+      int j=i-1;
+      while (j>=0 && m_slope[m_ins[j]]>k)
+      {
+        m_ins[j+1]=m_ins[j];
+        j--;
+      }
+      m_ins[j+1]=v;
+    }
+
+    int prev=pred;
+    for (int i=0; i<nins; i++)
+    {
+      int v=m_ins[i];
+      insertAfter(prev, v);
+      prev=v;
+    }
+
+    if (nins==0)
+    {
+      check(pred, succ, px, py);
+    }
+    else
+    {
+      check(pred, m_ins[0], px, py);
+      check(m_ins[nins-1], succ, px, py);
+    }
+
+    for (int i=0; i<nloose; i++)
+    {
+      int v=m_loose[i];
+      if (!m_inTree[v]) continue;
+      check(pred(v), v, px, py);
+      check(v, succ(v), px, py);
+    }
+
+    for (int i=0; i<nseeds; i++) m_ends[m_seeds[i]]=false;
+  }
+
+  // Schedules intersection of neighbours a (below) and b (above) if right of
+  // (px, py).
+  private void check(int a, int b, double px, double py)
+  {
+    if (a==-1 || b==-1) return;
+    if (!solve(a, b) || m_sparallel) return;
+
+    double x=m_x0[a]+m_spt*(m_x1[a]-m_x0[a]);
+    double y=m_y0[a]+m_spt*(m_y1[a]-m_y0[a]);
+    if (x>px || (x==px && y>py)) push(x, y, a, b);
+  }
+
+  // Records pair if intersects and not recorded before.
+  private void report(int a, int b)
+  {
+    int p=min(a, b);
+    int q=max(a, b);
+    if (!solve(p, q)) return;
+    if (!addReported(((long)(p+1)<<32)|(q+1))) return;
+
+    if (m_count==m_p.length)
+    {
+      int cap=2*m_count;
+      m_p=Arrays.copyOf(m_p, cap);
+      m_q=Arrays.copyOf(m_q, cap);
+      m_pt=Arrays.copyOf(m_pt, cap);
+      m_qt=Arrays.copyOf(m_qt, cap);
+      m_par=Arrays.copyOf(m_par, cap);
+    }
+    m_p[m_count]=p;
+    m_q[m_count]=q;
+    m_pt[m_count]=m_spt;
+    m_qt[m_count]=m_sqt;
+    m_par[m_count]=m_sparallel;
+    m_count++;
+  }
+
+  // Parameters as Euclid.lineLine(Line2, Line2), tells if segments p and
+  // q intersect and if so assigns m_spt, m_sqt and m_sparallel.
+  private boolean solve(int p, int q)
+  {
+    double d=m_delta;
+
+    double ux=m_x1[p]-m_x0[p];
+    double uy=m_y1[p]-m_y0[p];
+    double vx=m_x1[q]-m_x0[q];
+    double vy=m_y1[q]-m_y0[q];
+    double wx=m_x0[p]-m_x0[q];
+    double wy=m_y0[p]-m_y0[q];
+
+    double a=ux*ux+uy*uy;
+    double c=vx*vx+vy*vy;
+    double dd=ux*wx+uy*wy;
+
+    // Parallel if the sine of the angle between is within delta: Relative
+    // to the lengths so short segments crossing are not taken as parallel.
+    double cross=ux*vy-uy*vx;
+    if (abs(cross)>d*sqrt(a*c))
+    {
+      double pt=(vx*wy-vy*wx)/cross;
+      double qt=(ux*wy-uy*wx)/cross;
+      if (pt<-d || pt>1.0+d || qt<-d || qt>1.0+d) return false;
+
+      m_spt=pt;
+      m_sqt=qt;
+      m_sparallel=false;
+      return true;
+    }
+
+    // Parallel: Collinear if q's points on p's line.
+    double len=sqrt(a);
+    if (abs(ux*wy-uy*wx)/len>d) return false;
+    double ex=m_x1[q]-m_x0[p];
+    double ey=m_y1[q]-m_y0[p];
+    if (abs(ux*ey-uy*ex)/len>d) return false;
+
+    // Overlap along p.
+    double t0=-dd/a;
+    double t1=(ux*ex+uy*ey)/a;
+    double lo=max(0.0, min(t0, t1));
+    double hi=min(1.0, max(t0, t1));
+    if (lo>hi+d/len) return false;
+
+    m_spt=lo;
+    m_sqt=((m_x0[p]+lo*ux-m_x0[q])*vx+(m_y0[p]+lo*uy-m_y0[q])*vy)/c;
+    m_sparallel=true;
+    return true;
+  }
+
+  // Tells if segment s is within m_delta of (px, py).
+  private boolean contains(int s, double px, double py)
+  {
+    double lx=m_lx[s];
+    double ly=m_ly[s];
+    double dx=m_rx[s]-lx;
+    double dy=m_ry[s]-ly;
+    double wx=px-lx;
+    double wy=py-ly;
+    double t=(wx*dx+wy*dy)/(dx*dx+dy*dy);
+    t=(t<0.0) ? 0.0 : (t>1.0) ? 1.0 : t;
+    double ex=wx-t*dx;
+    double ey=wy-t*dy;
+    return ex*ex+ey*ey<=m_delta*m_delta;
+  }
+
+  // First segment in status not below (px, py), -1 if none.
+  private int lowerBound(double px, double py)
+  {
+    double d=m_delta;
+    int n=m_root;
+    int retVal=-1;
+    while (n!=-1)
+    {
+      double y;
+      if (m_slope[n]==Double.POSITIVE_INFINITY)
+      {
+        y=max(m_ly[n], min(m_ry[n], py));
+      }
+      else
+      {
+        y=m_ly[n]+(px-m_lx[n])*m_slope[n];
+      }
+
+      if (y-py<-d)
+      {
+        n=m_right[n];
+      }
+      else
+      {
+        retVal=n;
+        n=m_left[n];
+      }
+    }
+    return retVal;
+  }
+
+  private int succ(int x)
+  {
+    if (m_right[x]!=-1)
+    {
+      x=m_right[x];
+      while (m_left[x]!=-1) x=m_left[x];
+      return x;
+    }
+    int p=m_parent[x];
+    while (p!=-1 && m_right[p]==x)
+    {
+      x=p;
+      p=m_parent[p];
+    }
+    return p;
+  }
+
+  private int pred(int x)
+  {
+    if (m_left[x]!=-1)
+    {
+      x=m_left[x];
+      while (m_right[x]!=-1) x=m_right[x];
+      return x;
+    }
+    int p=m_parent[x];
+    while (p!=-1 && m_left[p]==x)
+    {
+      x=p;
+      p=m_parent[p];
+    }
+    return p;
+  }
+
+  private int last()
+  {
+    int x=m_root;
+    if (x==-1) return -1;
+    while (m_right[x]!=-1) x=m_right[x];
+    return x;
+  }
+
+  // Inserts x right after a in status, first if a is -1.
+  private void insertAfter(int a, int x)
+  {
+    m_left[x]=m_right[x]=-1;
+    m_inTree[x]=true;
+
+    if (m_root==-1)
+    {
+      m_parent[x]=-1;
+      m_root=x;
+      return;
+    }
+
+    int p;
+    if (a==-1)
+    {
+      p=m_root;
+      while (m_left[p]!=-1) p=m_left[p];
+      m_left[p]=x;
+    }
+    else if (m_right[a]==-1)
+    {
+      p=a;
+      m_right[p]=x;
+    }
+    else
+    {
+      p=m_right[a];
+      while (m_left[p]!=-1) p=m_left[p];
+      m_left[p]=x;
+    }
+    m_parent[x]=p;
+
+    while (m_parent[x]!=-1 && m_prio[x]>m_prio[m_parent[x]]) rotateUp(x);
+  }
+
+  private void remove(int x)
+  {
+    while (m_left[x]!=-1 || m_right[x]!=-1)
+    {
+      int l=m_left[x];
+      int r=m_right[x];
+      rotateUp((r==-1 || (l!=-1 && m_prio[l]>m_prio[r])) ? l : r);
+    }
+
+    int p=m_parent[x];
+    if (p==-1)
+    {
+      m_root=-1;
+    }
+    else if (m_left[p]==x)
+    {
+      m_left[p]=-1;
+    }
+    else
+    {
+      m_right[p]=-1;
+    }
+    m_inTree[x]=false;
+  }
+
+  // Rotates x above its parent.
+  private void rotateUp(int x)
+  {
+    int p=m_parent[x];
+    int g=m_parent[p];
+
+    if (m_left[p]==x)
+    {
+      int c=m_right[x];
+      m_left[p]=c;
+      if (c!=-1) m_parent[c]=p;
+      m_right[x]=p;
+    }
+    else
+    {
+      int c=m_left[x];
+      m_right[p]=c;
+      if (c!=-1) m_parent[c]=p;
+      m_left[x]=p;
+    }
+    m_parent[p]=x;
+    m_parent[x]=g;
+
+    if (g==-1)
+    {
+      m_root=x;
+    }
+    else if (m_left[g]==p)
+    {
+      m_left[g]=x;
+    }
+    else
+    {
+      m_right[g]=x;
+    }
+  }
+
+  private void push(double x, double y, int a, int b)
+  {
+    if (m_eventCount==m_ex.length)
+    {
+      int cap=2*m_eventCount;
+      m_ex=Arrays.copyOf(m_ex, cap);
+      m_ey=Arrays.copyOf(m_ey, cap);
+      m_ea=Arrays.copyOf(m_ea, cap);
+      m_eb=Arrays.copyOf(m_eb, cap);
+    }
+
+    int i=m_eventCount++;
+    while (i>0)
+    {
+      int p=(i-1)>>>1;
+      if (!before(x, y, m_ex[p], m_ey[p])) break;
+      set(i, m_ex[p], m_ey[p], m_ea[p], m_eb[p]);
+      i=p;
+    }
+    set(i, x, y, a, b);
+  }
+
+  private void pop()
+  {
+    int n=--m_eventCount;
+    if (n==0) return;
+
+    double x=m_ex[n];
+    double y=m_ey[n];
+    int i=0;
+    while (true)
+    {
+      int c=2*i+1;
+      if (c>=n) break;
+      if (c+1<n && before(m_ex[c+1], m_ey[c+1], m_ex[c], m_ey[c])) c++;
+      if (!before(m_ex[c], m_ey[c], x, y)) break;
+      set(i, m_ex[c], m_ey[c], m_ea[c], m_eb[c]);
+      i=c;
+    }
+    set(i, x, y, m_ea[n], m_eb[n]);
+  }
+
+  private void set(int i, double x, double y, int a, int b)
+  {
+    m_ex[i]=x;
+    m_ey[i]=y;
+    m_ea[i]=a;
+    m_eb[i]=b;
+  }
+
+  private static boolean before(double x0, double y0, double x1, double y1)
+  {
+    return x0<x1 || (x0==x1 && y0<y1);
+  }
+
+  // Adds key to reported pairs, false if already there.
+  private boolean addReported(long key)
+  {
+    if (2*(m_reportedCount+1)>m_reported.length)
+    {
+      long[] old=m_reported;
+      m_reported=new long[2*old.length];
+      m_reportedCount=0;
+      for (long k : old) if (k!=0L) addReported(k);
+    }
+
+    int mask=m_reported.length-1;
+    long h=key*0x9E3779B97F4A7C15L;
+    int i=(int)(h^(h>>>32))&mask;
+    while (m_reported[i]!=0L)
+    {
+      if (m_reported[i]==key) return false;
+      i=(i+1)&mask;
+    }
+    m_reported[i]=key;
+    m_reportedCount++;
+    return true;
+  }
+
+  private static int[] add(int[] a, int n, int v)
+  {
+    if (n==a.length) a=Arrays.copyOf(a, max(16, 2*n));
+    a[n]=v;
+    return a;
+  }
+
+  private static void reverse(int[] a, int n)
+  {
+    for (int i=0, j=n-1; i<j; i++, j--)
+    {
+      int t=a[i];
+      a[i]=a[j];
+      a[j]=t;
+    }
+  }
+
+}
@@ -0,0 +1,545 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.spatial;
+
+import static java.lang.Math.floor;
+import static java.lang.Math.max;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import org.aha.euclid.Circle2;
+import org.aha.euclid.Sphere3;
+
+/**
+ * <p>
+ *   Broad phase finding the overlapping pairs among a set of
+ *   {@link Circle2} or
+ *   {@link Sphere3} using a uniform grid stored as a spatial hash.
+ * </p>
+ * <p>
+ *   The cell size is twice the biggest radius, so objects overlapping are in
+ *   the same or neighbouring cells. Objects are bucketed by the cell of
+ *   their center: The cell's integer coordinates are hashed to a slot in a
+ *   table with room for twice the number of objects, each slot the head of
+ *   a list of objects linked by index. Cells sharing a slot only cost
+ *   extra tests.
+ * </p>
+ * <p>
+ *   For simulations where objects move a little each step,
+ *   {@link #update(Sphere3[])} re-reads the objects and relinks only those
+ *   that changed cell. The grid is rebuilt with a new cell size if the
+ *   biggest radius grows over half or shrinks to under a quarter of the cell
+ *   size. Few big objects among many small makes cells big and so the tests
+ *   many.
+ * </p>
+ * <p>
+ *   The {@code parallelUpdate} and
+ *   {@link #parallelPairs(PairBuffer)} methods split the work in tasks run in
+ *   the common fork-join pool.
+ * </p>
+ * <p>
+ *   Objects of this class are not thread safe.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class SpatialHash
+{
+  /**
+   * <p>
+   *   Number of objects a fork-join task processes without splitting.
+   * </p>
+   */
+  public static final int PARALLEL_THRESHOLD=4096;
+
+  private final int m_dim;
+
+  private final int m_n;
+
+  private final double[] m_x;
+
+  private final double[] m_y;
+
+  private final double[] m_z;
+
+  private final double[] m_r;
+
+  private double m_cell=0.0;
+
+  private double m_inv=0.0;
+
+  // Per object: cell and slot.
+  private final int[] m_ix;
+
+  private final int[] m_iy;
+
+  private final int[] m_iz;
+
+  private final int[] m_slot;
+
+  private final int[] m_newSlot;
+
+  // Per slot: first object, -1 if none.
+  private final int[] m_head;
+
+  private final int m_mask;
+
+  // Per object: next and previous in slot's list, -1 if none.
+  private final int[] m_next;
+
+  private final int[] m_prev;
+
+  /**
+   * <p>
+   *   Creates for circles.
+   * </p>
+   * @param circles Circles. This does not keep references to the circles,
+   *                use {@link #update(Circle2[])} to see changes.
+   */
+  public SpatialHash(Circle2[] circles)
+  {
+    this(2, circles.length);
+    update(circles, null, false);
+  }
+
+  /**
+   * <p>
+   *   Creates for spheres.
+   * </p>
+   * @param spheres Spheres. This does not keep references to the spheres,
+   *                use {@link #update(Sphere3[])} to see changes.
+   */
+  public SpatialHash(Sphere3[] spheres)
+  {
+    this(3, spheres.length);
+    update(null, spheres, false);
+  }
+
+  private SpatialHash(int dim, int n)
+  {
+    m_dim=dim;
+    m_n=n;
+
+    m_x=new double[n];
+    m_y=new double[n];
+    m_z=new double[n];
+    m_r=new double[n];
+    m_ix=new int[n];
+    m_iy=new int[n];
+    m_iz=new int[n];
+    m_slot=new int[n];
+    m_newSlot=new int[n];
+    m_next=new int[n];
+    m_prev=new int[n];
+
+    int cap=16;
+    while (cap<2*n) cap<<=1;
+    m_head=new int[cap];
+    m_mask=cap-1;
+  }
+
+  /**
+   * <p>
+   *   Gets number of objects.
+   * </p>
+   * @return Count.
+   */
+  public int size(){ return m_n; }
+
+  /**
+   * <p>
+   *   Gets dimension of objects.
+   * </p>
+   * @return {@code 2} for circles, {@code 3} for spheres.
+   */
+  public int dimension(){ return m_dim; }
+
+  /**
+   * <p>
+   *   Gets the size of cells.
+   * </p>
+   * @return Size.
+   */
+  public double getCellSize(){ return m_cell; }
+
+  /**
+   * <p>
+   *   Updates for changed circles.
+   * </p>
+   * @param circles Circles, same number as {@code this} was created for.
+   * @throws IllegalArgumentException If {@code this} is not for circles or
+   *         wrong number of circles.
+   */
+  public void update(Circle2[] circles)
+  {
+    checkUpdate(2, circles.length);
+    update(circles, null, false);
+  }
+
+  /**
+   * <p>
+   *   Updates for changed spheres.
+   * </p>
+   * @param spheres Spheres, same number as {@code this} was created for.
+   * @throws IllegalArgumentException If {@code this} is not for spheres or
+   *         wrong number of spheres.
+   */
+  public void update(Sphere3[] spheres)
+  {
+    checkUpdate(3, spheres.length);
+    update(null, spheres, false);
+  }
+
+  /**
+   * <p>
+   *   Updates for changed circles using the common fork-join pool.
+   * </p>
+   * @param circles Circles, same number as {@code this} was created for.
+   * @throws IllegalArgumentException If {@code this} is not for circles or
+   *         wrong number of circles.
+   */
+  public void parallelUpdate(Circle2[] circles)
+  {
+    checkUpdate(2, circles.length);
+    update(circles, null, true);
+  }
+
+  /**
+   * <p>
+   *   Updates for changed spheres using the common fork-join pool.
+   * </p>
+   * @param spheres Spheres, same number as {@code this} was created for.
+   * @throws IllegalArgumentException If {@code this} is not for spheres or
+   *         wrong number of spheres.
+   */
+  public void parallelUpdate(Sphere3[] spheres)
+  {
+    checkUpdate(3, spheres.length);
+    update(null, spheres, true);
+  }
+
+  /**
+   * <p>
+   *   Finds the pairs of objects that overlap or touch.
+   * </p>
+   * @param pairs Cleared and assigned the pairs as indices in the array
+   *              {@code this} was updated from, the lower first. If
+   *              {@code null} allocates.
+   * @return {@code pairs}.
+   */
+  public PairBuffer pairs(PairBuffer pairs)
+  {
+    pairs=(pairs==null) ? new PairBuffer() : pairs;
+    pairs.clear();
+    pairs(0, m_n, pairs);
+    return pairs;
+  }
+
+  /**
+   * <p>
+   *   Finds as
+   *   {@link #pairs(PairBuffer)} using the common fork-join pool. The pairs
+   *   are found in the same order.
+   * </p>
+   * @param pairs Cleared and assigned the pairs as indices in the array
+   *              {@code this} was updated from, the lower first. If
+   *              {@code null} allocates.
+   * @return {@code pairs}.
+   */
+  public PairBuffer parallelPairs(PairBuffer pairs)
+  {
+    pairs=(pairs==null) ? new PairBuffer() : pairs;
+    pairs.clear();
+    PairsTask t=new PairsTask(this, 0, m_n);
+    t.invoke();
+    t.collect(pairs);
+    return pairs;
+  }
+
+  private void checkUpdate(int dim, int n)
+  {
+    if (dim!=m_dim)
+    {
+      throw new IllegalArgumentException("dimension : "+dim+"!="+m_dim);
+    }
+    if (n!=m_n)
+    {
+      throw new IllegalArgumentException("n : "+n+"!="+m_n);
+    }
+  }
+
+  private void update(Circle2[] circles, Sphere3[] spheres, boolean parallel)
+  {
+    boolean first=(m_cell==0.0);
+
+    // Reads and bins with current cell size unless first time.
+    double rmax=first ? load(circles, spheres, 0, m_n, false) :
+      (parallel ? invoke(new LoadTask(this, circles, spheres, 0, m_n, true)) :
+                  load(circles, spheres, 0, m_n, true));
+
+    double cell=(rmax>0.0) ? 2.0*rmax : 1.0;
+    if (first || cell>m_cell || 2.0*cell<m_cell)
+    {
+      m_cell=cell;
+      m_inv=1.0/cell;
+      if (parallel)
+      {
+        invoke(new LoadTask(this, null, null, 0, m_n, true));
+      }
+      else
+      {
+        load(null, null, 0, m_n, true);
+      }
+
+      Arrays.fill(m_head, -1);
+      for (int i=0; i<m_n; i++)
+      {
+        m_slot[i]=m_newSlot[i];
+        link(i);
+      }
+    }
+    else
+    {
+      for (int i=0; i<m_n; i++)
+      {
+        int s=m_newSlot[i];
+        if (s!=m_slot[i])
+        {
+          unlink(i);
+          m_slot[i]=s;
+          link(i);
+        }
+      }
+    }
+  }
+
+  // Reads objects if given and bins if bin, returns biggest radius.
+  private double load(Circle2[] circles, Sphere3[] spheres, int from, int to,
+    boolean bin)
+  {
+    double rmax=0.0;
+    for (int i=from; i<to; i++)
+    {
+      if (circles!=null)
+      {
+        Circle2 c=circles[i];
+        m_x[i]=c.x();
+        m_y[i]=c.y();
+        m_r[i]=c.getRadius();
+      }
+      else if (spheres!=null)
+      {
+        Sphere3 s=spheres[i];
+        m_x[i]=s.x();
+        m_y[i]=s.y();
+        m_z[i]=s.z();
+        m_r[i]=s.getRadius();
+      }
+      rmax=max(rmax, m_r[i]);
+
+      if (bin)
+      {
+        int ix=(int)floor(m_x[i]*m_inv);
+        int iy=(int)floor(m_y[i]*m_inv);
+        int iz=(int)floor(m_z[i]*m_inv);
+        m_ix[i]=ix;
+        m_iy[i]=iy;
+        m_iz[i]=iz;
+        m_newSlot[i]=slot(ix, iy, iz);
+      }
+    }
+    return rmax;
+  }
+
+  private int slot(int ix, int iy, int iz)
+  {
+    int h=(ix*73856093)^(iy*19349663)^(iz*83492791);
+    return (h^(h>>>16))&m_mask;
+  }
+
+  private void link(int i)
+  {
+    int s=m_slot[i];
+    int h=m_head[s];
+    m_prev[i]=-1;
+    m_next[i]=h;
+    if (h!=-1) m_prev[h]=i;
+    m_head[s]=i;
+  }
+
+  private void unlink(int i)
+  {
+    int p=m_prev[i];
+    int n=m_next[i];
+    if (p==-1)
+    {
+      m_head[m_slot[i]]=n;
+    }
+    else
+    {
+      m_next[p]=n;
+    }
+    if (n!=-1) m_prev[n]=p;
+  }
+
+  // Pairs (i, j), i<j, for i in [from, to).
+  private void pairs(int from, int to, PairBuffer pairs)
+  {
+    int dz0=(m_dim==3) ? -1 : 0;
+    int dz1=(m_dim==3) ? 1 : 0;
+    int[] seen=new int[27];
+
+    for (int i=from; i<to; i++)
+    {
+      double x=m_x[i];
+      double y=m_y[i];
+      double z=m_z[i];
+      double r=m_r[i];
+      int ix=m_ix[i];
+      int iy=m_iy[i];
+      int iz=m_iz[i];
+
+      int nseen=0;
+      for (int dz=dz0; dz<=dz1; dz++)
+      {
+        for (int dy=-1; dy<=1; dy++)
+        {
+          for (int dx=-1; dx<=1; dx++)
+          {
+            int s=slot(ix+dx, iy+dy, iz+dz);
+
+            // Neighbour cells may share slot, visit each once.
+            boolean visited=false;
+            for (int k=0; k<nseen && !visited; k++) visited=(seen[k]==s);
+            if (visited) continue;
+            seen[nseen++]=s;
+
+            for (int j=m_head[s]; j!=-1; j=m_next[j])
+            {
+              if (j<=i) continue;
+
+              double ex=m_x[j]-x;
+              double ey=m_y[j]-y;
+              double ez=m_z[j]-z;
+              double rr=m_r[j]+r;
+              if (ex*ex+ey*ey+ez*ez<=rr*rr) pairs.add(i, j);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static double invoke(LoadTask t)
+  {
+    t.invoke();
+    return t.m_rmax;
+  }
+
+  // Fork-join task for parallelUpdate.
+  private static final class LoadTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final SpatialHash m_hash;
+
+    private final Circle2[] m_circles;
+
+    private final Sphere3[] m_spheres;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    private final boolean m_bin;
+
+    private double m_rmax=0.0;
+
+    LoadTask(SpatialHash hash, Circle2[] circles, Sphere3[] spheres,
+      int from, int to, boolean bin)
+    {
+      m_hash=hash;
+      m_circles=circles;
+      m_spheres=spheres;
+      m_from=from;
+      m_to=to;
+      m_bin=bin;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        m_rmax=m_hash.load(m_circles, m_spheres, m_from, m_to, m_bin);
+        return;
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      LoadTask a=new LoadTask(m_hash, m_circles, m_spheres, m_from, mid,
+        m_bin);
+      LoadTask b=new LoadTask(m_hash, m_circles, m_spheres, mid, m_to,
+        m_bin);
+      invokeAll(a, b);
+      m_rmax=max(a.m_rmax, b.m_rmax);
+    }
+  }
+
+  // Fork-join task for parallelPairs.
+  private static final class PairsTask extends RecursiveAction
+  {
+    private static final long serialVersionUID=1L;
+
+    private final SpatialHash m_hash;
+
+    private final int m_from;
+
+    private final int m_to;
+
+    private PairBuffer m_pairs=null;
+
+    private PairsTask m_a=null;
+
+    private PairsTask m_b=null;
+
+    PairsTask(SpatialHash hash, int from, int to)
+    {
+      m_hash=hash;
+      m_from=from;
+      m_to=to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to-m_from<=PARALLEL_THRESHOLD)
+      {
+        m_pairs=new PairBuffer();
+        m_hash.pairs(m_from, m_to, m_pairs);
+        return;
+      }
+
+      int mid=(m_from+m_to)>>>1;
+      m_a=new PairsTask(m_hash, m_from, mid);
+      m_b=new PairsTask(m_hash, mid, m_to);
+      invokeAll(m_a, m_b);
+    }
+
+    // Adds pairs found in order.
+    void collect(PairBuffer pairs)
+    {
+      if (m_pairs!=null)
+      {
+        pairs.add(m_pairs);
+      }
+      else
+      {
+        m_a.collect(pairs);
+        m_b.collect(pairs);
+      }
+    }
+  }
+
+}
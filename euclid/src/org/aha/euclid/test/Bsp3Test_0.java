@@ -0,0 +1,303 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Line3;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.spatial.Bsp3;
+
+/**
+ * <p>
+ *   Test
+ *   {@link Bsp3} splitting and ordering, the order against brute force ray
+ *   casting using
+ *   {@link Triangle3#intersect(Line3, boolean, double[])}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Bsp3Test_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public Bsp3Test_0(){}
+
+  @Test
+  public void test1()
+  {
+    Bsp3 empty=new Bsp3(new Triangle3[0]);
+    assertEquals(0, empty.size());
+    assertEquals(0, empty.getNodeCount());
+    assertEquals(0, empty.frontToBack(0, 0, 0, new int[0], null));
+
+    Triangle3 t=triangle(0, 0, 0, 1, 0, 0, 0, 1, 0);
+    Bsp3 one=new Bsp3(new Triangle3[]{ t });
+    assertEquals(1, one.size());
+    assertEquals(1, one.getNodeCount());
+    assertEquals(1, one.getMaxDepth());
+    assertEquals(0, one.getIndex(0));
+    assertArrayEquals(new double[]{ 0, 0, 0, 1, 0, 0, 0, 1, 0 },
+      one.getTriangle(0, null), 0.0);
+
+    int[] order=new int[1];
+    assertEquals(1, one.frontToBack(0.2, 0.2, 1.0, order, null));
+    assertEquals(0, order[0]);
+
+    try
+    {
+      one.getIndex(1);
+      fail();
+    }
+    catch (IndexOutOfBoundsException ioobe){}
+
+    try
+    {
+      one.frontToBack(0, 0, 1, new int[0], null);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+
+    try
+    {
+      new Bsp3(new Triangle3[]{ t }, -1.0, false);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+  }
+
+  @Test
+  public void test2()
+  {
+    // Two triangles crossing each other's plane: Both are split, the pieces
+    // cover each and are in their plane.
+    Triangle3[] tris=
+    {
+      triangle(-1, -1, 0, 1, -1, 0, 0, 1, 0),
+      triangle(0, -0.5, -1, 0, 0.5, -1, 0, 0, 1)
+    };
+    Bsp3 bsp=new Bsp3(tris);
+    assertTrue(bsp.size()>2);
+
+    checkPieces(tris, bsp);
+
+    Random r=new Random(2L);
+    tris=soup(r, 400, 10.0, 2.0);
+    bsp=new Bsp3(tris);
+    assertTrue(bsp.size()>=400);
+    checkPieces(tris, bsp);
+  }
+
+  @Test
+  public void test3()
+  {
+    // Squares parallel to the xy plane, shuffled: Front to back from below
+    // is by increasing z, back to front by decreasing.
+    int m=20;
+    Random r=new Random(3L);
+    Triangle3[] tris=new Triangle3[2*m];
+    int[] perm=new int[m];
+    for (int i=0; i<m; i++) perm[i]=i;
+    for (int i=m-1; i>0; i--)
+    {
+      int j=r.nextInt(i+1);
+      int tmp=perm[i];
+      perm[i]=perm[j];
+      perm[j]=tmp;
+    }
+    for (int i=0; i<m; i++)
+    {
+      double z=perm[i];
+      tris[2*i]=triangle(0, 0, z, 1, 0, z, 1, 1, z);
+      tris[2*i+1]=triangle(0, 0, z, 1, 1, z, 0, 1, z);
+    }
+
+    Bsp3 bsp=new Bsp3(tris);
+    assertEquals(2*m, bsp.size());
+
+    int[] order=new int[2*m];
+    double[] p=new double[9];
+    int[] stack=bsp.newStack();
+    assertEquals(2*m, bsp.frontToBack(0.5, 0.5, -5.0, order, stack));
+    double last=Double.NEGATIVE_INFINITY;
+    for (int i=0; i<2*m; i++)
+    {
+      double z=bsp.getTriangle(order[i], p)[2];
+      assertTrue(z>=last);
+      last=z;
+    }
+
+    assertEquals(2*m, bsp.backToFront(0.5, 0.5, -5.0, order, null));
+    last=Double.POSITIVE_INFINITY;
+    for (int i=0; i<2*m; i++)
+    {
+      double z=bsp.getTriangle(order[i], p)[2];
+      assertTrue(z<=last);
+      last=z;
+    }
+  }
+
+  @Test
+  public void test4()
+  {
+    // No triangle is hidden by one later in front to back order: Along rays
+    // from the view point hits are in order.
+    Random r=new Random(4L);
+    Triangle3[] tris=soup(r, 300, 10.0, 3.0);
+    Bsp3 bsp=new Bsp3(tris);
+
+    int n=bsp.size();
+    Triangle3[] pieces=new Triangle3[n];
+    double[] p=new double[9];
+    for (int i=0; i<n; i++)
+    {
+      bsp.getTriangle(i, p);
+      // Slivers too small for Triangle3, and to be hit, skipped.
+      if (area(p, 0)>1e-5)
+      {
+        pieces[i]=triangle(p[0], p[1], p[2], p[3], p[4], p[5], p[6], p[7],
+          p[8]);
+      }
+    }
+
+    int[] order=new int[n];
+    int[] stack=bsp.newStack();
+    double[] tuv=new double[3];
+    for (int v=0; v<10; v++)
+    {
+      double ex=-5.0+20.0*r.nextDouble();
+      double ey=-5.0+20.0*r.nextDouble();
+      double ez=(v%2==0) ? -5.0 : 15.0;
+      assertEquals(n, bsp.frontToBack(ex, ey, ez, order, stack));
+
+      for (int q=0; q<100; q++)
+      {
+        Line3 l=new Line3(ex, ey, ez, 10.0*r.nextDouble(),
+          10.0*r.nextDouble(), 10.0*r.nextDouble());
+        double lastT=Double.NEGATIVE_INFINITY;
+        for (int k=0; k<n; k++)
+        {
+          int i=order[k];
+          if (pieces[i]==null || !pieces[i].intersect(l, false, tuv)) continue;
+          if (tuv[0]<0.0) continue;
+          assertTrue(tuv[0]>=lastT-1e-9);
+          lastT=tuv[0];
+        }
+      }
+    }
+  }
+
+  @Test
+  public void test5()
+  {
+    // Parallel build gives the same tree as sequential.
+    Random r=new Random(5L);
+    Triangle3[] tris=soup(r, 3*Bsp3.PARALLEL_THRESHOLD, 20.0, 1.0);
+    Bsp3 seq=new Bsp3(tris, false);
+    Bsp3 par=new Bsp3(tris, true);
+
+    int n=seq.size();
+    assertEquals(n, par.size());
+    assertEquals(seq.getNodeCount(), par.getNodeCount());
+    assertEquals(seq.getMaxDepth(), par.getMaxDepth());
+
+    int[] so=new int[n];
+    int[] po=new int[n];
+    seq.frontToBack(7.0, -3.0, 25.0, so, null);
+    par.frontToBack(7.0, -3.0, 25.0, po, null);
+    for (int i=0; i<n; i++)
+    {
+      assertEquals(seq.getIndex(so[i]), par.getIndex(po[i]));
+      assertArrayEquals(seq.getTriangle(so[i], null),
+        par.getTriangle(po[i], null), 0.0);
+    }
+  }
+
+  @Test
+  public void test6()
+  {
+    // No tolerance: Rounding puts splitter's points either side of its own
+    // plane, it must still be kept at its node and the build end.
+    Random r=new Random(6L);
+    Triangle3[] tris=soup(r, 2000, 10.0, 1.0);
+    Bsp3 bsp=new Bsp3(tris, 0.0, false);
+    assertEquals(0.0, bsp.getTolerance(), 0.0);
+    assertTrue(bsp.size()>=tris.length);
+    checkPieces(tris, bsp);
+  }
+
+  // Checks pieces are in the plane of and have the area of the triangle
+  // they are of.
+  private static void checkPieces(Triangle3[] tris, Bsp3 bsp)
+  {
+    double[] area=new double[tris.length];
+    double[] p=new double[9];
+    for (int i=0; i<bsp.size(); i++)
+    {
+      int index=bsp.getIndex(i);
+      Triangle3 t=tris[index];
+      bsp.getTriangle(i, p);
+      for (int k=0; k<3; k++)
+      {
+        assertEquals(0.0, t.axbyczd(p[3*k], p[3*k+1], p[3*k+2]), 1e-9);
+      }
+      area[index]+=area(p, 0);
+    }
+
+    for (int i=0; i<tris.length; i++)
+    {
+      assertEquals(tris[i].area(), area[i], 1e-9*tris[i].area());
+    }
+  }
+
+  private static double area(double[] p, int o)
+  {
+    double ux=p[o+3]-p[o];
+    double uy=p[o+4]-p[o+1];
+    double uz=p[o+5]-p[o+2];
+    double vx=p[o+6]-p[o];
+    double vy=p[o+7]-p[o+1];
+    double vz=p[o+8]-p[o+2];
+    double cx=uy*vz-uz*vy;
+    double cy=uz*vx-ux*vz;
+    double cz=ux*vy-uy*vx;
+    return 0.5*Math.sqrt(cx*cx+cy*cy+cz*cz);
+  }
+
+  // n triangles of size up to s in box [0, b]^3.
+  private static Triangle3[] soup(Random r, int n, double b, double s)
+  {
+    Triangle3[] retVal=new Triangle3[n];
+    for (int i=0; i<n; i++)
+    {
+      double x=b*r.nextDouble();
+      double y=b*r.nextDouble();
+      double z=b*r.nextDouble();
+      retVal[i]=triangle(x, y, z,
+        x+s*r.nextDouble(), y+s*r.nextDouble(), z+s*r.nextDouble(),
+        x+s*r.nextDouble(), y+s*r.nextDouble(), z+s*r.nextDouble());
+    }
+    return retVal;
+  }
+
+  private static Triangle3 triangle(double x0, double y0, double z0,
+    double x1, double y1, double z1, double x2, double y2, double z2)
+  {
+    Triangle3 retVal=new Triangle3();
+    retVal.set(x0, y0, z0, x1, y1, z1, x2, y2, z2);
+    return retVal;
+  }
+
+}
@@ -0,0 +1,148 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line3;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.spatial.Bvh3;
+
+/**
+ * <p>
+ *   Test
+ *   {@link Bvh3} queries against brute force using
+ *   {@link Euclid#planeLine(org.aha.euclid.Plane3, Line3)} and
+ *   {@link Triangle3#inside(double, double, double)}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Bvh3Test_0
+{
+  private static final int N=2000;
+
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public Bvh3Test_0(){}
+
+  @Test
+  public void test1()
+  {
+    Random r=new Random(1L);
+    Triangle3[] tris=triangles(r);
+    Bvh3 bvh=new Bvh3(tris);
+
+    assertEquals(N, bvh.size());
+
+    int[] stack=bvh.newStack();
+    double[] tuv=new double[3];
+    int[] idx=new int[N];
+    double[] tuvs=new double[3*N];
+    Euclid e=new Euclid();
+
+    for (int q=0; q<200; q++)
+    {
+      Line3 l=new Line3(r.nextDouble()*10, r.nextDouble()*10, -1.0,
+        r.nextDouble()*10, r.nextDouble()*10, 11.0);
+
+      int first=-1;
+      double firstT=Double.POSITIVE_INFINITY;
+      int count=0;
+      for (int i=0; i<N; i++)
+      {
+        Triangle3 t=tris[i];
+        if (!e.planeLine(t, l)) continue;
+        double pt=e.getPt();
+        if (pt<0.0 || pt>1.0) continue;
+        if (!t.inside(l.getPointX(pt), l.getPointY(pt), l.getPointZ(pt)))
+          continue;
+        count++;
+        if (pt<firstT){ firstT=pt; first=i; }
+      }
+
+      int hit=bvh.first(l, true, tuv, stack);
+      assertEquals(first, hit);
+      if (hit!=-1)
+      {
+        assertEquals(firstT, tuv[0], 1e-9);
+
+        Triangle3 t=tris[hit];
+        double[] bc=t.barycentric(l.getPointX(tuv[0]), l.getPointY(tuv[0]),
+          l.getPointZ(tuv[0]));
+        assertEquals(bc[1], tuv[1], 1e-9);
+        assertEquals(bc[2], tuv[2], 1e-9);
+      }
+
+      assertEquals(count>0, bvh.any(l, true, stack));
+
+      int n=bvh.all(l, true, idx, tuvs, stack);
+      assertEquals(count, n);
+      for (int i=0; i<n; i++)
+      {
+        assertTrue(e.planeLine(tris[idx[i]], l));
+        assertEquals(e.getPt(), tuvs[3*i], 1e-9);
+      }
+    }
+  }
+
+  @Test
+  public void test2()
+  {
+    Triangle3 t=new Triangle3();
+    t.set(0, 0, 0,
+          1, 0, 0,
+          0, 1, 0);
+    Bvh3 bvh=new Bvh3(new Triangle3[]{ t });
+
+    Line3 below=new Line3(0.25, 0.25, -2.0, 0.25, 0.25, -1.0);
+
+    assertFalse(bvh.any(below, true, null));
+    assertTrue(bvh.any(below, false, null));
+
+    double[] tuv=new double[3];
+    assertEquals(0, bvh.first(below, false, tuv, null));
+    assertEquals(2.0, tuv[0], 1e-12);
+    assertEquals(0.25, tuv[1], 1e-12);
+    assertEquals(0.25, tuv[2], 1e-12);
+  }
+
+  @Test
+  public void test3()
+  {
+    Bvh3 bvh=new Bvh3(Triangle3.THE_EMPTY_ARRAY);
+    Line3 l=new Line3(0, 0, 0, 1, 1, 1);
+
+    assertEquals(-1, bvh.first(l, false, null, null));
+    assertFalse(bvh.any(l, false, null));
+    assertEquals(0, bvh.all(l, false, null, null, null));
+  }
+
+  private static Triangle3[] triangles(Random r)
+  {
+    Triangle3[] retVal=new Triangle3[N];
+    for (int i=0; i<N; i++)
+    {
+      double x=r.nextDouble()*10;
+      double y=r.nextDouble()*10;
+      double z=r.nextDouble()*10;
+      retVal[i]=new Triangle3();
+      retVal[i].set(x, y, z,
+        x+r.nextDouble(), y+r.nextDouble(), z+r.nextDouble()-0.5,
+        x+r.nextDouble()-0.5, y+r.nextDouble(), z+r.nextDouble()-0.5);
+    }
+    return retVal;
+  }
+
+}
@@ -0,0 +1,261 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.aha.euclid.Plane3;
+import org.aha.euclid.math.Predicates;
+import org.aha.euclid.spatial.ConvexHull2;
+import org.aha.euclid.spatial.ConvexHull3;
+
+/**
+ * <p>
+ *   Test
+ *   {@link ConvexHull2} and
+ *   {@link ConvexHull3}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class ConvexHullTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public ConvexHullTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    // Square with points inside, on edges and duplicated corners.
+    double[] x=new double[]{ 0.5, 1.0, 0.0, 0.5, 1.0, 0.0, 0.0, 0.2, 1.0 };
+    double[] y=new double[]{ 0.5, 1.0, 0.0, 0.0, 0.0, 1.0, 0.0, 0.7, 0.0 };
+    int[] h=ConvexHull2.hull(x, y);
+    assertEquals(4, h.length);
+    assertEquals(0.0, x[h[0]], 0.0);
+    assertEquals(0.0, y[h[0]], 0.0);
+    assertEquals(1.0, x[h[1]], 0.0);
+    assertEquals(0.0, y[h[1]], 0.0);
+    assertEquals(1, h[2]);
+    assertEquals(5, h[3]);
+    assertEquals(1.0, ConvexHull2.area(x, y, h), 0.0);
+
+    assertEquals(0, ConvexHull2.hull(new double[0], new double[0]).length);
+    assertArrayEquals(new int[]{ 0 },
+      ConvexHull2.hull(new double[]{ 2.0 }, new double[]{ 3.0 }));
+    assertEquals(1, ConvexHull2.hull(new double[]{ 2.0, 2.0 },
+      new double[]{ 3.0, 3.0 }).length);
+
+    // On a line.
+    h=ConvexHull2.hull(new double[]{ 1.0, 0.0, 3.0, 2.0 },
+      new double[]{ 1.0, 0.0, 3.0, 2.0 });
+    assertArrayEquals(new int[]{ 1, 2 }, h);
+
+    try
+    {
+      ConvexHull2.hull(new double[1], new double[2]);
+      fail();
+    }
+    catch (IllegalArgumentException ex){}
+  }
+
+  @Test
+  public void test2()
+  {
+    Random r=new Random(3L);
+    int n=3*ConvexHull2.PARALLEL_THRESHOLD;
+    double[] x=new double[n];
+    double[] y=new double[n];
+    for (int i=0; i<n; i++)
+    {
+      x[i]=r.nextDouble();
+      y[i]=r.nextDouble();
+    }
+
+    int[] h=ConvexHull2.hull(x, y);
+    int m=h.length;
+    assertTrue(m>3);
+    for (int k=0; k<m; k++)
+    {
+      int a=h[k];
+      int b=h[(k+1)%m];
+      int c=h[(k+2)%m];
+      assertTrue(Predicates.orient2d(x[a], y[a], x[b], y[b], x[c], y[c])>0.0);
+      for (int i=0; i<n; i++)
+      {
+        assertTrue(Predicates.orient2d(x[a], y[a], x[b], y[b], x[i], y[i])>=
+          0.0);
+      }
+    }
+
+    assertArrayEquals(h, ConvexHull2.hull(x, y, true));
+  }
+
+  @Test
+  public void test3()
+  {
+    // Unit cube corners and points inside.
+    Random r=new Random(5L);
+    int n=200;
+    double[] p=new double[3*n];
+    for (int i=0; i<n; i++)
+    {
+      for (int a=0; a<3; a++) p[3*i+a]=r.nextDouble();
+    }
+    for (int i=0; i<8; i++)
+    {
+      p[3*(5*i+1)]=i&1;
+      p[3*(5*i+1)+1]=(i>>1)&1;
+      p[3*(5*i+1)+2]=(i>>2)&1;
+    }
+
+    ConvexHull3 h=new ConvexHull3(p);
+    assertEquals(n, h.getPointCount());
+    assertEquals(1.0, h.volume(), 1e-12);
+    int[] v=h.getVertices();
+    assertEquals(8, v.length);
+    for (int i=0; i<8; i++) assertEquals(5*i+1, v[i]);
+    assertEquals(12, h.size());
+    assertValid(h, p);
+
+    Plane3 pl=new Plane3();
+    double[] q=new double[3];
+    for (int k=0; k<h.size(); k++)
+    {
+      h.getPlane(k, pl);
+      h.getPoint(h.getPoint(k, 2), q);
+      assertEquals(0.0, pl.distance(q[0], q[1], q[2]), 1e-12);
+      assertTrue(pl.axbyczd(0.5, 0.5, 0.5)<0.0);
+    }
+
+    assertTrue(h.contains(0.5, 0.5, 1.0));
+    assertFalse(h.contains(0.5, 0.5, 1.01));
+    assertEquals(n, h.toMesh().getVertexCount());
+    assertEquals(12, h.toMesh().size());
+
+    try
+    {
+      new ConvexHull3(new double[4]);
+      fail();
+    }
+    catch (IllegalArgumentException ex){}
+  }
+
+  @Test
+  public void test4()
+  {
+    // Points on a sphere are all vertices, parallel does not reduce them.
+    Random r=new Random(7L);
+    int n=ConvexHull3.PARALLEL_THRESHOLD+1000;
+    double[] p=new double[3*n];
+    for (int i=0; i<n; i++)
+    {
+      double x=r.nextGaussian();
+      double y=r.nextGaussian();
+      double z=r.nextGaussian();
+      double l=Math.sqrt(x*x+y*y+z*z);
+      p[3*i]=x/l;
+      p[3*i+1]=y/l;
+      p[3*i+2]=z/l;
+    }
+
+    ConvexHull3 h=new ConvexHull3(p);
+    assertEquals(n, h.getVertices().length);
+    assertEquals(2*n-4, h.size());
+    assertEquals(4.0*Math.PI/3.0, h.volume(), 1e-2);
+    assertValid(h, p, 97);
+
+    ConvexHull3 ph=new ConvexHull3(p, true);
+    assertArrayEquals(h.getVertices(), ph.getVertices());
+    assertEquals(h.volume(), ph.volume(), 1e-12);
+  }
+
+  @Test
+  public void test5()
+  {
+    // Points added one by one: Coplanar first, then lifting the hull.
+    ConvexHull3 h=new ConvexHull3();
+    assertEquals(0, h.size());
+    assertFalse(h.contains(0.0, 0.0, 0.0));
+
+    Random r=new Random(9L);
+    for (int i=0; i<50; i++)
+    {
+      assertEquals(i, h.add(r.nextDouble(), r.nextDouble(), 0.0));
+      assertEquals(0, h.size());
+    }
+    h.add(0.5, 0.5, 1.0);
+    assertTrue(h.size()>0);
+    assertTrue(h.contains(0.5, 0.5, 0.5));
+
+    int n=2000;
+    for (int i=0; i<n; i++)
+    {
+      h.add(r.nextDouble(), r.nextDouble(), r.nextDouble());
+    }
+    double[] p=new double[3*h.getPointCount()];
+    for (int i=0; i<h.getPointCount(); i++)
+    {
+      double[] q=h.getPoint(i, null);
+      System.arraycopy(q, 0, p, 3*i, 3);
+    }
+    assertValid(h, p);
+
+    // Vertices of the hull of the base may stay on it, same shape.
+    ConvexHull3 e=new ConvexHull3(p);
+    assertEquals(e.volume(), h.volume(), 1e-12);
+    for (int i : h.getVertices())
+    {
+      assertTrue(e.contains(p[3*i], p[3*i+1], p[3*i+2]));
+    }
+  }
+
+  // Closed, each edge once each way, and all points inside.
+  private static void assertValid(ConvexHull3 h, double[] p)
+  {
+    assertValid(h, p, 1);
+  }
+
+  // Closed, each edge once each way, and every step'th point inside.
+  private static void assertValid(ConvexHull3 h, double[] p, int step)
+  {
+    int[] t=h.getTriangles();
+    int f=t.length/3;
+    assertEquals(h.size(), f);
+    Set<Long> edges=new HashSet<>();
+    for (int k=0; k<f; k++)
+    {
+      for (int j=0; j<3; j++)
+      {
+        long a=t[3*k+j];
+        long b=t[3*k+(j+1)%3];
+        assertTrue(edges.add((a<<32)|b));
+      }
+    }
+    for (long e : edges)
+    {
+      assertTrue(edges.contains(((e&0xffffffffL)<<32)|(e>>>32)));
+    }
+    assertEquals(2, h.getVertices().length-edges.size()/2+f);
+
+    for (int i=0; i<p.length/3; i+=step)
+    {
+      assertTrue(h.contains(p[3*i], p[3*i+1], p[3*i+2]));
+    }
+  }
+
+}
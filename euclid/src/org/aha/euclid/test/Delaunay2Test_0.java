@@ -0,0 +1,137 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.aha.euclid.Circle2;
+import org.aha.euclid.Triangle2;
+import org.aha.euclid.math.Predicates;
+import org.aha.euclid.spatial.Delaunay2;
+
+/**
+ * <p>
+ *   Test
+ *   {@link Delaunay2}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Delaunay2Test_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public Delaunay2Test_0(){}
+
+  @Test
+  public void test1()
+  {
+    // Random points: 2n-2-h triangles, no point inside a circumscribed
+    // circle.
+    Random r=new Random(9L);
+    int n=1500;
+    double[] x=new double[n];
+    double[] y=new double[n];
+    for (int i=0; i<n; i++)
+    {
+      x[i]=r.nextDouble();
+      y[i]=r.nextDouble();
+    }
+
+    Delaunay2 d=new Delaunay2(x, y);
+    assertEquals(n, d.getPointCount());
+    check(d, x, y);
+
+    // Same with parallel ordering.
+    assertArrayEquals(d.getTriangles(), new Delaunay2(x, y, true)
+      .getTriangles());
+
+    Triangle2 t=d.getTriangle(0, null);
+    Circle2 c=t.circumscribed();
+    for (int i=0; i<n; i++)
+    {
+      double dx=x[i]-c.x();
+      double dy=y[i]-c.y();
+      assertTrue(Math.sqrt(dx*dx+dy*dy)>=c.getRadius()*(1-1e-9));
+    }
+  }
+
+  @Test
+  public void test2()
+  {
+    // Grid: Cocircular squares, collinear hull, duplicates.
+    int g=30;
+    double[] x=new double[g*g+g];
+    double[] y=new double[g*g+g];
+    for (int i=0; i<g*g; i++)
+    {
+      x[i]=1e6+i%g;
+      y[i]=1e6+i/g;
+    }
+    for (int i=0; i<g; i++)
+    {
+      x[g*g+i]=x[7*i];
+      y[g*g+i]=y[7*i];
+    }
+
+    Delaunay2 d=new Delaunay2(x, y);
+    assertEquals(2*(g-1)*(g-1), d.size());
+    check(d, x, y);
+  }
+
+  @Test
+  public void test3()
+  {
+    assertEquals(0, new Delaunay2(new double[0], new double[0]).size());
+    assertEquals(0, new Delaunay2(new double[]{ 0, 1, 2, 3 },
+      new double[]{ 0, 2, 4, 6 }).size());
+
+    Delaunay2 d=new Delaunay2(new double[]{ 0, 1, 0 },
+      new double[]{ 0, 0, 1 });
+    assertEquals(1, d.size());
+    Triangle2 t=d.getTriangle(0, new Triangle2());
+    assertEquals(0.5, t.area(), 0.0);
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void test4(){ new Delaunay2(new double[2], new double[3]); }
+
+  private static void check(Delaunay2 d, double[] x, double[] y)
+  {
+    int[] t=d.getTriangles();
+    Set<Long> edges=new HashSet<Long>();
+    for (int k=0; k<d.size(); k++)
+    {
+      int a=t[3*k];
+      int b=t[3*k+1];
+      int c=t[3*k+2];
+      assertEquals(a, d.getPoint(k, 0));
+      assertTrue(Predicates.orient2d(x[a], y[a], x[b], y[b], x[c], y[c])>0);
+      for (int i=0; i<x.length; i++)
+      {
+        assertTrue(Predicates.incircle(x[a], y[a], x[b], y[b], x[c], y[c],
+          x[i], y[i])<=0.0);
+      }
+
+      // Directed edges used once: Triangles do not overlap.
+      for (int i=0; i<3; i++)
+      {
+        long e=((long)t[3*k+i]<<32)|t[3*k+(i+1)%3];
+        assertTrue(edges.add(e));
+      }
+    }
+  }
+
+}
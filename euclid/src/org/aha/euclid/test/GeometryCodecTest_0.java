@@ -0,0 +1,265 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Circle2;
+import org.aha.euclid.GeometryCodec;
+import org.aha.euclid.Hyperplane;
+import org.aha.euclid.Line2;
+import org.aha.euclid.Line3;
+import org.aha.euclid.Plane3;
+import org.aha.euclid.Sphere3;
+import org.aha.euclid.Triangle2;
+import org.aha.euclid.Triangle3;
+
+/**
+ * <p>
+ *   Test
+ *   {@link GeometryCodec}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class GeometryCodecTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public GeometryCodecTest_0(){}
+
+  private static final int[] OPTIONS=
+  {
+    0, GeometryCodec.FLOAT32, GeometryCodec.DELTA,
+    GeometryCodec.FLOAT32|GeometryCodec.DELTA
+  };
+
+  @Test
+  public void test1()
+  {
+    // Single objects, decoded into allocated and given instances.
+    Random r=new Random(3L);
+    for (Object[] a : arrays(r, 5))
+    {
+      for (Object o : a)
+      {
+        for (int options : OPTIONS)
+        {
+          int size=GeometryCodec.size(o, options);
+          ByteBuffer b=ByteBuffer.allocate(size+1);
+          GeometryCodec.put(b, o, options);
+          assertEquals(size, b.position());
+
+          b.flip();
+          @SuppressWarnings("unchecked")
+          Class<Object> c=(Class<Object>)o.getClass();
+          Object d=GeometryCodec.get(b, c, null, options);
+          assertEquals(0, b.remaining());
+          assertEquals(o.getClass(), d.getClass());
+          assertSame(o, d, options);
+
+          b.rewind();
+          Object into=GeometryCodec.get(b, c, null, options);
+          b.rewind();
+          assertTrue(into==GeometryCodec.get(b, c, into, options));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void test2()
+  {
+    // Arrays, all options, decoded into preallocated instances.
+    Random r=new Random(5L);
+    for (Object[] a : arrays(r, 100))
+    {
+      for (int options : OPTIONS)
+      {
+        byte[] e=GeometryCodec.encode(a, options);
+        if ((options&GeometryCodec.DELTA)==0)
+        {
+          assertEquals(GeometryCodec.size(a, options), e.length);
+        }
+
+        Object[] d=GeometryCodec.decode(ByteBuffer.wrap(e),
+          Arrays.copyOf(a, 0));
+        assertEquals(a.length, d.length);
+        assertEquals(a.getClass(), d.getClass());
+        for (int i=0; i<a.length; i++) assertSame(a[i], d[i], options);
+
+        Object[] into=d.clone();
+        Object[] d2=GeometryCodec.decode(ByteBuffer.wrap(e), into);
+        assertTrue(d2==into);
+        for (int i=0; i<a.length; i++) assertTrue(d2[i]==d[i]);
+      }
+    }
+  }
+
+  @Test
+  public void test3() throws IOException
+  {
+    // Streams, two arrays in one stream.
+    Random r=new Random(7L);
+    Sphere3[] s=(Sphere3[])arrays(r, 10)[6];
+    Hyperplane[] h=(Hyperplane[])arrays(r, 10)[7];
+    ByteArrayOutputStream bos=new ByteArrayOutputStream();
+    GeometryCodec.write(bos, s, 0);
+    GeometryCodec.write(bos, h, GeometryCodec.DELTA);
+
+    ByteArrayInputStream bis=new ByteArrayInputStream(bos.toByteArray());
+    Sphere3[] ds=GeometryCodec.read(bis, Sphere3.THE_EMPTY_ARRAY);
+    Hyperplane[] dh=GeometryCodec.read(bis, Hyperplane.THE_EMPTY_ARRAY);
+    assertEquals(0, bis.available());
+    for (int i=0; i<10; i++)
+    {
+      assertSame(s[i], ds[i], 0);
+      assertSame(h[i], dh[i], 0);
+    }
+  }
+
+  @Test
+  public void test4()
+  {
+    // Delta encoding of a triangle strip: Lossless and smaller.
+    Triangle3[] t=new Triangle3[1000];
+    for (int i=0; i<t.length; i++)
+    {
+      t[i]=new Triangle3();
+      t[i].set(100+i*0.01, 200, 5, 100+i*0.01+0.01, 200, 5, 100+i*0.01,
+        200.01, 5.001);
+    }
+    byte[] raw=GeometryCodec.encode(t, 0);
+    byte[] delta=GeometryCodec.encode(t, GeometryCodec.DELTA);
+    assertTrue(delta.length<raw.length);
+    Triangle3[] d=GeometryCodec.decode(ByteBuffer.wrap(delta),
+      Triangle3.THE_EMPTY_ARRAY);
+    assertArrayEquals(raw, GeometryCodec.encode(d, 0));
+    assertEquals(t[999].x1(), d[999].x1(), 0.0);
+    assertEquals(t[999].c(), d[999].c(), 0.0);
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void test5()
+  {
+    byte[] e=GeometryCodec.encode(new Circle2[]{ new Circle2() }, 0);
+    GeometryCodec.decode(ByteBuffer.wrap(e), Sphere3.THE_EMPTY_ARRAY);
+  }
+
+  @Test(expected=IOException.class)
+  public void test6() throws IOException
+  {
+    byte[] e=GeometryCodec.encode(new Circle2[]{ new Circle2() }, 0);
+    GeometryCodec.read(new ByteArrayInputStream(e, 0, e.length-1),
+      Circle2.THE_EMPTY_ARRAY);
+  }
+
+  @Test(expected=NullPointerException.class)
+  public void test7(){ GeometryCodec.encode(new Line2[1], 0); }
+
+  @Test
+  public void test8()
+  {
+    // Malformed headers: Count more than the length can hold and length
+    // more than the stream has, rejected before allocating by them.
+    byte[] e=GeometryCodec.encode(new Line3[]{ new Line3() },
+      GeometryCodec.DELTA);
+    for (int options : new int[]{ 0, GeometryCodec.DELTA })
+    {
+      for (int n : new int[]{ Integer.MAX_VALUE, e.length })
+      {
+        ByteBuffer b=ByteBuffer.wrap(e.clone())
+          .order(ByteOrder.LITTLE_ENDIAN);
+        b.put(4, (byte)options).putInt(5, n);
+        try
+        {
+          GeometryCodec.decode(b, Line3.THE_EMPTY_ARRAY);
+          fail();
+        }
+        catch (IllegalArgumentException iae){}
+
+        try
+        {
+          GeometryCodec.read(new ByteArrayInputStream(b.array()),
+            Line3.THE_EMPTY_ARRAY);
+          fail();
+        }
+        catch (IOException iox){}
+      }
+    }
+
+    byte[] h=Arrays.copyOf(e, 20);
+    ByteBuffer.wrap(h).order(ByteOrder.LITTLE_ENDIAN)
+      .putInt(GeometryCodec.HEADER_SIZE-4, Integer.MAX_VALUE-100);
+    try
+    {
+      GeometryCodec.read(new ByteArrayInputStream(h), Line3.THE_EMPTY_ARRAY);
+      fail();
+    }
+    catch (IOException iox){}
+  }
+
+  // Same if encodes the same.
+  private static void assertSame(Object o, Object d, int options)
+  {
+    int f=options&GeometryCodec.FLOAT32;
+    Object[] oa=(Object[])Array.newInstance(o.getClass(), 1);
+    Object[] da=(Object[])Array.newInstance(o.getClass(), 1);
+    oa[0]=o;
+    da[0]=d;
+    assertArrayEquals(GeometryCodec.encode(oa, f), GeometryCodec.encode(da, f));
+  }
+
+  private static Object[][] arrays(Random r, int n)
+  {
+    Line2[] l2=new Line2[n];
+    Line3[] l3=new Line3[n];
+    Plane3[] p3=new Plane3[n];
+    Triangle2[] t2=new Triangle2[n];
+    Triangle3[] t3=new Triangle3[n];
+    Circle2[] c2=new Circle2[n];
+    Sphere3[] s3=new Sphere3[n];
+    Hyperplane[] h=new Hyperplane[n];
+    for (int i=0; i<n; i++)
+    {
+      l2[i]=new Line2(r.nextDouble(), r.nextDouble(), 1+r.nextDouble(),
+        r.nextDouble());
+      l3[i]=new Line3(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        1+r.nextDouble(), r.nextDouble(), r.nextDouble());
+      p3[i]=new Plane3(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        r.nextDouble(), 1, r.nextDouble());
+      t2[i]=new Triangle2();
+      t2[i].set(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        r.nextDouble(), r.nextDouble(), r.nextDouble());
+      t3[i]=new Triangle3();
+      t3[i].set(r.nextDouble(), 0, r.nextDouble(), 1+r.nextDouble(),
+        r.nextDouble(), 0, r.nextDouble(), 1+r.nextDouble(), r.nextDouble());
+      c2[i]=new Circle2(r.nextDouble(), r.nextDouble(), r.nextDouble());
+      s3[i]=new Sphere3(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        r.nextDouble());
+      double[] hn=new double[1+r.nextInt(4)];
+      for (int j=0; j<hn.length; j++) hn[j]=r.nextGaussian();
+      h[i]=new Hyperplane(r.nextDouble(), hn);
+    }
+    return new Object[][]{ l2, l3, p3, t2, t3, c2, s3, h };
+  }
+
+}
@@ -0,0 +1,230 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Hyperplane;
+import org.aha.euclid.halfspace.HalfSpaceSet;
+import org.aha.euclid.halfspace.SeidelLP;
+
+/**
+ * <p>
+ *   Test
+ *   {@link HalfSpaceSet}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class HalfSpaceSetTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public HalfSpaceSetTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    // Unit cube.
+    HalfSpaceSet s=new HalfSpaceSet(
+      new Hyperplane(-1.0, new double[]{ 1.0, 0.0, 0.0 }),
+      new Hyperplane(0.0, new double[]{ -1.0, 0.0, 0.0 }),
+      new Hyperplane(-1.0, new double[]{ 0.0, 1.0, 0.0 }),
+      new Hyperplane(0.0, new double[]{ 0.0, -1.0, 0.0 }),
+      new Hyperplane(-1.0, new double[]{ 0.0, 0.0, 1.0 }),
+      new Hyperplane(0.0, new double[]{ 0.0, 0.0, -1.0 }));
+    assertEquals(3, s.getDimension());
+    assertEquals(6, s.size());
+
+    assertEquals(-1, s.classify(new double[]{ 0.5, 0.5, 0.5 }));
+    assertEquals(-1, s.classify(new double[]{ 1.0, 0.0, 1.0 }));
+    assertEquals(0, s.classify(new double[]{ 2.0, 2.0, 0.5 }));
+    assertEquals(5, s.classify(new double[]{ 0.5, 0.5, -0.1 }));
+    assertFalse(s.contains(new double[]{ 1.0, 0.0, 1.01 }));
+    s.setTolerance(0.1);
+    assertTrue(s.contains(new double[]{ 1.0, 0.0, 1.01 }));
+    s.setTolerance(0.0);
+    try
+    {
+      s.setTolerance(-0.1);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+
+    double[] p=new double[]{ 0.5, 0.5, 0.5, 2.0, 2.0, 0.5, 0.5, 0.5, -0.1 };
+    int[] r=new int[3];
+    assertEquals(1, s.classify(p, r));
+    assertArrayEquals(new int[]{ -1, 0, 5 }, r);
+
+    double[] x=new double[3];
+    assertEquals(0.5, s.chebyshevCenter(x), 1e-12);
+    assertArrayEquals(new double[]{ 0.5, 0.5, 0.5 }, x, 1e-12);
+    assertFalse(s.isEmpty());
+
+    try
+    {
+      s.classify(new double[2]);
+      fail();
+    }
+    catch (IllegalArgumentException ex){}
+
+    try
+    {
+      s.classify(new double[7], new int[2]);
+      fail();
+    }
+    catch (IllegalArgumentException ex){}
+
+    try
+    {
+      s.classify(new double[9], new int[2]);
+      fail();
+    }
+    catch (IllegalArgumentException ex){}
+
+    try
+    {
+      new HalfSpaceSet(new Hyperplane(2), new Hyperplane(3));
+      fail();
+    }
+    catch (IllegalArgumentException ex){}
+  }
+
+  @Test
+  public void test2()
+  {
+    // Compared to evaluating the hyperplanes.
+    Random r=new Random(31L);
+    for (int d=1; d<=5; d++)
+    {
+      Hyperplane[] h=random(r, d, 20);
+      HalfSpaceSet s=new HalfSpaceSet(h);
+      int n=1000;
+      double[] p=new double[n*d];
+      for (int i=0; i<p.length; i++) p[i]=2.0*r.nextDouble()-1.0;
+
+      int[] c=new int[n];
+      int inside=s.classify(p, c);
+      int count=0;
+      double[] q=new double[d];
+      for (int i=0; i<n; i++)
+      {
+        System.arraycopy(p, i*d, q, 0, d);
+        int first=-1;
+        for (int k=0; k<h.length && first<0; k++)
+        {
+          if (h[k].eva(q)>1e-12) first=k;
+        }
+        assertEquals(first, c[i]);
+        assertEquals(first, s.classify(q));
+        if (first<0) count++;
+      }
+      assertEquals(count, inside);
+      assertTrue(inside>0 && inside<n);
+    }
+  }
+
+  @Test
+  public void test3()
+  {
+    Random r=new Random(33L);
+    int d=3;
+    Hyperplane[] h=random(r, d, 30);
+    HalfSpaceSet s=new HalfSpaceSet(h);
+    int n=5*HalfSpaceSet.PARALLEL_THRESHOLD+7;
+    double[] p=new double[n*d];
+    for (int i=0; i<p.length; i++) p[i]=2.0*r.nextDouble()-1.0;
+
+    int[] a=new int[n];
+    int[] b=new int[n];
+    int inside=s.classify(p, a);
+    assertEquals(inside, s.parallelClassify(p, b));
+    assertArrayEquals(a, b);
+
+    // Reordered: Same points inside, violated hyperplanes violated, the
+    // one rejecting most first.
+    s.reorder(Arrays.copyOf(p, 3000*d));
+    int[] order=s.getOrder();
+    int[] counts=new int[h.length];
+    double[] q=new double[d];
+    for (int i=0; i<3000; i++)
+    {
+      System.arraycopy(p, i*d, q, 0, d);
+      for (int k=0; k<h.length; k++) if (h[k].eva(q)>0.0) counts[k]++;
+    }
+    for (int k=1; k<order.length; k++)
+    {
+      assertTrue(counts[order[k-1]]>=counts[order[k]]);
+    }
+
+    assertEquals(inside, s.classify(p, b));
+    for (int i=0; i<n; i++)
+    {
+      assertEquals(a[i]<0, b[i]<0);
+      if (b[i]>=0)
+      {
+        System.arraycopy(p, i*d, q, 0, d);
+        assertTrue(h[b[i]].eva(q)>0.0);
+      }
+    }
+  }
+
+  @Test
+  public void test4()
+  {
+    // x<=0 and x>=1: Empty.
+    HalfSpaceSet s=new HalfSpaceSet(
+      new Hyperplane(0.0, 1.0, 0.0),
+      new Hyperplane(1.0, -1.0, 0.0));
+    double[] x=new double[2];
+    assertEquals(-0.5, s.chebyshevCenter(x), 1e-12);
+    assertEquals(0.5, x[0], 1e-12);
+    assertTrue(s.isEmpty());
+
+    // Half-plane: Unbounded.
+    s=new HalfSpaceSet(new Hyperplane(0.0, 1.0, 0.0));
+    assertEquals(SeidelLP.DEFAULT_BOUND, s.chebyshevCenter(null), 0.0);
+    assertFalse(s.isEmpty());
+
+    // Zero vector, positive constant.
+    s=new HalfSpaceSet(new Hyperplane(1.0, 0.0, 0.0));
+    assertEquals(Double.NEGATIVE_INFINITY, s.chebyshevCenter(null), 0.0);
+    assertTrue(s.isEmpty());
+    assertEquals(0, s.classify(new double[2]));
+  }
+
+  // Half-spaces with unit normals at distance in [0.2, 1.0) from origin,
+  // containing it.
+  private static Hyperplane[] random(Random r, int d, int m)
+  {
+    Hyperplane[] retVal=new Hyperplane[m];
+    for (int k=0; k<m; k++)
+    {
+      double[] n=new double[d];
+      double l=0.0;
+      for (int j=0; j<d; j++)
+      {
+        n[j]=r.nextGaussian();
+        l+=n[j]*n[j];
+      }
+      l=Math.sqrt(l);
+      for (int j=0; j<d; j++) n[j]/=l;
+      retVal[k]=new Hyperplane(-0.2-0.8*r.nextDouble(), n);
+    }
+    return retVal;
+  }
+
+}
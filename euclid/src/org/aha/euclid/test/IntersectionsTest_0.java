@@ -0,0 +1,83 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Intersection;
+import org.aha.euclid.Intersections;
+import org.aha.euclid.Line2;
+import org.aha.euclid.Line3;
+import org.aha.euclid.Plane3;
+
+/**
+ * <p>
+ *   Test
+ *   {@link Intersections}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class IntersectionsTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public IntersectionsTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    // Same lines as EuclidTest_0.test5, from many threads at once.
+    final Line2 p=new Line2(0, 0, 1, 1);
+    final Line2 q=new Line2(1, 0, 0, 1);
+
+    long bad=IntStream.range(0, 10000).parallel()
+      .mapToObj(i -> Intersections.lineLine(p, q))
+      .filter(r -> r.parallel() || r.getPt()!=0.5 || r.getQt()!=0.5)
+      .count();
+    assertEquals(0L, bad);
+
+    Intersection r=Intersections.lineLine(p, p);
+    assertTrue(r.parallel());
+  }
+
+  @Test
+  public void test2()
+  {
+    Plane3 xy=new Plane3(0, 0, 0, 0, 0, 1);
+    Plane3 xz=new Plane3(0, 0, 0, 0, 1, 0);
+    Line3 l=new Line3(1, 1, 1, 1, 1, -1);
+
+    Euclid e=new Euclid(xy, l);
+    Intersection r=Intersections.planeLine(xy, l);
+    assertFalse(r.parallel());
+    assertEquals(e.getPt(), r.getPt(), 0.0);
+    assertEquals(0.5, r.getPt(), 1e-12);
+
+    Line3 in=new Line3(0, 0, 0, 1, 0, 0);
+    r=Intersections.planeLine(xy, in);
+    assertTrue(r.parallel());
+    assertFalse(r.disjoint());
+
+    r=Intersections.planePlane(xy, xz);
+    assertFalse(r.parallel());
+    assertEquals(new Euclid().planePlane(xy, xz), r.getLine());
+
+    r=Intersections.planePlane(xy, xy);
+    assertTrue(r.parallel());
+    assertNull(r.getLine());
+  }
+
+}
@@ -0,0 +1,329 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Line2;
+import org.aha.euclid.Line3;
+import org.aha.euclid.MethodNotSupportedException;
+import org.aha.euclid.Plane3;
+import org.aha.euclid.spatial.KdTree;
+
+/**
+ * <p>
+ *   Test
+ *   {@link KdTree} queries against brute force using
+ *   {@link Line2#distance(double, double)},
+ *   {@link Line3#distance(double, double, double)} and
+ *   {@link Plane3#distance(double, double, double)}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class KdTreeTest_0
+{
+  private static final int N=3000;
+
+  private static final int K=10;
+
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public KdTreeTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    // Nearest and within a point, 2D and 3D.
+    Random r=new Random(1L);
+    for (int dim=2; dim<=3; dim++)
+    {
+      double[] p=points(r, N, dim);
+      KdTree t=new KdTree(p, dim);
+      assertEquals(N, t.size());
+      assertEquals(dim, t.dimension());
+
+      double[] stack=t.newStack();
+      int[] idx=new int[N];
+      double[] dist=new double[K];
+      double[] d=new double[N];
+      for (int q=0; q<100; q++)
+      {
+        double x=-2.0+14.0*r.nextDouble();
+        double y=-2.0+14.0*r.nextDouble();
+        double z=-2.0+14.0*r.nextDouble();
+        for (int i=0; i<N; i++)
+        {
+          double dx=p[i*dim]-x;
+          double dy=p[i*dim+1]-y;
+          double dz=(dim==3) ? p[i*dim+2]-z : 0.0;
+          d[i]=Math.sqrt(dx*dx+dy*dy+dz*dz);
+        }
+
+        int n=(dim==2) ? t.nearest(x, y, K, idx, dist, stack) :
+          t.nearest(x, y, z, K, idx, dist, stack);
+        checkNearest(d, K, n, idx, dist);
+
+        double rad=2.0*r.nextDouble();
+        n=(dim==2) ? t.within(x, y, rad, idx, stack) :
+          t.within(x, y, z, rad, idx, stack);
+        checkWithin(d, rad, n, idx);
+      }
+    }
+  }
+
+  @Test
+  public void test2()
+  {
+    // Nearest and within a line and segment in 2D.
+    Random r=new Random(2L);
+    double[] p=points(r, N, 2);
+    KdTree t=new KdTree(p, 2);
+
+    double[] stack=t.newStack();
+    int[] idx=new int[N];
+    double[] dist=new double[K];
+    double[] d=new double[N];
+    for (int q=0; q<100; q++)
+    {
+      Line2 l=new Line2(10.0*r.nextDouble(), 10.0*r.nextDouble(),
+        10.0*r.nextDouble(), 10.0*r.nextDouble());
+      boolean segment=(q%2==0);
+      for (int i=0; i<N; i++)
+      {
+        d[i]=segment ? segment(l, p[2*i], p[2*i+1]) :
+          l.distance(p[2*i], p[2*i+1]);
+      }
+
+      int n=t.nearest(l, segment, K, idx, dist, stack);
+      checkNearest(d, K, n, idx, dist);
+
+      double rad=0.5*r.nextDouble();
+      n=t.within(l, segment, rad, idx, stack);
+      checkWithin(d, rad, n, idx);
+    }
+  }
+
+  @Test
+  public void test3()
+  {
+    // Nearest and within a line, segment and plane in 3D.
+    Random r=new Random(3L);
+    double[] p=points(r, N, 3);
+    KdTree t=new KdTree(p, 3);
+
+    double[] stack=t.newStack();
+    int[] idx=new int[N];
+    double[] dist=new double[K];
+    double[] d=new double[N];
+    for (int q=0; q<150; q++)
+    {
+      Line3 l=new Line3(10.0*r.nextDouble(), 10.0*r.nextDouble(),
+        10.0*r.nextDouble(), 10.0*r.nextDouble(), 10.0*r.nextDouble(),
+        10.0*r.nextDouble());
+      Plane3 pl=new Plane3(10.0*r.nextDouble(), 10.0*r.nextDouble(),
+        10.0*r.nextDouble(), r.nextGaussian(), r.nextGaussian(),
+        r.nextGaussian());
+      int kind=q%3;
+      for (int i=0; i<N; i++)
+      {
+        double x=p[3*i];
+        double y=p[3*i+1];
+        double z=p[3*i+2];
+        d[i]=(kind==0) ? l.distance(x, y, z) :
+          (kind==1) ? segment(l, x, y, z) : pl.distance(x, y, z);
+      }
+
+      int n=(kind==2) ? t.nearest(pl, K, idx, dist, stack) :
+        t.nearest(l, kind==1, K, idx, dist, stack);
+      checkNearest(d, K, n, idx, dist);
+
+      double rad=0.5*r.nextDouble();
+      n=(kind==2) ? t.within(pl, rad, idx, stack) :
+        t.within(l, kind==1, rad, idx, stack);
+      checkWithin(d, rad, n, idx);
+    }
+  }
+
+  @Test
+  public void test4()
+  {
+    // Parallel build answers as sequential, duplicates, small trees and
+    // the short segment.
+    Random r=new Random(4L);
+    int n=3*KdTree.PARALLEL_THRESHOLD;
+    double[] p=points(r, n, 3);
+    KdTree seq=new KdTree(p, 3, false);
+    KdTree par=new KdTree(p, 3, true);
+    int[] si=new int[K];
+    int[] pi=new int[K];
+    double[] sd=new double[K];
+    double[] pd=new double[K];
+    for (int q=0; q<50; q++)
+    {
+      double x=10.0*r.nextDouble();
+      double y=10.0*r.nextDouble();
+      double z=10.0*r.nextDouble();
+      assertEquals(K, seq.nearest(x, y, z, K, si, sd, null));
+      assertEquals(K, par.nearest(x, y, z, K, pi, pd, null));
+      assertArrayEquals(sd, pd, 0.0);
+    }
+
+    // All the same point.
+    double[] same=new double[2*100];
+    Arrays.fill(same, 1.0);
+    KdTree t=new KdTree(same, 2);
+    int[] idx=new int[100];
+    double[] dist=new double[100];
+    assertEquals(100, t.nearest(0, 1, 100, idx, dist, null));
+    for (int i=0; i<100; i++) assertEquals(1.0, dist[i], 0.0);
+    assertEquals(100, t.within(1, 1, 0.0, idx, null));
+
+    // Fewer points than asked for and none.
+    t=new KdTree(new double[]{ 0, 0, 3, 4 }, 2);
+    assertEquals(2, t.nearest(0, 0, 5, idx, dist, null));
+    assertEquals(0, idx[0]);
+    assertEquals(5.0, dist[1], 0.0);
+    t=new KdTree(new double[0], 3);
+    assertEquals(0, t.nearest(0, 0, 0, 5, idx, dist, null));
+    assertEquals(0, t.within(0, 0, 0, 1, idx, null));
+
+    // Short segment is all but a point.
+    t=new KdTree(new double[]{ 0, 0, 0, 1, 1, 1 }, 3);
+    assertEquals(1, t.nearest(new Line3(1, 1, 0.8, 1, 1, 0.9), true, 1, idx,
+      dist, null));
+    assertEquals(1, idx[0]);
+    assertEquals(0.1, dist[0], 1e-12);
+
+    // Counted beyond room.
+    assertEquals(2, t.within(new Line3(0, 0, 0, 1, 1, 1), false, 0.1,
+      new int[1], null));
+  }
+
+  @Test
+  public void test5()
+  {
+    try
+    {
+      new KdTree(new double[3], 4);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+
+    try
+    {
+      new KdTree(new double[5], 2);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+
+    KdTree t=new KdTree(new double[4], 2);
+    try
+    {
+      t.nearest(0, 0, 0, 1, new int[1], new double[1], null);
+      fail();
+    }
+    catch (MethodNotSupportedException mnse){}
+
+    try
+    {
+      t.nearest(0, 0, 2, new int[1], new double[2], null);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+
+    try
+    {
+      t.within(0, 0, -1.0, new int[1], null);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+
+    try
+    {
+      t.within(new Line2(0, 0, 1, 1), true, -1.0, new int[1], null);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+  }
+
+  // Checks k nearest found: Distances those of the k smallest, ascending,
+  // and of the points reported.
+  private static void checkNearest(double[] d, int k, int n, int[] idx,
+    double[] dist)
+  {
+    assertEquals(Math.min(k, d.length), n);
+    double[] sorted=d.clone();
+    Arrays.sort(sorted);
+    for (int i=0; i<n; i++)
+    {
+      assertEquals(sorted[i], dist[i], 1e-9);
+      assertEquals(d[idx[i]], dist[i], 1e-9);
+    }
+    for (int i=0; i<n; i++)
+    {
+      for (int j=i+1; j<n; j++) assertTrue(idx[i]!=idx[j]);
+    }
+  }
+
+  // Checks points within found: Those within, allowing for round off at
+  // the distance.
+  private static void checkWithin(double[] d, double r, int n, int[] idx)
+  {
+    boolean[] found=new boolean[d.length];
+    for (int i=0; i<n; i++)
+    {
+      assertTrue(!found[idx[i]]);
+      found[idx[i]]=true;
+      assertTrue(d[idx[i]]<=r+1e-9);
+    }
+    for (int i=0; i<d.length; i++)
+    {
+      if (d[i]<r-1e-9) assertTrue(found[i]);
+    }
+  }
+
+  private static double segment(Line2 l, double x, double y)
+  {
+    double t=Math.max(0.0, Math.min(1.0, l.closest(x, y)));
+    return Math.hypot(x-l.getPointX(t), y-l.getPointY(t));
+  }
+
+  private static double segment(Line3 l, double x, double y, double z)
+  {
+    double t=Math.max(0.0, Math.min(1.0, l.closest(x, y, z)));
+    double dx=x-l.getPointX(t);
+    double dy=y-l.getPointY(t);
+    double dz=z-l.getPointZ(t);
+    return Math.sqrt(dx*dx+dy*dy+dz*dz);
+  }
+
+  // n points in [0, 10]^dim, clustered in part.
+  private static double[] points(Random r, int n, int dim)
+  {
+    double[] retVal=new double[n*dim];
+    for (int i=0; i<n; i++)
+    {
+      boolean cluster=(i%3==0);
+      for (int a=0; a<dim; a++)
+      {
+        retVal[i*dim+a]=cluster ? 5.0+0.5*r.nextGaussian() :
+          10.0*r.nextDouble();
+      }
+    }
+    return retVal;
+  }
+
+}
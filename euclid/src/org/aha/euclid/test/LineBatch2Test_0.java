@@ -0,0 +1,123 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line2;
+import org.aha.euclid.LineBatch2;
+
+/**
+ * <p>
+ *   Test
+ *   {@link LineBatch2}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class LineBatch2Test_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public LineBatch2Test_0(){}
+
+  @Test
+  public void test1()
+  {
+    // Same lines as EuclidTest_0.test5 plus a parallel pair.
+    LineBatch2 p=new LineBatch2(new Line2[]
+    {
+      new Line2(0, 0, 1, 1),
+      new Line2(0, 0, 1, 0)
+    });
+    LineBatch2 q=new LineBatch2(new Line2[]
+    {
+      new Line2(1, 0, 0, 1),
+      new Line2(0, 1, 1, 1)
+    });
+
+    double[] pt=new double[2];
+    double[] qt=new double[2];
+    boolean[] par=new boolean[2];
+    LineBatch2.lineLine(p, q, 0, 2, pt, qt, par);
+
+    assertFalse(par[0]);
+    assertEquals(0.5, pt[0], 0.0);
+    assertEquals(0.5, qt[0], 0.0);
+    assertTrue(par[1]);
+
+    // Pairs by index, written from offset 0.
+    LineBatch2.lineLine(p, q, new int[]{ 1, 0 }, new int[]{ 1, 0 }, 1, 2, pt,
+      qt, par);
+    assertFalse(par[0]);
+    assertEquals(0.5, pt[0], 0.0);
+  }
+
+  @Test
+  public void test2()
+  {
+    // Same as Euclid for random lines, sequential and parallel.
+    int n=50000;
+    Random r=new Random(7L);
+    Line2[] pl=new Line2[n];
+    Line2[] ql=new Line2[n];
+    for (int i=0; i<n; i++)
+    {
+      pl[i]=new Line2(r.nextDouble(), r.nextDouble(), 1+r.nextDouble(),
+        r.nextDouble());
+      ql[i]=(i%10==0) ? pl[i] : new Line2(r.nextDouble(), r.nextDouble(),
+        r.nextDouble(), 1+r.nextDouble());
+    }
+    LineBatch2 p=new LineBatch2(pl);
+    LineBatch2 q=new LineBatch2(ql);
+
+    double[] pt=new double[n];
+    double[] qt=new double[n];
+    boolean[] par=new boolean[n];
+    double[] ppt=new double[n];
+    double[] pqt=new double[n];
+    boolean[] ppar=new boolean[n];
+    LineBatch2.lineLine(p, q, 0, n, pt, qt, par);
+    LineBatch2.parallelLineLine(p, q, 0, n, ppt, pqt, ppar);
+
+    Euclid e=new Euclid();
+    for (int i=0; i<n; i++)
+    {
+      assertEquals(!e.lineLine(pl[i], ql[i]), par[i]);
+      assertEquals(e.getPt(), pt[i], 0.0);
+      assertEquals(e.getQt(), qt[i], 0.0);
+      assertEquals(par[i], ppar[i]);
+      assertEquals(pt[i], ppt[i], 0.0);
+      assertEquals(qt[i], pqt[i], 0.0);
+    }
+  }
+
+  @Test
+  public void test3()
+  {
+    LineBatch2 b=new LineBatch2(2);
+    Line2 l=b.get(1, null);
+    assertEquals(new Line2(), l);
+    b.set(0, 1, 2, 3, 4);
+    assertEquals(new Line2(1, 2, 3, 4), b.get(0, l));
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void test4()
+  {
+    LineBatch2 b=new LineBatch2(2);
+    LineBatch2.lineLine(b, b, 0, 3, new double[3], new double[3], null);
+  }
+
+}
@@ -0,0 +1,140 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line3;
+import org.aha.euclid.LineBatch3;
+import org.aha.euclid.Plane3;
+
+/**
+ * <p>
+ *   Test
+ *   {@link LineBatch3}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class LineBatch3Test_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public LineBatch3Test_0(){}
+
+  @Test
+  public void test1()
+  {
+    Plane3 p=new Plane3(0, 0, 1, 0, 0, 1);
+    LineBatch3 l=new LineBatch3(new Line3[]
+    {
+      new Line3(0, 0, 0, 0, 0, 2),
+      new Line3(0, 0, 0, 1, 0, 0),
+      new Line3(5, 5, 3, 5, 5, 2)
+    });
+
+    double[] t=new double[3];
+    boolean[] hit=new boolean[3];
+    LineBatch3.planeLine(p, l, 0, 3, t, hit);
+
+    assertTrue(hit[0]);
+    assertEquals(0.5, t[0], 0.0);
+    assertFalse(hit[1]);
+    assertTrue(Double.isNaN(t[1]));
+    assertTrue(hit[2]);
+    assertEquals(2.0, t[2], 0.0);
+
+    // Range written from offset 0, no flags.
+    LineBatch3.planeLine(p, l, 2, 3, t, null);
+    assertEquals(2.0, t[0], 0.0);
+
+    Line3 g=l.get(2, null);
+    assertEquals(5.0, g.x1(), 0.0);
+    assertEquals(1.0, new LineBatch3(1).get(0, null).x1(), 0.0);
+
+    try
+    {
+      LineBatch3.planeLine(p, l, 1, 4, t, hit);
+      fail();
+    }
+    catch (IllegalArgumentException x){}
+    try
+    {
+      l.set(0, 1, 1, 1, 1, 1, 1);
+      fail();
+    }
+    catch (IllegalArgumentException x){}
+  }
+
+  @Test
+  public void test2()
+  {
+    // Same as Euclid for random lines and planes, batch and buffer,
+    // sequential and parallel.
+    int n=50000;
+    Random r=new Random(19L);
+    Line3[] ls=new Line3[n];
+    double[] s=new double[6*n];
+    for (int i=0; i<n; i++)
+    {
+      for (int k=0; k<6; k++) s[6*i+k]=r.nextDouble();
+      ls[i]=new Line3(s[6*i], s[6*i+1], s[6*i+2], s[6*i+3], s[6*i+4],
+        s[6*i+5]);
+    }
+    LineBatch3 l=new LineBatch3(ls);
+
+    Plane3[] p=new Plane3[3];
+    for (int j=0; j<p.length; j++)
+    {
+      p[j]=new Plane3(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+        r.nextDouble()-0.5, r.nextDouble()-0.5, r.nextDouble()-0.5);
+    }
+
+    int from=100;
+    int to=n-100;
+    int m=to-from;
+    double[] t=new double[p.length*m];
+    boolean[] hit=new boolean[p.length*m];
+    double[] pt=new double[p.length*m];
+    boolean[] phit=new boolean[p.length*m];
+    double[] st=new double[p.length*m];
+    double[] spt=new double[p.length*m];
+    LineBatch3.planeLine(p, l, from, to, t, hit);
+    LineBatch3.parallelPlaneLine(p, l, from, to, pt, phit);
+    LineBatch3.planeLine(p, s, from, to, st, null);
+    LineBatch3.parallelPlaneLine(p, s, from, to, spt, null);
+
+    Euclid e=new Euclid();
+    for (int j=0; j<p.length; j++)
+    {
+      for (int k=from; k<to; k++)
+      {
+        int o=j*m+k-from;
+        boolean expected=e.planeLine(p[j], ls[k]);
+        assertEquals(expected, hit[o]);
+        assertEquals(expected, phit[o]);
+        if (expected) assertEquals(e.getPt(), t[o], 0.0);
+        assertEquals(t[o], pt[o], 0.0);
+        assertEquals(t[o], st[o], 0.0);
+        assertEquals(t[o], spt[o], 0.0);
+      }
+    }
+
+    double[] one=new double[m];
+    LineBatch3.parallelPlaneLine(p[1], l, from, to, one, null);
+    for (int k=0; k<m; k++) assertEquals(t[m+k], one[k], 0.0);
+  }
+
+}
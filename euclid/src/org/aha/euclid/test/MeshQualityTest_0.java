@@ -0,0 +1,307 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Mesh3;
+import org.aha.euclid.Triangle2;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.quality.Histogram;
+import org.aha.euclid.quality.MeshQuality;
+
+/**
+ * <p>
+ *   Test
+ *   {@link MeshQuality} and
+ *   {@link Histogram}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class MeshQualityTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public MeshQualityTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    Histogram h=new Histogram(4, 0.0, 2.0);
+    assertEquals(4, h.getBinCount());
+    assertEquals(0.5, h.getBinLow(1), 0.0);
+    assertEquals(2.0, h.getBinHigh(3), 0.0);
+    assertEquals(-1, h.bin(-0.1));
+    assertEquals(0, h.bin(0.0));
+    assertEquals(3, h.bin(2.0));
+    assertEquals(4, h.bin(2.1));
+    assertTrue(Double.isNaN(h.getMean()));
+
+    h.add(0.1);
+    h.add(0.6);
+    h.add(0.7);
+    h.add(-1.0);
+    h.add(3.0);
+    h.add(Double.NaN);
+    assertEquals(5, h.size());
+    assertEquals(1, h.getCount(0));
+    assertEquals(2, h.getCount(1));
+    assertEquals(1, h.getUnderflow());
+    assertEquals(1, h.getOverflow());
+    assertEquals(3.4, h.getSum(), 1e-12);
+
+    Histogram c=new Histogram(h);
+    c.add(h);
+    assertEquals(4, c.getCount(1));
+    assertEquals(10, c.size());
+
+    h.remove(0.6);
+    h.remove(3.0);
+    assertEquals(1, h.getCount(1));
+    assertEquals(0, h.getOverflow());
+    try
+    {
+      h.remove(1.9);
+      fail();
+    }
+    catch (IllegalStateException x){}
+
+    try
+    {
+      h.add(new Histogram(4, 0.0, 1.0));
+      fail();
+    }
+    catch (IllegalArgumentException x){}
+
+    h.clear();
+    assertEquals(0, h.size());
+    assertEquals(0, h.getCount(0));
+  }
+
+  @Test
+  public void test2()
+  {
+    Triangle2[] t=new Triangle2[]{ new Triangle2(), new Triangle2() };
+    t[0].set(0.0, 0.0, 1.0, 0.0, 0.5, Math.sqrt(0.75));
+    t[1].set(0.0, 0.0, 1.0, 0.0, 0.0, 1.0);
+
+    MeshQuality q=new MeshQuality(t, 10, 10.0);
+    assertFalse(q.isAnalyzed());
+    q.analyze();
+    assertTrue(q.isAnalyzed());
+
+    assertEquals(2.0, q.getRatio(0), 1e-12);
+    assertEquals(Math.PI/3.0, q.getMinAngle(0), 1e-12);
+    assertEquals(Math.PI/3.0, q.getMaxAngle(0), 1e-12);
+
+    assertEquals(t[1].ratio(), q.getRatio(1), 1e-12);
+    assertEquals(Math.PI/4.0, q.getMinAngle(1), 1e-12);
+    assertEquals(Math.PI/2.0, q.getMaxAngle(1), 1e-12);
+    assertEquals(0.5, q.getArea(1), 0.0);
+    assertEquals(Math.sqrt(2.0), q.getLength(1, 1), 1e-15);
+
+    Histogram h=q.getHistogram(MeshQuality.EDGE_LENGTH);
+    assertEquals(6, h.size());
+    assertEquals(Math.sqrt(2.0), h.getMax(), 1e-15);
+    assertEquals(0, q.getDegenerateCount());
+  }
+
+  @Test
+  public void test3()
+  {
+    Random r=new Random(11L);
+    int n=500;
+    Triangle3[] t=new Triangle3[n];
+    for (int i=0; i<n; i++)
+    {
+      t[i]=new Triangle3();
+      t[i].set(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+               r.nextDouble(), r.nextDouble(), r.nextDouble(),
+               r.nextDouble(), r.nextDouble(), r.nextDouble());
+    }
+
+    MeshQuality q=new MeshQuality(t, 20, 50.0);
+    q.analyze();
+    for (int i=0; i<n; i++)
+    {
+      Triangle3 e=t[i];
+      assertEquals(e.ratio(), q.getRatio(i), 1e-9*e.ratio());
+      assertEquals(e.area(), q.getArea(i), 1e-12);
+      assertEquals(e.length0(), q.getLength(i, 0), 1e-12);
+      assertEquals(e.length1(), q.getLength(i, 1), 1e-12);
+      assertEquals(e.length2(), q.getLength(i, 2), 1e-12);
+
+      double a=angle(e.length1(), e.length0(), e.length2());
+      double b=angle(e.length2(), e.length0(), e.length1());
+      double c=angle(e.length0(), e.length1(), e.length2());
+      assertEquals(Math.min(a, Math.min(b, c)), q.getMinAngle(i), 1e-9);
+      assertEquals(Math.max(a, Math.max(b, c)), q.getMaxAngle(i), 1e-9);
+    }
+
+    Histogram h=q.getHistogram(MeshQuality.RATIO);
+    long sum=h.getUnderflow()+h.getOverflow();
+    for (int b=0; b<h.getBinCount(); b++) sum+=h.getCount(b);
+    assertEquals(n, sum);
+    assertEquals(0, h.getUnderflow());
+    assertEquals(n, q.getHistogram(MeshQuality.AREA).size());
+    assertEquals(3*n, q.getHistogram(MeshQuality.EDGE_LENGTH).size());
+  }
+
+  @Test
+  public void test4()
+  {
+    Mesh3 m=grid(300, new Random(13L));
+
+    // Make a triangle degenerate.
+    double[] v=m.vertices();
+    int[] ix=m.indices();
+    int i0=3*ix[0];
+    int i1=3*ix[1];
+    int i2=3*ix[2];
+    for (int k=0; k<3; k++) v[i2+k]=0.5*(v[i0+k]+v[i1+k]);
+
+    MeshQuality q=new MeshQuality(m, 32, 20.0);
+    q.analyze();
+    MeshQuality p=new MeshQuality(m, 32, 20.0);
+    p.parallelAnalyze();
+
+    assertEquals(1, q.getDegenerateCount());
+    assertTrue(q.isDegenerate(0));
+    assertEquals(1, p.getDegenerateCount());
+    assertEquals(m.size()-1, q.getHistogram(MeshQuality.RATIO).size());
+    assertEquals(m.size(), q.getHistogram(MeshQuality.AREA).size());
+    for (int i=MeshQuality.RATIO; i<=MeshQuality.EDGE_LENGTH; i++)
+    {
+      assertSame(q.getHistogram(i), p.getHistogram(i));
+    }
+  }
+
+  @Test
+  public void test5()
+  {
+    Random r=new Random(17L);
+    Mesh3 m=grid(50, r);
+    MeshQuality q=new MeshQuality(m, 16, 20.0);
+    q.analyze();
+
+    // Move interior vertices a little, remeasure triangles using them.
+    double[] v=m.vertices();
+    int[] ix=m.indices();
+    boolean[] moved=new boolean[m.getVertexCount()];
+    for (int i=60; i<70; i++)
+    {
+      moved[i]=true;
+      v[3*i]+=0.1*(r.nextDouble()-0.5);
+      v[3*i+1]+=0.1*(r.nextDouble()-0.5);
+    }
+    for (int k=0; k<m.size(); k++)
+    {
+      if (moved[ix[3*k]] || moved[ix[3*k+1]] || moved[ix[3*k+2]])
+      {
+        q.update(k);
+      }
+    }
+
+    MeshQuality e=new MeshQuality(m, 16, 20.0);
+    e.analyze();
+    for (int k=0; k<m.size(); k++)
+    {
+      assertEquals(e.getRatio(k), q.getRatio(k), 0.0);
+      assertEquals(e.getArea(k), q.getArea(k), 0.0);
+    }
+
+    // Same as counting the current values from scratch with the ranges the
+    // first analysis chose.
+    for (int i=MeshQuality.RATIO; i<=MeshQuality.EDGE_LENGTH; i++)
+    {
+      Histogram h=q.getHistogram(i);
+      Histogram x=new Histogram(h.getBinCount(), h.getMin(), h.getMax());
+      for (int k=0; k<m.size(); k++)
+      {
+        switch (i)
+        {
+          case MeshQuality.RATIO : x.add(q.getRatio(k)); break;
+          case MeshQuality.MIN_ANGLE : x.add(q.getMinAngle(k)); break;
+          case MeshQuality.MAX_ANGLE : x.add(q.getMaxAngle(k)); break;
+          case MeshQuality.AREA : x.add(q.getArea(k)); break;
+          default :
+            for (int j=0; j<3; j++) x.add(q.getLength(k, j));
+        }
+      }
+      assertSame(x, h);
+    }
+
+    try
+    {
+      new MeshQuality(m, 16, 20.0).update(0);
+      fail();
+    }
+    catch (IllegalStateException x){}
+  }
+
+  // Angle opposite side a.
+  private static double angle(double a, double b, double c)
+  {
+    return Math.acos((b*b+c*c-a*a)/(2.0*b*c));
+  }
+
+  // Grid of n by n vertices in z=0 jittered, two triangles per cell.
+  private static Mesh3 grid(int n, Random r)
+  {
+    double[] v=new double[3*n*n];
+    for (int j=0; j<n; j++)
+    {
+      for (int i=0; i<n; i++)
+      {
+        int o=3*(j*n+i);
+        v[o]=i+0.3*r.nextDouble();
+        v[o+1]=j+0.3*r.nextDouble();
+        v[o+2]=0.1*r.nextDouble();
+      }
+    }
+    int[] t=new int[6*(n-1)*(n-1)];
+    int o=0;
+    for (int j=0; j<n-1; j++)
+    {
+      for (int i=0; i<n-1; i++)
+      {
+        int a=j*n+i;
+        t[o++]=a;
+        t[o++]=a+1;
+        t[o++]=a+n;
+        t[o++]=a+1;
+        t[o++]=a+n+1;
+        t[o++]=a+n;
+      }
+    }
+    return new Mesh3(v, t);
+  }
+
+  private static void assertSame(Histogram e, Histogram a)
+  {
+    assertEquals(e.getBinCount(), a.getBinCount());
+    assertEquals(e.getMin(), a.getMin(), 0.0);
+    assertEquals(e.getMax(), a.getMax(), 0.0);
+    assertEquals(e.size(), a.size());
+    assertEquals(e.getUnderflow(), a.getUnderflow());
+    assertEquals(e.getOverflow(), a.getOverflow());
+    for (int b=0; b<e.getBinCount(); b++)
+    {
+      assertEquals(e.getCount(b), a.getCount(b));
+    }
+    assertEquals(e.getSum(), a.getSum(), 1e-9*Math.abs(e.getSum()));
+  }
+
+}
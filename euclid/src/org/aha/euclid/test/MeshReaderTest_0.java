@@ -0,0 +1,329 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Mesh3;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.TriangleBatch3;
+import org.aha.euclid.io.MeshReader;
+
+/**
+ * <p>
+ *   Test
+ *   {@link MeshReader} and
+ *   {@link Mesh3}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class MeshReaderTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public MeshReaderTest_0(){}
+
+  @Test
+  public void test1() throws IOException
+  {
+    float[] v={ 0, 0, 0, 1, 0, 0, 0, 1, 0,
+                0, 0, 1, 1, 0, 1, 0, 1, 1.5f };
+    Path p=stl(v);
+    try
+    {
+      Mesh3 m=MeshReader.read(p);
+      assertEquals(2, m.size());
+      assertEquals(6, m.getVertexCount());
+      for (int i=0; i<v.length; i++) assertEquals(v[i], m.vertices()[i], 0.0);
+      for (int i=0; i<6; i++) assertEquals(i, m.indices()[i]);
+      assertEquals(4, m.getIndex(1, 1));
+
+      Triangle3 t=m.getTriangle(1, null);
+      assertEquals(1.5, t.z2(), 0.0);
+
+      TriangleBatch3 b=m.toBatch(1, 2);
+      assertEquals(1, b.size());
+      assertEquals(t.area(), b.area(0, 1, null)[0], 1e-12);
+      assertArrayEquals(t.getP2(), b.getP2(0, null), 0.0);
+    }
+    finally
+    {
+      Files.delete(p);
+    }
+  }
+
+  @Test
+  public void test2() throws IOException
+  {
+    // Parallel and sequential reads of a mesh large enough to be split.
+    Random r=new Random(7L);
+    float[] v=new float[9*200000];
+    for (int i=0; i<v.length; i++) v[i]=r.nextFloat();
+    Path p=stl(v);
+    try
+    {
+      Mesh3 s=MeshReader.readStl(p, false);
+      Mesh3 q=MeshReader.readStl(p, true);
+      assertEquals(200000, q.size());
+      assertArrayEquals(s.vertices(), q.vertices(), 0.0);
+      assertArrayEquals(s.indices(), q.indices());
+      for (int i=0; i<v.length; i++) assertEquals(v[i], q.vertices()[i], 0.0);
+    }
+    finally
+    {
+      Files.delete(p);
+    }
+  }
+
+  @Test
+  public void test3() throws IOException
+  {
+    // Little endian, triangles only, extra properties and a trailing
+    // element: Decoded from mapped fixed size records.
+    Random r=new Random(11L);
+    int nv=100000;
+    int nf=150000;
+    String h="ply\nformat binary_little_endian 1.0\ncomment test\n"+
+      "element vertex "+nv+"\nproperty float x\nproperty float y\n"+
+      "property float z\nproperty uchar red\n"+
+      "element face "+nf+"\nproperty list uchar int vertex_indices\n"+
+      "property short flags\n"+
+      "element tail 1\nproperty list uchar uchar data\nend_header\n";
+    ByteBuffer b=buffer(h, 13*nv+15*nf+3, ByteOrder.LITTLE_ENDIAN);
+    double[] v=new double[3*nv];
+    for (int i=0; i<nv; i++)
+    {
+      for (int j=0; j<3; j++)
+      {
+        float f=r.nextFloat();
+        v[3*i+j]=f;
+        b.putFloat(f);
+      }
+      b.put((byte)i);
+    }
+    int[] t=new int[3*nf];
+    for (int k=0; k<nf; k++)
+    {
+      b.put((byte)3);
+      for (int j=0; j<3; j++)
+      {
+        t[3*k+j]=r.nextInt(nv);
+        b.putInt(t[3*k+j]);
+      }
+      b.putShort((short)k);
+    }
+    b.put((byte)2).put((byte)9).put((byte)9);
+
+    Path p=write(b, ".ply");
+    try
+    {
+      for (boolean parallel : new boolean[]{ false, true })
+      {
+        Mesh3 m=MeshReader.read(p, parallel);
+        assertArrayEquals(v, m.vertices(), 0.0);
+        assertArrayEquals(t, m.indices());
+      }
+    }
+    finally
+    {
+      Files.delete(p);
+    }
+  }
+
+  @Test
+  public void test4() throws IOException
+  {
+    // Big endian, double coordinates, a list element before the faces and a
+    // quad: Read sequentially, quad split in two triangles.
+    String h="ply\r\nformat binary_big_endian 1.0\r\n"+
+      "element vertex 5\r\nproperty double x\r\nproperty double y\r\n"+
+      "property double z\r\n"+
+      "element edge 2\r\nproperty list uchar ushort vertex_indices\r\n"+
+      "element face 2\r\nproperty list uchar uint vertex_indices\r\n"+
+      "end_header\r\n";
+    ByteBuffer b=buffer(h, 5*24+2*5+(1+12)+(1+16), ByteOrder.BIG_ENDIAN);
+    double[] v={ 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0, 0.5, 0.5, 1 };
+    for (double d : v) b.putDouble(d);
+    b.put((byte)2).putShort((short)0).putShort((short)1);
+    b.put((byte)2).putShort((short)1).putShort((short)2);
+    b.put((byte)3).putInt(0).putInt(1).putInt(4);
+    b.put((byte)4).putInt(0).putInt(1).putInt(2).putInt(3);
+
+    Path p=write(b, ".ply");
+    try
+    {
+      Mesh3 m=MeshReader.readPly(p, true);
+      assertArrayEquals(v, m.vertices(), 0.0);
+      assertArrayEquals(new int[]{ 0, 1, 4, 0, 1, 2, 0, 2, 3 }, m.indices());
+    }
+    finally
+    {
+      Files.delete(p);
+    }
+  }
+
+  @Test(expected=IOException.class)
+  public void test5() throws IOException
+  {
+    // ASCII STL.
+    ByteBuffer b=buffer("solid s\nendsolid s\n", 0, ByteOrder.LITTLE_ENDIAN);
+    Path p=write(b, ".stl");
+    try
+    {
+      MeshReader.read(p);
+    }
+    finally
+    {
+      Files.delete(p);
+    }
+  }
+
+  @Test(expected=IOException.class)
+  public void test6() throws IOException
+  {
+    // ASCII PLY.
+    ByteBuffer b=buffer("ply\nformat ascii 1.0\nelement vertex 1\n"+
+      "property float x\nend_header\n0\n", 0, ByteOrder.LITTLE_ENDIAN);
+    Path p=write(b, ".ply");
+    try
+    {
+      MeshReader.read(p);
+    }
+    finally
+    {
+      Files.delete(p);
+    }
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void test7(){ new Mesh3(new double[6], new int[]{ 0, 1, 2 }); }
+
+  @Test
+  public void test8() throws IOException
+  {
+    // PLY face index not a vertex: Read as the file being bad, both mapped
+    // triangles and sequentially read faces.
+    for (int kind=0; kind<3; kind++)
+    {
+      String h="ply\nformat binary_little_endian 1.0\n"+
+        "element vertex 3\nproperty float x\nproperty float y\n"+
+        "property float z\n"+
+        "element face 1\nproperty list uchar int vertex_indices\n"+
+        "end_header\n";
+      int nf=(kind==2) ? 4 : 3;
+      ByteBuffer b=buffer(h, 36+1+4*nf, ByteOrder.LITTLE_ENDIAN);
+      for (int i=0; i<9; i++) b.putFloat(i);
+      b.put((byte)nf).putInt(0).putInt(1);
+      b.putInt((kind==0) ? 3 : -1);
+      if (kind==2) b.putInt(2);
+
+      Path p=write(b, ".ply");
+      try
+      {
+        for (boolean parallel : new boolean[]{ false, true })
+        {
+          try
+          {
+            MeshReader.readPly(p, parallel);
+            fail();
+          }
+          catch (IOException iox){}
+        }
+      }
+      finally
+      {
+        Files.delete(p);
+      }
+    }
+  }
+
+  @Test
+  public void test9() throws IOException
+  {
+    // PLY list count or element count bigger than the file: Read as the
+    // file being bad, not overflowing in the face list, in a skipped list
+    // element and in the face count.
+    for (int kind=0; kind<3; kind++)
+    {
+      String h="ply\nformat binary_little_endian 1.0\n"+
+        "element vertex 3\nproperty float x\nproperty float y\n"+
+        "property float z\n"+
+        ((kind==1) ? "element edge 1\nproperty list int int vertex_indices\n" :
+          "")+
+        "element face "+((kind==2) ? 500000000 : 1)+"\n"+
+        "property list int int vertex_indices\nend_header\n";
+      ByteBuffer b=buffer(h, 36+(kind==1 ? 8 : 0)+16, ByteOrder.LITTLE_ENDIAN);
+      for (int i=0; i<9; i++) b.putFloat(i);
+      if (kind==1) b.putInt(1000000000).putInt(0);
+      b.putInt((kind==0) ? 1000000000 : 3).putInt(0).putInt(1).putInt(2);
+
+      Path p=write(b, ".ply");
+      try
+      {
+        for (boolean parallel : new boolean[]{ false, true })
+        {
+          try
+          {
+            MeshReader.readPly(p, parallel);
+            fail();
+          }
+          catch (IOException iox){}
+        }
+      }
+      finally
+      {
+        Files.delete(p);
+      }
+    }
+  }
+
+  // Writes binary STL.
+  private static Path stl(float[] v) throws IOException
+  {
+    int n=v.length/9;
+    ByteBuffer b=ByteBuffer.allocate(84+50*n).order(ByteOrder.LITTLE_ENDIAN);
+    b.position(80);
+    b.putInt(n);
+    for (int k=0; k<n; k++)
+    {
+      b.putFloat(0).putFloat(0).putFloat(1);
+      for (int j=0; j<9; j++) b.putFloat(v[9*k+j]);
+      b.putShort((short)0);
+    }
+    return write(b, ".stl");
+  }
+
+  // Allocates buffer with header written.
+  private static ByteBuffer buffer(String h, int n, ByteOrder order)
+  {
+    byte[] hb=h.getBytes(StandardCharsets.US_ASCII);
+    ByteBuffer retVal=ByteBuffer.allocate(hb.length+n).order(order);
+    retVal.put(hb);
+    return retVal;
+  }
+
+  private static Path write(ByteBuffer b, String suffix) throws IOException
+  {
+    Path retVal=Files.createTempFile("mesh", suffix);
+    Files.write(retVal, b.array());
+    return retVal;
+  }
+
+}
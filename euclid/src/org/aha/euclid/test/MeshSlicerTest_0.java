@@ -0,0 +1,391 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.aha.euclid.Line2;
+import org.aha.euclid.Line3;
+import org.aha.euclid.Mesh3;
+import org.aha.euclid.Plane3;
+import org.aha.euclid.ZeroLengthVectorException;
+import org.aha.euclid.io.MeshReader;
+import org.aha.euclid.slice.MeshSlicer;
+import org.aha.euclid.slice.Polyline;
+
+/**
+ * <p>
+ *   Test
+ *   {@link MeshSlicer}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class MeshSlicerTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public MeshSlicerTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    MeshSlicer s=new MeshSlicer(cube(), 0.0, 0.0, 2.0);
+    assertEquals(12, s.size());
+    assertEquals(0.0, s.getMin(), 0.0);
+    assertEquals(1.0, s.getMax(), 0.0);
+
+    List<Polyline> l=s.slice(0.5);
+    assertEquals(1, l.size());
+    Polyline p=l.get(0);
+    assertTrue(p.isClosed());
+    assertEquals(p.size(), p.getSegmentCount());
+    assertEquals(4.0, p.length(), 1e-12);
+    assertEquals(1.0, p.area(), 1e-12);
+    double[] q=new double[3];
+    for (int i=0; i<p.size(); i++)
+    {
+      assertEquals(0.5, p.getPoint(i, q)[2], 0.0);
+    }
+
+    // Plane coordinates are x and y for planes normal to z.
+    double[] q2=p.getPoint2(0, null);
+    p.getPoint(0, q);
+    assertEquals(q[0], q2[0], 0.0);
+    assertEquals(q[1], q2[1], 0.0);
+
+    Line3 l3=p.getLine(p.getSegmentCount()-1, new Line3());
+    p.getPoint(0, q);
+    assertEquals(q[0], l3.x1(), 0.0);
+    assertEquals(q[1], l3.y1(), 0.0);
+    assertEquals(q[2], l3.z1(), 0.0);
+    Line2 l2=p.getLine(0, new Line2());
+    assertEquals(q[0], l2.x0(), 0.0);
+    assertEquals(q[1], l2.y0(), 0.0);
+
+    assertTrue(s.slice(-0.1).isEmpty());
+    assertTrue(s.slice(1.1).isEmpty());
+
+    try
+    {
+      p.getLine(p.getSegmentCount(), new Line3());
+      fail();
+    }
+    catch (IndexOutOfBoundsException x){}
+  }
+
+  @Test
+  public void test2()
+  {
+    // Planes through vertices: A vertex on a plane is above it.
+    MeshSlicer s=new MeshSlicer(cube(), 0.0, 0.0, 1.0);
+    assertTrue(s.slice(0.0).isEmpty());
+
+    List<Polyline> l=s.slice(1.0);
+    assertEquals(1, l.size());
+    Polyline p=l.get(0);
+    assertTrue(p.isClosed());
+    assertEquals(4, p.size());
+    assertEquals(1.0, p.area(), 1e-12);
+
+    // Diagonal planes cut through edges and vertices.
+    s=new MeshSlicer(cube(), 1.0, 1.0, 1.0);
+    double h=Math.sqrt(3.0)/3.0;
+    assertEquals(h, s.height(new Plane3(1.0, 0.0, 0.0, 2.0, 2.0, 2.0)),
+      1e-15);
+    l=s.slice(new Plane3(1.0, 0.0, 0.0, 1.0, 1.0, 1.0));
+    assertEquals(1, l.size());
+    assertTrue(l.get(0).isClosed());
+    // Corners and the crossings of the face diagonals, all on the plane.
+    assertEquals(6, l.get(0).size());
+    assertEquals(Math.sqrt(3.0)/2.0, l.get(0).area(), 1e-12);
+
+    l=s.slice(1.5*h);
+    assertEquals(1, l.size());
+    assertEquals(12, l.get(0).size());
+    assertEquals(0.75*Math.sqrt(3.0), l.get(0).area(), 1e-12);
+
+    try
+    {
+      s.height(new Plane3(0.0, 0.0, 0.0, 0.0, 0.0, 1.0));
+      fail();
+    }
+    catch (IllegalArgumentException x){}
+
+    try
+    {
+      new MeshSlicer(cube(), 0.0, 0.0, 0.0);
+      fail();
+    }
+    catch (ZeroLengthVectorException x){}
+  }
+
+  @Test
+  public void test3()
+  {
+    int n=200;
+    Mesh3 m=sphere(48, 96);
+    MeshSlicer s=new MeshSlicer(m, 0.0, 0.0, 1.0);
+    double[] h=new double[n];
+    for (int i=0; i<n; i++) h[i]=-0.9+1.8*i/(n-1);
+
+    List<List<Polyline>> seq=s.slice(h);
+    List<List<Polyline>> par=s.parallelSlice(h);
+    assertEquals(n, seq.size());
+    assertEquals(n, par.size());
+    for (int i=0; i<n; i++)
+    {
+      List<Polyline> l=seq.get(i);
+      assertEquals(1, l.size());
+      Polyline p=l.get(0);
+      assertTrue(p.isClosed());
+      double r2=1.0-h[i]*h[i];
+      assertEquals(Math.PI*r2, p.area(), 0.01*Math.PI*r2);
+
+      Polyline q=par.get(i).get(0);
+      assertEquals(p.size(), q.size());
+      double[] a=new double[3];
+      double[] b=new double[3];
+      for (int j=0; j<p.size(); j++)
+      {
+        p.getPoint(j, a);
+        q.getPoint(j, b);
+        for (int k=0; k<3; k++) assertEquals(a[k], b[k], 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void test4()
+  {
+    // Heights not sorted and repeated.
+    MeshSlicer s=new MeshSlicer(sphere(16, 32), 0.0, 0.0, 1.0);
+    double[] h=new double[]{ 0.5, -2.0, 0.25, 0.5, 0.0 };
+    List<List<Polyline>> l=s.slice(h);
+    assertEquals(5, l.size());
+    assertTrue(l.get(1).isEmpty());
+    assertTrue(l.get(0).get(0).area()<l.get(2).get(0).area());
+    assertTrue(l.get(2).get(0).area()<l.get(4).get(0).area());
+    assertEquals(l.get(0), l.get(3));
+    assertEquals(l.get(0).get(0).area(), s.slice(0.5).get(0).area(), 0.0);
+
+    try
+    {
+      s.slice(new double[]{ 0.0, Double.NaN });
+      fail();
+    }
+    catch (IllegalArgumentException x){}
+
+    try
+    {
+      l.get(0).add(null);
+      fail();
+    }
+    catch (UnsupportedOperationException x){}
+  }
+
+  @Test
+  public void test5()
+  {
+    // Open mesh: Flat grid cut across gives open polylines.
+    int n=10;
+    double[] v=new double[3*n*n];
+    for (int j=0; j<n; j++)
+    {
+      for (int i=0; i<n; i++)
+      {
+        int o=3*(j*n+i);
+        v[o]=i;
+        v[o+1]=j;
+      }
+    }
+    int[] t=new int[6*(n-1)*(n-1)];
+    int o=0;
+    for (int j=0; j<n-1; j++)
+    {
+      for (int i=0; i<n-1; i++)
+      {
+        int a=j*n+i;
+        t[o++]=a;
+        t[o++]=a+1;
+        t[o++]=a+n;
+        t[o++]=a+1;
+        t[o++]=a+n+1;
+        t[o++]=a+n;
+      }
+    }
+    MeshSlicer s=new MeshSlicer(new Mesh3(v, t), 1.0, 0.0, 0.0);
+
+    List<Polyline> l=s.slice(2.5);
+    assertEquals(1, l.size());
+    Polyline p=l.get(0);
+    assertFalse(p.isClosed());
+    assertEquals(p.size()-1, p.getSegmentCount());
+    assertEquals(n-1, p.length(), 1e-12);
+    assertEquals(0.0, p.area(), 0.0);
+    double[] a=p.getPoint(0, null);
+    double[] b=p.getPoint(p.size()-1, null);
+    assertEquals(n-1, Math.abs(a[1]-b[1]), 0.0);
+
+    // Two pieces when a hole is cut.
+    int[] u=new int[t.length-12];
+    int k=0;
+    for (int f=0; f<t.length/3; f++)
+    {
+      int i0=(f/2)%(n-1);
+      int j0=(f/2)/(n-1);
+      if (i0==2 && (j0==4 || j0==5)) continue;
+      for (int c=0; c<3; c++) u[k++]=t[3*f+c];
+    }
+    assertEquals(u.length, k);
+    l=new MeshSlicer(new Mesh3(v, u), 1.0, 0.0, 0.0).slice(2.5);
+    assertEquals(2, l.size());
+    assertEquals(n-3, l.get(0).length()+l.get(1).length(), 1e-12);
+  }
+
+  @Test
+  public void test6() throws IOException
+  {
+    // STL does not share vertices: Sliced as the shared mesh once welded.
+    Mesh3 m=sphere(16, 32);
+    Path p=stl(m);
+    try
+    {
+      Mesh3 r=MeshReader.read(p);
+      assertEquals(3*m.size(), r.getVertexCount());
+
+      // Reference: Shared vertices rounded to float as in the file.
+      double[] v=m.vertices().clone();
+      for (int i=0; i<v.length; i++) v[i]=(float)v[i];
+      MeshSlicer a=new MeshSlicer(new Mesh3(v, m.indices()), 0.0, 0.0, 1.0);
+      MeshSlicer b=new MeshSlicer(r, 0.0, 0.0, 1.0);
+      for (double h=-0.9; h<0.95; h+=0.1)
+      {
+        List<Polyline> la=a.slice(h);
+        List<Polyline> lb=b.slice(h);
+        assertEquals(1, lb.size());
+        assertTrue(lb.get(0).isClosed());
+        assertEquals(la.get(0).size(), lb.get(0).size());
+        assertEquals(la.get(0).area(), lb.get(0).area(), 1e-6);
+      }
+    }
+    finally
+    {
+      Files.delete(p);
+    }
+  }
+
+  // Writes mesh as binary STL.
+  private static Path stl(Mesh3 m) throws IOException
+  {
+    double[] v=m.vertices();
+    int[] t=m.indices();
+    int n=m.size();
+    ByteBuffer b=ByteBuffer.allocate(84+50*n).order(ByteOrder.LITTLE_ENDIAN);
+    b.position(80);
+    b.putInt(n);
+    for (int k=0; k<n; k++)
+    {
+      b.putFloat(0).putFloat(0).putFloat(0);
+      for (int j=0; j<3; j++)
+      {
+        int o=3*t[3*k+j];
+        b.putFloat((float)v[o]).putFloat((float)v[o+1]).putFloat((float)v[o+2]);
+      }
+      b.putShort((short)0);
+    }
+    Path retVal=Files.createTempFile("slice", ".stl");
+    Files.write(retVal, b.array());
+    return retVal;
+  }
+
+  // Unit cube, normals out.
+  private static Mesh3 cube()
+  {
+    double[] v=new double[]
+    {
+      0, 0, 0,  1, 0, 0,  1, 1, 0,  0, 1, 0,
+      0, 0, 1,  1, 0, 1,  1, 1, 1,  0, 1, 1
+    };
+    int[] t=new int[]
+    {
+      0, 2, 1,  0, 3, 2,
+      4, 5, 6,  4, 6, 7,
+      0, 1, 5,  0, 5, 4,
+      3, 7, 6,  3, 6, 2,
+      0, 4, 7,  0, 7, 3,
+      1, 2, 6,  1, 6, 5
+    };
+    return new Mesh3(v, t);
+  }
+
+  // Unit sphere of rings by sectors, normals out.
+  private static Mesh3 sphere(int rings, int sectors)
+  {
+    int nv=2+(rings-1)*sectors;
+    double[] v=new double[3*nv];
+    v[2]=-1.0;
+    v[5]=1.0;
+    for (int r=1; r<rings; r++)
+    {
+      double th=Math.PI*r/rings;
+      double z=-Math.cos(th);
+      double rr=Math.sin(th);
+      for (int s=0; s<sectors; s++)
+      {
+        double ph=2.0*Math.PI*s/sectors;
+        int o=3*(2+(r-1)*sectors+s);
+        v[o]=rr*Math.cos(ph);
+        v[o+1]=rr*Math.sin(ph);
+        v[o+2]=z;
+      }
+    }
+
+    int[] t=new int[6*sectors*(rings-1)];
+    int o=0;
+    for (int s=0; s<sectors; s++)
+    {
+      int s1=(s+1)%sectors;
+      t[o++]=0;
+      t[o++]=2+s1;
+      t[o++]=2+s;
+      int top=2+(rings-2)*sectors;
+      t[o++]=1;
+      t[o++]=top+s;
+      t[o++]=top+s1;
+    }
+    for (int r=1; r<rings-1; r++)
+    {
+      int b=2+(r-1)*sectors;
+      int u=b+sectors;
+      for (int s=0; s<sectors; s++)
+      {
+        int s1=(s+1)%sectors;
+        t[o++]=b+s;
+        t[o++]=b+s1;
+        t[o++]=u+s1;
+        t[o++]=b+s;
+        t[o++]=u+s1;
+        t[o++]=u+s;
+      }
+    }
+    return new Mesh3(v, t);
+  }
+
+}
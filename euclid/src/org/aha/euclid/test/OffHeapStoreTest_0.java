@@ -0,0 +1,285 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Line3;
+import org.aha.euclid.Sphere3;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.offheap.Line3Store;
+import org.aha.euclid.offheap.Line3View;
+import org.aha.euclid.offheap.OffHeapArena;
+import org.aha.euclid.offheap.Sphere3Store;
+import org.aha.euclid.offheap.Sphere3View;
+import org.aha.euclid.offheap.Triangle3Store;
+import org.aha.euclid.offheap.Triangle3View;
+
+/**
+ * <p>
+ *   Test of the
+ *   {@link org.aha.euclid.offheap} stores.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class OffHeapStoreTest_0
+{
+  private final Random m_rnd=new Random(261017L);
+
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public OffHeapStoreTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    int n=100;
+    Line3[] ls=new Line3[n];
+    try (OffHeapArena a=new OffHeapArena())
+    {
+      Line3Store s=new Line3Store(a, n);
+      assertEquals(n, s.size());
+      assertEquals(8L*6*n, a.getAllocated());
+      for (int i=0; i<n; i++)
+      {
+        ls[i]=new Line3(r(), r(), r(), r(), r(), r());
+        s.set(i, ls[i]);
+      }
+
+      Line3View v=s.view();
+      double[] c0=new double[3];
+      double[] c1=new double[3];
+      for (int i=0; i<n; i++)
+      {
+        v.moveTo(i);
+        assertEquals(i, v.index());
+        double x=r();
+        double y=r();
+        double z=r();
+        assertEquals(ls[i].distance(x, y, z), v.distance(x, y, z), 1e-12);
+        assertEquals(ls[i].closest(x, y, z), v.closest(x, y, z), 1e-12);
+        assertArrayEquals(ls[i].closest(x, y, z, c0), v.closest(x, y, z, c1),
+          1e-12);
+        assertEquals(ls[i].segmentDistance(x, y, z),
+          v.segmentDistance(x, y, z), 1e-12);
+        assertEquals(ls[i], s.get(i, null));
+      }
+    }
+  }
+
+  @Test
+  public void test2()
+  {
+    int n=100;
+    Triangle3[] ts=new Triangle3[n];
+    try (OffHeapArena a=new OffHeapArena())
+    {
+      Triangle3Store s=new Triangle3Store(a, n);
+      for (int i=0; i<n; i++)
+      {
+        ts[i]=new Triangle3();
+        ts[i].set(r(), r(), r(), r(), r(), r(), r(), r(), r());
+        s.set(i, ts[i]);
+      }
+
+      Triangle3View v=s.view();
+      double[] c0=new double[3];
+      double[] c1=new double[3];
+      Triangle3 t=new Triangle3();
+      for (int i=0; i<n; i++)
+      {
+        v.moveTo(i);
+        Triangle3 e=ts[i];
+        assertEquals(e.area(), v.area(), 1e-12);
+        assertEquals(e.d(), v.d(), 1e-12);
+        assertArrayEquals(e.centroid(c0), v.centroid(c1), 1e-12);
+
+        double x=r();
+        double y=r();
+        double z=r();
+        assertEquals(e.axbyczd(x, y, z), v.axbyczd(x, y, z), 1e-12);
+        assertEquals(e.distance(x, y, z), v.distance(x, y, z), 1e-12);
+        assertArrayEquals(e.closest(x, y, z, c0), v.closest(x, y, z, c1),
+          1e-12);
+
+        // Point in plane, inside about one time in four.
+        double u=m_rnd.nextDouble();
+        double w=m_rnd.nextDouble();
+        double px=e.x0()+u*(e.x1()-e.x0())+w*(e.x2()-e.x0());
+        double py=e.y0()+u*(e.y1()-e.y0())+w*(e.y2()-e.y0());
+        double pz=e.z0()+u*(e.z1()-e.z0())+w*(e.z2()-e.z0());
+        assertEquals(e.inside(px, py, pz), v.inside(px, py, pz));
+        assertArrayEquals(e.barycentric(px, py, pz, c0),
+          v.barycentric(px, py, pz, c1), 1e-9);
+
+        s.get(i, t);
+        assertEquals(e.x2(), t.x2(), 0.0);
+        assertEquals(e.c(), t.c(), 1e-15);
+      }
+    }
+  }
+
+  @Test
+  public void test3()
+  {
+    int n=50;
+    Sphere3[] ss=new Sphere3[n];
+    try (OffHeapArena a=new OffHeapArena())
+    {
+      Sphere3Store s=new Sphere3Store(a, n);
+      for (int i=0; i<n; i++)
+      {
+        ss[i]=new Sphere3(r(), r(), r(), 1.0+m_rnd.nextDouble());
+        s.set(i, ss[i]);
+      }
+
+      Sphere3View v=s.view();
+      for (int i=0; i<n; i++)
+      {
+        v.moveTo(i);
+        assertEquals(ss[i].volume(), v.volume(), 0.0);
+        assertEquals(ss[i].area(), v.area(), 0.0);
+        assertArrayEquals(ss[i].getCenter(), v.getCenter(null), 0.0);
+        assertEquals(ss[i], s.get(i, null));
+      }
+    }
+  }
+
+  @Test
+  public void test4()
+  {
+    OffHeapArena a=new OffHeapArena();
+    Sphere3Store s=new Sphere3Store(a, 4);
+    Sphere3View v=s.view();
+    assertTrue(a.isOpen());
+
+    try
+    {
+      v.moveTo(4);
+      fail();
+    }
+    catch (IndexOutOfBoundsException x){}
+    try
+    {
+      s.set(-1, 0, 0, 0, 1);
+      fail();
+    }
+    catch (IndexOutOfBoundsException x){}
+
+    a.close();
+    assertFalse(a.isOpen());
+    a.close();
+
+    try
+    {
+      v.moveTo(0);
+      fail();
+    }
+    catch (IllegalStateException x){}
+    try
+    {
+      s.set(0, 0, 0, 0, 1);
+      fail();
+    }
+    catch (IllegalStateException x){}
+    try
+    {
+      s.get(0, null);
+      fail();
+    }
+    catch (IllegalStateException x){}
+    try
+    {
+      new Sphere3Store(a, 1);
+      fail();
+    }
+    catch (IllegalStateException x){}
+  }
+
+  @Test
+  public void test6()
+  {
+    // Views positioned before close must not read freed memory.
+    OffHeapArena a=new OffHeapArena();
+    Line3Store ls=new Line3Store(a, 1);
+    Sphere3Store ss=new Sphere3Store(a, 1);
+    Triangle3Store ts=new Triangle3Store(a, 1);
+    ls.set(0, new Line3(0, 0, 0, 1, 0, 0));
+    ss.set(0, 0, 0, 0, 1);
+    ts.set(0, 0, 0, 0, 1, 0, 0, 0, 1, 0);
+    Line3View lv=ls.view().moveTo(0);
+    Sphere3View sv=ss.view().moveTo(0);
+    Triangle3View tv=ts.view().moveTo(0);
+    assertEquals(1.0, lv.x1(), 0.0);
+    assertEquals(1.0, sv.getRadius(), 0.0);
+    assertTrue(tv.area()>0.0);
+
+    a.close();
+
+    try
+    {
+      lv.x1();
+      fail();
+    }
+    catch (IllegalStateException x){}
+    try
+    {
+      lv.distance(0, 1, 0);
+      fail();
+    }
+    catch (IllegalStateException x){}
+    try
+    {
+      sv.area();
+      fail();
+    }
+    catch (IllegalStateException x){}
+    try
+    {
+      tv.area();
+      fail();
+    }
+    catch (IllegalStateException x){}
+    try
+    {
+      tv.inside(0.1, 0.1, 0);
+      fail();
+    }
+    catch (IllegalStateException x){}
+  }
+
+  @Test
+  public void test5()
+  {
+    try (OffHeapArena a=new OffHeapArena())
+    {
+      Line3Store s=new Line3Store(a, 0);
+      assertEquals(0, s.size());
+      assertEquals(-1, s.view().index());
+
+      Triangle3Store ts=new Triangle3Store(a, 1);
+      try
+      {
+        ts.set(0, 0, 0, 0, 1, 1, 1, 2, 2, 2);
+        fail();
+      }
+      catch (RuntimeException x){}
+    }
+  }
+
+  private double r(){ return 10.0*(m_rnd.nextDouble()-0.5); }
+
+}
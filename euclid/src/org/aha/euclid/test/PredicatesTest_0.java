@@ -0,0 +1,265 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Triangle2;
+import org.aha.euclid.math.Comparisons;
+import org.aha.euclid.math.EuclidMath;
+import org.aha.euclid.math.Predicates;
+import org.aha.euclid.math.ToleranceContext;
+
+/**
+ * <p>
+ *   Test
+ *   {@link Predicates}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class PredicatesTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public PredicatesTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    assertTrue(Predicates.orient2d(0, 0, 1, 0, 0, 1)>0.0);
+    assertTrue(Predicates.orient2d(0, 0, 0, 1, 1, 0)<0.0);
+    assertEquals(0.0, Predicates.orient2d(0, 0, 1, 1, 2, 2), 0.0);
+
+    // Points on the line y=x near 0.5 that plain floating point gets wrong:
+    // Sign must follow the exact position of c.
+    double u=Math.ulp(0.5);
+    for (int i=-4; i<=4; i++)
+    {
+      for (int j=-4; j<=4; j++)
+      {
+        double cx=0.5+i*u;
+        double cy=0.5+j*u;
+        double o=Predicates.orient2d(12, 12, 24, 24, cx, cy);
+        assertEquals(Integer.signum(j-i), (int)Math.signum(o));
+      }
+    }
+  }
+
+  @Test
+  public void test2()
+  {
+    // Unit circle: Inside, outside and on.
+    assertTrue(Predicates.incircle(1, 0, 0, 1, -1, 0, 0, 0)>0.0);
+    assertTrue(Predicates.incircle(1, 0, 0, 1, -1, 0, 2, 0)<0.0);
+    assertEquals(0.0, Predicates.incircle(1, 0, 0, 1, -1, 0, 0, -1), 0.0);
+
+    // Clockwise reverses sign.
+    assertTrue(Predicates.incircle(-1, 0, 0, 1, 1, 0, 0, 0)<0.0);
+
+    // Cocircular grid points far from origin, and next to them.
+    double o=1e9;
+    assertEquals(0.0, Predicates.incircle(o, o, o+1, o, o+1, o+1, o, o+1),
+      0.0);
+    double u=Math.ulp(o);
+    assertTrue(Predicates.incircle(o, o, o+1, o, o+1, o+1, o+u, o+1)>0.0);
+    assertTrue(Predicates.incircle(o, o, o+1, o, o+1, o+1, o-u, o+1)<0.0);
+  }
+
+  @Test
+  public void test3()
+  {
+    // Counter clockwise seen from above (+z): Above is negative.
+    assertTrue(Predicates.orient3d(0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1)<0.0);
+    assertTrue(Predicates.orient3d(0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, -1)>0.0);
+    assertEquals(0.0,
+      Predicates.orient3d(0, 0, 0, 1, 0, 0, 0, 1, 0, 7, -3, 0), 0.0);
+
+    // Plane x+y+z=2, above is along (1,1,1): Sign must follow the exact
+    // position of d.
+    double u=Math.ulp(0.5);
+    for (int i=-4; i<=4; i++)
+    {
+      for (int j=-4; j<=4; j++)
+      {
+        double dx=0.5+i*u;
+        double dy=0.5+j*u;
+        double o=Predicates.orient3d(2, 0, 0, 0, 2, 0, 0, 0, 2, dx, dy, 1);
+        assertEquals(-Integer.signum(i+j), (int)Math.signum(o));
+      }
+    }
+  }
+
+  @Test
+  public void test4()
+  {
+    // Unit sphere: Inside, outside and on.
+    assertTrue(Predicates.orient3d(1, 0, 0, 0, 1, 0, 0, 0, 1, -1, 0, 0)>0.0);
+    assertTrue(Predicates.insphere(1, 0, 0, 0, 1, 0, 0, 0, 1, -1, 0, 0,
+      0, 0, 0)>0.0);
+    assertTrue(Predicates.insphere(1, 0, 0, 0, 1, 0, 0, 0, 1, -1, 0, 0,
+      2, 0, 0)<0.0);
+    assertEquals(0.0, Predicates.insphere(1, 0, 0, 0, 1, 0, 0, 0, 1, -1, 0, 0,
+      0, -1, 0), 0.0);
+
+    // Negative orientation reverses sign.
+    assertTrue(Predicates.insphere(0, 1, 0, 1, 0, 0, 0, 0, 1, -1, 0, 0,
+      0, 0, 0)<0.0);
+
+    // Cospherical cube corners far from origin, and next to them.
+    double o=1e9;
+    double u=Math.ulp(o+1);
+    double sign=Math.signum(Predicates.orient3d(o, o, o, o+1, o, o, o, o+1, o,
+      o, o, o+1));
+    assertEquals(0.0, Predicates.insphere(o, o, o, o+1, o, o, o, o+1, o,
+      o, o, o+1, o+1, o+1, o+1), 0.0);
+    assertTrue(sign*Predicates.insphere(o, o, o, o+1, o, o, o, o+1, o,
+      o, o, o+1, o+1-u, o+1, o+1)>0.0);
+    assertTrue(sign*Predicates.insphere(o, o, o, o+1, o, o, o, o+1, o,
+      o, o, o+1, o+1+u, o+1, o+1)<0.0);
+  }
+
+  @Test
+  public void test5()
+  {
+    // Plain mode.
+    final Triangle2 t=new Triangle2();
+    t.set(0, 0, 4, 0, 0, 4);
+    assertTrue(t.inside(1, 1));
+    assertFalse(t.inside(3, 3));
+    assertFalse(t.inside(2, 0));
+    assertTrue(EuclidMath.inside(0, 0, 5, 4, 0, 5, 0, 4, 5, 1, 1, 5));
+    assertFalse(EuclidMath.inside(0, 0, 5, 4, 0, 5, 0, 4, 5, 3, 3, 5));
+
+    // Exact mode: Inside iff y<x near the triangle's side on y=x.
+    assertFalse(Comparisons.isExact());
+    new ToleranceContext(Comparisons.DEFAULT_DELTA, true).run(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        assertTrue(Comparisons.isExact());
+
+        Triangle2 d=new Triangle2();
+        d.set(24, 24, -12, -12, 24, -12);
+        double u=Math.ulp(0.5);
+        for (int i=-4; i<=4; i++)
+        {
+          for (int j=-4; j<=4; j++)
+          {
+            double x=0.5+i*u;
+            double y=0.5+j*u;
+            assertEquals(j<i, d.inside(x, y));
+            assertEquals(j<i, d.inside(new double[]{ x, y }));
+            assertEquals(j<i, EuclidMath.inside(24, 3, 24, -12, 3, -12,
+              24, 3, -12, x, 3, y));
+          }
+        }
+
+        assertTrue(t.inside(1, 1));
+        assertFalse(t.inside(3, 3));
+        assertFalse(t.inside(2, 0));
+      }
+    });
+    assertFalse(Comparisons.isExact());
+  }
+
+  @Test
+  public void test6()
+  {
+    // Exact 3D inside keeps the contract for points off the plane: Inside
+    // if the closest point in the plane is.
+    final Random r=new Random(6L);
+    final double[] t={ 0.1, 0.2, 0.3, 2.1, 0.7, 1.3, 0.4, 1.9, -0.8 };
+    final double[] p=new double[3*1000];
+    final boolean[] plain=new boolean[1000];
+    for (int i=0; i<plain.length; i++)
+    {
+      p[3*i]=4.0*r.nextDouble()-1.0;
+      p[3*i+1]=4.0*r.nextDouble()-1.0;
+      p[3*i+2]=4.0*r.nextDouble()-2.0;
+      plain[i]=EuclidMath.inside(t[0], t[1], t[2], t[3], t[4], t[5], t[6],
+        t[7], t[8], p[3*i], p[3*i+1], p[3*i+2]);
+    }
+
+    new ToleranceContext(Comparisons.DEFAULT_DELTA, true).run(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        int in=0;
+        for (int i=0; i<plain.length; i++)
+        {
+          assertEquals(plain[i], EuclidMath.inside(t[0], t[1], t[2], t[3],
+            t[4], t[5], t[6], t[7], t[8], p[3*i], p[3*i+1], p[3*i+2]));
+          if (plain[i]) in++;
+        }
+        assertTrue(in>0 && in<plain.length);
+      }
+    });
+  }
+
+  @Test
+  public void test7()
+  {
+    // Exact mode follows the context in effect in each thread, also when
+    // nested in an exact context and in other threads while one is bound.
+    final int plain=wrong();
+    assertTrue(plain>0);
+    final int[] other=new int[1];
+    new ToleranceContext(Comparisons.DEFAULT_DELTA, true).run(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        assertEquals(0, wrong());
+        new ToleranceContext(Comparisons.DEFAULT_DELTA).run(new Runnable()
+        {
+          @Override
+          public void run(){ assertEquals(plain, wrong()); }
+        });
+        assertEquals(0, wrong());
+
+        Thread t=new Thread(new Runnable()
+        {
+          @Override
+          public void run(){ other[0]=wrong(); }
+        });
+        t.start();
+        try { t.join(); }
+        catch (InterruptedException ix){ throw new Error(ix); }
+      }
+    });
+    assertEquals(plain, other[0]);
+    assertEquals(plain, wrong());
+  }
+
+  // Number of points near a triangle's side on y=x that are wrongly told
+  // inside or not, inside iff y<x.
+  private static int wrong()
+  {
+    Triangle2 d=new Triangle2();
+    d.set(24, 24, -12, -12, 24, -12);
+    double u=Math.ulp(0.5);
+    int retVal=0;
+    for (int i=-4; i<=4; i++)
+    {
+      for (int j=-4; j<=4; j++)
+      {
+        if (d.inside(0.5+i*u, 0.5+j*u)!=(j<i)) retVal++;
+      }
+    }
+    return retVal;
+  }
+
+}
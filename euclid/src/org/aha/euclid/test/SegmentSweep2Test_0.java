@@ -0,0 +1,236 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Line2;
+import org.aha.euclid.math.Comparisons;
+import org.aha.euclid.spatial.SegmentSweep2;
+
+/**
+ * <p>
+ *   Test
+ *   {@link SegmentSweep2}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class SegmentSweep2Test_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public SegmentSweep2Test_0(){}
+
+  @Test
+  public void test1()
+  {
+    // Same lines as EuclidTest_0.test5 and one apart.
+    Line2[] segs=
+    {
+      new Line2(0, 0, 1, 1),
+      new Line2(1, 0, 0, 1),
+      new Line2(5, 5, 6, 5)
+    };
+    SegmentSweep2 s=new SegmentSweep2(segs);
+    assertEquals(1, s.intersect());
+    assertEquals(0, s.getP(0));
+    assertEquals(1, s.getQ(0));
+    assertEquals(0.5, s.getPt(0), 1e-12);
+    assertEquals(0.5, s.getQt(0), 1e-12);
+    assertFalse(s.parallel(0));
+
+    assertEquals(0, new SegmentSweep2(new Line2[0]).intersect());
+  }
+
+  @Test
+  public void test2()
+  {
+    // Collinear overlapping, touching at end points and through one point.
+    Line2[] segs=
+    {
+      new Line2(0, 0, 2, 0),
+      new Line2(3, 0, 1, 0),
+      new Line2(1, -1, 1, 1),
+      new Line2(0, 1, 2, -1),
+      new Line2(3, 0, 4, 1)
+    };
+    SegmentSweep2 s=new SegmentSweep2(segs);
+    Map<Long, Integer> found=pairs(s);
+    assertEquals(brute(segs).size(), found.size());
+
+    int k=found.get(key(0, 1));
+    assertTrue(s.parallel(k));
+    assertEquals(0.5, s.getPt(k), 1e-12);
+    assertEquals(1.0, s.getQt(k), 1e-12);
+
+    assertTrue(found.containsKey(key(0, 2)));
+    assertTrue(found.containsKey(key(0, 3)));
+    assertTrue(found.containsKey(key(2, 3)));
+    assertTrue(found.containsKey(key(1, 4)));
+  }
+
+  @Test
+  public void test3()
+  {
+    // Random segments against all pairs.
+    Random r=new Random(11L);
+    Line2[] segs=new Line2[400];
+    for (int i=0; i<segs.length; i++)
+    {
+      double x=r.nextDouble();
+      double y=r.nextDouble();
+      segs[i]=new Line2(x, y, x+0.3*(r.nextDouble()-0.5),
+        y+0.3*(r.nextDouble()-0.5));
+    }
+    compare(segs);
+  }
+
+  @Test
+  public void test4()
+  {
+    // Integer grid: Shared end points, vertical, horizontal and collinear
+    // segments and many segments through a point.
+    Random r=new Random(5L);
+    for (int round=0; round<20; round++)
+    {
+      Line2[] segs=new Line2[200];
+      for (int i=0; i<segs.length; i++)
+      {
+        int x0=r.nextInt(8);
+        int y0=r.nextInt(8);
+        int x1=x0;
+        int y1=y0;
+        while (x1==x0 && y1==y0)
+        {
+          x1=r.nextInt(8);
+          y1=r.nextInt(8);
+        }
+        segs[i]=new Line2(x0, y0, x1, y1);
+      }
+      compare(segs);
+    }
+  }
+
+  @Test
+  public void test5()
+  {
+    // Short segments crossing at small angles were taken as parallel.
+    Line2[] segs=
+    {
+      new Line2(0.9099080029561756, 0.8963150900127835, 0.8373014527774516,
+        0.9389806565036739),
+      new Line2(0.9440999116391565, 0.9474741348645344, 0.835624479923228,
+        0.8344311285057957),
+      new Line2(0.9283405485308772, 0.8922463633489114, 0.8299701273072826,
+        0.9419844921052005)
+    };
+    SegmentSweep2 s=new SegmentSweep2(segs);
+    Map<Long, Integer> found=pairs(s);
+    assertTrue(found.containsKey(key(0, 1)));
+    compare(segs);
+
+    Random r=new Random(13L);
+    segs=new Line2[2000];
+    for (int i=0; i<segs.length; i++)
+    {
+      double x=r.nextDouble();
+      double y=r.nextDouble();
+      segs[i]=new Line2(x, y, x+0.15*(r.nextDouble()-0.5),
+        y+0.15*(r.nextDouble()-0.5));
+    }
+    compare(segs);
+  }
+
+  private static void compare(Line2[] segs)
+  {
+    Map<Long, double[]> expected=brute(segs);
+    SegmentSweep2 s=new SegmentSweep2(segs);
+    Map<Long, Integer> found=pairs(s);
+    assertEquals(expected.size(), found.size());
+    for (Map.Entry<Long, double[]> e : expected.entrySet())
+    {
+      Integer k=found.get(e.getKey());
+      assertTrue(k!=null);
+      double[] v=e.getValue();
+      if (v!=null)
+      {
+        assertFalse(s.parallel(k));
+        assertEquals(v[0], s.getPt(k), 1e-9);
+        assertEquals(v[1], s.getQt(k), 1e-9);
+      }
+      else
+      {
+        assertTrue(s.parallel(k));
+      }
+    }
+  }
+
+  private static Map<Long, Integer> pairs(SegmentSweep2 s)
+  {
+    Map<Long, Integer> retVal=new HashMap<Long, Integer>();
+    int n=s.intersect();
+    for (int k=0; k<n; k++)
+    {
+      assertTrue(s.getP(k)<s.getQ(k));
+      assertEquals(null, retVal.put(key(s.getP(k), s.getQ(k)), k));
+    }
+    return retVal;
+  }
+
+  // All pairs: Parameters if crossing, null if collinear overlapping. Not
+  // Euclid.lineLine since its parallel test depends on the lengths.
+  private static Map<Long, double[]> brute(Line2[] segs)
+  {
+    double d=Comparisons.getDelta();
+    Map<Long, double[]> retVal=new HashMap<Long, double[]>();
+    for (int i=0; i<segs.length; i++)
+    {
+      for (int j=i+1; j<segs.length; j++)
+      {
+        Line2 p=segs[i];
+        Line2 q=segs[j];
+        double ux=p.x1()-p.x0();
+        double uy=p.y1()-p.y0();
+        double vx=q.x1()-q.x0();
+        double vy=q.y1()-q.y0();
+        double wx=p.x0()-q.x0();
+        double wy=p.y0()-q.y0();
+        double cross=ux*vy-uy*vx;
+        if (Math.abs(cross)>d*Math.hypot(ux, uy)*Math.hypot(vx, vy))
+        {
+          double pt=(vx*wy-vy*wx)/cross;
+          double qt=(ux*wy-uy*wx)/cross;
+          if (pt>=-d && pt<=1+d && qt>=-d && qt<=1+d)
+          {
+            retVal.put(key(i, j), new double[]{ pt, qt });
+          }
+        }
+        else if (p.distance(q.x0(), q.y0())<=d &&
+                 p.distance(q.x1(), q.y1())<=d &&
+                 (p.segmentDistance(q.x0(), q.y0())<=d ||
+                  p.segmentDistance(q.x1(), q.y1())<=d ||
+                  q.segmentDistance(p.x0(), p.y0())<=d))
+        {
+          retVal.put(key(i, j), null);
+        }
+      }
+    }
+    return retVal;
+  }
+
+  private static long key(int i, int j){ return ((long)i<<32)|j; }
+
+}
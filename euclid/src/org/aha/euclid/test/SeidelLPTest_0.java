@@ -0,0 +1,309 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Hyperplane;
+import org.aha.euclid.halfspace.SeidelLP;
+
+/**
+ * <p>
+ *   Test
+ *   {@link SeidelLP}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class SeidelLPTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public SeidelLPTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    // Square |x|<=1, |y|<=1.
+    Hyperplane[] h=new Hyperplane[]
+    {
+      new Hyperplane(-1.0, 1.0, 0.0),
+      new Hyperplane(-1.0, -1.0, 0.0),
+      new Hyperplane(-1.0, 0.0, 1.0),
+      new Hyperplane(-1.0, 0.0, -1.0)
+    };
+    SeidelLP lp=new SeidelLP(2);
+    double[] x=new double[2];
+    assertTrue(lp.solve(h, new double[]{ 1.0, 1.0 }, x));
+    assertArrayEquals(new double[]{ 1.0, 1.0 }, x, 1e-12);
+    assertTrue(lp.solve(h, new double[]{ -1.0, 0.5 }, x));
+    assertArrayEquals(new double[]{ -1.0, 1.0 }, x, 1e-12);
+
+    // Only the diagonal x+y<=1 too: Optimum on it.
+    Hyperplane[] g=new Hyperplane[]
+    {
+      h[0], h[1], h[2], h[3],
+      new Hyperplane(-1.0/Math.sqrt(2.0), 1.0/Math.sqrt(2.0),
+        1.0/Math.sqrt(2.0))
+    };
+    assertTrue(lp.solve(g, new double[]{ 2.0, 1.0 }, x));
+    assertArrayEquals(new double[]{ 1.0, 0.0 }, x, 1e-12);
+
+    // x>=2 infeasible.
+    g[4]=new Hyperplane(2.0, -1.0, 0.0);
+    assertFalse(lp.solve(g, new double[]{ 1.0, 1.0 }, x));
+
+    // Unbounded: On the box.
+    lp.setBound(1000.0);
+    assertTrue(lp.solve(new Hyperplane[]{ h[2] }, new double[]{ 1.0, 0.0 },
+      x));
+    assertEquals(1000.0, x[0], 0.0);
+    assertTrue(x[1]<=1.0);
+
+    // One dimension.
+    SeidelLP lp1=new SeidelLP(1);
+    double[] x1=new double[1];
+    Hyperplane[] h1=new Hyperplane[]
+    {
+      new Hyperplane(-3.0, 1.0),
+      new Hyperplane(1.0, -1.0)
+    };
+    assertTrue(lp1.solve(h1, new double[]{ 1.0 }, x1));
+    assertEquals(3.0, x1[0], 0.0);
+    assertTrue(lp1.solve(h1, new double[]{ -1.0 }, x1));
+    assertEquals(1.0, x1[0], 0.0);
+    h1[1]=new Hyperplane(4.0, -1.0);
+    assertFalse(lp1.solve(h1, new double[]{ 1.0 }, x1));
+  }
+
+  @Test
+  public void test2()
+  {
+    // Compared to the best feasible vertex of the constraints and the box.
+    Random r=new Random(21L);
+    int feasible=0;
+    for (int t=0; t<300; t++)
+    {
+      int d=2+t%2;
+      int m=3+r.nextInt(12);
+      Hyperplane[] h=random(r, d, m, -1.2, 0.3);
+      double[] c=new double[d];
+      for (int j=0; j<d; j++) c[j]=r.nextGaussian();
+
+      SeidelLP lp=new SeidelLP(d);
+      lp.setBound(100.0);
+      double[] x=new double[d];
+      boolean ok=lp.solve(h, c, x);
+      double best=bruteForce(h, c, d, 100.0);
+      assertEquals(ok, best>Double.NEGATIVE_INFINITY);
+      if (!ok) continue;
+
+      feasible++;
+      for (Hyperplane e : h) assertTrue(e.eva(x)<=1e-9);
+      double v=0.0;
+      for (int j=0; j<d; j++) v+=c[j]*x[j];
+      assertEquals(best, v, 1e-9*(1.0+Math.abs(best)));
+    }
+    assertTrue(feasible>50);
+  }
+
+  @Test
+  public void test3()
+  {
+    Random r=new Random(23L);
+    int n=1000;
+    Hyperplane[][] h=new Hyperplane[n][];
+    double[][] c=new double[n][];
+    double[][] x=new double[n][];
+    boolean[] f=new boolean[n];
+    for (int k=0; k<n; k++)
+    {
+      int d=2+k%3;
+      h[k]=random(r, d, 100, -1.0, 0.1);
+      c[k]=new double[d];
+      for (int j=0; j<d; j++) c[k][j]=r.nextGaussian();
+      x[k]=new double[d];
+    }
+    SeidelLP.parallelSolve(h, c, x, f);
+
+    SeidelLP[] lp=new SeidelLP[]{ null, null, new SeidelLP(2),
+      new SeidelLP(3), new SeidelLP(4) };
+    for (int k=0; k<n; k++)
+    {
+      int d=c[k].length;
+      double[] e=new double[d];
+      assertEquals(lp[d].solve(h[k], c[k], e), f[k]);
+      if (f[k]) assertArrayEquals(e, x[k], 0.0);
+    }
+  }
+
+  @Test
+  public void test4()
+  {
+    SeidelLP lp=new SeidelLP(3, 0);
+    assertEquals(3, lp.getDimension());
+    assertEquals(SeidelLP.DEFAULT_BOUND, lp.getBound(), 0.0);
+    assertEquals(SeidelLP.DEFAULT_TOLERANCE, lp.getTolerance(), 0.0);
+
+    // Grows, feasible at p.
+    Hyperplane[] h=random(new Random(25L), 3, 500, -1.0, -0.1);
+    assertTrue(lp.solve(h, new double[]{ 0.0, 0.0, 1.0 }, new double[3]));
+
+    try
+    {
+      lp.solve(h, new double[2], new double[3]);
+      fail();
+    }
+    catch (IllegalArgumentException x){}
+
+    try
+    {
+      lp.solve(new Hyperplane[]{ new Hyperplane(2) }, new double[3],
+        new double[3]);
+      fail();
+    }
+    catch (IllegalArgumentException x){}
+
+    try
+    {
+      lp.setBound(0.0);
+      fail();
+    }
+    catch (IllegalArgumentException x){}
+
+    try
+    {
+      new SeidelLP(0);
+      fail();
+    }
+    catch (IllegalArgumentException x){}
+  }
+
+  // Half-spaces with unit normals, a random point p at signed distance in
+  // [lo, hi) from each.
+  private static Hyperplane[] random(Random r, int d, int m, double lo,
+    double hi)
+  {
+    double[] p=new double[d];
+    for (int j=0; j<d; j++) p[j]=2.0*r.nextDouble()-1.0;
+    Hyperplane[] retVal=new Hyperplane[m];
+    for (int i=0; i<m; i++)
+    {
+      double[] n=new double[d];
+      double l=0.0;
+      for (int j=0; j<d; j++)
+      {
+        n[j]=r.nextGaussian();
+        l+=n[j]*n[j];
+      }
+      l=Math.sqrt(l);
+      double c=lo+(hi-lo)*r.nextDouble();
+      for (int j=0; j<d; j++)
+      {
+        n[j]/=l;
+        c-=n[j]*p[j];
+      }
+      retVal[i]=new Hyperplane(c, n);
+    }
+    return retVal;
+  }
+
+  // Best objective of the feasible vertices, -Infinity if none.
+  private static double bruteForce(Hyperplane[] h, double[] c, int d,
+    double bound)
+  {
+    int m=h.length+2*d;
+    double[][] rows=new double[m][];
+    for (int i=0; i<h.length; i++)
+    {
+      rows[i]=new double[d+1];
+      h[i].n(rows[i]);
+      rows[i][d]=h[i].c();
+    }
+    for (int j=0; j<d; j++)
+    {
+      rows[h.length+2*j]=new double[d+1];
+      rows[h.length+2*j][j]=1.0;
+      rows[h.length+2*j][d]=-bound;
+      rows[h.length+2*j+1]=new double[d+1];
+      rows[h.length+2*j+1][j]=-1.0;
+      rows[h.length+2*j+1][d]=-bound;
+    }
+
+    double best=Double.NEGATIVE_INFINITY;
+    int[] idx=new int[d];
+    for (int i=0; i<d; i++) idx[i]=i;
+    while (true)
+    {
+      double[] x=vertex(rows, idx, d);
+      if (x!=null)
+      {
+        boolean ok=true;
+        for (double[] q : rows)
+        {
+          double v=q[d];
+          for (int j=0; j<d; j++) v+=q[j]*x[j];
+          if (v>1e-9) ok=false;
+        }
+        if (ok)
+        {
+          double v=0.0;
+          for (int j=0; j<d; j++) v+=c[j]*x[j];
+          best=Math.max(best, v);
+        }
+      }
+
+      // Next combination.
+      int k=d-1;
+      while (k>=0 && idx[k]==m-d+k) k--;
+      if (k<0) return best;
+      idx[k]++;
+      for (int j=k+1; j<d; j++) idx[j]=idx[j-1]+1;
+    }
+  }
+
+  // Intersection of hyperplanes of rows idx, null if not a point.
+  private static double[] vertex(double[][] rows, int[] idx, int d)
+  {
+    double[][] a=new double[d][d+1];
+    for (int i=0; i<d; i++)
+    {
+      System.arraycopy(rows[idx[i]], 0, a[i], 0, d);
+      a[i][d]=-rows[idx[i]][d];
+    }
+    for (int i=0; i<d; i++)
+    {
+      int p=i;
+      for (int j=i+1; j<d; j++)
+      {
+        if (Math.abs(a[j][i])>Math.abs(a[p][i])) p=j;
+      }
+      if (Math.abs(a[p][i])<1e-12) return null;
+      double[] t=a[i];
+      a[i]=a[p];
+      a[p]=t;
+      for (int j=0; j<d; j++)
+      {
+        if (j==i) continue;
+        double f=a[j][i]/a[i][i];
+        for (int k=i; k<=d; k++) a[j][k]-=f*a[i][k];
+      }
+    }
+    double[] retVal=new double[d];
+    for (int i=0; i<d; i++) retVal[i]=a[i][d]/a[i][i];
+    return retVal;
+  }
+
+}
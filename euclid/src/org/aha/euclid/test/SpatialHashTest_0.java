@@ -0,0 +1,149 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Circle2;
+import org.aha.euclid.Sphere3;
+import org.aha.euclid.spatial.PairBuffer;
+import org.aha.euclid.spatial.SpatialHash;
+
+/**
+ * <p>
+ *   Test
+ *   {@link SpatialHash}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class SpatialHashTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public SpatialHashTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    Random r=new Random(3L);
+    Sphere3[] s=new Sphere3[2000];
+    for (int i=0; i<s.length; i++)
+    {
+      s[i]=new Sphere3(10*r.nextDouble(), 10*r.nextDouble(),
+        10*r.nextDouble(), 0.05+0.2*r.nextDouble());
+    }
+
+    SpatialHash h=new SpatialHash(s);
+    assertEquals(3, h.dimension());
+    PairBuffer pairs=h.pairs(null);
+    assertArrayEquals(brute(s), sorted(pairs));
+
+    // Move a little: Incremental update.
+    for (Sphere3 c : s)
+    {
+      c.set(c.x()+0.1*r.nextGaussian(), c.y()+0.1*r.nextGaussian(),
+        c.z()+0.1*r.nextGaussian(), c.getRadius());
+    }
+    double cell=h.getCellSize();
+    h.update(s);
+    assertEquals(cell, h.getCellSize(), 0.0);
+    assertArrayEquals(brute(s), sorted(h.pairs(pairs)));
+
+    // Grow: Rebuild.
+    s[7].set(s[7].x(), s[7].y(), s[7].z(), 1.0);
+    h.parallelUpdate(s);
+    assertEquals(2.0, h.getCellSize(), 0.0);
+    assertArrayEquals(brute(s), sorted(h.pairs(pairs)));
+  }
+
+  @Test
+  public void test2()
+  {
+    Random r=new Random(4L);
+    Circle2[] c=new Circle2[30000];
+    for (int i=0; i<c.length; i++)
+    {
+      c[i]=new Circle2(100*r.nextDouble(), 100*r.nextDouble(),
+        0.1*r.nextDouble());
+    }
+
+    SpatialHash h=new SpatialHash(c);
+    assertEquals(2, h.dimension());
+    PairBuffer seq=h.pairs(new PairBuffer());
+    PairBuffer par=h.parallelPairs(null);
+    assertEquals(seq.size(), par.size());
+    assertArrayEquals(Arrays.copyOf(seq.array(), 2*seq.size()),
+      Arrays.copyOf(par.array(), 2*par.size()));
+    assertTrue(seq.size()>0);
+
+    for (int k=0; k<seq.size(); k++)
+    {
+      Circle2 p=c[seq.getP(k)];
+      Circle2 q=c[seq.getQ(k)];
+      double dx=p.x()-q.x();
+      double dy=p.y()-q.y();
+      double rr=p.getRadius()+q.getRadius();
+      assertTrue(seq.getP(k)<seq.getQ(k));
+      assertTrue(dx*dx+dy*dy<=rr*rr);
+    }
+
+    // Same circles moved: Same pairs as a new one.
+    for (Circle2 o : c) o.set(o.x()+0.05, o.y()-0.02, o.getRadius());
+    h.parallelUpdate(c);
+    assertArrayEquals(sorted(new SpatialHash(c).pairs(null)),
+      sorted(h.pairs(seq)));
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void test3()
+  {
+    Sphere3[] s={ new Sphere3(), new Sphere3() };
+    new SpatialHash(s).update(new Sphere3[3]);
+  }
+
+  private static long[] brute(Sphere3[] s)
+  {
+    long[] retVal=new long[16];
+    int n=0;
+    for (int i=0; i<s.length; i++)
+    {
+      for (int j=i+1; j<s.length; j++)
+      {
+        double dx=s[i].x()-s[j].x();
+        double dy=s[i].y()-s[j].y();
+        double dz=s[i].z()-s[j].z();
+        double rr=s[i].getRadius()+s[j].getRadius();
+        if (dx*dx+dy*dy+dz*dz<=rr*rr)
+        {
+          if (n==retVal.length) retVal=Arrays.copyOf(retVal, 2*n);
+          retVal[n++]=((long)i<<32)|j;
+        }
+      }
+    }
+    return Arrays.copyOf(retVal, n);
+  }
+
+  private static long[] sorted(PairBuffer pairs)
+  {
+    long[] retVal=new long[pairs.size()];
+    for (int k=0; k<retVal.length; k++)
+    {
+      retVal[k]=((long)pairs.getP(k)<<32)|pairs.getQ(k);
+    }
+    Arrays.sort(retVal);
+    return retVal;
+  }
+
+}
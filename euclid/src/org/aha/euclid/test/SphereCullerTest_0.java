@@ -0,0 +1,242 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Plane3;
+import org.aha.euclid.Sphere3;
+import org.aha.euclid.halfspace.SphereCuller;
+
+/**
+ * <p>
+ *   Test
+ *   {@link SphereCuller} against the unit cube and random spheres, batch,
+ *   coherent and hierarchical classification against classification one by
+ *   one.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class SphereCullerTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public SphereCullerTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    SphereCuller c=new SphereCuller(cube());
+    assertEquals(6, c.size());
+
+    assertEquals(SphereCuller.INSIDE, c.classify(0.5, 0.5, 0.5, 0.25));
+    assertEquals(SphereCuller.INTERSECTING, c.classify(0.5, 0.5, 0.5, 0.75));
+    assertEquals(SphereCuller.INTERSECTING, c.classify(1.0, 0.5, 0.5, 0.1));
+    assertEquals(SphereCuller.OUTSIDE, c.classify(1.5, 0.5, 0.5, 0.25));
+    assertEquals(SphereCuller.OUTSIDE,
+      c.classify(new Sphere3(0.5, -0.5, 0.5, 0.4)));
+
+    // Conservative near a corner: Outside but behind no single plane.
+    assertEquals(SphereCuller.INTERSECTING, c.classify(1.1, 1.1, 1.1, 0.15));
+
+    // No planes: Everything inside.
+    SphereCuller all=new SphereCuller();
+    assertEquals(SphereCuller.INSIDE, all.classify(1e9, 0, 0, 1));
+    byte[] codes=new byte[1];
+    assertEquals(1, all.classify(new Sphere3[]{ new Sphere3() }, codes,
+      new int[1]));
+    assertEquals(SphereCuller.INSIDE, codes[0]);
+  }
+
+  @Test
+  public void test2()
+  {
+    // Batches, object and array form, with and without coherence, agree
+    // with one by one.
+    Random r=new Random(2L);
+    SphereCuller c=new SphereCuller(cube());
+
+    int n=5000;
+    Sphere3[] s=new Sphere3[n];
+    double[] x=new double[n];
+    double[] y=new double[n];
+    double[] z=new double[n];
+    double[] rr=new double[n];
+    byte[] expected=new byte[n];
+    int count=0;
+    for (int i=0; i<n; i++)
+    {
+      x[i]=-1.0+3.0*r.nextDouble();
+      y[i]=-1.0+3.0*r.nextDouble();
+      z[i]=-1.0+3.0*r.nextDouble();
+      rr[i]=0.2*r.nextDouble();
+      s[i]=new Sphere3(x[i], y[i], z[i], rr[i]);
+      expected[i]=c.classify(s[i]);
+      if (expected[i]!=SphereCuller.OUTSIDE) count++;
+    }
+    assertTrue(count>0 && count<n);
+
+    byte[] codes=new byte[n];
+    assertEquals(count, c.classify(s, codes));
+    assertArrayEquals(expected, codes);
+
+    Arrays.fill(codes, (byte)-1);
+    assertEquals(count, c.classify(x, y, z, rr, 0, n, codes));
+    assertArrayEquals(expected, codes);
+
+    int[] last=new int[n];
+    for (int frame=0; frame<3; frame++)
+    {
+      Arrays.fill(codes, (byte)-1);
+      assertEquals(count, c.classify(x, y, z, rr, 0, n, codes, last));
+      assertArrayEquals(expected, codes);
+
+      Arrays.fill(codes, (byte)-1);
+      assertEquals(count, c.classify(s, codes, last));
+      assertArrayEquals(expected, codes);
+
+      // The last plane of a sphere outside rejects it.
+      Plane3[] planes=cube();
+      for (int i=0; i<n; i++)
+      {
+        if (expected[i]!=SphereCuller.OUTSIDE) continue;
+        assertTrue(planes[last[i]].axbyczd(x[i], y[i], z[i])>rr[i]);
+      }
+    }
+
+    // Range: Only [from, to) assigned.
+    Arrays.fill(codes, (byte)-1);
+    c.classify(x, y, z, rr, 100, 200, codes);
+    for (int i=0; i<n; i++)
+    {
+      assertEquals((i>=100 && i<200) ? expected[i] : -1, codes[i]);
+    }
+  }
+
+  @Test
+  public void test3()
+  {
+    // Tree of clusters, each parent enclosing its children: Same codes as
+    // classified one by one.
+    Random r=new Random(3L);
+    SphereCuller c=new SphereCuller(cube());
+
+    int clusters=300;
+    int per=8;
+    int n=clusters*(per+1)+1;
+    double[] x=new double[n];
+    double[] y=new double[n];
+    double[] z=new double[n];
+    double[] rr=new double[n];
+    int[] skip=new int[n];
+
+    // Root enclosing all.
+    x[0]=0.5;
+    y[0]=0.5;
+    z[0]=0.5;
+    rr[0]=4.0;
+    skip[0]=n;
+
+    int i=1;
+    for (int k=0; k<clusters; k++)
+    {
+      double cx=-1.0+3.0*r.nextDouble();
+      double cy=-1.0+3.0*r.nextDouble();
+      double cz=-1.0+3.0*r.nextDouble();
+      int parent=i++;
+      x[parent]=cx;
+      y[parent]=cy;
+      z[parent]=cz;
+      rr[parent]=0.3;
+      skip[parent]=parent+per+1;
+      for (int j=0; j<per; j++)
+      {
+        double cr=0.1*r.nextDouble();
+        x[i]=cx+(0.2-cr)*(2.0*r.nextDouble()-1.0)/Math.sqrt(3.0);
+        y[i]=cy+(0.2-cr)*(2.0*r.nextDouble()-1.0)/Math.sqrt(3.0);
+        z[i]=cz+(0.2-cr)*(2.0*r.nextDouble()-1.0)/Math.sqrt(3.0);
+        rr[i]=cr;
+        skip[i]=i+1;
+        i++;
+      }
+    }
+
+    byte[] expected=new byte[n];
+    int count=c.classify(x, y, z, rr, 0, n, expected);
+    byte[] codes=new byte[n];
+    assertEquals(count, c.classifyTree(x, y, z, rr, skip, codes));
+    assertArrayEquals(expected, codes);
+
+    // Flat: Every sphere a root.
+    int[] flat=new int[n];
+    for (int j=0; j<n; j++) flat[j]=j+1;
+    Arrays.fill(codes, (byte)-1);
+    assertEquals(count, c.classifyTree(x, y, z, rr, flat, codes));
+    assertArrayEquals(expected, codes);
+  }
+
+  @Test
+  public void test4()
+  {
+    SphereCuller c=new SphereCuller(cube());
+    double[] a=new double[3];
+    double[] r={ 1, 1, 1 };
+    byte[] codes=new byte[3];
+
+    try
+    {
+      c.classifyTree(a, a, a, r, new int[]{ 3, 1, 3 }, codes);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+
+    try
+    {
+      c.classifyTree(a, a, a, r, new int[]{ 2, 3, 3 }, codes);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+
+    try
+    {
+      c.classify(a, a, a, a, 0, 4, codes);
+      fail();
+    }
+    catch (IndexOutOfBoundsException ioobe){}
+
+    try
+    {
+      c.classify(new Sphere3[3], new byte[2]);
+      fail();
+    }
+    catch (IllegalArgumentException iae){}
+  }
+
+  // Planes of the unit cube, normals out.
+  private static Plane3[] cube()
+  {
+    return new Plane3[]
+    {
+      new Plane3(1, 0, 0, 1, 0, 0),
+      new Plane3(0, 0, 0, -1, 0, 0),
+      new Plane3(0, 1, 0, 0, 1, 0),
+      new Plane3(0, 0, 0, 0, -1, 0),
+      new Plane3(0, 0, 1, 0, 0, 1),
+      new Plane3(0, 0, 0, 0, 0, -1)
+    };
+  }
+
+}
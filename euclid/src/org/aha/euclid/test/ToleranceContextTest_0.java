@@ -0,0 +1,142 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line2;
+import org.aha.euclid.math.Comparisons;
+import org.aha.euclid.math.ToleranceContext;
+
+/**
+ * <p>
+ *   Test
+ *   {@link ToleranceContext}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class ToleranceContextTest_0
+{
+  private static final ToleranceContext c_coarse=new ToleranceContext(1e-2);
+
+  // Almost parallel: a*c-b*b of lineLine is 1e-6.
+  private static final Line2 c_p=new Line2(0, 0, 1, 0);
+
+  private static final Line2 c_q=new Line2(0, 1, 1, 1.001);
+
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public ToleranceContextTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    assertEquals(Comparisons.DEFAULT_DELTA, Comparisons.getDelta(), 0.0);
+    assertSame(ToleranceContext.DEFAULT, ToleranceContext.current());
+
+    c_coarse.run(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        assertEquals(1e-2, Comparisons.getDelta(), 0.0);
+        assertTrue(Comparisons.zero(1e-3));
+        assertSame(c_coarse, ToleranceContext.current());
+
+        new ToleranceContext(0.0).run(new Runnable()
+        {
+          @Override
+          public void run(){ assertFalse(Comparisons.zero(1e-9)); }
+        });
+
+        assertSame(c_coarse, ToleranceContext.current());
+      }
+    });
+
+    assertEquals(Comparisons.DEFAULT_DELTA, Comparisons.getDelta(), 0.0);
+    assertFalse(Comparisons.zero(1e-3));
+  }
+
+  @Test
+  public void test2() throws InterruptedException
+  {
+    final boolean[] other=new boolean[1];
+    c_coarse.run(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        Thread t=new Thread(new Runnable()
+        {
+          @Override
+          public void run(){ other[0]=Comparisons.zero(1e-3); }
+        });
+        t.start();
+        try { t.join(); }
+        catch (InterruptedException ix){ throw new Error(ix); }
+      }
+    });
+
+    // Binding is not seen by other threads.
+    assertFalse(other[0]);
+  }
+
+  @Test
+  public void test3()
+  {
+    Euclid fine=new Euclid(new ToleranceContext(1e-9));
+    Euclid coarse=new Euclid(c_coarse);
+
+    assertTrue(fine.lineLine(c_p, c_q));
+    assertFalse(coarse.lineLine(c_p, c_q));
+    assertTrue(coarse.parallel());
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void test4(){ new ToleranceContext(-1.0); }
+
+  @Test
+  public void test5() throws Exception
+  {
+    // Global delta in effect again when unbound, also if the task throws.
+    try
+    {
+      c_coarse.run(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          assertEquals(1e-2, Comparisons.getDelta(), 0.0);
+          throw new IllegalStateException();
+        }
+      });
+      fail();
+    }
+    catch (IllegalStateException ise){}
+    assertEquals(Comparisons.DEFAULT_DELTA, Comparisons.getDelta(), 0.0);
+    assertFalse(Comparisons.zero(1e-3));
+
+    double d=c_coarse.call(new Callable<Double>()
+    {
+      @Override
+      public Double call(){ return Comparisons.getDelta(); }
+    });
+    assertEquals(1e-2, d, 0.0);
+    assertSame(ToleranceContext.DEFAULT, ToleranceContext.current());
+  }
+
+}
@@ -0,0 +1,188 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Circle2;
+import org.aha.euclid.Euclid;
+import org.aha.euclid.Line3;
+import org.aha.euclid.Sphere3;
+import org.aha.euclid.Triangle2;
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.math.EuclidMath;
+
+/**
+ * <p>
+ *   Test
+ *   {@link Triangle3#intersect(Line3, boolean, double[])} and cached derived
+ *   quantities of
+ *   {@link Triangle3} and
+ *   {@link Triangle2}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class Triangle3Test_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public Triangle3Test_0(){}
+
+  @Test
+  public void test1()
+  {
+    Triangle3 t=new Triangle3();
+    t.set(0, 0, 0,
+          1, 0, 0,
+          0, 1, 0);
+
+    // Normal is [0, 0, 1]: Line going down hits the front face.
+    Line3 down=new Line3(0.25, 0.5, 1.0, 0.25, 0.5, 0.0);
+    Line3 up=new Line3(0.25, 0.5, -1.0, 0.25, 0.5, 0.0);
+
+    double[] tuv=new double[3];
+    assertTrue(t.intersect(down, true, tuv));
+    assertEquals(1.0, tuv[0], 1e-12);
+    assertEquals(0.25, tuv[1], 1e-12);
+    assertEquals(0.5, tuv[2], 1e-12);
+
+    assertFalse(t.intersect(up, true, tuv));
+    assertTrue(t.intersect(up, false, tuv));
+    assertEquals(1.0, tuv[0], 1e-12);
+
+    Line3 outside=new Line3(0.75, 0.5, 1.0, 0.75, 0.5, 0.0);
+    assertFalse(t.intersect(outside, false, tuv));
+
+    Line3 parallel=new Line3(0.25, 0.25, 0.0, 0.5, 0.25, 0.0);
+    assertFalse(t.intersect(parallel, false, tuv));
+  }
+
+  @Test
+  public void test2()
+  {
+    Random r=new Random(3L);
+    Euclid e=new Euclid();
+    Triangle3 t=new Triangle3();
+    double[] tuv=new double[3];
+
+    for (int i=0; i<1000; i++)
+    {
+      t.set(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+            r.nextDouble(), r.nextDouble(), r.nextDouble(),
+            r.nextDouble(), r.nextDouble(), r.nextDouble());
+      Line3 l=new Line3(r.nextDouble(), r.nextDouble(), -1.0,
+        r.nextDouble(), r.nextDouble(), 2.0);
+
+      boolean expected=e.planeLine(t, l) &&
+        t.inside(l.getPointX(e.getPt()), l.getPointY(e.getPt()),
+          l.getPointZ(e.getPt()));
+
+      assertEquals(expected, t.intersect(l, false, tuv));
+      if (expected)
+      {
+        assertEquals(e.getPt(), tuv[0], 1e-9);
+        double[] bc=t.barycentric(l.getPointX(tuv[0]), l.getPointY(tuv[0]),
+          l.getPointZ(tuv[0]));
+        assertEquals(bc[1], tuv[1], 1e-6);
+        assertEquals(bc[2], tuv[2], 1e-6);
+      }
+    }
+  }
+
+  @Test
+  public void test3()
+  {
+    Random r=new Random(5L);
+    Triangle3 t=new Triangle3();
+    Triangle3 ct=new Triangle3();
+    ct.setCached(true);
+    assertTrue(ct.isCached());
+    Sphere3 s=new Sphere3();
+    Sphere3 cs=new Sphere3();
+
+    for (int i=0; i<1000; i++)
+    {
+      t.set(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+            r.nextDouble(), r.nextDouble(), r.nextDouble(),
+            r.nextDouble(), r.nextDouble(), r.nextDouble());
+
+      // Read before set to see the cache is invalidated.
+      if (i>0) ct.ratio();
+      ct.set(t.getP0(), t.getP1(), t.getP2());
+
+      assertEquals(t.area(), ct.area(), 0.0);
+      assertEquals(t.length0(), ct.length0(), 0.0);
+      assertEquals(t.length1(), ct.length1(), 0.0);
+      assertEquals(t.length2(), ct.length2(), 0.0);
+      assertEquals(t.perimeter(), ct.perimeter(), 0.0);
+      assertEquals(t.inscribedRadius(), ct.inscribedRadius(), 0.0);
+      assertEquals(t.circumscribedRadius(), ct.circumscribedRadius(), 0.0);
+      assertEquals(t.ratio(), ct.ratio(), 0.0);
+
+      t.inscribed(s);
+      ct.inscribed(cs);
+      assertEquals(s, cs);
+      t.circumscribed(s);
+      ct.circumscribed(cs);
+      assertEquals(s, cs);
+    }
+
+    Triangle3 copy=new Triangle3(ct);
+    assertTrue(copy.isCached());
+    assertEquals(ct.area(), copy.area(), 0.0);
+
+    ct.set(new Triangle3());
+    ct.setCached(false);
+    assertFalse(ct.isCached());
+  }
+
+  @Test
+  public void test4()
+  {
+    Random r=new Random(7L);
+    Triangle2 t=new Triangle2();
+    Triangle2 ct=new Triangle2();
+    ct.setCached(true);
+    Circle2 c=new Circle2();
+    Circle2 cc=new Circle2();
+
+    for (int i=0; i<1000; i++)
+    {
+      t.set(r.nextDouble(), r.nextDouble(), r.nextDouble(), r.nextDouble(),
+            r.nextDouble(), r.nextDouble());
+      if (i>0) ct.ratio();
+      ct.set(t.getP0(), t.getP1(), t.getP2());
+
+      assertEquals(t.area(), ct.area(), 0.0);
+      assertEquals(t.perimeter(), ct.perimeter(), 1e-15);
+      assertEquals(t.circumscribedRadius(), ct.circumscribedRadius(), 0.0);
+      assertEquals(t.ratio(), ct.ratio(), 1e-9*t.ratio());
+
+      t.circumscribed(c);
+      ct.circumscribed(cc);
+      assertEquals(c, cc);
+
+      // Inscribed circle's center is at distance radius from all sides.
+      ct.inscribed(cc);
+      double d0=2.0*EuclidMath.area(t.x0(), t.y0(), t.x1(), t.y1(), cc.x(),
+        cc.y())/t.length0();
+      double d1=2.0*EuclidMath.area(t.x1(), t.y1(), t.x2(), t.y2(), cc.x(),
+        cc.y())/t.length1();
+      assertEquals(cc.getRadius(), d0, 1e-9);
+      assertEquals(cc.getRadius(), d1, 1e-9);
+      assertTrue(t.inside(cc.x(), cc.y()));
+    }
+  }
+
+}
@@ -0,0 +1,107 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.Triangle3;
+import org.aha.euclid.TriangleBatch3;
+
+/**
+ * <p>
+ *   Test
+ *   {@link TriangleBatch3} bulk methods against the
+ *   {@link Triangle3} methods.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class TriangleBatch3Test_0
+{
+  private static final int N=500;
+
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public TriangleBatch3Test_0(){}
+
+  @Test
+  public void test1()
+  {
+    Random r=new Random(7L);
+    Triangle3[] tris=new Triangle3[N];
+    for (int i=0; i<N; i++)
+    {
+      tris[i]=new Triangle3();
+      tris[i].set(r.nextDouble(), r.nextDouble(), r.nextDouble(),
+                  r.nextDouble(), r.nextDouble(), r.nextDouble(),
+                  r.nextDouble(), r.nextDouble(), r.nextDouble());
+    }
+
+    TriangleBatch3 batch=new TriangleBatch3(tris);
+    double x=0.4;
+    double y=0.5;
+    double z=0.6;
+
+    double[] a=batch.area(0, N, null);
+    double[] c=batch.centroid(0, N, null);
+    double[] d=batch.axbyczd(0, N, x, y, z, null);
+    boolean[] in=batch.inside(0, N, x, y, z, null);
+
+    double[] tc=new double[3];
+    for (int i=0; i<N; i++)
+    {
+      Triangle3 t=tris[i];
+      assertEquals(t.area(), a[i], 1e-12);
+      t.centroid(tc);
+      assertEquals(tc[0], c[3*i], 1e-12);
+      assertEquals(tc[1], c[3*i+1], 1e-12);
+      assertEquals(tc[2], c[3*i+2], 1e-12);
+      assertEquals(t.axbyczd(x, y, z), d[i], 1e-12);
+      assertEquals(t.inside(x, y, z), in[i]);
+    }
+  }
+
+  @Test
+  public void test2()
+  {
+    Random r=new Random(11L);
+    TriangleBatch3 batch=new TriangleBatch3(N);
+    Triangle3 t=new Triangle3();
+    double[] bc=new double[3*N];
+    double[] tbc=new double[3];
+
+    for (int i=0; i<N; i++)
+    {
+      batch.set(i, r.nextDouble(), r.nextDouble(), r.nextDouble(),
+                   r.nextDouble(), r.nextDouble(), r.nextDouble(),
+                   r.nextDouble(), r.nextDouble(), r.nextDouble());
+    }
+
+    for (int i=0; i<N; i++)
+    {
+      // Barycentric of a point in the triangle's plane.
+      batch.get(i, t);
+      double[] p=t.closest(0.5, 0.5, 0.5);
+      batch.barycentric(i, i+1, p[0], p[1], p[2], bc);
+      t.barycentric(p[0], p[1], p[2], tbc);
+      assertEquals(tbc[0], bc[0], 1e-6);
+      assertEquals(tbc[1], bc[1], 1e-6);
+      assertEquals(tbc[2], bc[2], 1e-6);
+    }
+
+    // Default triangles are as the default Triangle3.
+    TriangleBatch3 dflt=new TriangleBatch3(1);
+    assertEquals(new Triangle3(), dflt.get(0, null));
+    assertEquals(new Triangle3().d(), dflt.axbyczd(0, 1, 0, 0, 0, null)[0],
+      0.0);
+  }
+
+}
@@ -0,0 +1,98 @@
+//
+// 261017 - AH - Checked in.
+//
+
+package org.aha.euclid.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.aha.euclid.math.Vectors;
+
+/**
+ * <p>
+ *   Test the n-dimensional methods of
+ *   {@link Vectors}.
+ * </p>
+ * @author Arne Halvorsen (AH)
+ */
+public final class VectorsTest_0
+{
+  /**
+   * <p>
+   *   Constructor.
+   * </p>
+   */
+  public VectorsTest_0(){}
+
+  @Test
+  public void test1()
+  {
+    Random r=new Random(5L);
+    for (int n=0; n<40; n++)
+    {
+      double[] u=random(r, n);
+      double[] v=random(r, n);
+
+      double uv=0.0;
+      double uu=0.0;
+      double vv=0.0;
+      double dd=0.0;
+      for (int i=0; i<n; i++)
+      {
+        uv+=u[i]*v[i];
+        uu+=u[i]*u[i];
+        vv+=v[i]*v[i];
+        dd+=(u[i]-v[i])*(u[i]-v[i]);
+      }
+
+      assertEquals(uv, Vectors.dot(u, v), 1e-12);
+      assertEquals(Math.sqrt(uu), Vectors.len(u), 1e-12);
+      assertEquals(Math.sqrt(dd), Vectors.len(u, v), 1e-12);
+
+      double[] r3=Vectors.dotLen(u, v, null);
+      assertEquals(uv, r3[0], 1e-12);
+      assertEquals(Math.sqrt(uu), r3[1], 1e-12);
+      assertEquals(Math.sqrt(vv), r3[2], 1e-12);
+    }
+  }
+
+  @Test
+  public void test2()
+  {
+    Random r=new Random(9L);
+    for (int n=0; n<10; n++)
+    {
+      double[] u=random(r, n);
+      double[] v=random(r, n);
+      double[] w=new double[n];
+
+      double[] neg=Vectors.neg(u, null);
+      for (int i=0; i<n; i++) assertEquals(-u[i], neg[i], 0.0);
+
+      Vectors.axpy(2.0, u, v, w);
+      for (int i=0; i<n; i++) assertEquals(2.0*u[i]+v[i], w[i], 0.0);
+
+      Vectors.axpy(2.0, u, v);
+      assertArrayEquals(w, v, 0.0);
+    }
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void test3()
+  {
+    Vectors.axpy(1.0, new double[3], new double[4]);
+  }
+
+  private static double[] random(Random r, int n)
+  {
+    double[] retVal=new double[n];
+    for (int i=0; i<n; i++) retVal[i]=r.nextDouble()-0.5;
+    return retVal;
+  }
+
+}